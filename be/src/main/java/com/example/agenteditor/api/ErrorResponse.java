@@ -3,14 +3,20 @@ package com.example.agenteditor.api;
 import com.example.agenteditor.validation.ValidationError;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
- * Standard error response body (4xx/5xx): message and optional field errors.
+ * Standard error response body (4xx/5xx): message, optional field errors, and the id of a failed run
+ * (resumable from its checkpoints).
  */
-public record ErrorResponse(String message, List<ValidationError> errors) {
+public record ErrorResponse(String message, List<ValidationError> errors, UUID runId) {
 
     public ErrorResponse(String message) {
-        this(message, null);
+        this(message, null, null);
+    }
+
+    public ErrorResponse(String message, List<ValidationError> errors) {
+        this(message, errors, null);
     }
 
     public static ErrorResponse withErrors(String message, List<ValidationError> errors) {
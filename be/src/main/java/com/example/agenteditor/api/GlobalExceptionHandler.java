@@ -1,10 +1,13 @@
 package com.example.agenteditor.api;
 
+import com.example.agenteditor.interpreter.BudgetExceededException;
+import com.example.agenteditor.llm.CircuitOpenException;
 import com.example.agenteditor.validation.ValidationError;
 import com.example.agenteditor.validation.WorkflowGraphValidationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -19,7 +22,10 @@ import java.util.stream.Collectors;
  * Central exception handling for the REST API.
  * <p>
  * Maps exceptions to HTTP status and {@link ErrorResponse} body: not found → 404,
- * graph/bean validation → 400 with optional {@code errors} list. No stack traces or PII in responses.
+ * graph/bean validation → 400 with optional {@code errors} list, failed runs → 400/500 with {@code runId},
+ * runs rejected by admission control → 429/503 with {@code Retry-After}, runs stopped or rejected by a budget → 422,
+ * runs failed on an open model circuit → 503 with {@code Retry-After}.
+ * No stack traces or PII in responses.
  * </p>
  */
 @RestControllerAdvice
@@ -35,6 +41,71 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("Workflow not found: " + ex.getWorkflowId()));
     }
 
+    @ExceptionHandler(WorkflowVersionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleWorkflowVersionNotFound(WorkflowVersionNotFoundException ex) {
+        log.warn("Workflow version not found: workflowId={} versionId={}", ex.getWorkflowId(), ex.getVersionId());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(RunNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleRunNotFound(RunNotFoundException ex) {
+        log.warn("Run not found: {}", ex.getRunId());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse("Run not found: " + ex.getRunId()));
+    }
+
+    @ExceptionHandler(RunFailedException.class)
+    public ResponseEntity<ErrorResponse> handleRunFailed(RunFailedException ex) {
+        BudgetExceededException budget = BudgetExceededException.find(ex.getCause());
+        if (budget != null) {
+            log.warn("Run stopped runId={}: {}", ex.getRunId(), budget.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.UNPROCESSABLE_CONTENT)
+                    .body(new ErrorResponse(budget.getMessage(), null, ex.getRunId()));
+        }
+        CircuitOpenException open = CircuitOpenException.find(ex.getCause());
+        if (open != null) {
+            log.warn("Run failed runId={}: {}", ex.getRunId(), open.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, open.getRetryAfter().toSeconds())))
+                    .body(new ErrorResponse(open.getMessage(), null, ex.getRunId()));
+        }
+        if (ex.getCause() instanceof IllegalArgumentException) {
+            log.warn("Run failed runId={}: {}", ex.getRunId(), ex.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(ex.getMessage() != null ? ex.getMessage() : "Invalid request", null, ex.getRunId()));
+        }
+        log.error("Run failed runId={}: {}", ex.getRunId(), ex.getMessage(), ex.getCause());
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("An error occurred while running the workflow", null, ex.getRunId()));
+    }
+
+    @ExceptionHandler(RunRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleRunRejected(RunRejectedException ex) {
+        log.warn("Run rejected reason={}: {}", ex.getReason(), ex.getMessage());
+        HttpStatus status = ex.getReason() == RunRejectedException.Reason.WORKFLOW_LIMIT
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity
+                .status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter().toSeconds()))
+                .body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(BudgetExceededException.class)
+    public ResponseEntity<ErrorResponse> handleBudgetExceeded(BudgetExceededException ex) {
+        log.warn("Run rejected by {} budget: {}", ex.getScope(), ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_CONTENT)
+                .body(new ErrorResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(WorkflowGraphValidationException.class)
     public ResponseEntity<ErrorResponse> handleGraphValidation(WorkflowGraphValidationException ex) {
         log.warn("Workflow graph validation failed: {} errors={}", ex.getMessage(), ex.getErrors() != null ? ex.getErrors().size() : 0);
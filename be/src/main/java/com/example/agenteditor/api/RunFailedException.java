@@ -0,0 +1,23 @@
+package com.example.agenteditor.api;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a workflow run fails while executing; carries the run id so the client can resume it.
+ * <p>
+ * Mapped by {@link GlobalExceptionHandler} to 400 when the cause is an {@link IllegalArgumentException},
+ * otherwise 500, with {@code runId} in the body.
+ * </p>
+ */
+@Getter
+public class RunFailedException extends RuntimeException {
+
+    private final UUID runId;
+
+    public RunFailedException(UUID runId, RuntimeException cause) {
+        super(cause.getMessage(), cause);
+        this.runId = runId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.agenteditor.api;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a run has no checkpoints to resume from (unknown run, or a run of another workflow).
+ * <p>
+ * Mapped to HTTP 404 by {@link GlobalExceptionHandler}.
+ * </p>
+ */
+@Getter
+public class RunNotFoundException extends RuntimeException {
+
+    private final UUID runId;
+
+    public RunNotFoundException(UUID runId) {
+        super("Run not found: " + runId);
+        this.runId = runId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.agenteditor.api;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a run is not admitted because the service or the workflow is at its run limit.
+ * <p>
+ * Mapped by {@link GlobalExceptionHandler} to HTTP 429 for {@link Reason#WORKFLOW_LIMIT} and 503 otherwise, with a
+ * {@code Retry-After} header of {@link #getRetryAfter()}.
+ * </p>
+ */
+@Getter
+public class RunRejectedException extends RuntimeException {
+
+    public enum Reason {
+        /** The wait queue is full. */
+        QUEUE_FULL,
+        /** The run waited longer than {@code agent.admission.max-queue-time} for a slot. */
+        QUEUE_TIMEOUT,
+        /** The workflow already has its limit of runs in progress or queued. */
+        WORKFLOW_LIMIT
+    }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public RunRejectedException(Reason reason, String message, Duration retryAfter) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.agenteditor.api;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a workflow version is not found by id, or belongs to another workflow.
+ * <p>
+ * Mapped to HTTP 404 by {@link GlobalExceptionHandler}.
+ * </p>
+ */
+@Getter
+public class WorkflowVersionNotFoundException extends RuntimeException {
+
+    private final UUID workflowId;
+    private final UUID versionId;
+
+    public WorkflowVersionNotFoundException(UUID workflowId, UUID versionId) {
+        super("Version " + versionId + " not found for workflow " + workflowId);
+        this.workflowId = workflowId;
+        this.versionId = versionId;
+    }
+}
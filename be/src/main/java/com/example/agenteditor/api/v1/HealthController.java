@@ -1,5 +1,9 @@
 package com.example.agenteditor.api.v1;
 
+import com.example.agenteditor.llm.CircuitBreaker;
+import com.example.agenteditor.llm.CircuitBreakerRegistry;
+
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.ResponseEntity;
@@ -7,22 +11,33 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * Health check endpoint for the backend.
  * <p>
- * GET /api/v1/health returns 200 with status and service name.
+ * GET /api/v1/health returns 200 with status and service name, and the circuit breaker of every model endpoint
+ * called so far ({@code circuits}: baseUrl, model, state, calls, failureRate, slowCallRate). Status is
+ * {@code DEGRADED} while any circuit is open; the service itself still answers.
  * </p>
  */
 @RestController
 @RequestMapping("/api/v1")
+@RequiredArgsConstructor
 @Slf4j
 public class HealthController {
 
+    private final CircuitBreakerRegistry circuitBreakers;
+
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> health() {
+    public ResponseEntity<Map<String, Object>> health() {
         log.trace("Health check");
-        return ResponseEntity.ok(Map.of("status", "UP", "service", "agent-ui-editor-be"));
+        List<CircuitBreaker.Snapshot> circuits = circuitBreakers.snapshots();
+        boolean degraded = circuits.stream().anyMatch(c -> c.state() == CircuitBreaker.State.OPEN);
+        return ResponseEntity.ok(Map.of(
+                "status", degraded ? "DEGRADED" : "UP",
+                "service", "agent-ui-editor-be",
+                "circuits", circuits));
     }
 }
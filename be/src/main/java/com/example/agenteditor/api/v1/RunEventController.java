@@ -0,0 +1,42 @@
+package com.example.agenteditor.api.v1;
+
+import com.example.agenteditor.api.v1.dto.RunEventListResponse;
+import com.example.agenteditor.eventlog.RunEventLog;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reads the run event log (only when {@code agent.event-log.enabled}).
+ * <p>
+ * GET /api/v1/run-events returns the latest events; pass the returned {@code next} as {@code from} to poll for
+ * newer ones. {@code from=0} reads from the oldest retained event.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/run-events")
+@ConditionalOnProperty(prefix = "agent.event-log", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RunEventController {
+
+    static final int MAX_LIMIT = 10_000;
+
+    private final RunEventLog eventLog;
+
+    @GetMapping
+    public ResponseEntity<RunEventListResponse> read(
+            @RequestParam(required = false) Long from,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        RunEventLog.Batch batch = from != null ? eventLog.read(from, limit) : eventLog.tail(limit);
+        return ResponseEntity.ok(new RunEventListResponse(batch.events(), batch.next()));
+    }
+}
@@ -1,11 +1,18 @@
 package com.example.agenteditor.api.v1;
 
+import com.example.agenteditor.api.RunFailedException;
+import com.example.agenteditor.api.v1.dto.ExecutionPlanDto;
 import com.example.agenteditor.api.v1.dto.RunWorkflowResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowCreateRequest;
 import com.example.agenteditor.api.v1.dto.WorkflowIdResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowListResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowResponse;
+import com.example.agenteditor.api.v1.dto.WorkflowRunListResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowUpdateRequest;
+import com.example.agenteditor.api.v1.dto.WorkflowVersionListResponse;
+import com.example.agenteditor.interpreter.RunCaller;
+import com.example.agenteditor.service.RunAdmissionService;
+import com.example.agenteditor.service.RunHistoryService;
 import com.example.agenteditor.service.WorkflowDefinitionService;
 import com.example.agenteditor.service.WorkflowRunService;
 
@@ -15,6 +22,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,18 +30,38 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for workflow CRUD operations.
  * <p>
  * Exposes {@code /api/v1/workflows} for create (POST), list (GET), get by id (GET /{id}),
  * update (PUT /{id}), and delete (DELETE /{id}). Request/response bodies use DTOs; create and
- * update are validated with {@code @Valid}.
+ * update are validated with {@code @Valid}. Saved graphs are versioned: GET /{id}/versions lists
+ * immutable snapshots and POST /{id}/run accepts an optional {@code versionId} to pin one.
+ * POST /{id}/run/stream runs the same way but streams map-node partial results as server-sent events.
+ * Both accept an optional {@code engine} ({@code INTERPRETER} or {@code DAG}) overriding the workflow's engine.
+ * GET /{id}/explain returns the stages each sequence runs in and the estimated latency saved.
+ * Runs are checkpointed under a {@code runId}; POST /{id}/runs/{runId}/resume continues a failed run
+ * after its last completed step. Both run endpoints accept a {@code previousRunId} for an incremental run that
+ * reuses that run's results for nodes the edits since then do not affect. GET /{id}/runs lists the recorded
+ * run history, newest first. Runs and resumes pass {@link RunAdmissionService} first and are rejected with
+ * 429/503 and {@code Retry-After} when saturated; a stream is admitted before its response starts. An optional
+ * {@code priority} ({@code INTERACTIVE}, {@code STANDARD} or {@code BATCH}) orders queued runs and LLM calls, and
+ * the optional {@code X-Tenant-Id} header names the tenant whose LLM quota the run uses. A run that reaches its
+ * token or cost budget fails with 422, and a workflow over its window budget is rejected with 422 before it runs.
  * </p>
  */
 @RestController
@@ -42,8 +70,13 @@ import java.util.UUID;
 @Slf4j
 public class WorkflowController {
 
+    static final String TENANT_HEADER = "X-Tenant-Id";
+
     private final WorkflowDefinitionService service;
     private final WorkflowRunService runService;
+    private final RunHistoryService historyService;
+    private final RunAdmissionService admission;
+    private final ExecutorService runStreamExecutor;
 
     @PostMapping
     public ResponseEntity<WorkflowIdResponse> create(@Valid @RequestBody WorkflowCreateRequest request) {
@@ -85,9 +118,111 @@ public class WorkflowController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<WorkflowVersionListResponse> versions(@PathVariable UUID id) {
+        log.debug("Listing versions for workflow id={}", id);
+        return ResponseEntity.ok(new WorkflowVersionListResponse(service.findVersions(id)));
+    }
+
+    @GetMapping("/{id}/explain")
+    public ResponseEntity<ExecutionPlanDto> explain(@PathVariable UUID id, @RequestParam(required = false) UUID versionId) {
+        log.info("Explaining workflow id={} versionId={}", id, versionId);
+        return ResponseEntity.ok(runService.explain(id, versionId));
+    }
+
+    @GetMapping("/{id}/runs")
+    public ResponseEntity<WorkflowRunListResponse> runs(@PathVariable UUID id) {
+        log.debug("Listing run history for workflow id={}", id);
+        return ResponseEntity.ok(new WorkflowRunListResponse(historyService.findRuns(id)));
+    }
+
     @PostMapping("/{id}/run")
-    public ResponseEntity<RunWorkflowResponse> run(@PathVariable UUID id, @RequestBody(required = false) Map<String, Object> input) {
-        log.info("Running workflow id={} inputKeys={}", id, input != null ? input.keySet().size() : 0);
-        return ResponseEntity.ok(runService.run(id, input != null ? input : Map.of()));
+    public ResponseEntity<RunWorkflowResponse> run(
+            @PathVariable UUID id,
+            @RequestParam(required = false) UUID versionId,
+            @RequestParam(required = false) String engine,
+            @RequestParam(required = false) UUID previousRunId,
+            @RequestParam(required = false) String priority,
+            @RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+            @RequestBody(required = false) Map<String, Object> input) {
+        log.info("Running workflow id={} versionId={} engine={} previousRunId={} tenant={} priority={} inputKeys={}", id, versionId, engine, previousRunId, tenant, priority, input != null ? input.keySet().size() : 0);
+        RunCaller caller = RunCaller.of(tenant, priority);
+        try (RunAdmissionService.Permit permit = admission.acquire(id, caller.priority())) {
+            return ResponseEntity.ok(runService.run(id, versionId, engine, input != null ? input : Map.of(), partial -> { }, previousRunId, caller));
+        }
+    }
+
+    @PostMapping("/{id}/runs/{runId}/resume")
+    public ResponseEntity<RunWorkflowResponse> resume(
+            @PathVariable UUID id,
+            @PathVariable UUID runId,
+            @RequestParam(required = false) String engine,
+            @RequestParam(required = false) String priority,
+            @RequestHeader(value = TENANT_HEADER, required = false) String tenant) {
+        log.info("Resuming workflow id={} runId={} engine={} tenant={} priority={}", id, runId, engine, tenant, priority);
+        RunCaller caller = RunCaller.of(tenant, priority);
+        try (RunAdmissionService.Permit permit = admission.acquire(id, caller.priority())) {
+            return ResponseEntity.ok(runService.resume(id, runId, engine, partial -> { }, caller));
+        }
+    }
+
+    /**
+     * Runs the workflow on the stream executor, sending {@code partial} events (map-node element results) and a
+     * final {@code result} event with the run response, or an {@code error} event whose message is generic (the
+     * cause is only logged).
+     */
+    @PostMapping(value = "/{id}/run/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter runStream(
+            @PathVariable UUID id,
+            @RequestParam(required = false) UUID versionId,
+            @RequestParam(required = false) String engine,
+            @RequestParam(required = false) UUID previousRunId,
+            @RequestParam(required = false) String priority,
+            @RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+            @RequestBody(required = false) Map<String, Object> input) {
+        log.info("Streaming run workflow id={} versionId={} engine={} previousRunId={} tenant={} priority={}", id, versionId, engine, previousRunId, tenant, priority);
+        RunCaller caller = RunCaller.of(tenant, priority);
+        RunAdmissionService.Permit permit = admission.acquire(id, caller.priority());
+        SseEmitter emitter = new SseEmitter(0L);
+        Map<String, Object> runInput = input != null ? input : Map.of();
+        try {
+            runStreamExecutor.execute(() -> {
+                try (permit) {
+                    RunWorkflowResponse response = runService.run(id, versionId, engine, runInput, partial -> send(emitter, "partial", partial), previousRunId, caller);
+                    send(emitter, "result", response);
+                } catch (RuntimeException e) {
+                    log.warn("Streaming run failed id={}: {}", id, e.getMessage(), e);
+                    send(emitter, "error", streamError(e));
+                } finally {
+                    emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Client-facing error event: a generic message, plus the {@code runId} when the run failed while executing.
+     */
+    private static Map<String, Object> streamError(RuntimeException e) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", "An error occurred while running the workflow");
+        if (e instanceof RunFailedException failed) {
+            error.put("runId", failed.getRunId());
+        }
+        return error;
+    }
+
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Stream client gone: {}", e.getMessage());
+        }
     }
 }
@@ -1,19 +1,27 @@
 package com.example.agenteditor.api.v1.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import java.util.Objects;
 
 /**
  * One branch of a conditional node: condition key, value, and target agent id.
+ * Optional {@code probability} (0..1) ranks the branch for speculative execution.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ConditionalBranchDto(
         @NotBlank String conditionKey,
         @NotBlank String value,
-        @NotBlank String agentId
+        @NotBlank String agentId,
+        Double probability
 ) {
     public ConditionalBranchDto {
         Objects.requireNonNull(conditionKey, "conditionKey");
         Objects.requireNonNull(value, "value");
         Objects.requireNonNull(agentId, "agentId");
     }
+
+    public ConditionalBranchDto(String conditionKey, String value, String agentId) {
+        this(conditionKey, value, agentId, null);
+    }
 }
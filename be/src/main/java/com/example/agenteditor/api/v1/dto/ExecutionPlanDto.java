@@ -0,0 +1,15 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.util.List;
+
+/**
+ * Response body for GET /api/v1/workflows/{id}/explain: how the interpreter runs each sequence node and the
+ * estimated latency saved by running independent steps concurrently. Estimates use observed LLM latency per
+ * model when available.
+ */
+public record ExecutionPlanDto(
+        String entryNodeId,
+        boolean autoParallelize,
+        List<SequencePlanDto> sequences,
+        long estimatedSavedMs
+) {}
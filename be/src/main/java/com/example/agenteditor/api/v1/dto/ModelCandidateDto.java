@@ -0,0 +1,19 @@
+package com.example.agenteditor.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * One model an {@code llm} node may route to, in order of preference, with its service-level objectives.
+ * {@code timeoutMs} bounds each call (default 120s); a candidate whose recent p95 latency exceeds
+ * {@code latencySloMs} or whose recent error rate exceeds {@code maxErrorRate} (0..1) is tried after the candidates
+ * within their objectives.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ModelCandidateDto(
+        @NotBlank String modelName,
+        Long timeoutMs,
+        Long latencySloMs,
+        Double maxErrorRate
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.agenteditor.api.v1.dto;
+
+/**
+ * Streamed run event: one element result of a map node, published as soon as it completes.
+ */
+public record PartialResultDto(
+        String nodeId,
+        int index,
+        Object result
+) {}
@@ -0,0 +1,10 @@
+package com.example.agenteditor.api.v1.dto;
+
+import com.example.agenteditor.eventlog.RunEvent;
+
+import java.util.List;
+
+/**
+ * Response for GET /api/v1/run-events: events in log order and the position to poll from for the next ones.
+ */
+public record RunEventListResponse(List<RunEvent> events, long next) {}
@@ -0,0 +1,13 @@
+package com.example.agenteditor.api.v1.dto;
+
+/**
+ * LLM usage of one run: calls, provider-reported tokens and the cost estimated from {@code agent.pricing}.
+ */
+public record RunUsageDto(int llmCalls, long inputTokens, long outputTokens, double estimatedCost) {
+
+    public static final RunUsageDto NONE = new RunUsageDto(0, 0, 0, 0);
+
+    public long totalTokens() {
+        return inputTokens + outputTokens;
+    }
+}
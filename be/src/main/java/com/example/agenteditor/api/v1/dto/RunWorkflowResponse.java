@@ -1,16 +1,30 @@
 package com.example.agenteditor.api.v1.dto;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Response body for POST /api/v1/workflows/{id}/run.
+ * <p>
+ * {@code versionId} is the workflow version the run was pinned to; {@code truncations} lists scope
+ * values cut to fit prompt limits during the run; {@code engine} is the execution engine that ran it;
+ * {@code runId} identifies the run's checkpoints (the same id across resumes); {@code reusedNodeIds} lists
+ * nodes not run again because a resumed or incremental run reused their recorded results; {@code usage} totals the
+ * run's LLM calls, tokens and estimated cost.
+ * </p>
  */
 public record RunWorkflowResponse(
         String result,
         List<String> executedNodeIds,
-        List<String> executedNodeNames
+        List<String> executedNodeNames,
+        UUID versionId,
+        List<TruncationDto> truncations,
+        String engine,
+        UUID runId,
+        List<String> reusedNodeIds,
+        RunUsageDto usage
 ) {
     public RunWorkflowResponse(String result) {
-        this(result, List.of(), List.of());
+        this(result, List.of(), List.of(), null, List.of(), null, null, List.of(), RunUsageDto.NONE);
     }
 }
@@ -0,0 +1,14 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.util.List;
+
+/**
+ * Execution plan of one sequence node: its steps grouped into stages (steps of a stage run concurrently),
+ * with estimated latency when run step by step and as planned.
+ */
+public record SequencePlanDto(
+        String nodeId,
+        List<List<String>> stages,
+        long estimatedSerialMs,
+        long estimatedPlannedMs
+) {}
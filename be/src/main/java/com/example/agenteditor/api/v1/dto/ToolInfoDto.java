@@ -1,6 +1,15 @@
 package com.example.agenteditor.api.v1.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
- * API response for one available tool (id and optional description).
+ * API response for one available tool (id and optional description). On an agent node, {@code timeoutMs}
+ * optionally bounds each call of the tool.
  */
-public record ToolInfoDto(String id, String description) {}
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ToolInfoDto(String id, String description, Long timeoutMs) {
+
+    public ToolInfoDto(String id, String description) {
+        this(id, description, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.agenteditor.api.v1.dto;
+
+/**
+ * Run trace entry: a scope value cut to fit prompt limits while building a node's prompt or output.
+ */
+public record TruncationDto(
+        String nodeId,
+        String key,
+        long originalChars,
+        int keptChars
+) {}
@@ -7,10 +7,16 @@ import jakarta.validation.constraints.NotNull;
 import java.util.List;
 
 /**
- * Request body for creating a workflow.
+ * Request body for creating a workflow. {@code executionEngine} ({@code INTERPRETER} or {@code DAG}) is optional;
+ * null runs on the default interpreter.
  */
 public record WorkflowCreateRequest(
         @NotBlank String name,
         @NotBlank String entryNodeId,
-        @NotNull @NotEmpty @Valid List<WorkflowNodeDto> nodes
-) {}
+        @NotNull @NotEmpty @Valid List<WorkflowNodeDto> nodes,
+        String executionEngine
+) {
+    public WorkflowCreateRequest(String name, String entryNodeId, List<WorkflowNodeDto> nodes) {
+        this(name, entryNodeId, nodes, null);
+    }
+}
@@ -13,6 +13,36 @@ import java.util.Objects;
  * Agent/supervisor nodes may have {@code tools} (full definitions with id and description)
  * for layout and UI; legacy {@code toolIds} is still supported for backward compatibility.
  * </p>
+ * <p>
+ * {@code maxInputTokens} (agent or llm node) caps the estimated prompt tokens sent per call; an agent's
+ * own value wins over its LLM node's.
+ * </p>
+ * <p>
+ * Conditional nodes may set {@code branchNormalization} ({@code NONE}, {@code TRIM}, {@code IGNORE_CASE})
+ * applied to branch values and routed state, and a {@code defaultAgentId} taken when no branch matches.
+ * With {@code speculative} set, up to {@code speculativeBranches} likely branches start alongside the router.
+ * </p>
+ * <p>
+ * Parallel nodes may set {@code completionPolicy} ({@code ALL}, {@code FIRST_N}, {@code QUORUM},
+ * {@code DEADLINE}) with {@code requiredCount} and {@code deadlineMs}.
+ * </p>
+ * <p>
+ * Map nodes run their single sub-agent once per element of the collection under {@code itemsKey}, exposing
+ * the element as {@code itemKey}; {@code threadPoolSize} bounds concurrency and {@code streamResults}
+ * publishes element results as they complete.
+ * </p>
+ * <p>
+ * {@code threadPoolSize} caps concurrency on the shared executor: branches of a parallel node, elements of a map
+ * node, and tool calls of one model response for an agent node (default 4; {@code 1} runs them one by one).
+ * </p>
+ * <p>
+ * Chunk nodes split the text under {@code inputKey} into {@code chunkTokens}-token chunks overlapping by
+ * {@code chunkOverlap} tokens, counted with the encoding of the optional {@code llmId} node's model.
+ * </p>
+ * <p>
+ * LLM nodes may list {@code candidateModels} instead of a single {@code modelName}: each call goes to
+ * the first candidate within its latency and error objectives, and fails over to the next on timeouts and errors.
+ * </p>
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record WorkflowNodeDto(
@@ -22,6 +52,7 @@ public record WorkflowNodeDto(
         String modelName,
         Double temperature,
         Integer maxTokens,
+        Integer maxInputTokens,
         String llmId,
         String name,
         String role,
@@ -34,10 +65,65 @@ public record WorkflowNodeDto(
         String responseStrategy,
         String routerAgentId,
         List<ConditionalBranchDto> branches,
-        Integer threadPoolSize
+        String branchNormalization,
+        String defaultAgentId,
+        Boolean speculative,
+        Integer speculativeBranches,
+        Integer threadPoolSize,
+        String completionPolicy,
+        Integer requiredCount,
+        Long deadlineMs,
+        String itemsKey,
+        String itemKey,
+        Boolean streamResults,
+        String inputKey,
+        Integer chunkTokens,
+        Integer chunkOverlap,
+        List<ModelCandidateDto> candidateModels
 ) {
     public WorkflowNodeDto {
         Objects.requireNonNull(id, "id");
         Objects.requireNonNull(type, "type");
     }
+
+    /**
+     * Core fields only; type-specific tuning fields added later default to null.
+     */
+    public WorkflowNodeDto(
+            String id,
+            String type,
+            String baseUrl,
+            String modelName,
+            Double temperature,
+            Integer maxTokens,
+            String llmId,
+            String name,
+            String role,
+            String systemMessage,
+            String promptTemplate,
+            String outputKey,
+            List<ToolInfoDto> tools,
+            List<String> toolIds,
+            List<String> subAgentIds,
+            String responseStrategy,
+            String routerAgentId,
+            List<ConditionalBranchDto> branches,
+            Integer threadPoolSize
+    ) {
+        this(id, type, baseUrl, modelName, temperature, maxTokens, null, llmId, name, role, systemMessage,
+                promptTemplate, outputKey, tools, toolIds, subAgentIds, responseStrategy, routerAgentId,
+                branches, null, null, null, null, threadPoolSize, null, null, null, null, null, null, null, null, null,
+                null);
+    }
+
+    /**
+     * Copy of this node with the given tool definitions.
+     */
+    public WorkflowNodeDto withTools(List<ToolInfoDto> tools) {
+        return new WorkflowNodeDto(id, type, baseUrl, modelName, temperature, maxTokens, maxInputTokens, llmId,
+                name, role, systemMessage, promptTemplate, outputKey, tools, toolIds, subAgentIds,
+                responseStrategy, routerAgentId, branches, branchNormalization, defaultAgentId, speculative,
+                speculativeBranches, threadPoolSize, completionPolicy, requiredCount, deadlineMs, itemsKey, itemKey,
+                streamResults, inputKey, chunkTokens, chunkOverlap, candidateModels);
+    }
 }
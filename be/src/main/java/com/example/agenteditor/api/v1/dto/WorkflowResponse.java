@@ -6,6 +6,11 @@ import java.util.UUID;
 
 /**
  * Full workflow graph response (get by id, update).
+ * <p>
+ * {@code versionId} identifies the immutable snapshot the graph was read from and {@code graphHash}
+ * its content hash; two saves with the same hash have identical graphs. {@code executionEngine} is the
+ * engine runs use (null for the default interpreter).
+ * </p>
  */
 public record WorkflowResponse(
         UUID id,
@@ -13,5 +18,8 @@ public record WorkflowResponse(
         String entryNodeId,
         List<WorkflowNodeDto> nodes,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        UUID versionId,
+        String graphHash,
+        String executionEngine
 ) {}
@@ -0,0 +1,22 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Run history list item: one run (or resume of a run) with its outcome, duration, LLM usage totals and estimated
+ * cost in USD.
+ */
+public record WorkflowRunItem(
+        UUID runId,
+        UUID versionId,
+        String engine,
+        String status,
+        String error,
+        Instant startedAt,
+        long durationMs,
+        int llmCalls,
+        long inputTokens,
+        long outputTokens,
+        double estimatedCost
+) {}
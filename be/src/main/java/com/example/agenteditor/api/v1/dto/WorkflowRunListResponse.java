@@ -0,0 +1,8 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.util.List;
+
+/**
+ * Response for GET /api/v1/workflows/{id}/runs: recorded runs, newest first.
+ */
+public record WorkflowRunListResponse(List<WorkflowRunItem> runs) {}
@@ -0,0 +1,14 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Workflow version list item (id, graph hash, createdAt, whether it is the current version).
+ */
+public record WorkflowVersionItem(
+        UUID id,
+        String graphHash,
+        Instant createdAt,
+        boolean current
+) {}
@@ -0,0 +1,8 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.util.List;
+
+/**
+ * Response for GET /api/v1/workflows/{id}/versions: versions, newest first.
+ */
+public record WorkflowVersionListResponse(List<WorkflowVersionItem> versions) {}
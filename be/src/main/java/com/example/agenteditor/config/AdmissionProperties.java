@@ -0,0 +1,36 @@
+package com.example.agenteditor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Run admission settings bound from {@code agent.admission.*}.
+ *
+ * @param enabled                   admit runs through the concurrency limit and wait queue (default true)
+ * @param maxConcurrentRuns         runs in progress at once across all workflows (default 64)
+ * @param maxQueuedRuns             runs waiting for a slot; more are rejected with 503 (default 256)
+ * @param maxQueueTime              longest a run waits for a slot before it is rejected with 503 (default 10s)
+ * @param workflowMaxConcurrentRuns runs of one workflow in progress or queued at once; more are rejected with 429
+ *                                  (default 0 = no per-workflow limit)
+ * @param workflows                 per-workflow overrides of {@code workflowMaxConcurrentRuns}, keyed by workflow id
+ * @param priorityAging             wait after which a queued run competes one priority class higher (default 2s)
+ */
+@ConfigurationProperties(prefix = "agent.admission")
+public record AdmissionProperties(Boolean enabled, Integer maxConcurrentRuns, Integer maxQueuedRuns,
+                                  Duration maxQueueTime, Integer workflowMaxConcurrentRuns,
+                                  Map<UUID, Integer> workflows, Duration priorityAging) {
+
+    public AdmissionProperties {
+        enabled = enabled != null ? enabled : Boolean.TRUE;
+        maxConcurrentRuns = maxConcurrentRuns != null && maxConcurrentRuns > 0 ? maxConcurrentRuns : 64;
+        maxQueuedRuns = maxQueuedRuns != null && maxQueuedRuns >= 0 ? maxQueuedRuns : 256;
+        maxQueueTime = maxQueueTime != null && !maxQueueTime.isNegative() ? maxQueueTime : Duration.ofSeconds(10);
+        workflowMaxConcurrentRuns = workflowMaxConcurrentRuns != null && workflowMaxConcurrentRuns > 0
+                ? workflowMaxConcurrentRuns : 0;
+        workflows = workflows != null ? Map.copyOf(workflows) : Map.of();
+        priorityAging = priorityAging != null && !priorityAging.isNegative() ? priorityAging : Duration.ofSeconds(2);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.agenteditor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Run budgets bound from {@code agent.budget.*}. Spend is the provider-reported tokens and the cost estimated from
+ * {@code agent.pricing}.
+ *
+ * @param run            limits of a single run (default none)
+ * @param workflow       limits of all runs of one workflow within {@code workflowWindow} (default none)
+ * @param workflowWindow length of the fixed window the workflow limits apply to (default 24h)
+ * @param workflows      per-workflow overrides of {@code workflow}, keyed by workflow id
+ * @param speculation    limits on what the speculative conditional branches of a single run may spend; once used up,
+ *                       the run's conditionals stop speculating (default none)
+ */
+@ConfigurationProperties(prefix = "agent.budget")
+public record BudgetProperties(Limits run, Limits workflow, Duration workflowWindow, Map<UUID, Limits> workflows,
+                               Limits speculation) {
+
+    /**
+     * @param maxTokens input plus output tokens (default 0 = no limit)
+     * @param maxCost   estimated cost in USD (default 0 = no limit)
+     */
+    public record Limits(Long maxTokens, Double maxCost) {
+
+        public static final Limits NONE = new Limits(null, null);
+
+        public Limits {
+            maxTokens = maxTokens != null && maxTokens > 0 ? maxTokens : 0L;
+            maxCost = maxCost != null && maxCost > 0 ? maxCost : 0.0;
+        }
+    }
+
+    public BudgetProperties {
+        run = run != null ? run : Limits.NONE;
+        workflow = workflow != null ? workflow : Limits.NONE;
+        workflowWindow = workflowWindow != null && workflowWindow.isPositive() ? workflowWindow : Duration.ofHours(24);
+        workflows = workflows != null ? Map.copyOf(workflows) : Map.of();
+        speculation = speculation != null ? speculation : Limits.NONE;
+    }
+
+    /**
+     * Window limits of the workflow: its own entry, or the default workflow limits.
+     */
+    public Limits workflow(UUID workflowId) {
+        return workflows.getOrDefault(workflowId, workflow);
+    }
+}
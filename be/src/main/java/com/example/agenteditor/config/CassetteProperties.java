@@ -0,0 +1,32 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.llm.CassetteStore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Record/replay of LLM calls bound from {@code agent.cassette.*}.
+ *
+ * @param mode          OFF, RECORD (append every call to its model's cassette) or REPLAY (serve calls from the
+ *                      cassettes without calling the provider) (default OFF)
+ * @param directory     cassette directory (default {@code data/cassettes})
+ * @param replayLatency sleep for each call's recorded latency when replaying (default false)
+ * @param strict        fail replayed requests that were not recorded; when false they get the model's next
+ *                      recording in recorded order (default true)
+ */
+@ConfigurationProperties(prefix = "agent.cassette")
+public record CassetteProperties(CassetteStore.Mode mode, Path directory, Boolean replayLatency, Boolean strict) {
+
+    public CassetteProperties {
+        mode = mode != null ? mode : CassetteStore.Mode.OFF;
+        directory = directory != null ? directory : Path.of("data", "cassettes");
+        replayLatency = replayLatency != null ? replayLatency : Boolean.FALSE;
+        strict = strict != null ? strict : Boolean.TRUE;
+    }
+
+    public CassetteStore toStore() {
+        return new CassetteStore(mode, directory, replayLatency, strict);
+    }
+}
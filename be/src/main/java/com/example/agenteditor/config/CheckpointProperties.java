@@ -0,0 +1,27 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.config.RunHistoryProperties.Overflow;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Run checkpoint settings bound from {@code agent.checkpoint.*}.
+ *
+ * @param capacity      checkpoints buffered in the write-behind queue (default 1000)
+ * @param batchSize     checkpoints written per transaction (default 50)
+ * @param flushInterval longest a queued checkpoint waits for its batch to fill (default 50ms)
+ * @param overflow      what a run step does when the queue is full (default {@link Overflow#BLOCK}: a dropped
+ *                      checkpoint makes a resume redo the step it covered)
+ */
+@ConfigurationProperties(prefix = "agent.checkpoint")
+public record CheckpointProperties(Integer capacity, Integer batchSize, Duration flushInterval, Overflow overflow) {
+
+    public CheckpointProperties {
+        capacity = capacity != null && capacity > 0 ? capacity : 1000;
+        batchSize = batchSize != null && batchSize > 0 ? batchSize : 50;
+        flushInterval = flushInterval != null && !flushInterval.isNegative() ? flushInterval : Duration.ofMillis(50);
+        overflow = overflow != null ? overflow : Overflow.BLOCK;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.llm.CircuitBreaker;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breakers per model endpoint (base URL and model) bound from {@code agent.circuit-breaker.*}.
+ *
+ * @param enabled               guard LLM calls with circuit breakers (default true)
+ * @param windowSize            calls the failure and slow-call rates are computed over (default 20)
+ * @param minimumCalls          calls needed before a breaker can open (default 10)
+ * @param failureRateThreshold  failure rate (0..1) that opens a breaker (default 0.5)
+ * @param slowCallDuration      calls at least this long count as slow (default 30s)
+ * @param slowCallRateThreshold slow-call rate (0..1) that opens a breaker (default 0.8)
+ * @param openDuration          how long an open breaker rejects calls before probing (default 30s)
+ * @param halfOpenCalls         probe calls let through while half-open (default 3)
+ */
+@ConfigurationProperties(prefix = "agent.circuit-breaker")
+public record CircuitBreakerProperties(Boolean enabled, Integer windowSize, Integer minimumCalls,
+                                       Double failureRateThreshold, Duration slowCallDuration,
+                                       Double slowCallRateThreshold, Duration openDuration, Integer halfOpenCalls) {
+
+    public CircuitBreakerProperties {
+        CircuitBreaker.Settings defaults = CircuitBreaker.Settings.DEFAULT;
+        enabled = enabled != null ? enabled : Boolean.TRUE;
+        windowSize = windowSize != null && windowSize > 0 ? windowSize : defaults.windowSize();
+        minimumCalls = minimumCalls != null && minimumCalls > 0 ? Math.min(minimumCalls, windowSize) : Math.min(defaults.minimumCalls(), windowSize);
+        failureRateThreshold = failureRateThreshold != null && failureRateThreshold > 0 ? failureRateThreshold : defaults.failureRateThreshold();
+        slowCallDuration = slowCallDuration != null && slowCallDuration.isPositive() ? slowCallDuration : defaults.slowCallDuration();
+        slowCallRateThreshold = slowCallRateThreshold != null && slowCallRateThreshold > 0 ? slowCallRateThreshold : defaults.slowCallRateThreshold();
+        openDuration = openDuration != null && openDuration.isPositive() ? openDuration : defaults.openDuration();
+        halfOpenCalls = halfOpenCalls != null && halfOpenCalls > 0 ? halfOpenCalls : defaults.halfOpenCalls();
+    }
+
+    public CircuitBreaker.Settings toSettings() {
+        return new CircuitBreaker.Settings(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+}
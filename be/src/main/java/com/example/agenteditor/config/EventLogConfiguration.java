@@ -0,0 +1,20 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.eventlog.RunEventLog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "agent.event-log", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(EventLogProperties.class)
+public class EventLogConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public RunEventLog runEventLog(EventLogProperties properties) {
+        return new RunEventLog(properties.directory(), (int) properties.segmentSize().toBytes(),
+                properties.maxSegments(), properties.retention());
+    }
+}
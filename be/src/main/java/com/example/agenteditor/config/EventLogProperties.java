@@ -0,0 +1,32 @@
+package com.example.agenteditor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Run event log settings bound from {@code agent.event-log.*}.
+ *
+ * @param enabled     write run and node events to the memory-mapped log (default false)
+ * @param directory   segment directory (default {@code data/run-events})
+ * @param segmentSize size of each mapped segment file (default 64MB, at most 1GB)
+ * @param maxSegments segments kept, including the active one (default 16)
+ * @param retention   closed segments older than this are deleted on rotation (default 7d; 0 keeps them)
+ */
+@ConfigurationProperties(prefix = "agent.event-log")
+public record EventLogProperties(Boolean enabled, Path directory, DataSize segmentSize, Integer maxSegments,
+                                 Duration retention) {
+
+    public EventLogProperties {
+        enabled = enabled != null ? enabled : Boolean.FALSE;
+        directory = directory != null ? directory : Path.of("data", "run-events");
+        segmentSize = segmentSize != null ? segmentSize : DataSize.ofMegabytes(64);
+        if (segmentSize.toBytes() > DataSize.ofGigabytes(1).toBytes()) {
+            throw new IllegalArgumentException("agent.event-log.segment-size must be at most 1GB");
+        }
+        maxSegments = maxSegments != null && maxSegments > 0 ? maxSegments : 16;
+        retention = retention != null ? retention : Duration.ofDays(7);
+    }
+}
@@ -63,7 +63,7 @@ public class ExampleWorkflowsLoader implements ApplicationRunner {
             if (existing.isPresent()) {
                 service.update(
                         existing.get().getId(),
-                        new WorkflowUpdateRequest(request.name(), request.entryNodeId(), request.nodes())
+                        new WorkflowUpdateRequest(request.name(), request.entryNodeId(), request.nodes(), request.executionEngine())
                 );
                 log.info("Updated example workflow: {}", request.name());
             } else {
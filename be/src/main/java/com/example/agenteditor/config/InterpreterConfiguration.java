@@ -1,18 +1,55 @@
 package com.example.agenteditor.config;
 
+import com.example.agenteditor.interpreter.LlmCallScheduler;
 import com.example.agenteditor.interpreter.WorkflowGraphInterpreter;
+import com.example.agenteditor.llm.CassetteStore;
+import com.example.agenteditor.llm.CircuitBreakerRegistry;
 import com.example.agenteditor.llm.OpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
 import com.example.agenteditor.tools.ToolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties({InterpreterProperties.class, RunHistoryProperties.class, AdmissionProperties.class,
+        TenancyProperties.class, PricingProperties.class, BudgetProperties.class, CircuitBreakerProperties.class,
+        CassetteProperties.class, CheckpointProperties.class})
 public class InterpreterConfiguration {
 
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(CircuitBreakerProperties properties,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CircuitBreakerRegistry(properties.enabled(), properties.toSettings(),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean(destroyMethod = "close")
+    public CassetteStore cassetteStore(CassetteProperties properties) {
+        return properties.toStore();
+    }
+
     @Bean
     public WorkflowGraphInterpreter workflowGraphInterpreter(
             OpenRouterChatModelFactory chatModelFactory,
-            ToolRegistry toolRegistry) {
-        return new WorkflowGraphInterpreter(chatModelFactory, toolRegistry);
+            ToolRegistry toolRegistry,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            InterpreterProperties properties,
+            TenancyProperties tenancy,
+            TokenEstimator tokenEstimator) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        return new WorkflowGraphInterpreter(
+                chatModelFactory,
+                toolRegistry,
+                registry,
+                properties.prompt(),
+                tokenEstimator,
+                properties.autoParallelize(),
+                new LlmCallScheduler(properties.maxConcurrentLlmCalls(), properties.priorityAging(),
+                        tenancy.tenantQuotas(), tenancy.defaultTenantQuota(), registry)
+        );
     }
 }
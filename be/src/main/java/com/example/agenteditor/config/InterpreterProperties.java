@@ -0,0 +1,28 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.interpreter.PromptLimits;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Interpreter settings bound from {@code agent.interpreter.*}.
+ *
+ * @param prompt                size caps for scope state serialized into prompts
+ * @param autoParallelize       run independent consecutive sequence steps concurrently (default true)
+ * @param maxConcurrentLlmCalls LLM calls in flight across all runs; further calls wait by run priority
+ *                              (default 0 = no limit)
+ * @param priorityAging         wait after which a queued LLM call competes one priority class higher (default 2s)
+ */
+@ConfigurationProperties(prefix = "agent.interpreter")
+public record InterpreterProperties(PromptLimits prompt, Boolean autoParallelize, Integer maxConcurrentLlmCalls,
+                                    Duration priorityAging) {
+
+    public InterpreterProperties {
+        prompt = prompt != null ? prompt : PromptLimits.DEFAULT;
+        autoParallelize = autoParallelize != null ? autoParallelize : Boolean.TRUE;
+        maxConcurrentLlmCalls = maxConcurrentLlmCalls != null && maxConcurrentLlmCalls > 0 ? maxConcurrentLlmCalls : 0;
+        priorityAging = priorityAging != null && !priorityAging.isNegative() ? priorityAging : Duration.ofSeconds(2);
+    }
+}
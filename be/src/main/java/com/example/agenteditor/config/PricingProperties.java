@@ -0,0 +1,46 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.llm.ModelPricing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LLM prices bound from {@code agent.pricing.*}, used to estimate the cost of runs. Model names contain {@code /},
+ * so their keys need the bracket notation in YAML: {@code "[openai/gpt-4o-mini]": { input-per-million: 0.15 }}.
+ *
+ * @param models       price per model name
+ * @param defaultPrice price of models without an entry (default free)
+ */
+@ConfigurationProperties(prefix = "agent.pricing")
+public record PricingProperties(Map<String, Price> models, Price defaultPrice) {
+
+    /**
+     * @param inputPerMillion  USD per million input tokens (default 0)
+     * @param outputPerMillion USD per million output tokens (default 0)
+     */
+    public record Price(Double inputPerMillion, Double outputPerMillion) {
+
+        public Price {
+            inputPerMillion = inputPerMillion != null && inputPerMillion > 0 ? inputPerMillion : 0.0;
+            outputPerMillion = outputPerMillion != null && outputPerMillion > 0 ? outputPerMillion : 0.0;
+        }
+
+        ModelPricing.Price toModelPrice() {
+            return new ModelPricing.Price(inputPerMillion, outputPerMillion);
+        }
+    }
+
+    public PricingProperties {
+        models = models != null ? Map.copyOf(models) : Map.of();
+        defaultPrice = defaultPrice != null ? defaultPrice : new Price(null, null);
+    }
+
+    public ModelPricing toModelPricing() {
+        Map<String, ModelPricing.Price> prices = new HashMap<>();
+        models.forEach((model, price) -> prices.put(model, price.toModelPrice()));
+        return new ModelPricing(prices, defaultPrice.toModelPrice());
+    }
+}
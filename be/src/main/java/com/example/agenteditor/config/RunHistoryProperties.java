@@ -0,0 +1,39 @@
+package com.example.agenteditor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Run history settings bound from {@code agent.run-history.*}.
+ *
+ * @param enabled       record runs to {@code workflow_run}/{@code workflow_node_run} (default true)
+ * @param capacity      runs buffered in the write-behind queue (default 1000)
+ * @param batchSize     runs written per transaction (default 50)
+ * @param flushInterval longest a queued run waits for its batch to fill (default 1s)
+ * @param overflow      what a run does when the queue is full (default {@link Overflow#DROP_OLDEST})
+ */
+@ConfigurationProperties(prefix = "agent.run-history")
+public record RunHistoryProperties(Boolean enabled, Integer capacity, Integer batchSize, Duration flushInterval,
+                                   Overflow overflow) {
+
+    /**
+     * Overflow policy of the write-behind queue.
+     */
+    public enum Overflow {
+        /** Discard the run being recorded. */
+        DROP_NEWEST,
+        /** Discard the oldest queued run to make room. */
+        DROP_OLDEST,
+        /** Wait for room; puts history writes on the run's critical path while the store is behind. */
+        BLOCK
+    }
+
+    public RunHistoryProperties {
+        enabled = enabled != null ? enabled : Boolean.TRUE;
+        capacity = capacity != null && capacity > 0 ? capacity : 1000;
+        batchSize = batchSize != null && batchSize > 0 ? batchSize : 50;
+        flushInterval = flushInterval != null && !flushInterval.isNegative() ? flushInterval : Duration.ofSeconds(1);
+        overflow = overflow != null ? overflow : Overflow.DROP_OLDEST;
+    }
+}
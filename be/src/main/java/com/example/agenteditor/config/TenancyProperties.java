@@ -0,0 +1,58 @@
+package com.example.agenteditor.config;
+
+import com.example.agenteditor.interpreter.TenantQuota;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-tenant LLM quotas bound from {@code agent.tenancy.*}. A run's tenant comes from the {@code X-Tenant-Id}
+ * header ({@code default} without one); ids without an entry in {@code tenants} share the {@code default} tenant.
+ *
+ * @param defaultQuota quota of the {@code default} tenant, shared by ids without an entry in {@code tenants}
+ *                     (default: weight 1, no limits)
+ * @param tenants      quotas by tenant id
+ */
+@ConfigurationProperties(prefix = "agent.tenancy")
+public record TenancyProperties(Quota defaultQuota, Map<String, Quota> tenants) {
+
+    /**
+     * @param weight             share of LLM call permits relative to other waiting tenants (default 1)
+     * @param maxConcurrentCalls LLM calls in flight at once (default 0 = no limit)
+     * @param tokensPerMinute    input plus output tokens per minute (default 0 = no limit)
+     */
+    public record Quota(Double weight, Integer maxConcurrentCalls, Long tokensPerMinute) {
+
+        public Quota {
+            weight = weight != null && weight > 0 ? weight : 1.0;
+            maxConcurrentCalls = maxConcurrentCalls != null && maxConcurrentCalls > 0 ? maxConcurrentCalls : 0;
+            tokensPerMinute = tokensPerMinute != null && tokensPerMinute > 0 ? tokensPerMinute : 0L;
+        }
+
+        TenantQuota toTenantQuota() {
+            return new TenantQuota(weight, maxConcurrentCalls, tokensPerMinute);
+        }
+    }
+
+    public TenancyProperties {
+        defaultQuota = defaultQuota != null ? defaultQuota : new Quota(null, null, null);
+        tenants = tenants != null ? Map.copyOf(tenants) : Map.of();
+    }
+
+    /**
+     * Quotas of the configured tenants by id.
+     */
+    public Map<String, TenantQuota> tenantQuotas() {
+        return tenants.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().toTenantQuota()));
+    }
+
+    /**
+     * Quota shared by tenants without their own entry.
+     */
+    public TenantQuota defaultTenantQuota() {
+        return defaultQuota.toTenantQuota();
+    }
+}
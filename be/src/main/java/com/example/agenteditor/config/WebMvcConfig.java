@@ -7,8 +7,12 @@ import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
- * MVC config: SPA fallback for client-side routes and CORS for frontend dev server.
+ * MVC config: SPA fallback for client-side routes, CORS for frontend dev server and the executor streamed runs
+ * execute on.
  */
 @Configuration
 public class WebMvcConfig {
@@ -33,4 +37,12 @@ public class WebMvcConfig {
             }
         };
     }
+
+    /**
+     * Virtual threads for {@code /run/stream} runs; closed on shutdown, which waits for in-flight streams.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService runStreamExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("run-stream-", 0).factory());
+    }
 }
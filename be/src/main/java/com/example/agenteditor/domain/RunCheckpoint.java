@@ -0,0 +1,68 @@
+package com.example.agenteditor.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * JPA entity for one completed step of a run: the node ids it covered and the scope state after it.
+ * <p>
+ * Rows are appended in {@code seq} order per run and never updated; the last row of a run holds the
+ * state a resumed run starts from.
+ * </p>
+ */
+@Entity
+@Table(
+        name = "run_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uq_run_checkpoint_seq", columnNames = {"run_id", "seq"})
+)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class RunCheckpoint {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private UUID runId;
+
+    @Column(name = "workflow_id", nullable = false, updatable = false)
+    private UUID workflowId;
+
+    @Column(name = "version_id", nullable = false, updatable = false)
+    private UUID versionId;
+
+    @Column(nullable = false, updatable = false)
+    private int seq;
+
+    /** Comma-separated ids of the nodes completed by this step. */
+    @Column(name = "node_ids", nullable = false, updatable = false, length = 4000)
+    private String nodeIds;
+
+    @Column(name = "state_json", nullable = false, updatable = false, columnDefinition = "CLOB")
+    private String stateJson;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public RunCheckpoint(UUID id, UUID runId, UUID workflowId, UUID versionId, int seq, String nodeIds, String stateJson, Instant createdAt) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.runId = Objects.requireNonNull(runId, "runId");
+        this.workflowId = Objects.requireNonNull(workflowId, "workflowId");
+        this.versionId = Objects.requireNonNull(versionId, "versionId");
+        this.seq = seq;
+        this.nodeIds = Objects.requireNonNull(nodeIds, "nodeIds");
+        this.stateJson = Objects.requireNonNull(stateJson, "stateJson");
+        this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
+    }
+}
@@ -17,7 +17,9 @@ import java.util.UUID;
  * JPA entity for a persisted workflow definition.
  * <p>
  * Stores the workflow name, entry node id, and the graph (nodes) as JSON in {@code graph_json}.
- * Timestamps are set on create and update.
+ * Timestamps are set on create and update. {@code current_version_id} points at the immutable
+ * {@link WorkflowVersion} matching the current graph (null for rows saved before versioning).
+ * {@code execution_engine} selects the engine runs use (null for the default interpreter).
  * </p>
  */
 @Entity
@@ -44,12 +46,30 @@ public class WorkflowDefinition {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Column(name = "current_version_id")
+    private UUID currentVersionId;
+
+    @Column(name = "execution_engine", length = 32)
+    private String executionEngine;
+
     public WorkflowDefinition(UUID id, String name, String entryNodeId, String graphJson, Instant createdAt, Instant updatedAt) {
+        this(id, name, entryNodeId, graphJson, createdAt, updatedAt, null);
+    }
+
+    public WorkflowDefinition(UUID id, String name, String entryNodeId, String graphJson, Instant createdAt, Instant updatedAt,
+                              UUID currentVersionId) {
+        this(id, name, entryNodeId, graphJson, createdAt, updatedAt, currentVersionId, null);
+    }
+
+    public WorkflowDefinition(UUID id, String name, String entryNodeId, String graphJson, Instant createdAt, Instant updatedAt,
+                              UUID currentVersionId, String executionEngine) {
         this.id = Objects.requireNonNull(id, "id");
         this.name = Objects.requireNonNull(name, "name");
         this.entryNodeId = Objects.requireNonNull(entryNodeId, "entryNodeId");
         this.graphJson = Objects.requireNonNull(graphJson, "graphJson");
         this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
         this.updatedAt = Objects.requireNonNull(updatedAt, "updatedAt");
+        this.currentVersionId = currentVersionId;
+        this.executionEngine = executionEngine;
     }
 }
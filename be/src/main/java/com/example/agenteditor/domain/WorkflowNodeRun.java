@@ -0,0 +1,93 @@
+package com.example.agenteditor.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * JPA entity for one node of a {@link WorkflowRun}: its output, its timing, and the timing and tokens of its LLM calls.
+ * <p>
+ * {@code status} is {@code EXECUTED}, or {@code REUSED} for nodes a resumed or incremental run took from
+ * earlier checkpoints. {@code started_at}/{@code duration_ms} are the node's wall-clock span: its own step, the
+ * nodes it runs and its LLM calls (null/0 for reused nodes).
+ * </p>
+ */
+@Entity
+@Table(name = "workflow_node_run")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class WorkflowNodeRun {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_run_id", nullable = false, updatable = false)
+    private UUID workflowRunId;
+
+    @Column(name = "node_id", nullable = false, updatable = false, length = 255)
+    private String nodeId;
+
+    @Column(nullable = false, updatable = false, length = 16)
+    private String status;
+
+    @Column(name = "started_at", updatable = false)
+    private Instant startedAt;
+
+    @Column(name = "duration_ms", nullable = false, updatable = false)
+    private long durationMs;
+
+    @Column(name = "llm_ms", nullable = false, updatable = false)
+    private long llmMs;
+
+    @Column(name = "llm_calls", nullable = false, updatable = false)
+    private int llmCalls;
+
+    @Column(name = "llm_errors", nullable = false, updatable = false)
+    private int llmErrors;
+
+    @Column(name = "input_tokens", nullable = false, updatable = false)
+    private long inputTokens;
+
+    @Column(name = "output_tokens", nullable = false, updatable = false)
+    private long outputTokens;
+
+    @Column(updatable = false, columnDefinition = "CLOB")
+    private String output;
+
+    public WorkflowNodeRun(
+            UUID id,
+            UUID workflowRunId,
+            String nodeId,
+            String status,
+            Instant startedAt,
+            long durationMs,
+            long llmMs,
+            int llmCalls,
+            int llmErrors,
+            long inputTokens,
+            long outputTokens,
+            String output
+    ) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.workflowRunId = Objects.requireNonNull(workflowRunId, "workflowRunId");
+        this.nodeId = Objects.requireNonNull(nodeId, "nodeId");
+        this.status = Objects.requireNonNull(status, "status");
+        this.startedAt = startedAt;
+        this.durationMs = durationMs;
+        this.llmMs = llmMs;
+        this.llmCalls = llmCalls;
+        this.llmErrors = llmErrors;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.output = output;
+    }
+}
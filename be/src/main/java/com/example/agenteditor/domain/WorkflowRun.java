@@ -0,0 +1,108 @@
+package com.example.agenteditor.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * JPA entity for one execution of a workflow: input, result or error, timing and LLM usage totals.
+ * <p>
+ * A resumed run is recorded as another row with the same {@code run_id}. Rows are written once, in
+ * batches, by the run history writer and never updated.
+ * </p>
+ */
+@Entity
+@Table(name = "workflow_run")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class WorkflowRun {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private UUID runId;
+
+    @Column(name = "workflow_id", nullable = false, updatable = false)
+    private UUID workflowId;
+
+    @Column(name = "version_id", nullable = false, updatable = false)
+    private UUID versionId;
+
+    @Column(nullable = false, updatable = false, length = 32)
+    private String engine;
+
+    /** {@code SUCCEEDED} or {@code FAILED}. */
+    @Column(nullable = false, updatable = false, length = 16)
+    private String status;
+
+    @Column(name = "input_json", updatable = false, columnDefinition = "CLOB")
+    private String inputJson;
+
+    @Column(updatable = false, columnDefinition = "CLOB")
+    private String result;
+
+    @Column(updatable = false, length = 1000)
+    private String error;
+
+    @Column(name = "started_at", nullable = false, updatable = false)
+    private Instant startedAt;
+
+    @Column(name = "duration_ms", nullable = false, updatable = false)
+    private long durationMs;
+
+    @Column(name = "llm_calls", nullable = false, updatable = false)
+    private int llmCalls;
+
+    @Column(name = "input_tokens", nullable = false, updatable = false)
+    private long inputTokens;
+
+    @Column(name = "output_tokens", nullable = false, updatable = false)
+    private long outputTokens;
+
+    @Column(name = "estimated_cost", nullable = false, updatable = false)
+    private double estimatedCost;
+
+    public WorkflowRun(
+            UUID id,
+            UUID runId,
+            UUID workflowId,
+            UUID versionId,
+            String engine,
+            String status,
+            String inputJson,
+            String result,
+            String error,
+            Instant startedAt,
+            long durationMs,
+            int llmCalls,
+            long inputTokens,
+            long outputTokens,
+            double estimatedCost
+    ) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.runId = Objects.requireNonNull(runId, "runId");
+        this.workflowId = Objects.requireNonNull(workflowId, "workflowId");
+        this.versionId = Objects.requireNonNull(versionId, "versionId");
+        this.engine = Objects.requireNonNull(engine, "engine");
+        this.status = Objects.requireNonNull(status, "status");
+        this.inputJson = inputJson;
+        this.result = result;
+        this.error = error;
+        this.startedAt = Objects.requireNonNull(startedAt, "startedAt");
+        this.durationMs = durationMs;
+        this.llmCalls = llmCalls;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.estimatedCost = estimatedCost;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.agenteditor.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * JPA entity for an immutable snapshot of a workflow graph.
+ * <p>
+ * Versions are content-addressed by {@code graph_hash} (SHA-256 of entry node id and graph JSON),
+ * unique per workflow, so saving an identical graph reuses the existing row. Rows are never updated;
+ * anything derived from a version (parsed graph, built artifacts) can be cached by version id.
+ * </p>
+ */
+@Entity
+@Table(
+        name = "workflow_version",
+        uniqueConstraints = @UniqueConstraint(name = "uq_workflow_version_hash", columnNames = {"workflow_id", "graph_hash"})
+)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class WorkflowVersion {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_id", nullable = false, updatable = false)
+    private UUID workflowId;
+
+    @Column(name = "graph_hash", nullable = false, updatable = false, length = 64)
+    private String graphHash;
+
+    @Column(name = "entry_node_id", nullable = false, updatable = false, length = 255)
+    private String entryNodeId;
+
+    @Column(name = "graph_json", nullable = false, updatable = false, columnDefinition = "CLOB")
+    private String graphJson;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public WorkflowVersion(UUID id, UUID workflowId, String graphHash, String entryNodeId, String graphJson, Instant createdAt) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.workflowId = Objects.requireNonNull(workflowId, "workflowId");
+        this.graphHash = Objects.requireNonNull(graphHash, "graphHash");
+        this.entryNodeId = Objects.requireNonNull(entryNodeId, "entryNodeId");
+        this.graphJson = Objects.requireNonNull(graphJson, "graphJson");
+        this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
+    }
+}
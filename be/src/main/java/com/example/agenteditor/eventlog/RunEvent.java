@@ -0,0 +1,43 @@
+package com.example.agenteditor.eventlog;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of the {@link RunEventLog}: a finished run, or one node of it.
+ *
+ * @param position     log position of the event (segment number in the high 32 bits, byte offset in the low)
+ * @param nodeId       node id, empty for run events
+ * @param timestamp    run start, or the node's first LLM call (the run start for nodes without calls)
+ */
+public record RunEvent(
+        long position,
+        Type type,
+        Instant timestamp,
+        UUID runId,
+        UUID workflowId,
+        String nodeId,
+        long durationMs,
+        long llmMs,
+        int llmCalls,
+        int llmErrors,
+        long inputTokens,
+        long outputTokens
+) {
+
+    public enum Type {
+        RUN_SUCCEEDED,
+        RUN_FAILED,
+        NODE_EXECUTED,
+        NODE_REUSED;
+
+        private static final Type[] VALUES = values();
+
+        static Type of(int code) {
+            if (code < 0 || code >= VALUES.length) {
+                throw new IllegalStateException("Unknown run event type " + code);
+            }
+            return VALUES[code];
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.agenteditor.eventlog;
+
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+/**
+ * Prints a run event log directory, one tab-separated event per line, oldest first; with {@code --follow} keeps
+ * printing events as they are appended. Reads the segment files directly, so it works while the server runs.
+ * Each segment is mapped once: segment files are created at full size, so the mapping of the segment being written
+ * sees later appends, and polling only decodes what is new.
+ * Run with {@code ./gradlew :be:tailEvents -Pdir=<directory> [-Pfollow]}.
+ */
+public final class RunEventLogTail {
+
+    private static final long POLL_MILLIS = 200;
+
+    private RunEventLogTail() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: RunEventLogTail <directory> [--follow]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        boolean follow = List.of(args).contains("--follow");
+        System.out.println("position\ttype\ttimestamp\trunId\tworkflowId\tnodeId\tdurationMs\tllmMs\tllmCalls\tllmErrors\tinputTokens\toutputTokens");
+        List<RunEvent> events = new ArrayList<>();
+        long segment = 0;
+        int offset = RunEventLog.SEGMENT_HEADER;
+        MappedByteBuffer buffer = null;
+        while (true) {
+            NavigableMap<Long, Path> segments = RunEventLog.listSegments(directory);
+            Long current = segments.ceilingKey(segment);
+            if (current != null && current != segment) {
+                segment = current;
+                offset = RunEventLog.SEGMENT_HEADER;
+                buffer = null;
+            }
+            if (current != null && buffer == null) {
+                buffer = RunEventLog.map(segments.get(current));
+            }
+            boolean sealed = current != null && segments.higherKey(current) != null;
+            if (buffer != null) {
+                events.clear();
+                offset = RunEventLog.decode(buffer, segment, offset, buffer.limit(), Integer.MAX_VALUE, events);
+                events.forEach(RunEventLogTail::print);
+            }
+            if (sealed) {
+                segment++;
+                offset = RunEventLog.SEGMENT_HEADER;
+                buffer = null;
+                continue;
+            }
+            if (!follow) {
+                return;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private static void print(RunEvent e) {
+        System.out.println(e.position() + "\t" + e.type() + "\t" + e.timestamp() + "\t" + e.runId() + "\t" + e.workflowId()
+                + "\t" + e.nodeId() + "\t" + e.durationMs() + "\t" + e.llmMs() + "\t" + e.llmCalls() + "\t" + e.llmErrors()
+                + "\t" + e.inputTokens() + "\t" + e.outputTokens());
+    }
+}
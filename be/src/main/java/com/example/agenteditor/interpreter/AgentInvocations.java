@@ -0,0 +1,56 @@
+package com.example.agenteditor.interpreter;
+
+import dev.langchain4j.agentic.scope.AgenticScope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers for running agents as separate invocations (outside the run's agentic scope) from action steps.
+ */
+final class AgentInvocations {
+
+    private AgentInvocations() {
+    }
+
+    /**
+     * Input for a separate invocation: the run input map when present (what agents prompt from), otherwise
+     * a copy of the scope state.
+     */
+    static Map<String, Object> input(AgenticScope scope) {
+        Map<String, Object> state = scope.state();
+        Map<String, Object> input = new HashMap<>();
+        if (state == null) {
+            return input;
+        }
+        if (state.get("input") instanceof Map<?, ?> inputMap && !inputMap.isEmpty()) {
+            inputMap.forEach((key, value) -> input.put(String.valueOf(key), value));
+            return input;
+        }
+        input.putAll(state);
+        return input;
+    }
+
+    /**
+     * Waits for a branch result, rethrowing its runtime failure as is.
+     */
+    static Object await(Future<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for branch", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Branch was cancelled", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Branch failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.tools.ToolResultCache;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tools of one agent node, with every call bounded by its tool's timeout and answered from its tool's result cache
+ * when it has one.
+ * <p>
+ * Each call runs on the thread that executes it (the agent's, or one of the agent's concurrent tool calls); a call
+ * that outlasts the timeout is interrupted and answers the model with an error text instead of holding up the
+ * agent's turn. Calls are timed in {@code agent.tool.latency} (tags {@code tool} and {@code outcome}: success,
+ * error, timeout). The agent runs the tool calls of one response concurrently, at most its
+ * {@code threadPoolSize} (default {@link #DEFAULT_MAX_CONCURRENT_CALLS}) at once (see
+ * {@code WorkflowGraphInterpreter#buildAgent}); langchain4j hands the results back in the order of the calls, so
+ * the model sees the same conversation as with sequential calls.
+ * </p>
+ * <p>
+ * Cached tools are looked up by tool name and arguments (JSON with keys sorted, so formatting does not matter);
+ * only successful results are stored. Concurrent calls that miss the same key share one call of the tool. Lookups
+ * are counted in {@code agent.tool.cache} (tags {@code tool} and {@code result}: hit, miss, shared) and each hit
+ * records the latency of the call it replaced in {@code agent.tool.cache.saved}.
+ * </p>
+ */
+final class AgentTools implements ToolProvider {
+
+    /** Timeout of a tool call when the node's tool definition sets none. */
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /** Tool calls of one response an agent runs at once when the node sets no {@code threadPoolSize}. */
+    static final int DEFAULT_MAX_CONCURRENT_CALLS = 4;
+
+    /** Interrupts calls that outlast their timeout; one daemon thread shared by every agent. */
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = timeouts();
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    /**
+     * A tool object (with {@link Tool} methods), the timeout of its calls and its result cache (null when not
+     * cached).
+     */
+    record Binding(Object tool, Duration timeout, ToolResultCache cache) {
+    }
+
+    private final ToolProviderResult result;
+    private final int size;
+
+    AgentTools(List<Binding> tools, MeterRegistry meterRegistry) {
+        var builder = ToolProviderResult.builder();
+        int count = 0;
+        for (Binding binding : tools) {
+            Object tool = binding.tool();
+            Method[] methods = tool.getClass().getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.isAnnotationPresent(Tool.class)) {
+                    continue;
+                }
+                ToolSpecification specification = ToolSpecifications.toolSpecificationFrom(method);
+                builder.add(specification, new TimedToolExecutor(new DefaultToolExecutor(tool, method),
+                        specification.name(), binding.timeout(), binding.cache(), meterRegistry));
+                count++;
+            }
+        }
+        this.result = builder.build();
+        this.size = count;
+    }
+
+    /**
+     * Number of tool methods.
+     */
+    int size() {
+        return size;
+    }
+
+    @Override
+    public ToolProviderResult provideTools(ToolProviderRequest request) {
+        return result;
+    }
+
+    private static ScheduledThreadPoolExecutor timeouts() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("tool-timeouts").daemon().factory());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Arguments as JSON with object keys sorted; the raw text when it is not JSON.
+     */
+    static String canonicalArguments(String arguments) {
+        if (arguments == null || arguments.isBlank()) {
+            return "{}";
+        }
+        try {
+            return JSON.writeValueAsString(JSON.readValue(arguments, Object.class));
+        } catch (JacksonException e) {
+            return arguments.trim();
+        }
+    }
+
+    private static final class TimedToolExecutor implements ToolExecutor {
+
+        private final ToolExecutor delegate;
+        private final String name;
+        private final Duration timeout;
+        private final ToolResultCache cache;
+        private final MeterRegistry meterRegistry;
+
+        private TimedToolExecutor(ToolExecutor delegate, String name, Duration timeout, ToolResultCache cache,
+                                  MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.name = name;
+            this.timeout = timeout;
+            this.cache = cache;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public String execute(ToolExecutionRequest request, Object memoryId) {
+            if (cache == null) {
+                return call(request, memoryId).text();
+            }
+            String key = name + "\n" + canonicalArguments(request.arguments());
+            ToolResultCache.Entry cached = cache.get(key);
+            if (cached != null) {
+                return hit(cached);
+            }
+            CompletableFuture<ToolResultCache.Entry> pending = cache.claim(key);
+            if (pending != null) {
+                meterRegistry.counter("agent.tool.cache", "tool", name, "result", "shared").increment();
+                ToolResultCache.Entry shared = await(pending);
+                // The shared call failed or timed out: make this call on its own, uncached.
+                return shared != null ? shared.result() : call(request, memoryId).text();
+            }
+            ToolResultCache.Entry entry = null;
+            try {
+                // A load may have ended between the lookup and the claim.
+                entry = cache.get(key);
+                if (entry != null) {
+                    return hit(entry);
+                }
+                meterRegistry.counter("agent.tool.cache", "tool", name, "result", "miss").increment();
+                long start = System.nanoTime();
+                Outcome outcome = call(request, memoryId);
+                if (!outcome.timedOut()) {
+                    entry = cache.put(key, outcome.text(), System.nanoTime() - start);
+                }
+                return outcome.text();
+            } finally {
+                cache.complete(key, entry);
+            }
+        }
+
+        private String hit(ToolResultCache.Entry cached) {
+            meterRegistry.counter("agent.tool.cache", "tool", name, "result", "hit").increment();
+            Timer.builder("agent.tool.cache.saved")
+                    .description("Latency of the tool calls answered from the cache")
+                    .tag("tool", name)
+                    .register(meterRegistry)
+                    .record(cached.latencyNanos(), TimeUnit.NANOSECONDS);
+            return cached.result();
+        }
+
+        /**
+         * Waits for another caller's call of the same key, at most this tool's timeout.
+         */
+        private ToolResultCache.Entry await(CompletableFuture<ToolResultCache.Entry> pending) {
+            try {
+                return pending.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for tool " + name, e);
+            }
+        }
+
+        private record Outcome(String text, boolean timedOut) {
+        }
+
+        /**
+         * Timeout of one call on the calling thread: {@link #expire} interrupts the call unless it has finished,
+         * and {@link #finish} clears that interrupt again so it does not leak into the agent's thread.
+         */
+        private static final class Deadline {
+            private final Thread thread;
+            private boolean finished;
+            private boolean expired;
+
+            private Deadline(Thread thread) {
+                this.thread = thread;
+            }
+
+            private synchronized void expire() {
+                if (!finished) {
+                    expired = true;
+                    thread.interrupt();
+                }
+            }
+
+            /**
+             * Ends the call; true when it ran out of time.
+             */
+            private synchronized boolean finish() {
+                finished = true;
+                if (expired) {
+                    Thread.interrupted();
+                }
+                return expired;
+            }
+        }
+
+        private Outcome call(ToolExecutionRequest request, Object memoryId) {
+            long start = System.nanoTime();
+            Deadline deadline = new Deadline(Thread.currentThread());
+            ScheduledFuture<?> alarm = TIMEOUTS.schedule(deadline::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            String result = null;
+            RuntimeException failure = null;
+            boolean timedOut;
+            try {
+                result = delegate.execute(request, memoryId);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                alarm.cancel(false);
+                timedOut = deadline.finish();
+            }
+            if (timedOut) {
+                record("timeout", start);
+                return new Outcome("Error: tool " + name + " timed out after " + timeout.toMillis() + " ms", true);
+            }
+            if (failure != null) {
+                record("error", start);
+                throw failure;
+            }
+            record("success", start);
+            return new Outcome(result, false);
+        }
+
+        private void record(String outcome, long start) {
+            Timer.builder("agent.tool.latency")
+                    .description("Tool call latency")
+                    .tag("tool", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.agenteditor.interpreter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structured fan-out for one step: branches forked in a scope never outlive it.
+ * <p>
+ * Branches run on the interpreter's virtual-thread executor, at most {@code limit} at a time when a limit is
+ * set. Steps consume finished branches with {@link #next} and cancel the rest as soon as the outcome is decided
+ * (a failure, enough successes, a routing decision) with {@link #cancelAll}. Closing the scope cancels
+ * (interrupts) every unfinished branch and waits for it to exit, so a cancelled branch can no longer call a
+ * model or report to the run after the step that forked it has returned. Same shape as the JDK's
+ * {@code StructuredTaskScope}, which is still a preview API on the Java version this project targets.
+ * </p>
+ */
+final class BranchScope<T> implements AutoCloseable {
+
+    static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Logger log = LoggerFactory.getLogger(BranchScope.class);
+
+    private final CompletionService<T> completion;
+    private final Semaphore permits;
+    private final Set<Future<T>> unfinished = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition exited = lock.newCondition();
+    private int running;
+    private boolean closed;
+
+    /**
+     * @param limit most branches running at once; 0 or less for no limit
+     */
+    BranchScope(ExecutorService executor, int limit) {
+        this.completion = new ExecutorCompletionService<>(executor);
+        this.permits = limit > 0 ? new Semaphore(limit) : null;
+    }
+
+    Future<T> fork(Callable<T> branch) {
+        Callable<T> task = SpeculativeConditional.carry(branch);
+        Future<T> future = completion.submit(() -> {
+            enter();
+            try {
+                if (permits == null) {
+                    return task.call();
+                }
+                permits.acquire();
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                exit();
+            }
+        });
+        unfinished.add(future);
+        return future;
+    }
+
+    /**
+     * The next branch to finish (successfully, failed or cancelled), or null when none finishes before
+     * {@code deadlineNanos} ({@link Long#MAX_VALUE} waits without a deadline) or no branch is left.
+     */
+    Future<T> next(long deadlineNanos) throws InterruptedException {
+        if (unfinished.isEmpty()) {
+            return null;
+        }
+        Future<T> done;
+        if (deadlineNanos == Long.MAX_VALUE) {
+            done = completion.take();
+        } else {
+            long remaining = deadlineNanos - System.nanoTime();
+            done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : completion.poll();
+        }
+        if (done != null) {
+            unfinished.remove(done);
+        }
+        return done;
+    }
+
+    /**
+     * Branches forked but not yet returned by {@link #next}.
+     */
+    int pending() {
+        return unfinished.size();
+    }
+
+    /**
+     * Cancels every unfinished branch.
+     *
+     * @return number of branches cancelled
+     */
+    int cancelAll() {
+        int cancelled = 0;
+        for (Future<T> future : unfinished) {
+            if (future.cancel(true)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancels unfinished branches and waits (up to {@link #CLOSE_TIMEOUT}) until no branch is still running.
+     */
+    @Override
+    public void close() {
+        cancelAll();
+        lock.lock();
+        try {
+            closed = true;
+            long remaining = CLOSE_TIMEOUT.toNanos();
+            while (running > 0 && remaining > 0) {
+                remaining = exited.awaitNanos(remaining);
+            }
+            if (running > 0) {
+                log.warn("{} cancelled branches still running {} after their step returned", running, CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enter() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new CancellationException("Branch scope closed");
+            }
+            running++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void exit() {
+        lock.lock();
+        try {
+            running--;
+            exited.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
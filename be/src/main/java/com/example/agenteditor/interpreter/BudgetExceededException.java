@@ -0,0 +1,46 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.RunUsageDto;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a run reaches one of its {@link RunBudget} limits: the run stops at its next LLM call.
+ * <p>
+ * Mapped to HTTP 422 by {@code GlobalExceptionHandler}, also when it is the cause of a failed run.
+ * </p>
+ */
+@Getter
+public class BudgetExceededException extends RuntimeException {
+
+    private final String scope;
+    private final RunUsageDto usage;
+
+    public BudgetExceededException(RunBudget.Limit limit, RunUsageDto usage) {
+        super(String.format("%s budget exceeded: %d tokens, estimated cost %.4f USD (limit %s)", limit.scope(),
+                usage.totalTokens(), usage.estimatedCost(), limit.describe()));
+        this.scope = limit.scope();
+        this.usage = usage;
+    }
+
+    public BudgetExceededException(String scope, String message, RunUsageDto usage) {
+        super(message);
+        this.scope = scope;
+        this.usage = usage;
+    }
+
+    /**
+     * The budget exception in the cause chain of {@code failure}, or null if the failure has another cause.
+     */
+    public static BudgetExceededException find(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof BudgetExceededException budget) {
+                return budget;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+}
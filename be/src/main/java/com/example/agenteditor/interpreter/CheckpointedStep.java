@@ -0,0 +1,11 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One checkpoint of a run: the nodes a step completed and the scope state after it. The first checkpoint
+ * of a run has no node ids and holds the run input.
+ */
+public record CheckpointedStep(List<String> nodeIds, Map<String, Object> state) {
+}
@@ -0,0 +1,18 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the scope state after each completed run step (a sequence stage or a DAG unit).
+ * <p>
+ * Called on the thread that ran the step; implementations must copy what they keep and return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface Checkpointer {
+
+    Checkpointer NONE = (nodeIds, state) -> { };
+
+    void completed(List<String> nodeIds, Map<String, Object> state);
+}
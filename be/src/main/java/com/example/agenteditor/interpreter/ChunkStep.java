@@ -0,0 +1,121 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.TokenEstimator;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.Counter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Step of a {@code chunk} node: writes a {@link Chunks} descriptor of the text under {@code inputKey} to the
+ * node's output key (default {@code chunks}).
+ * <p>
+ * The descriptor holds the source key and the chunking settings, not the chunks: a following {@code map} node
+ * cuts the chunks from the source while it iterates them, so besides the source only the chunks in flight are held,
+ * whatever the overlap. Being plain data, the descriptor is checkpointed, recorded in run history
+ * and restored on resume like any other value.
+ * </p>
+ */
+public final class ChunkStep {
+
+    /** Chunk size in tokens when the node sets no {@code chunkTokens}. */
+    public static final int DEFAULT_CHUNK_TOKENS = 1000;
+    static final String DEFAULT_OUTPUT_KEY = "chunks";
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkStep.class);
+
+    private final WorkflowNodeDto node;
+    private final String modelName;
+
+    ChunkStep(WorkflowNodeDto node, String modelName) {
+        this.node = node;
+        this.modelName = modelName;
+    }
+
+    void run(AgenticScope scope) {
+        String text = source(scope, node.inputKey(), "Chunk node " + node.id());
+        int chunkTokens = node.chunkTokens() != null ? node.chunkTokens() : DEFAULT_CHUNK_TOKENS;
+        int overlap = node.chunkOverlap() != null ? node.chunkOverlap() : 0;
+        Chunks chunks = new Chunks(node.inputKey(), chunkTokens, overlap, modelName, text.hashCode());
+        log.info("Chunk nodeId={} inputKey={} chars={} chunkTokens={} overlap={}", node.id(), node.inputKey(), text.length(), chunkTokens, overlap);
+        scope.writeState(outputKey(), chunks);
+    }
+
+    private String outputKey() {
+        return node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : DEFAULT_OUTPUT_KEY;
+    }
+
+    /**
+     * Text under {@code key}: the scope value, else the run input value, rendered canonically unless a string.
+     */
+    private static String source(AgenticScope scope, String key, String reader) {
+        Object value = scope.readState(key);
+        if (value == null) {
+            value = AgentInvocations.input(scope).get(key);
+        }
+        if (value == null) {
+            throw new IllegalStateException(reader + ": no value under '" + key + "'");
+        }
+        return value instanceof String s ? s : PromptCanonicalizer.canonicalValue(value);
+    }
+
+    /**
+     * Chunks of the text under {@code chunksOf}, cut on demand. {@code sourceHash} is the hash of that text when
+     * the chunk node ran, so chunks are never cut from a value that changed since.
+     */
+    public record Chunks(String chunksOf, int chunkTokens, int chunkOverlap, String modelName, int sourceHash) {
+
+        /**
+         * The descriptor in {@code value}: the record itself, or its map form restored from a checkpoint;
+         * null for any other value.
+         */
+        static Chunks from(Object value) {
+            if (value instanceof Chunks chunks) {
+                return chunks;
+            }
+            if (value instanceof Map<?, ?> map && map.get("chunksOf") instanceof String key
+                    && map.get("chunkTokens") instanceof Number tokens && map.get("chunkOverlap") instanceof Number overlap
+                    && map.get("sourceHash") instanceof Number hash) {
+                Object model = map.get("modelName");
+                return new Chunks(key, tokens.intValue(), overlap.intValue(), model != null ? model.toString() : null,
+                        hash.intValue());
+            }
+            return null;
+        }
+
+        /**
+         * Cuts the chunks from the source in {@code scope} one at a time, counting each in {@code counter}.
+         */
+        Iterator<String> iterator(AgenticScope scope, TokenEstimator tokenEstimator, Counter counter) {
+            String text = source(scope, chunksOf, "Chunks of '" + chunksOf + "'");
+            if (text.hashCode() != sourceHash) {
+                throw new IllegalStateException("Chunks of '" + chunksOf + "': the value changed after it was chunked");
+            }
+            Iterator<String> delegate = tokenEstimator.chunks(text, chunkTokens, chunkOverlap, modelName).iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    String chunk = delegate.next();
+                    counter.increment();
+                    return chunk;
+                }
+            };
+        }
+
+        /** Prints as a short placeholder so the source is never expanded into a prompt by accident. */
+        @Override
+        public String toString() {
+            return "[chunks of " + chunksOf + "]";
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Branch dispatch table for a conditional node, compiled once per build.
+ * <p>
+ * Branches are indexed per condition key by their (normalized) value, so routing is one state read and one
+ * hash lookup per condition key. When nothing matches, the node's {@code defaultAgentId} is taken; without a
+ * default the run fails instead of silently producing an empty result.
+ * </p>
+ * <p>
+ * The framework evaluates one predicate per branch agent, in registration order; the first predicate
+ * resolves the route and the others reuse it for the same scope.
+ * </p>
+ */
+final class ConditionalDispatch {
+
+    enum Normalization {
+        NONE, TRIM, IGNORE_CASE;
+
+        static Normalization parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown branchNormalization: " + value);
+            }
+        }
+
+        String apply(Object value) {
+            if (value == null) {
+                return null;
+            }
+            String text = value.toString();
+            return switch (this) {
+                case NONE -> text;
+                case TRIM -> text.strip();
+                case IGNORE_CASE -> text.strip().toLowerCase(Locale.ROOT);
+            };
+        }
+    }
+
+    private record Route(AgenticScope scope, String agentId) {
+    }
+
+    private final String nodeId;
+    private final Normalization normalization;
+    private final Map<String, Map<String, String>> agentIdsByKey;
+    private final String defaultAgentId;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<Route> lastRoute = new AtomicReference<>();
+
+    private ConditionalDispatch(
+            String nodeId,
+            Normalization normalization,
+            Map<String, Map<String, String>> agentIdsByKey,
+            String defaultAgentId,
+            MeterRegistry meterRegistry
+    ) {
+        this.nodeId = nodeId;
+        this.normalization = normalization;
+        this.agentIdsByKey = agentIdsByKey;
+        this.defaultAgentId = defaultAgentId;
+        this.meterRegistry = meterRegistry;
+    }
+
+    static ConditionalDispatch compile(WorkflowNodeDto node, MeterRegistry meterRegistry) {
+        Normalization normalization = Normalization.parse(node.branchNormalization());
+        Map<String, Map<String, String>> agentIdsByKey = new LinkedHashMap<>();
+        for (ConditionalBranchDto branch : node.branches()) {
+            Map<String, String> table = agentIdsByKey.computeIfAbsent(branch.conditionKey(), key -> new HashMap<>());
+            String value = normalization.apply(branch.value());
+            String existing = table.putIfAbsent(value, branch.agentId());
+            if (existing != null && !existing.equals(branch.agentId())) {
+                throw new IllegalArgumentException("Conditional node " + node.id() + " maps "
+                        + branch.conditionKey() + "='" + value + "' to both " + existing + " and " + branch.agentId());
+            }
+        }
+        String defaultAgentId = node.defaultAgentId() != null && !node.defaultAgentId().isBlank()
+                ? node.defaultAgentId() : null;
+        return new ConditionalDispatch(node.id(), normalization, agentIdsByKey, defaultAgentId, meterRegistry);
+    }
+
+    /**
+     * Distinct agent ids this node can dispatch to (branches first, then the default), in declaration order.
+     */
+    Set<String> agentIds() {
+        Set<String> ids = new LinkedHashSet<>();
+        agentIdsByKey.values().forEach(table -> ids.addAll(table.values()));
+        if (defaultAgentId != null) {
+            ids.add(defaultAgentId);
+        }
+        return ids;
+    }
+
+    /**
+     * Predicate for one branch agent. {@code resolves} is true for the first registered agent, which computes
+     * the route; the others reuse it when evaluated against the same scope.
+     */
+    boolean selects(AgenticScope scope, String agentId, boolean resolves) {
+        Route route = lastRoute.get();
+        if (resolves || route == null || route.scope() != scope) {
+            route = new Route(scope, route(scope));
+            lastRoute.set(route);
+        }
+        return agentId.equals(route.agentId());
+    }
+
+    String route(AgenticScope scope) {
+        for (Map.Entry<String, Map<String, String>> entry : agentIdsByKey.entrySet()) {
+            String value = normalization.apply(scope.readState(entry.getKey()));
+            String agentId = value != null ? entry.getValue().get(value) : null;
+            if (agentId != null) {
+                meterRegistry.counter("agent.conditional.routes", "outcome", "matched").increment();
+                return agentId;
+            }
+        }
+        if (defaultAgentId != null) {
+            meterRegistry.counter("agent.conditional.routes", "outcome", "default").increment();
+            return defaultAgentId;
+        }
+        meterRegistry.counter("agent.conditional.routes", "outcome", "unmatched").increment();
+        throw new IllegalStateException("Conditional node " + nodeId + " has no branch for "
+                + describeState(scope) + " and no defaultAgentId");
+    }
+
+    private String describeState(AgenticScope scope) {
+        List<String> parts = agentIdsByKey.keySet().stream()
+                .map(key -> key + "='" + scope.readState(key) + "'")
+                .toList();
+        return String.join(", ", parts);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import dev.langchain4j.agentic.scope.ResultWithAgenticScope;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Dataflow engine: runs the nodes under a sequence/parallel entry as a DAG instead of nested workflows.
+ * <p>
+ * Nested sequence and parallel ({@code ALL}) nodes are flattened into units; every other node (agent, chunk,
+ * map, conditional, supervisor, partial parallel) is one unit invoked as a whole. A unit depends on each
+ * earlier unit in program order it conflicts with over scope keys ({@link DataflowAnalysis}); branches of
+ * the same parallel never depend on each other. Units start on the executor as soon as their dependencies
+ * have finished, each on a snapshot of the scope; their writes are merged back by the coordinating thread,
+ * so conflicting writes land in program order.
+ * </p>
+ * <p>
+ * A flattened composite whose output key no unit writes gets a join unit that stores its composite output
+ * (as the nested workflow would). Router/conditional pairs are not fused for speculation on this engine.
+ * The state is checkpointed after every merged unit; units a resumed run's checkpoints cover count as done.
+ * </p>
+ */
+final class DagScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DagScheduler.class);
+
+    /**
+     * One schedulable step: a node invocation, or (with a null agent) the join of a flattened composite.
+     * {@code branches} locates the unit inside parallel nodes as {@code parallelId#branchIndex} segments.
+     */
+    record Unit(
+            int index,
+            WorkflowNodeDto node,
+            UntypedAgent agent,
+            DataflowAnalysis.Access access,
+            List<String> branches,
+            List<Integer> dependencies
+    ) {
+        boolean join() {
+            return agent == null;
+        }
+    }
+
+    private final WorkflowNodeDto entry;
+    private final List<Unit> units = new ArrayList<>();
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final BiFunction<WorkflowNodeDto, Map<String, Object>, Object> compositeOutput;
+
+    /**
+     * @param input           state the run starts from, or null when unknown (see {@link DataflowAnalysis})
+     * @param agents          node id to invocable agent for every node that can become a unit
+     * @param compositeOutput output of a sequence/parallel node given the scope state (as the nested workflow computes it)
+     */
+    DagScheduler(
+            WorkflowNodeDto entry,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, Object> input,
+            Map<String, UntypedAgent> agents,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            BiFunction<WorkflowNodeDto, Map<String, Object>, Object> compositeOutput
+    ) {
+        this.entry = entry;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.compositeOutput = compositeOutput;
+        DataflowAnalysis analysis = new DataflowAnalysis(byId, input);
+        flatten(entry, byId, agents, analysis, List.of(), true);
+        link();
+        log.info("DAG plan entryNodeId={} units={} edges={}", entry.id(), units.size(),
+                units.stream().mapToInt(u -> u.dependencies().size()).sum());
+    }
+
+    List<Unit> units() {
+        return units;
+    }
+
+    private void flatten(
+            WorkflowNodeDto node,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, UntypedAgent> agents,
+            DataflowAnalysis analysis,
+            List<String> branches,
+            boolean isEntry
+    ) {
+        if (!flattens(node)) {
+            UntypedAgent agent = agents.get(node.id());
+            if (agent == null) {
+                throw new IllegalArgumentException("Node " + node.id() + " cannot be scheduled on the DAG engine");
+            }
+            units.add(new Unit(units.size(), node, agent, analysis.access(node), branches, new ArrayList<>()));
+            return;
+        }
+        int first = units.size();
+        List<String> subIds = node.subAgentIds();
+        for (int i = 0; i < subIds.size(); i++) {
+            List<String> childBranches = branches;
+            if ("parallel".equals(node.type())) {
+                childBranches = new ArrayList<>(branches);
+                childBranches.add(node.id() + "#" + i);
+            }
+            flatten(byId.get(subIds.get(i)), byId, agents, analysis, childBranches, false);
+        }
+        String outputKey = DataflowAnalysis.normalize(compositeKey(node));
+        boolean written = units.subList(first, units.size()).stream()
+                .anyMatch(u -> u.access().writes().contains(outputKey));
+        if (!isEntry && !written) {
+            DataflowAnalysis.Access joinAccess = new DataflowAnalysis.Access(Set.of(), true, Set.of(outputKey));
+            units.add(new Unit(units.size(), node, null, joinAccess, branches, new ArrayList<>()));
+        }
+    }
+
+    private static boolean flattens(WorkflowNodeDto node) {
+        return "sequence".equals(node.type())
+                || ("parallel".equals(node.type())
+                    && ParallelCompletion.Policy.parse(node.completionPolicy()) == ParallelCompletion.Policy.ALL);
+    }
+
+    private void link() {
+        for (Unit later : units) {
+            for (Unit earlier : units.subList(0, later.index())) {
+                if (!concurrent(earlier, later) && earlier.access().orders(later.access())) {
+                    later.dependencies().add(earlier.index());
+                }
+            }
+        }
+    }
+
+    /**
+     * Units in different branches of the same parallel node run side by side regardless of their keys.
+     */
+    private static boolean concurrent(Unit a, Unit b) {
+        int n = Math.min(a.branches().size(), b.branches().size());
+        for (int i = 0; i < n; i++) {
+            String x = a.branches().get(i);
+            String y = b.branches().get(i);
+            if (!x.equals(y)) {
+                return x.substring(0, x.lastIndexOf('#')).equals(y.substring(0, y.lastIndexOf('#')));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the units not covered by the context's resume checkpoints, checkpointing the state after each one.
+     */
+    WorkflowExecution run(Map<String, Object> input, RunContext runContext) {
+        Map<String, Object> state = new LinkedHashMap<>(input != null ? input : Map.of());
+        int[] pending = new int[units.size()];
+        List<List<Unit>> dependents = new ArrayList<>();
+        for (Unit unit : units) {
+            dependents.add(new ArrayList<>());
+            pending[unit.index()] = unit.dependencies().size();
+        }
+        for (Unit unit : units) {
+            for (int dependency : unit.dependencies()) {
+                dependents.get(dependency).add(unit);
+            }
+        }
+
+        Map<Future<ResultWithAgenticScope<?>>, Unit> running = new HashMap<>();
+        Map<Unit, Map<String, Object>> snapshots = new HashMap<>();
+        List<AgenticScope> scopes = new ArrayList<>();
+        Object lastResult = null;
+        int finished = 0;
+        for (Unit unit : units) {
+            if (resumed(unit, runContext)) {
+                finished++;
+                for (Unit dependent : dependents.get(unit.index())) {
+                    pending[dependent.index()]--;
+                }
+            }
+        }
+        Deque<Unit> ready = new ArrayDeque<>();
+        for (Unit unit : units) {
+            if (pending[unit.index()] == 0 && !resumed(unit, runContext)) {
+                ready.add(unit);
+            }
+        }
+        try (BranchScope<ResultWithAgenticScope<?>> branches = new BranchScope<>(executor, 0)) {
+            try {
+                while (finished < units.size()) {
+                    while (!ready.isEmpty()) {
+                        Unit unit = ready.poll();
+                        if (unit.join()) {
+                            state.put(compositeKey(unit.node()), compositeOutput.apply(unit.node(), state));
+                            finished++;
+                            release(unit, dependents, pending, ready);
+                            continue;
+                        }
+                        Map<String, Object> snapshot = new HashMap<>(state);
+                        snapshots.put(unit, snapshot);
+                        running.put(branches.fork(() -> unit.agent().invokeWithAgenticScope(new HashMap<>(snapshot))), unit);
+                    }
+                    if (finished == units.size()) {
+                        break;
+                    }
+                    if (running.isEmpty()) {
+                        throw new IllegalStateException("DAG for " + entry.id() + " stalled with " + (units.size() - finished) + " units left");
+                    }
+                    Future<ResultWithAgenticScope<?>> done = branches.next(Long.MAX_VALUE);
+                    Unit unit = running.remove(done);
+                    ResultWithAgenticScope<?> result = await(done, unit);
+                    merge(unit, result, snapshots.remove(unit), state);
+                    if (result.agenticScope() != null) {
+                        scopes.add(result.agenticScope());
+                    }
+                    lastResult = result.result();
+                    runContext.checkpoint(List.of(unit.node().id()), state);
+                    meterRegistry.counter("agent.dag.units", "outcome", "completed").increment();
+                    finished++;
+                    release(unit, dependents, pending, ready);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running DAG for " + entry.id(), e);
+            } finally {
+                meterRegistry.counter("agent.dag.units", "outcome", "cancelled").increment(branches.cancelAll());
+            }
+        }
+
+        Object output;
+        if (flattens(entry)) {
+            output = compositeOutput.apply(entry, state);
+            state.put(compositeKey(entry), output);
+        } else {
+            output = lastResult;
+        }
+        log.info("DAG run entryNodeId={} finished {} units", entry.id(), finished);
+        return new WorkflowExecution(output, state, scopes);
+    }
+
+    private static boolean resumed(Unit unit, RunContext runContext) {
+        return !unit.join() && runContext.resumed(unit.node().id());
+    }
+
+    private static void release(Unit unit, List<List<Unit>> dependents, int[] pending, Deque<Unit> ready) {
+        for (Unit dependent : dependents.get(unit.index())) {
+            if (--pending[dependent.index()] == 0) {
+                ready.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * Copies the entries the unit added or replaced into the shared state, plus its result under its output key.
+     */
+    private static void merge(Unit unit, ResultWithAgenticScope<?> result, Map<String, Object> snapshot, Map<String, Object> state) {
+        AgenticScope scope = result.agenticScope();
+        if (scope != null && scope.state() != null) {
+            for (Map.Entry<String, Object> entry : scope.state().entrySet()) {
+                if (!snapshot.containsKey(entry.getKey()) || snapshot.get(entry.getKey()) != entry.getValue()) {
+                    state.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        String outputKey = unit.node().outputKey();
+        if (outputKey != null && !outputKey.isBlank() && result.result() != null) {
+            state.put(outputKey, result.result());
+        }
+    }
+
+    private ResultWithAgenticScope<?> await(Future<ResultWithAgenticScope<?>> future, Unit unit) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            meterRegistry.counter("agent.dag.units", "outcome", "failed").increment();
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Node " + unit.node().id() + " failed", e.getCause());
+        }
+    }
+
+    private static String compositeKey(WorkflowNodeDto node) {
+        return node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : "result";
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static read/write sets of workflow nodes over scope keys, derived from {@code promptTemplate} variables
+ * and {@code outputKey} writes.
+ * <p>
+ * Keys are compared case-insensitively, like template resolution. A node that prompts from the whole scope
+ * (no template, a {@code {{prompt}}} variable, or a supervisor) reads everything. Two nodes in program order
+ * must keep their order when one writes a key the other reads or writes; everything else may run concurrently.
+ * </p>
+ * <p>
+ * Run input under {@code metadata} is tracked per entry: {@code {{metadata.topic}}} reads {@code metadata.topic},
+ * which overlaps {@code metadata} but not {@code metadata.tone}. When every variable of an agent's template may
+ * render empty, the agent prompts from a fallback instead: the metadata when it is a non-empty map, otherwise the
+ * whole scope. Such an agent reads everything, unless the scope state it starts from is known and shows that a
+ * variable renders something (no fallback) or that {@code metadata} is a non-empty map (it reads the whole of
+ * {@code metadata}).
+ * </p>
+ */
+final class DataflowAnalysis {
+
+    static final String METADATA = "metadata";
+
+    private static final Pattern TEMPLATE_VAR_PATTERN = Pattern.compile("\\{\\{\\s*([a-zA-Z0-9_.-]+)\\s*}}");
+
+    /**
+     * Scope keys a node reads and writes; {@code readsAll} means it depends on the whole scope.
+     */
+    record Access(Set<String> reads, boolean readsAll, Set<String> writes) {
+
+        static final Access NONE = new Access(Set.of(), false, Set.of());
+
+        /**
+         * True when {@code later} must not start before this access (read-after-write, write-after-write or
+         * write-after-read on a shared key).
+         */
+        boolean orders(Access later) {
+            for (String key : writes) {
+                if (later.readsAll || overlaps(key, later.reads) || overlaps(key, later.writes)) {
+                    return true;
+                }
+            }
+            for (String key : later.writes) {
+                if (readsAll || overlaps(key, reads)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * True when the key, or a key it is a path into or that is a path into it, is in {@code keys}.
+         */
+        private static boolean overlaps(String key, Set<String> keys) {
+            for (String other : keys) {
+                if (other.equals(key) || other.startsWith(key + ".") || key.startsWith(other + ".")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Access union(Access other) {
+            Set<String> r = new LinkedHashSet<>(reads);
+            r.addAll(other.reads);
+            Set<String> w = new LinkedHashSet<>(writes);
+            w.addAll(other.writes);
+            return new Access(r, readsAll || other.readsAll, w);
+        }
+    }
+
+    private final Map<String, WorkflowNodeDto> byId;
+    private final Map<?, ?> state;
+
+    DataflowAnalysis(Map<String, WorkflowNodeDto> byId) {
+        this(byId, null);
+    }
+
+    /**
+     * @param state scope state the analysed nodes start from, or null when unknown
+     */
+    DataflowAnalysis(Map<String, WorkflowNodeDto> byId, Map<?, ?> state) {
+        this.byId = byId;
+        this.state = state;
+    }
+
+    /**
+     * Keys read and written by a node and everything it runs.
+     */
+    Access access(WorkflowNodeDto node) {
+        return access(node, new HashSet<>());
+    }
+
+    private Access access(WorkflowNodeDto node, Set<String> visiting) {
+        if (node == null || !visiting.add(node.id())) {
+            return Access.NONE;
+        }
+        try {
+            return switch (node.type()) {
+                case "agent" -> agentAccess(node);
+                case "chunk" -> new Access(keys(node.inputKey()), false, keys(outputKey(node, ChunkStep.DEFAULT_OUTPUT_KEY)));
+                case "supervisor" -> children(node, node.subAgentIds(), visiting)
+                        .union(new Access(Set.of(), true, keys(node.outputKey())));
+                case "map" -> mapAccess(node, visiting);
+                case "conditional" -> conditionalAccess(node, visiting);
+                case "sequence", "parallel" -> children(node, node.subAgentIds(), visiting)
+                        .union(new Access(Set.of(), false, keys(outputKey(node, "result"))));
+                default -> Access.NONE;
+            };
+        } finally {
+            visiting.remove(node.id());
+        }
+    }
+
+    private Access mapAccess(WorkflowNodeDto node, Set<String> visiting) {
+        String itemKey = node.itemKey() != null && !node.itemKey().isBlank() ? node.itemKey() : MapStep.DEFAULT_ITEM_KEY;
+        Access element = elementAnalysis(itemKey).children(node, node.subAgentIds(), visiting);
+        Set<String> reads = new LinkedHashSet<>(element.reads());
+        reads.remove(normalize(itemKey));
+        reads.remove(normalize(MapStep.indexKey(itemKey)));
+        reads.addAll(keys(node.itemsKey()));
+        // Chunks under the items key are cut from their source while the map iterates them.
+        for (WorkflowNodeDto producer : byId.values()) {
+            if ("chunk".equals(producer.type()) && !keys(node.itemsKey()).isEmpty()
+                    && keys(node.itemsKey()).equals(keys(outputKey(producer, ChunkStep.DEFAULT_OUTPUT_KEY)))) {
+                reads.addAll(keys(producer.inputKey()));
+            }
+        }
+        Set<String> writes = new LinkedHashSet<>(element.writes());
+        writes.addAll(keys(outputKey(node, "result")));
+        return new Access(reads, element.readsAll(), writes);
+    }
+
+    /**
+     * Analysis of a map element: the item and its index are unknown, whatever the outer scope holds under them.
+     */
+    private DataflowAnalysis elementAnalysis(String itemKey) {
+        if (state == null) {
+            return this;
+        }
+        Map<Object, Object> elementState = new HashMap<>();
+        state.forEach((key, value) -> {
+            String name = String.valueOf(key);
+            if (!name.equalsIgnoreCase(itemKey) && !name.equalsIgnoreCase(MapStep.indexKey(itemKey))) {
+                elementState.put(key, value);
+            }
+        });
+        return new DataflowAnalysis(byId, elementState);
+    }
+
+    private Access conditionalAccess(WorkflowNodeDto node, Set<String> visiting) {
+        Access access = Access.NONE;
+        Set<String> conditionKeys = new LinkedHashSet<>();
+        if (node.branches() != null) {
+            for (ConditionalBranchDto branch : node.branches()) {
+                conditionKeys.addAll(keys(branch.conditionKey()));
+                access = access.union(access(byId.get(branch.agentId()), visiting));
+            }
+        }
+        if (node.defaultAgentId() != null && !node.defaultAgentId().isBlank()) {
+            access = access.union(access(byId.get(node.defaultAgentId()), visiting));
+        }
+        return access.union(new Access(conditionKeys, false, keys(node.outputKey())));
+    }
+
+    private Access children(WorkflowNodeDto node, List<String> ids, Set<String> visiting) {
+        Access access = Access.NONE;
+        if (ids != null) {
+            for (String id : ids) {
+                access = access.union(access(byId.get(id), visiting));
+            }
+        }
+        return access;
+    }
+
+    /**
+     * First path segments of the template's variables, lower-cased, and the first two for paths into
+     * {@code metadata}; {@code {{prompt}}} is left out.
+     */
+    static Set<String> templateKeys(String template) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (template == null) {
+            return keys;
+        }
+        Matcher matcher = TEMPLATE_VAR_PATTERN.matcher(template);
+        while (matcher.find()) {
+            String path = matcher.group(1);
+            if ("prompt".equalsIgnoreCase(path)) {
+                continue;
+            }
+            String[] segments = normalize(path).split("\\.");
+            keys.add(METADATA.equals(segments[0]) && segments.length > 1 ? METADATA + "." + segments[1] : segments[0]);
+        }
+        return keys;
+    }
+
+    /**
+     * Template keys, plus what the prompt falls back to when no variable is known to render something.
+     */
+    private Access agentAccess(WorkflowNodeDto node) {
+        String template = node.promptTemplate();
+        Set<String> reads = templateKeys(template);
+        boolean readsAll = readsWholeScope(template);
+        if (!readsAll && !rendersFromState(template)) {
+            Map<?, ?> scope = promptScope();
+            if (scope != null && scope.get(METADATA) instanceof Map<?, ?> metadata && !metadata.isEmpty()) {
+                reads.add(METADATA);
+            } else {
+                readsAll = true;
+            }
+        }
+        return new Access(reads, readsAll, keys(node.outputKey()));
+    }
+
+    /**
+     * The known state as the prompt builder sees it: the run's {@code input} map when the scope has a non-empty
+     * one, otherwise the state itself; null when the state is unknown.
+     */
+    private Map<?, ?> promptScope() {
+        if (state == null) {
+            return null;
+        }
+        return state.get("input") instanceof Map<?, ?> input && !input.isEmpty() ? input : state;
+    }
+
+    /**
+     * True when some variable of the template resolves to a non-blank value in the state, as the prompt
+     * builder looks it up (in the run's {@code input} map when the scope has a non-empty one).
+     */
+    private boolean rendersFromState(String template) {
+        Map<?, ?> scope = promptScope();
+        if (scope == null || template == null) {
+            return false;
+        }
+        Matcher matcher = TEMPLATE_VAR_PATTERN.matcher(template);
+        while (matcher.find()) {
+            Object value = valueByPath(scope, matcher.group(1));
+            if (value != null && !PromptCanonicalizer.canonicalValue(value).isBlank()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object valueByPath(Map<?, ?> map, String path) {
+        Object current = map;
+        for (String segment : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> currentMap)) {
+                return null;
+            }
+            Object next = null;
+            for (Map.Entry<?, ?> entry : currentMap.entrySet()) {
+                if (entry.getKey() != null && segment.equalsIgnoreCase(entry.getKey().toString())) {
+                    next = entry.getValue();
+                    break;
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * An agent prompts from the whole scope when it has no template or the template uses {@code {{prompt}}}.
+     */
+    private static boolean readsWholeScope(String template) {
+        if (template == null || template.isBlank()) {
+            return true;
+        }
+        Matcher matcher = TEMPLATE_VAR_PATTERN.matcher(template);
+        while (matcher.find()) {
+            if ("prompt".equalsIgnoreCase(matcher.group(1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String outputKey(WorkflowNodeDto node, String defaultKey) {
+        return node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : defaultKey;
+    }
+
+    private static Set<String> keys(String key) {
+        return key != null && !key.isBlank() ? Set.of(normalize(key)) : Set.of();
+    }
+
+    static String normalize(String key) {
+        return key.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.Locale;
+
+/**
+ * Engine a workflow runs on: {@code INTERPRETER} maps the graph onto nested agentic sequence/parallel
+ * workflows; {@code DAG} schedules nodes as a dataflow graph through {@link DagScheduler}.
+ */
+public enum ExecutionEngine {
+    INTERPRETER, DAG;
+
+    /**
+     * Parses an engine name case-insensitively; null or blank yields null (use the default).
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static ExecutionEngine parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown executionEngine: " + value);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Plans an incremental re-run from a previous run's checkpoints: which completed steps can be reused after
+ * the graph (or the run input) changed, and the scope state the remaining steps start from.
+ * <p>
+ * A node is changed when its config differs from the previous version, when its LLM node changed, when a
+ * node it runs changed, or when a composite above it changed its own config (its children may have moved).
+ * Walking the previous checkpoints in order, a step is dirty when one of its nodes changed or an earlier
+ * dirty step must precede it ({@link DataflowAnalysis.Access#orders} over the old and the new access of its
+ * nodes, so renamed keys still count). Changed input keys act as a dirty step before the first one, with
+ * {@code metadata} compared entry by entry; changed nodes the previous run never completed conflict with every
+ * step they share a key with.
+ * </p>
+ * <p>
+ * The dirty steps start from the state checkpointed before the first of them, plus the writes of each clean
+ * step after it, taken from that step's own checkpoint. A dirty step never reads or writes those keys before
+ * the clean step would have (that would make the clean step dirty), so every step sees what a full run gives it.
+ * </p>
+ */
+public final class IncrementalPlanner {
+
+    /**
+     * @param reusedNodeIds nodes whose recorded results are reused (skipped by the run)
+     * @param dirtyNodeIds  previously completed nodes that run again
+     * @param input         run input: the recorded input with the new input applied over it
+     * @param state         scope state the run starts from
+     * @param reusedSteps   checkpoints of the reused steps, in their original order
+     */
+    public record Plan(
+            Set<String> reusedNodeIds,
+            Set<String> dirtyNodeIds,
+            Map<String, Object> input,
+            Map<String, Object> state,
+            List<CheckpointedStep> reusedSteps
+    ) {
+    }
+
+    private IncrementalPlanner() {
+    }
+
+    /**
+     * @param history checkpoints of the previous run, input checkpoint first
+     * @param input   new run input; keys whose value differs from the recorded input are treated as changed
+     * @throws IllegalArgumentException if the previous run did not record its input
+     */
+    public static Plan plan(
+            List<WorkflowNodeDto> previousNodes,
+            List<WorkflowNodeDto> nodes,
+            List<CheckpointedStep> history,
+            Map<String, Object> input
+    ) {
+        if (history.isEmpty() || !history.get(0).nodeIds().isEmpty()) {
+            throw new IllegalArgumentException("Previous run has no recorded input; run the workflow in full");
+        }
+        Map<String, WorkflowNodeDto> previousById = index(previousNodes);
+        Map<String, WorkflowNodeDto> byId = index(nodes);
+        Set<String> edited = editedNodeIds(previousById, byId);
+        Set<String> changed = changedNodeIds(edited, byId);
+
+        Map<String, Object> effectiveInput = new LinkedHashMap<>(history.get(0).state());
+        Map<String, Object> changedInput = new LinkedHashMap<>();
+        if (input != null) {
+            input.forEach((key, value) -> {
+                if (!Objects.equals(value, effectiveInput.get(key))) {
+                    changedInput.put(key, value);
+                }
+            });
+        }
+        effectiveInput.putAll(changedInput);
+
+        List<DataflowAnalysis.Access> dirty = new ArrayList<>();
+        if (!changedInput.isEmpty()) {
+            Set<String> keys = new LinkedHashSet<>();
+            changedInput.forEach((key, value) -> keys.addAll(changedKeys(key, history.get(0).state().get(key), value)));
+            dirty.add(new DataflowAnalysis.Access(Set.of(), false, keys));
+        }
+        Set<String> covered = new HashSet<>();
+        history.forEach(step -> covered.addAll(step.nodeIds()));
+        List<DataflowAnalysis.Access> uncovered = edited.stream()
+                .filter(id -> !covered.contains(id))
+                .map(id -> access(List.of(id), previousById, byId, null))
+                .toList();
+
+        Set<String> reusedNodeIds = new LinkedHashSet<>();
+        Set<String> dirtyNodeIds = new LinkedHashSet<>();
+        List<CheckpointedStep> reusedSteps = new ArrayList<>();
+        List<DataflowAnalysis.Access> stepAccess = new ArrayList<>();
+        int firstDirty = -1;
+        for (int i = 1; i < history.size(); i++) {
+            CheckpointedStep step = history.get(i);
+            DataflowAnalysis.Access access = access(step.nodeIds(), previousById, byId, history.get(i - 1).state());
+            stepAccess.add(access);
+            boolean isDirty = step.nodeIds().stream().anyMatch(changed::contains)
+                    || dirty.stream().anyMatch(d -> d.orders(access))
+                    || uncovered.stream().anyMatch(u -> u.orders(access) || access.orders(u));
+            if (isDirty) {
+                dirty.add(access);
+                dirtyNodeIds.addAll(step.nodeIds());
+                if (firstDirty < 0) {
+                    firstDirty = i;
+                }
+            } else {
+                reusedNodeIds.addAll(step.nodeIds());
+                reusedSteps.add(step);
+            }
+        }
+
+        int prefix = firstDirty < 0 ? history.size() - 1 : firstDirty - 1;
+        Map<String, Object> state = new LinkedHashMap<>(history.get(prefix).state());
+        state.putAll(changedInput);
+        if (firstDirty >= 0) {
+            for (int i = firstDirty + 1; i < history.size(); i++) {
+                CheckpointedStep step = history.get(i);
+                if (!reusedNodeIds.containsAll(step.nodeIds())) {
+                    continue;
+                }
+                Set<String> writes = stepAccess.get(i - 1).writes();
+                step.state().forEach((key, value) -> {
+                    if (writes.contains(DataflowAnalysis.normalize(key))) {
+                        state.put(key, value);
+                    }
+                });
+            }
+        }
+        return new Plan(reusedNodeIds, dirtyNodeIds, effectiveInput, state, reusedSteps);
+    }
+
+    /**
+     * Old and new access of the nodes, resolved against the state they started from in the previous run (null
+     * for nodes it never ran). A step that stays clean sees the same values again, so an agent whose template
+     * rendered there does not fall back to the whole of {@code metadata}.
+     */
+    private static DataflowAnalysis.Access access(
+            List<String> nodeIds,
+            Map<String, WorkflowNodeDto> previousById,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, Object> startState
+    ) {
+        DataflowAnalysis previousAnalysis = new DataflowAnalysis(previousById, startState);
+        DataflowAnalysis analysis = new DataflowAnalysis(byId, startState);
+        DataflowAnalysis.Access access = DataflowAnalysis.Access.NONE;
+        for (String id : nodeIds) {
+            access = access.union(previousAnalysis.access(previousById.get(id))).union(analysis.access(byId.get(id)));
+        }
+        return access;
+    }
+
+    /**
+     * The changed input key; for {@code metadata} maps, the entries that differ ({@code metadata.<key>}).
+     */
+    private static Set<String> changedKeys(String key, Object previous, Object value) {
+        String normalized = DataflowAnalysis.normalize(key);
+        if (!DataflowAnalysis.METADATA.equals(normalized)
+                || !(previous instanceof Map<?, ?> before) || !(value instanceof Map<?, ?> after)) {
+            return Set.of(normalized);
+        }
+        Set<Object> entries = new HashSet<>(before.keySet());
+        entries.addAll(after.keySet());
+        Set<String> keys = new LinkedHashSet<>();
+        for (Object entry : entries) {
+            if (!Objects.equals(before.get(entry), after.get(entry))) {
+                keys.add(DataflowAnalysis.METADATA + "." + DataflowAnalysis.normalize(String.valueOf(entry)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Nodes added, removed or reconfigured since the previous version, and agents whose LLM node was.
+     */
+    private static Set<String> editedNodeIds(Map<String, WorkflowNodeDto> previousById, Map<String, WorkflowNodeDto> byId) {
+        Set<String> edited = new HashSet<>();
+        for (String id : previousById.keySet()) {
+            if (!byId.containsKey(id)) {
+                edited.add(id);
+            }
+        }
+        for (WorkflowNodeDto node : byId.values()) {
+            if (!node.equals(previousById.get(node.id()))) {
+                edited.add(node.id());
+            }
+        }
+        for (WorkflowNodeDto node : byId.values()) {
+            if (node.llmId() != null && edited.contains(node.llmId())) {
+                edited.add(node.id());
+            }
+        }
+        return edited;
+    }
+
+    /**
+     * Edited nodes, everything under an edited composite, and every composite running a changed node.
+     */
+    private static Set<String> changedNodeIds(Set<String> edited, Map<String, WorkflowNodeDto> byId) {
+        Set<String> changed = new HashSet<>(edited);
+        for (String id : edited) {
+            WorkflowNodeDto node = byId.get(id);
+            if (node != null) {
+                addDescendants(node, byId, changed, new HashSet<>());
+            }
+        }
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (WorkflowNodeDto node : byId.values()) {
+                if (!changed.contains(node.id()) && children(node).stream().anyMatch(changed::contains)) {
+                    changed.add(node.id());
+                    grew = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static void addDescendants(WorkflowNodeDto node, Map<String, WorkflowNodeDto> byId, Set<String> changed, Set<String> visited) {
+        if (!visited.add(node.id())) {
+            return;
+        }
+        for (String childId : children(node)) {
+            changed.add(childId);
+            WorkflowNodeDto child = byId.get(childId);
+            if (child != null) {
+                addDescendants(child, byId, changed, visited);
+            }
+        }
+    }
+
+    /**
+     * Nodes a node runs (not its router, which is a step of its own).
+     */
+    private static List<String> children(WorkflowNodeDto node) {
+        List<String> ids = new ArrayList<>();
+        if (node.subAgentIds() != null) {
+            ids.addAll(node.subAgentIds());
+        }
+        if (node.branches() != null) {
+            for (ConditionalBranchDto branch : node.branches()) {
+                ids.add(branch.agentId());
+            }
+        }
+        if (node.defaultAgentId() != null && !node.defaultAgentId().isBlank()) {
+            ids.add(node.defaultAgentId());
+        }
+        return ids;
+    }
+
+    private static Map<String, WorkflowNodeDto> index(List<WorkflowNodeDto> nodes) {
+        Map<String, WorkflowNodeDto> byId = new HashMap<>();
+        if (nodes != null) {
+            nodes.forEach(node -> byId.put(node.id(), node));
+        }
+        return byId;
+    }
+}
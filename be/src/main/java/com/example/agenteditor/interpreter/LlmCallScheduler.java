@@ -0,0 +1,275 @@
+package com.example.agenteditor.interpreter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules LLM calls across runs: at most {@code maxConcurrentCalls} in flight (0 = no limit), shared between
+ * tenants by weighted fair queuing and bounded by each tenant's {@link TenantQuota}.
+ * <p>
+ * Each tenant waits in its own {@link PriorityWaitQueue}, so within a tenant interactive calls go before batch
+ * calls. When a permit frees up, it goes to the backlogged tenant with the lowest virtual finish time that is under
+ * its concurrency limit and has tokens left. Every call advances that time by {@code 1 / weight}, so backlogged
+ * tenants get permits in proportion to their weights. A tenant that was idle starts at the current virtual time
+ * and cannot bank a share. Token quotas are token buckets refilled at {@code tokensPerMinute}. Calls are charged
+ * with the tokens the provider reports after the call, so a tenant may overdraw by one round of calls and then
+ * waits until the bucket is positive again.
+ * </p>
+ * <p>
+ * Only tenants with their own quota are scheduled under their id. Every other tenant id shares the
+ * {@link RunCaller#DEFAULT_TENANT} tenant and its default quota, so a caller cannot escape its quota or grow the
+ * tenant table and its meters by sending new ids.
+ * </p>
+ * <p>
+ * Calls block on the caller's (virtual) thread.
+ * </p>
+ */
+public final class LlmCallScheduler {
+
+    /**
+     * A held call permit. Report the call's tokens with {@link #tokens}; closing it (once) hands the permit on.
+     */
+    public interface Permit extends AutoCloseable {
+
+        /**
+         * Charges the tokens the call used to its tenant's quota.
+         */
+        void tokens(long tokens);
+
+        @Override
+        void close();
+    }
+
+    private final class Waiter {
+        private final Condition grantedSignal = lock.newCondition();
+        private boolean granted;
+    }
+
+    private final class Tenant {
+        private final TenantQuota quota;
+        private final PriorityWaitQueue<Waiter> queue;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Counter calls;
+        private final Counter tokensUsed;
+        private final Counter throttledConcurrency;
+        private final Counter throttledTokens;
+        private final Timer wait;
+        private double finishTag;
+        private double tokens;
+        private long refilledAt;
+
+        private Tenant(String id, TenantQuota quota) {
+            this.quota = quota;
+            this.queue = new PriorityWaitQueue<>(agingNanos);
+            this.tokens = quota.tokensPerMinute();
+            this.refilledAt = System.nanoTime();
+            meterRegistry.gauge("agent.tenant.llm.active", Tags.of("tenant", id), active);
+            this.calls = meterRegistry.counter("agent.tenant.llm.calls", "tenant", id);
+            this.tokensUsed = meterRegistry.counter("agent.tenant.llm.tokens", "tenant", id);
+            this.throttledConcurrency = meterRegistry.counter("agent.tenant.llm.throttled", "tenant", id, "reason", "concurrency");
+            this.throttledTokens = meterRegistry.counter("agent.tenant.llm.throttled", "tenant", id, "reason", "tokens");
+            this.wait = Timer.builder("agent.tenant.llm.wait")
+                    .description("Time LLM calls waited for a call permit, per tenant")
+                    .tag("tenant", id)
+                    .register(meterRegistry);
+        }
+
+        private boolean atConcurrencyLimit() {
+            return quota.maxConcurrentCalls() > 0 && active.get() >= quota.maxConcurrentCalls();
+        }
+
+        /**
+         * Nanoseconds until the token bucket is positive again; 0 when the tenant may call now.
+         */
+        private long nanosUntilTokens(long now) {
+            long perMinute = quota.tokensPerMinute();
+            if (perMinute == 0) {
+                return 0;
+            }
+            tokens = Math.min(perMinute, tokens + (now - refilledAt) * (perMinute / (double) TimeUnit.MINUTES.toNanos(1)));
+            refilledAt = now;
+            return tokens > 0 ? 0 : (long) Math.ceil(-tokens / perMinute * TimeUnit.MINUTES.toNanos(1)) + 1;
+        }
+    }
+
+    private final int maxConcurrentCalls;
+    private final long agingNanos;
+    private final Map<String, TenantQuota> quotas;
+    private final TenantQuota defaultQuota;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<RunPriority, Timer> waitTimers = new EnumMap<>(RunPriority.class);
+    private double virtualTime;
+
+    public LlmCallScheduler(int maxConcurrentCalls, Duration aging, MeterRegistry meterRegistry) {
+        this(maxConcurrentCalls, aging, Map.of(), TenantQuota.UNLIMITED, meterRegistry);
+    }
+
+    /**
+     * @param quotas       quotas of the configured tenants by id
+     * @param defaultQuota quota of the {@link RunCaller#DEFAULT_TENANT} tenant, shared by all other tenant ids
+     *                     unless it has its own entry in {@code quotas}
+     */
+    public LlmCallScheduler(int maxConcurrentCalls, Duration aging, Map<String, TenantQuota> quotas,
+                            TenantQuota defaultQuota, MeterRegistry meterRegistry) {
+        this.maxConcurrentCalls = maxConcurrentCalls > 0 ? maxConcurrentCalls : Integer.MAX_VALUE;
+        this.agingNanos = aging.toNanos();
+        this.quotas = Map.copyOf(quotas);
+        this.defaultQuota = defaultQuota;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("agent.llm.permits.active", active);
+        meterRegistry.gauge("agent.llm.permits.queue", queued);
+        for (RunPriority priority : RunPriority.values()) {
+            waitTimers.put(priority, Timer.builder("agent.llm.permits.wait")
+                    .description("Time LLM calls waited for a call permit")
+                    .tag("priority", priority.tag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Takes a call permit for the caller's tenant, waiting for its fair share, its quota or a free permit.
+     *
+     * @throws IllegalStateException if the thread is interrupted while waiting (the run is being cancelled)
+     */
+    public Permit acquire(RunCaller caller) {
+        long start = System.nanoTime();
+        Tenant tenant;
+        lock.lock();
+        try {
+            String id = quotas.containsKey(caller.tenant()) ? caller.tenant() : RunCaller.DEFAULT_TENANT;
+            tenant = tenants.computeIfAbsent(id, key -> new Tenant(key, quotas.getOrDefault(key, defaultQuota)));
+            if (tenant.atConcurrencyLimit()) {
+                tenant.throttledConcurrency.increment();
+            } else if (tenant.nanosUntilTokens(start) > 0) {
+                tenant.throttledTokens.increment();
+            }
+            if (tenant.queue.isEmpty()) {
+                tenant.finishTag = Math.max(tenant.finishTag, virtualTime);
+            }
+            Waiter waiter = new Waiter();
+            tenant.queue.add(caller.priority(), waiter);
+            queued.incrementAndGet();
+            dispatch();
+            while (!waiter.granted) {
+                long refill = tenant.nanosUntilTokens(System.nanoTime());
+                try {
+                    if (refill > 0) {
+                        waiter.grantedSignal.awaitNanos(refill);
+                    } else {
+                        waiter.grantedSignal.await();
+                    }
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        release(tenant);
+                    } else {
+                        tenant.queue.remove(waiter);
+                        queued.decrementAndGet();
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for an LLM call permit", e);
+                }
+                if (!waiter.granted) {
+                    dispatch();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        long waited = System.nanoTime() - start;
+        waitTimers.get(caller.priority()).record(waited, TimeUnit.NANOSECONDS);
+        tenant.wait.record(waited, TimeUnit.NANOSECONDS);
+        tenant.calls.increment();
+        AtomicBoolean closed = new AtomicBoolean();
+        return new Permit() {
+            @Override
+            public void tokens(long tokens) {
+                charge(tenant, tokens);
+            }
+
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    release(tenant);
+                }
+            }
+        };
+    }
+
+    /**
+     * Grants free permits to waiters in fair order; called with the lock held.
+     */
+    private void dispatch() {
+        long now = System.nanoTime();
+        while (active.get() < maxConcurrentCalls) {
+            Tenant next = null;
+            for (Tenant tenant : tenants.values()) {
+                if (tenant.queue.isEmpty() || tenant.atConcurrencyLimit() || tenant.nanosUntilTokens(now) > 0) {
+                    continue;
+                }
+                if (next == null || tenant.finishTag < next.finishTag) {
+                    next = tenant;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.queue.poll();
+            queued.decrementAndGet();
+            virtualTime = next.finishTag;
+            next.finishTag += 1 / next.quota.weight();
+            next.active.incrementAndGet();
+            active.incrementAndGet();
+            waiter.granted = true;
+            waiter.grantedSignal.signal();
+        }
+    }
+
+    private void charge(Tenant tenant, long tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        tenant.tokensUsed.increment(tokens);
+        if (tenant.quota.tokensPerMinute() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            tenant.nanosUntilTokens(System.nanoTime());
+            tenant.tokens -= tokens;
+            if (tenant.tokens <= 0) {
+                // Waiters sleeping on a free permit now wait for the refill instead.
+                tenant.queue.forEach(w -> w.grantedSignal.signal());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Tenant tenant) {
+        lock.lock();
+        try {
+            tenant.active.decrementAndGet();
+            active.decrementAndGet();
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.TokenEstimator;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * For-each step of a {@code map} node: runs the sub-agent once per element of the collection under
+ * {@code itemsKey}, with at most {@code threadPoolSize} invocations in flight.
+ * <p>
+ * Each invocation sees the run input without the collection plus the element under {@code itemKey} (and
+ * its position under {@code itemKey + "Index"}, see {@link #indexKey}), so prompts stay element-sized. Elements are submitted as permits free
+ * up, so only in-flight prompts are held; results are kept in input order and written as a list to the
+ * node's output key. The first failure cancels the remaining elements and fails the node.
+ * </p>
+ * <p>
+ * Over the {@link ChunkStep.Chunks} of a chunk node, the chunks are cut from the source as elements are
+ * submitted, so only the chunks of in-flight elements are held.
+ * </p>
+ */
+final class MapStep {
+
+    static final int DEFAULT_CONCURRENCY = 8;
+    static final String DEFAULT_ITEM_KEY = "item";
+
+    /**
+     * Key of an element's position in its invocation input: the item key suffixed with {@code Index}
+     * ({@code itemIndex} by default), so it cannot shadow a run input key such as {@code index}.
+     */
+    static String indexKey(String itemKey) {
+        return itemKey + "Index";
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MapStep.class);
+
+    private final WorkflowNodeDto node;
+    private final UntypedAgent agent;
+    private final String agentId;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final TokenEstimator tokenEstimator;
+    private final RunContext runContext;
+
+    MapStep(
+            WorkflowNodeDto node,
+            UntypedAgent agent,
+            String agentId,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            TokenEstimator tokenEstimator,
+            RunContext runContext
+    ) {
+        this.node = node;
+        this.agent = agent;
+        this.agentId = agentId;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.tokenEstimator = tokenEstimator;
+        this.runContext = runContext;
+    }
+
+    void run(AgenticScope scope) {
+        Map<String, Object> baseInput = AgentInvocations.input(scope);
+        Object items = scope.readState(node.itemsKey());
+        if (items == null) {
+            items = baseInput.get(node.itemsKey());
+        }
+        baseInput.remove(node.itemsKey());
+        scope.writeState(ParallelCompletion.outputKey(node), map(iterate(items, scope), baseInput));
+    }
+
+    /**
+     * Runs the sub-agent over the elements and returns the results in input order.
+     */
+    List<Object> map(Iterator<?> elements, Map<String, Object> baseInput) {
+        int concurrency = node.threadPoolSize() != null && node.threadPoolSize() > 0 ? node.threadPoolSize() : DEFAULT_CONCURRENCY;
+        String itemKey = node.itemKey() != null && !node.itemKey().isBlank() ? node.itemKey() : DEFAULT_ITEM_KEY;
+        String indexKey = indexKey(itemKey);
+        boolean stream = Boolean.TRUE.equals(node.streamResults());
+        Semaphore permits = new Semaphore(concurrency);
+        List<Object> results = new ArrayList<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        int index = 0;
+        try (BranchScope<Void> branches = new BranchScope<>(executor, 0)) {
+            try {
+                while (elements.hasNext() && failure.get() == null) {
+                    Object element = elements.next();
+                    permits.acquire();
+                    if (failure.get() != null) {
+                        permits.release();
+                        break;
+                    }
+                    int position = index++;
+                    synchronized (results) {
+                        results.add(null);
+                    }
+                    Map<String, Object> input = new HashMap<>(baseInput);
+                    input.put(itemKey, element);
+                    input.put(indexKey, position);
+                    branches.fork(() -> {
+                        try {
+                            Object result = agent.invoke(input);
+                            synchronized (results) {
+                                results.set(position, result);
+                            }
+                            meterRegistry.counter("agent.map.elements", "outcome", "completed").increment();
+                            if (stream) {
+                                runContext.partialResult(node.id(), position, result);
+                            }
+                        } catch (RuntimeException e) {
+                            meterRegistry.counter("agent.map.elements", "outcome", "failed").increment();
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    });
+                    while (branches.next(System.nanoTime()) != null) {
+                        // forget finished elements so long streams do not accumulate completed futures
+                    }
+                }
+                while (failure.get() == null && branches.next(Long.MAX_VALUE) != null) {
+                    // wait for in-flight elements, checking for a failure after each so the rest are cancelled early
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new IllegalStateException("Interrupted while mapping node " + node.id(), e));
+            } finally {
+                if (failure.get() != null) {
+                    branches.cancelAll();
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Map node " + node.id() + " failed at an element: " + failure.get().getMessage(), failure.get());
+        }
+        runContext.executed(agentId);
+        log.info("Map nodeId={} mapped {} elements with concurrency {}", node.id(), index, concurrency);
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    private Iterator<?> iterate(Object items, AgenticScope scope) {
+        if (items == null) {
+            throw new IllegalStateException("Map node " + node.id() + ": no collection under '" + node.itemsKey() + "'");
+        }
+        ChunkStep.Chunks chunks = ChunkStep.Chunks.from(items);
+        if (chunks != null) {
+            return chunks.iterator(scope, tokenEstimator, meterRegistry.counter("agent.chunk.chunks"));
+        }
+        if (items instanceof Collection<?> collection) {
+            return collection.iterator();
+        }
+        if (items instanceof Iterable<?> iterable) {
+            return iterable.iterator();
+        }
+        if (items instanceof Iterator<?> iterator) {
+            return iterator;
+        }
+        if (items instanceof Object[] array) {
+            return Arrays.asList(array).iterator();
+        }
+        throw new IllegalStateException("Map node " + node.id() + ": '" + node.itemsKey() + "' is not a collection: "
+                + items.getClass().getSimpleName());
+    }
+}
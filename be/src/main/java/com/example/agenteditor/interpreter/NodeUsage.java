@@ -0,0 +1,49 @@
+package com.example.agenteditor.interpreter;
+
+import java.time.Instant;
+
+/**
+ * One node's share of a run: when it started and finished, and its LLM calls (time spent in calls, call and
+ * error counts, tokens). The span covers the node's own step when the step records it, and its LLM calls.
+ */
+public record NodeUsage(
+        String nodeId,
+        Instant startedAt,
+        Instant finishedAt,
+        long llmNanos,
+        int calls,
+        int errors,
+        long inputTokens,
+        long outputTokens
+) {
+
+    public static NodeUsage empty(String nodeId) {
+        return new NodeUsage(nodeId, null, null, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Widens the span to cover {@code from} to {@code to}.
+     */
+    public NodeUsage span(Instant from, Instant to) {
+        return new NodeUsage(
+                nodeId,
+                startedAt == null || from.isBefore(startedAt) ? from : startedAt,
+                finishedAt == null || to.isAfter(finishedAt) ? to : finishedAt,
+                llmNanos, calls, errors, inputTokens, outputTokens
+        );
+    }
+
+    NodeUsage plus(Instant callStartedAt, long nanos, boolean success, Integer input, Integer output) {
+        Instant callFinishedAt = callStartedAt.plusNanos(nanos);
+        return new NodeUsage(
+                nodeId,
+                startedAt == null || callStartedAt.isBefore(startedAt) ? callStartedAt : startedAt,
+                finishedAt == null || callFinishedAt.isAfter(finishedAt) ? callFinishedAt : finishedAt,
+                llmNanos + nanos,
+                calls + 1,
+                errors + (success ? 0 : 1),
+                inputTokens + (input != null ? input : 0),
+                outputTokens + (output != null ? output : 0)
+        );
+    }
+}
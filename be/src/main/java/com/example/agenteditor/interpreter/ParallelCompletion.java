@@ -0,0 +1,165 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of a parallel node that may proceed before every branch finishes.
+ * <p>
+ * Branches run as separate invocations on the scope's input. Depending on the policy the step returns after
+ * the first {@code requiredCount} successes ({@code FIRST_N}), a majority or {@code requiredCount}
+ * ({@code QUORUM}), or whatever succeeded within {@code deadlineMs} ({@code DEADLINE}, which still fails when
+ * branches failed and none succeeded); outstanding branches are cancelled, and the step returns only once they
+ * have stopped ({@link BranchScope}). Contributing branches write their output keys, and the node's output is a
+ * map of contributing branch id to result, in declaration order.
+ * </p>
+ */
+final class ParallelCompletion {
+
+    enum Policy {
+        ALL, FIRST_N, QUORUM, DEADLINE;
+
+        static Policy parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ALL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown completionPolicy: " + value);
+            }
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelCompletion.class);
+
+    private final WorkflowNodeDto node;
+    private final Policy policy;
+    private final Map<String, UntypedAgent> branchAgents;
+    private final Map<String, WorkflowNodeDto> branchNodes;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final RunContext runContext;
+
+    ParallelCompletion(
+            WorkflowNodeDto node,
+            Policy policy,
+            Map<String, UntypedAgent> branchAgents,
+            Map<String, WorkflowNodeDto> branchNodes,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            RunContext runContext
+    ) {
+        this.node = node;
+        this.policy = policy;
+        this.branchAgents = branchAgents;
+        this.branchNodes = branchNodes;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.runContext = runContext;
+    }
+
+    /**
+     * Number of successful branches needed before proceeding; 0 for {@code DEADLINE}.
+     */
+    static int requiredCount(WorkflowNodeDto node, Policy policy, int branchCount) {
+        return switch (policy) {
+            case ALL -> branchCount;
+            case FIRST_N -> Math.min(node.requiredCount() != null ? node.requiredCount() : 1, branchCount);
+            case QUORUM -> Math.min(node.requiredCount() != null ? node.requiredCount() : branchCount / 2 + 1, branchCount);
+            case DEADLINE -> 0;
+        };
+    }
+
+    void run(AgenticScope scope) {
+        List<String> branchIds = node.subAgentIds();
+        int required = requiredCount(node, policy, branchIds.size());
+        long deadlineNanos = node.deadlineMs() != null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(node.deadlineMs()) : Long.MAX_VALUE;
+        int limit = node.threadPoolSize() != null && node.threadPoolSize() > 0 ? node.threadPoolSize() : 0;
+        Map<String, Object> input = AgentInvocations.input(scope);
+
+        Map<String, Object> results = new HashMap<>();
+        RuntimeException lastFailure = null;
+        try (BranchScope<Object> branches = new BranchScope<>(executor, limit)) {
+            Map<Future<Object>, String> forked = new HashMap<>();
+            for (String branchId : branchIds) {
+                UntypedAgent agent = branchAgents.get(branchId);
+                forked.put(branches.fork(() -> agent.invoke(new HashMap<>(input))), branchId);
+            }
+            try {
+                while (branches.pending() > 0 && (policy == Policy.DEADLINE || results.size() < required)) {
+                    if (branches.pending() + results.size() < required) {
+                        break;
+                    }
+                    Future<Object> done = branches.next(deadlineNanos);
+                    if (done == null) {
+                        log.info("Parallel nodeId={} deadline reached with {} of {} branches done", node.id(), results.size(), branchIds.size());
+                        break;
+                    }
+                    String branchId = forked.get(done);
+                    try {
+                        results.put(branchId, done.get());
+                        meterRegistry.counter("agent.parallel.branches", "outcome", "completed").increment();
+                    } catch (ExecutionException e) {
+                        meterRegistry.counter("agent.parallel.branches", "outcome", "failed").increment();
+                        log.warn("Parallel nodeId={} branch {} failed: {}", node.id(), branchId, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                        lastFailure = e.getCause() instanceof RuntimeException runtime ? runtime
+                                : new IllegalStateException("Branch " + branchId + " failed", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for parallel node " + node.id(), e);
+            } finally {
+                meterRegistry.counter("agent.parallel.branches", "outcome", "cancelled").increment(branches.cancelAll());
+            }
+        }
+
+        if (results.size() < required) {
+            String message = "Parallel node " + node.id() + " (" + policy + ") needed " + required
+                    + " branches but only " + results.size() + " completed";
+            throw lastFailure != null ? new IllegalStateException(message, lastFailure) : new IllegalStateException(message);
+        }
+        if (results.isEmpty() && lastFailure != null) {
+            throw new IllegalStateException("Parallel node " + node.id() + " (" + policy + ") had no successful branch",
+                    lastFailure);
+        }
+        meterRegistry.counter("agent.parallel.completions", "policy", policy.name(),
+                "outcome", results.size() == branchIds.size() ? "complete" : "partial").increment();
+
+        Map<String, Object> contributed = new LinkedHashMap<>();
+        for (String branchId : branchIds) {
+            if (!results.containsKey(branchId)) {
+                continue;
+            }
+            Object result = results.get(branchId);
+            contributed.put(branchId, result);
+            runContext.executed(branchId);
+            WorkflowNodeDto branch = branchNodes.get(branchId);
+            if (branch != null && branch.outputKey() != null && !branch.outputKey().isBlank() && result != null) {
+                scope.writeState(branch.outputKey(), result);
+            }
+        }
+        log.info("Parallel nodeId={} policy={} contributors={}", node.id(), policy, contributed.keySet());
+        scope.writeState(outputKey(node), contributed);
+    }
+
+    static String outputKey(WorkflowNodeDto node) {
+        return node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : "result";
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Waiters for a scarce resource, first in first out within each {@link RunPriority}; not thread-safe (callers
+ * hold their own lock).
+ * <p>
+ * {@link #poll()} takes the head of the highest class, where a waiter's class rises by one for every
+ * {@code aging} it has waited: with 2s aging, a batch waiter competes as standard after 2s and as interactive after
+ * 4s, and then goes before interactive waiters that arrived after it. A zero aging is strict priority.
+ * </p>
+ */
+public final class PriorityWaitQueue<W> {
+
+    private record Entry<W>(W waiter, long enqueuedAt) {
+    }
+
+    private final Map<RunPriority, ArrayDeque<Entry<W>>> queues = new EnumMap<>(RunPriority.class);
+    private final long agingNanos;
+    private int size;
+
+    public PriorityWaitQueue(long agingNanos) {
+        this.agingNanos = agingNanos;
+        for (RunPriority priority : RunPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    public void add(RunPriority priority, W waiter) {
+        queues.get(priority).addLast(new Entry<>(waiter, System.nanoTime()));
+        size++;
+    }
+
+    /**
+     * Removes a waiter that gave up; false if it is not queued (already polled).
+     */
+    public boolean remove(W waiter) {
+        for (ArrayDeque<Entry<W>> queue : queues.values()) {
+            for (Iterator<Entry<W>> it = queue.iterator(); it.hasNext(); ) {
+                if (it.next().waiter() == waiter) {
+                    it.remove();
+                    size--;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns the next waiter to serve, or null when empty.
+     */
+    public W poll() {
+        long now = System.nanoTime();
+        ArrayDeque<Entry<W>> best = null;
+        long bestRank = Long.MAX_VALUE;
+        long bestEnqueuedAt = 0;
+        for (Map.Entry<RunPriority, ArrayDeque<Entry<W>>> e : queues.entrySet()) {
+            Entry<W> head = e.getValue().peekFirst();
+            if (head == null) {
+                continue;
+            }
+            long promoted = agingNanos > 0 ? (now - head.enqueuedAt()) / agingNanos : 0;
+            long rank = Math.max(0, e.getKey().ordinal() - promoted);
+            if (best == null || rank < bestRank || (rank == bestRank && head.enqueuedAt() - bestEnqueuedAt < 0)) {
+                best = e.getValue();
+                bestRank = rank;
+                bestEnqueuedAt = head.enqueuedAt();
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        size--;
+        return best.pollFirst().waiter();
+    }
+
+    /**
+     * Applies the action to every queued waiter, in no particular order.
+     */
+    public void forEach(Consumer<W> action) {
+        queues.values().forEach(queue -> queue.forEach(entry -> action.accept(entry.waiter())));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int size(RunPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Builds prompt text deterministically so the same logical input always yields byte-identical prompts.
+ * <p>
+ * Map entries are ordered by key (recursively for nested maps; list order is kept) and whitespace is
+ * normalized (CRLF to LF, trailing spaces dropped, runs of blank lines collapsed). Stable prefixes are what
+ * provider-side prompt prefix caching and our own response caching key on.
+ * </p>
+ * <p>
+ * Formatting is a single pass into one buffer, capped by {@link PromptLimits}: values are written only
+ * up to their budget (large strings are never copied whole) and every cut is reported to a
+ * {@link TruncationListener}.
+ * </p>
+ */
+public final class PromptCanonicalizer {
+
+    private static final Pattern TRAILING_SPACES = Pattern.compile("[ \\t]+(?=\\n)");
+    private static final Pattern BLANK_LINE_RUNS = Pattern.compile("\\n{3,}");
+    private static final Comparator<Map.Entry<?, ?>> BY_KEY = Comparator.comparing(e -> String.valueOf(e.getKey()));
+    static final String TRUNCATION_MARKER = " [truncated]";
+
+    private PromptCanonicalizer() {
+    }
+
+    /**
+     * Formats non-null entries as {@code key: value} lines ordered by key. Returns null for an empty map.
+     */
+    public static String formatEntries(Map<?, ?> map) {
+        return formatEntries(map, PromptLimits.UNLIMITED, TruncationListener.NONE);
+    }
+
+    /**
+     * Formats non-null entries as {@code key: value} lines ordered by key, capping each value at
+     * {@code maxValueChars} and the whole block at {@code maxPromptChars}. Cut values end with a marker;
+     * entries that no longer fit are dropped. Returns null when nothing was written.
+     */
+    public static String formatEntries(Map<?, ?> map, PromptLimits limits, TruncationListener listener) {
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        int maxPrompt = limits.maxPromptChars();
+        StringBuilder out = new StringBuilder(Math.min(maxPrompt, 1024));
+        for (Map.Entry<?, ?> entry : sortedEntries(map)) {
+            String key = String.valueOf(entry.getKey());
+            int header = (out.isEmpty() ? 0 : 1) + key.length() + 2;
+            int available = maxPrompt - out.length() - header - TRUNCATION_MARKER.length();
+            if (available <= 0) {
+                listener.truncated(key, appendCanonical(entry.getValue(), out, new int[]{0}), 0);
+                continue;
+            }
+            if (!out.isEmpty()) {
+                out.append('\n');
+            }
+            out.append(key).append(": ");
+            int start = out.length();
+            long original = appendCanonical(entry.getValue(), out, new int[]{Math.min(limits.maxValueChars(), available)});
+            int kept = out.length() - start;
+            if (kept < original) {
+                out.append(TRUNCATION_MARKER);
+                listener.truncated(key, original, kept);
+            }
+        }
+        return out.isEmpty() ? null : normalizeWhitespace(out.toString());
+    }
+
+    /**
+     * Renders a value with nested maps ordered by key so equal values always print the same way.
+     */
+    public static String canonicalValue(Object value) {
+        StringBuilder out = new StringBuilder();
+        appendCanonical(value, out, new int[]{Integer.MAX_VALUE});
+        return out.toString();
+    }
+
+    /**
+     * Renders a value canonically, writing at most {@code maxChars} characters; a cut value ends with a
+     * marker and is reported to the listener under {@code key}.
+     */
+    public static String canonicalValue(Object value, int maxChars, String key, TruncationListener listener) {
+        StringBuilder out = new StringBuilder(Math.min(maxChars, 1024));
+        long original = appendCanonical(value, out, new int[]{maxChars});
+        if (out.length() < original) {
+            out.append(TRUNCATION_MARKER);
+            listener.truncated(key, original, out.length() - TRUNCATION_MARKER.length());
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the length of the value's canonical form without building it.
+     */
+    public static long canonicalLength(Object value) {
+        return appendCanonical(value, new StringBuilder(0), new int[]{0});
+    }
+
+    /**
+     * Normalizes line endings and blank lines and trims the text. Returns null for null input.
+     */
+    public static String normalizeWhitespace(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = text.replace("\r\n", "\n").replace('\r', '\n');
+        normalized = TRAILING_SPACES.matcher(normalized).replaceAll("");
+        normalized = BLANK_LINE_RUNS.matcher(normalized).replaceAll("\n\n");
+        return normalized.strip();
+    }
+
+    /**
+     * Returns the ids de-duplicated and sorted, so the same tool set always yields the same tool specifications.
+     */
+    public static List<String> canonicalToolIds(List<String> toolIds) {
+        if (toolIds == null || toolIds.isEmpty()) {
+            return List.of();
+        }
+        return toolIds.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Appends the canonical form of the value, writing at most {@code budget[0]} characters (the budget is
+     * decremented as characters are written). Returns the length of the full canonical form, which is
+     * computed without materializing the unwritten part.
+     */
+    private static long appendCanonical(Object value, StringBuilder out, int[] budget) {
+        if (value instanceof Map<?, ?> map) {
+            long total = append("{", out, budget);
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : sortedEntries(map)) {
+                if (!first) {
+                    total += append(", ", out, budget);
+                }
+                first = false;
+                total += append(String.valueOf(entry.getKey()), out, budget);
+                total += append("=", out, budget);
+                total += appendCanonical(entry.getValue(), out, budget);
+            }
+            return total + append("}", out, budget);
+        }
+        if (value instanceof Collection<?> collection) {
+            long total = append("[", out, budget);
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    total += append(", ", out, budget);
+                }
+                first = false;
+                total += appendCanonical(element, out, budget);
+            }
+            return total + append("]", out, budget);
+        }
+        CharSequence text = value instanceof CharSequence chars ? chars : String.valueOf(value);
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return append(text, start, end, out, budget);
+    }
+
+    private static long append(CharSequence text, StringBuilder out, int[] budget) {
+        return append(text, 0, text.length(), out, budget);
+    }
+
+    private static long append(CharSequence text, int start, int end, StringBuilder out, int[] budget) {
+        int length = end - start;
+        int n = Math.min(length, budget[0]);
+        if (n > 0) {
+            out.append(text, start, start + n);
+            budget[0] -= n;
+        }
+        return length;
+    }
+
+    private static List<Map.Entry<?, ?>> sortedEntries(Map<?, ?> map) {
+        List<Map.Entry<?, ?>> entries = new ArrayList<>(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(BY_KEY);
+        return entries;
+    }
+}
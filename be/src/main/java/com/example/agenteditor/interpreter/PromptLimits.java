@@ -0,0 +1,29 @@
+package com.example.agenteditor.interpreter;
+
+/**
+ * Size caps applied when scope state is serialized into prompts.
+ * <p>
+ * {@code maxValueChars} caps each value, {@code maxPromptChars} caps the whole formatted block.
+ * Null uses the default; zero or negative means unlimited.
+ * </p>
+ */
+public record PromptLimits(Integer maxValueChars, Integer maxPromptChars) {
+
+    public static final int DEFAULT_MAX_VALUE_CHARS = 20_000;
+    public static final int DEFAULT_MAX_PROMPT_CHARS = 100_000;
+
+    public static final PromptLimits DEFAULT = new PromptLimits(null, null);
+    public static final PromptLimits UNLIMITED = new PromptLimits(0, 0);
+
+    public PromptLimits {
+        maxValueChars = normalize(maxValueChars, DEFAULT_MAX_VALUE_CHARS);
+        maxPromptChars = normalize(maxPromptChars, DEFAULT_MAX_PROMPT_CHARS);
+    }
+
+    private static int normalize(Integer value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        return value > 0 ? value : Integer.MAX_VALUE;
+    }
+}
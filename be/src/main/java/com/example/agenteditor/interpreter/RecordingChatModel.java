@@ -0,0 +1,95 @@
+package com.example.agenteditor.interpreter;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Per-run {@link ChatModel} decorator that attributes each call's latency and token usage to the calling
+ * node on the {@link RunContext} (the shared {@code MeteredChatModel} only knows the model). Each call first takes
+ * a permit from the {@link LlmCallScheduler} for the run's tenant and priority, and charges the tokens it used to the
+ * tenant and to the run's {@link RunBudget}; the wait is not part of the recorded latency. A run over its budget
+ * fails here, before the model is called. Calls from a speculative conditional branch are also checked against and
+ * charged to the run's speculation budget.
+ */
+final class RecordingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final String nodeId;
+    private final String modelName;
+    private final RunContext runContext;
+    private final LlmCallScheduler scheduler;
+
+    RecordingChatModel(ChatModel delegate, String nodeId, String modelName, RunContext runContext,
+                       LlmCallScheduler scheduler) {
+        this.delegate = delegate;
+        this.nodeId = nodeId;
+        this.modelName = modelName;
+        this.runContext = runContext;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        runContext.budget().check();
+        RunBudget speculation = SpeculativeConditional.speculating() ? runContext.budget().speculation() : null;
+        if (speculation != null) {
+            speculation.check();
+        }
+        try (LlmCallScheduler.Permit permit = scheduler.acquire(runContext.caller())) {
+            return record(chatRequest, permit, speculation);
+        }
+    }
+
+    private ChatResponse record(ChatRequest chatRequest, LlmCallScheduler.Permit permit, RunBudget speculation) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.chat(chatRequest);
+            TokenUsage usage = response != null ? response.tokenUsage() : null;
+            if (usage != null && usage.totalTokenCount() != null) {
+                permit.tokens(usage.totalTokenCount());
+            }
+            Integer inputTokens = usage != null ? usage.inputTokenCount() : null;
+            Integer outputTokens = usage != null ? usage.outputTokenCount() : null;
+            runContext.llmCall(nodeId, startedAt, System.nanoTime() - start, true, inputTokens, outputTokens);
+            runContext.budget().charge(servedModel(response), inputTokens, outputTokens);
+            if (speculation != null) {
+                speculation.charge(servedModel(response), inputTokens, outputTokens);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            runContext.llmCall(nodeId, startedAt, System.nanoTime() - start, false, null, null);
+            throw e;
+        }
+    }
+
+    /**
+     * Model the provider reports it served (a routed node may fail over to another candidate), else the node's model.
+     */
+    private String servedModel(ChatResponse response) {
+        String served = response != null && response.metadata() != null ? response.metadata().modelName() : null;
+        return served != null && !served.isBlank() ? served : modelName;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return chat(chatRequest);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory routing frequencies of conditional nodes, used to pick speculative branches when no branch
+ * declares a {@code probability}. Counts live for the lifetime of the interpreter.
+ */
+final class RoutingStats {
+
+    private final Map<String, Map<String, LongAdder>> countsByNode = new ConcurrentHashMap<>();
+
+    void record(String key, String agentId) {
+        countsByNode.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(agentId, id -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Branch agents ordered by likelihood: declared probabilities when any branch has one (branches without
+     * one count as 0), otherwise observed routing frequency. Ties keep declaration order; zero-probability
+     * branches are left out when probabilities are declared.
+     */
+    List<String> rank(String key, List<ConditionalBranchDto> branches) {
+        Map<String, Double> likelihood = new LinkedHashMap<>();
+        boolean declared = branches.stream().anyMatch(b -> b.probability() != null);
+        Map<String, LongAdder> counts = countsByNode.getOrDefault(key, Map.of());
+        for (ConditionalBranchDto branch : branches) {
+            double value = declared
+                    ? (branch.probability() != null ? branch.probability() : 0.0)
+                    : (counts.containsKey(branch.agentId()) ? counts.get(branch.agentId()).sum() : 0);
+            likelihood.merge(branch.agentId(), value, Double::sum);
+        }
+        List<String> ranked = new ArrayList<>(likelihood.keySet());
+        if (declared) {
+            ranked.removeIf(agentId -> likelihood.get(agentId) <= 0);
+        }
+        ranked.sort(Comparator.comparingDouble((String agentId) -> likelihood.get(agentId)).reversed());
+        return ranked;
+    }
+
+    /**
+     * Stats key for a conditional node: its id plus router and branch targets, so reused node ids in
+     * different graphs rarely share counts.
+     */
+    static String key(WorkflowNodeDto node) {
+        StringBuilder key = new StringBuilder(node.id()).append('|').append(node.routerAgentId());
+        for (ConditionalBranchDto branch : node.branches()) {
+            key.append('|').append(branch.agentId());
+        }
+        return key.toString();
+    }
+}
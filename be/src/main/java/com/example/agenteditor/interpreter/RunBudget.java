@@ -0,0 +1,118 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.RunUsageDto;
+import com.example.agenteditor.llm.ModelPricing;
+
+import java.util.List;
+
+/**
+ * Token and cost accounting of one run, checked against its limits.
+ * <p>
+ * Every LLM call of the run is charged with the tokens the provider reports and the cost estimated from the
+ * {@link ModelPricing} of its model. Once a limit is reached, the next LLM call of the run throws
+ * {@link BudgetExceededException} instead of calling the model, which fails the run. The call that reached the limit
+ * keeps its result, and calls already in flight on parallel branches finish and are charged, so a run can overshoot
+ * by those. Safe to use from parallel branches.
+ * </p>
+ * <p>
+ * Calls made by speculative conditional branches are also charged to the run's {@link #speculation()} budget, which
+ * bounds what speculation may spend on branches that may be thrown away; its limit stops speculation, not the run.
+ * </p>
+ */
+public final class RunBudget {
+
+    /**
+     * One limit on the run's spend; 0 means no limit on that measure.
+     *
+     * @param scope     what the limit belongs to ({@code run} or {@code workflow}), for messages and metrics
+     * @param maxTokens input plus output tokens
+     * @param maxCost   estimated cost in USD
+     */
+    public record Limit(String scope, long maxTokens, double maxCost) {
+
+        boolean exceededBy(RunUsageDto usage) {
+            return (maxTokens > 0 && usage.totalTokens() >= maxTokens) || (maxCost > 0 && usage.estimatedCost() >= maxCost);
+        }
+
+        boolean unlimited() {
+            return maxTokens <= 0 && maxCost <= 0;
+        }
+
+        String describe() {
+            return (maxTokens > 0 ? maxTokens + " tokens" : "")
+                    + (maxTokens > 0 && maxCost > 0 ? ", " : "")
+                    + (maxCost > 0 ? String.format("%.4f USD", maxCost) : "");
+        }
+    }
+
+    private final ModelPricing pricing;
+    private final List<Limit> limits;
+    private final RunBudget speculation;
+    private RunUsageDto usage = RunUsageDto.NONE;
+
+    public RunBudget(ModelPricing pricing, List<Limit> limits) {
+        this(pricing, limits, new Limit("speculation", 0, 0));
+    }
+
+    /**
+     * @param speculation limit on the spend of speculative branches (scope {@code speculation})
+     */
+    public RunBudget(ModelPricing pricing, List<Limit> limits, Limit speculation) {
+        this(pricing, limits, new RunBudget(pricing, List.of(speculation), (RunBudget) null));
+    }
+
+    private RunBudget(ModelPricing pricing, List<Limit> limits, RunBudget speculation) {
+        this.pricing = pricing;
+        this.limits = limits.stream().filter(l -> !l.unlimited()).toList();
+        this.speculation = speculation;
+    }
+
+    public static RunBudget unlimited() {
+        return new RunBudget(ModelPricing.NONE, List.of());
+    }
+
+    /**
+     * Spend of the run's speculative conditional branches, with its own limit (unlimited when none is set). The
+     * speculation budget is its own speculation budget.
+     */
+    public RunBudget speculation() {
+        return speculation != null ? speculation : this;
+    }
+
+    /**
+     * Throws if a limit has already been reached; called before each LLM call.
+     */
+    public void check() {
+        RunUsageDto current = usage();
+        for (Limit limit : limits) {
+            if (limit.exceededBy(current)) {
+                throw new BudgetExceededException(limit, current);
+            }
+        }
+    }
+
+    /**
+     * True when a limit has already been reached.
+     */
+    public boolean exceeded() {
+        RunUsageDto current = usage();
+        return limits.stream().anyMatch(limit -> limit.exceededBy(current));
+    }
+
+    /**
+     * Charges one finished call; token counts are null when the provider did not report them.
+     */
+    public void charge(String model, Integer inputTokens, Integer outputTokens) {
+        long in = inputTokens != null ? inputTokens : 0;
+        long out = outputTokens != null ? outputTokens : 0;
+        double cost = pricing.cost(model, in, out);
+        synchronized (this) {
+            usage = new RunUsageDto(usage.llmCalls() + 1, usage.inputTokens() + in, usage.outputTokens() + out,
+                    usage.estimatedCost() + cost);
+        }
+    }
+
+    public synchronized RunUsageDto usage() {
+        return usage;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Who a run is for: the tenant whose LLM quota its calls use, and its {@link RunPriority} class.
+ */
+public record RunCaller(String tenant, RunPriority priority) {
+
+    public static final String DEFAULT_TENANT = "default";
+    public static final RunCaller DEFAULT = new RunCaller(DEFAULT_TENANT, RunPriority.STANDARD);
+
+    private static final Pattern TENANT = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    public RunCaller {
+        if (tenant == null || !TENANT.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Invalid tenant (1-64 letters, digits, '.', '_' or '-'): " + tenant);
+        }
+        priority = priority != null ? priority : RunPriority.STANDARD;
+    }
+
+    /**
+     * Caller from request values; a null or blank tenant is {@link #DEFAULT_TENANT}.
+     *
+     * @throws IllegalArgumentException if the tenant or priority is invalid
+     */
+    public static RunCaller of(String tenant, String priority) {
+        return new RunCaller(tenant == null || tenant.isBlank() ? DEFAULT_TENANT : tenant.trim(), RunPriority.parse(priority));
+    }
+}
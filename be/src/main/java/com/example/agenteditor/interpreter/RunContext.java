@@ -0,0 +1,175 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.PartialResultDto;
+import com.example.agenteditor.api.v1.dto.TruncationDto;
+import com.example.agenteditor.tools.ToolCachePolicy;
+import com.example.agenteditor.tools.ToolResultCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Per-run state collected while a workflow executes (trace notices such as prompt truncations, and nodes
+ * executed outside the run's agentic scope, and LLM calls per node). Map nodes with {@code streamResults} publish element results
+ * to the optional partial-result consumer as they complete.
+ * <p>
+ * Completed steps are reported to the run's {@link Checkpointer}; a resumed run carries the node ids its
+ * checkpoints already cover, and those steps are skipped. The run's {@link RunCaller} (tenant and priority)
+ * decides how its LLM calls are scheduled against other runs' calls, and its {@link RunBudget} accounts for their
+ * tokens and cost. Tools memoized per run keep their results here. The run input, when known before the
+ * runnables are built, lets sequences be planned against it (see {@link DataflowAnalysis}).
+ * </p>
+ * <p>
+ * One instance is created per run and captured by the runnables built for it; it is safe to use
+ * from parallel branches.
+ * </p>
+ */
+public class RunContext {
+
+    private static final Logger log = LoggerFactory.getLogger(RunContext.class);
+
+    private final List<TruncationDto> truncations = new CopyOnWriteArrayList<>();
+    private final Set<String> executedNodeIds = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Consumer<PartialResultDto> partialResults;
+    private final Checkpointer checkpointer;
+    private final Set<String> resumedNodeIds;
+    private final RunCaller caller;
+    private final RunBudget budget;
+    private final Map<String, Object> input;
+    private final Map<String, NodeUsage> nodeUsage = new ConcurrentHashMap<>();
+    private final Map<String, ToolResultCache> toolCaches = new ConcurrentHashMap<>();
+
+    public RunContext() {
+        this(partial -> { });
+    }
+
+    public RunContext(Consumer<PartialResultDto> partialResults) {
+        this(partialResults, Checkpointer.NONE, Set.of());
+    }
+
+    public RunContext(Consumer<PartialResultDto> partialResults, Checkpointer checkpointer, Set<String> resumedNodeIds) {
+        this(partialResults, checkpointer, resumedNodeIds, RunCaller.DEFAULT, RunBudget.unlimited());
+    }
+
+    public RunContext(Consumer<PartialResultDto> partialResults, Checkpointer checkpointer, Set<String> resumedNodeIds,
+                      RunCaller caller, RunBudget budget) {
+        this(partialResults, checkpointer, resumedNodeIds, caller, budget, null);
+    }
+
+    /**
+     * @param input the run input (or resumed state) the run starts from, or null when not known yet
+     */
+    public RunContext(Consumer<PartialResultDto> partialResults, Checkpointer checkpointer, Set<String> resumedNodeIds,
+                      RunCaller caller, RunBudget budget, Map<String, Object> input) {
+        this.input = input != null ? Collections.unmodifiableMap(new HashMap<>(input)) : null;
+        this.partialResults = partialResults;
+        this.checkpointer = checkpointer;
+        this.resumedNodeIds = Set.copyOf(resumedNodeIds);
+        this.caller = caller;
+        this.budget = budget;
+    }
+
+    /**
+     * The state the run starts from, or null when it was not known when the runnables were built.
+     */
+    public Map<String, Object> input() {
+        return input;
+    }
+
+    public RunBudget budget() {
+        return budget;
+    }
+
+    public RunCaller caller() {
+        return caller;
+    }
+
+    public RunPriority priority() {
+        return caller.priority();
+    }
+
+    /**
+     * Returns a listener that records truncations against the given node.
+     */
+    public TruncationListener truncationListener(String nodeId) {
+        return (key, originalChars, keptChars) -> {
+            log.info("Prompt value truncated nodeId={} key={} originalChars={} keptChars={}", nodeId, key, originalChars, keptChars);
+            truncations.add(new TruncationDto(nodeId, key, originalChars, keptChars));
+        };
+    }
+
+    public List<TruncationDto> truncations() {
+        return List.copyOf(truncations);
+    }
+
+    /**
+     * The run's memoized results of a tool with {@link ToolCachePolicy.Scope#RUN} caching, shared by its agents.
+     */
+    public ToolResultCache toolCache(String toolId, ToolCachePolicy policy) {
+        return toolCaches.computeIfAbsent(toolId, id -> new ToolResultCache(policy));
+    }
+
+    /**
+     * Records a node run through a separate invocation (not visible in the run scope's agent invocations).
+     */
+    public void executed(String nodeId) {
+        executedNodeIds.add(nodeId);
+    }
+
+    public void partialResult(String nodeId, int index, Object result) {
+        partialResults.accept(new PartialResultDto(nodeId, index, result));
+    }
+
+    public boolean checkpointing() {
+        return checkpointer != Checkpointer.NONE;
+    }
+
+    public void checkpoint(List<String> nodeIds, Map<String, Object> state) {
+        checkpointer.completed(nodeIds, state);
+    }
+
+    /**
+     * True when a checkpoint of the run being resumed already covers the node.
+     */
+    public boolean resumed(String nodeId) {
+        return resumedNodeIds.contains(nodeId);
+    }
+
+    /**
+     * Records one LLM call made by the node (latency and, when reported, token usage).
+     */
+    public void llmCall(String nodeId, Instant startedAt, long nanos, boolean success, Integer inputTokens, Integer outputTokens) {
+        nodeUsage.compute(nodeId, (id, usage) -> (usage != null ? usage : NodeUsage.empty(id))
+                .plus(startedAt, nanos, success, inputTokens, outputTokens));
+    }
+
+    /**
+     * Records that the node's step ran from {@code startedAt} until now.
+     */
+    public void nodeRan(String nodeId, Instant startedAt) {
+        Instant finishedAt = Instant.now();
+        nodeUsage.compute(nodeId, (id, usage) -> (usage != null ? usage : NodeUsage.empty(id)).span(startedAt, finishedAt));
+    }
+
+    public List<NodeUsage> nodeUsage() {
+        return List.copyOf(nodeUsage.values());
+    }
+
+    public List<String> executedNodeIds() {
+        synchronized (executedNodeIds) {
+            return new ArrayList<>(executedNodeIds);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.Locale;
+
+/**
+ * Priority class of a run. Runs of a higher class go first when they wait for an admission slot or an LLM call
+ * permit; waiting runs of lower classes are promoted over time so they are never starved.
+ */
+public enum RunPriority {
+    /** A user waiting in the editor. */
+    INTERACTIVE,
+    /** API callers that do not say (the default). */
+    STANDARD,
+    /** Evaluation jobs and other background runs. */
+    BATCH;
+
+    /**
+     * Parses a priority name case-insensitively; null or blank yields {@link #STANDARD}.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static RunPriority parse(String value) {
+        if (value == null || value.isBlank()) {
+            return STANDARD;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority: " + value);
+        }
+    }
+
+    /**
+     * Lower-case name for meter tags.
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.agenteditor.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups the steps of a sequence into stages of consecutive steps that can run concurrently.
+ * <p>
+ * A step joins the open stage when no step already in it must precede it ({@link DataflowAnalysis.Access#orders});
+ * otherwise, or when the step cannot run in a parallel group, the stage closes. Steps are never reordered across
+ * stages, so every conflicting pair keeps its program order and the final scope state is unchanged.
+ * </p>
+ */
+final class SequencePlanner {
+
+    /**
+     * One step of a sequence: the node ids it covers (two for a fused router and conditional) and their access.
+     */
+    record Step(List<String> nodeIds, DataflowAnalysis.Access access, boolean groupable) {
+    }
+
+    private SequencePlanner() {
+    }
+
+    /**
+     * Stages in program order; each stage lists indexes into {@code steps}.
+     */
+    static List<List<Integer>> stages(List<Step> steps) {
+        List<List<Integer>> stages = new ArrayList<>();
+        List<Integer> open = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            boolean joins = step.groupable() && !open.isEmpty() && steps.get(open.get(0)).groupable()
+                    && open.stream().noneMatch(j -> steps.get(j).access().orders(step.access()));
+            if (!joins && !open.isEmpty()) {
+                stages.add(open);
+                open = new ArrayList<>();
+            }
+            open.add(i);
+        }
+        if (!open.isEmpty()) {
+            stages.add(open);
+        }
+        return stages;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a router agent and its conditional node as one step, starting the most likely branches while the
+ * router is still classifying.
+ * <p>
+ * The router and speculative branches run as separate invocations on a snapshot of the scope; when the
+ * router decides, losing branches are cancelled (and have stopped before the step returns) and the winner's result is written back under its output
+ * key (and the conditional's). If the chosen branch was not speculated it runs after routing, as usual.
+ * Speculated branches do not see the router's output, so only use this for branches that do not read it.
+ * Only branches that are single agents are speculated: a composite branch writes its inner output keys to its
+ * own invocation's scope, and only its result would be written back.
+ * </p>
+ * <p>
+ * Speculation spends tokens on branches that may be thrown away, so besides the branch count it is bounded by the
+ * run's speculation budget ({@link RunBudget#speculation()}): LLM calls made by speculated branches are charged to
+ * it, no branch is speculated once it is used up, and a speculated branch that hits it mid-flight fails; when that
+ * branch is the chosen one it runs again after routing. Work a speculated branch hands to other threads through
+ * a {@link BranchScope} or {@link BoundedExecutor} is charged too ({@link #carry}).
+ * </p>
+ */
+final class SpeculativeConditional {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeConditional.class);
+
+    /** Bound while a speculated branch runs, so its LLM calls are charged to the speculation budget. */
+    private static final ScopedValue<Boolean> SPECULATING = ScopedValue.newInstance();
+
+    private final WorkflowNodeDto node;
+    private final WorkflowNodeDto router;
+    private final UntypedAgent routerAgent;
+    private final Map<String, UntypedAgent> branchAgents;
+    private final Map<String, WorkflowNodeDto> branchNodes;
+    private final ConditionalDispatch dispatch;
+    private final RoutingStats routingStats;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final RunContext runContext;
+
+    SpeculativeConditional(
+            WorkflowNodeDto node,
+            WorkflowNodeDto router,
+            UntypedAgent routerAgent,
+            Map<String, UntypedAgent> branchAgents,
+            Map<String, WorkflowNodeDto> branchNodes,
+            ConditionalDispatch dispatch,
+            RoutingStats routingStats,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            RunContext runContext
+    ) {
+        this.node = node;
+        this.router = router;
+        this.routerAgent = routerAgent;
+        this.branchAgents = branchAgents;
+        this.branchNodes = branchNodes;
+        this.dispatch = dispatch;
+        this.routingStats = routingStats;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.runContext = runContext;
+    }
+
+    /**
+     * True on the thread of a speculated branch, and in the tasks it forks.
+     */
+    static boolean speculating() {
+        return SPECULATING.isBound();
+    }
+
+    /**
+     * The task, run as part of the speculated branch that submits it (unchanged outside one).
+     */
+    static <T> Callable<T> carry(Callable<T> task) {
+        if (!speculating()) {
+            return task;
+        }
+        return () -> ScopedValue.where(SPECULATING, Boolean.TRUE).call(task::call);
+    }
+
+    /**
+     * The task, run as part of the speculated branch that submits it (unchanged outside one).
+     */
+    static Runnable carry(Runnable task) {
+        if (!speculating()) {
+            return task;
+        }
+        return () -> ScopedValue.where(SPECULATING, Boolean.TRUE).run(task);
+    }
+
+    void run(AgenticScope scope) {
+        String statsKey = RoutingStats.key(node);
+        int cap = node.speculativeBranches() != null ? node.speculativeBranches() : 1;
+        boolean affordable = !runContext.budget().speculation().exceeded();
+        List<String> candidates = affordable
+                ? routingStats.rank(statsKey, node.branches()).stream().filter(this::speculable).limit(cap).toList()
+                : List.of();
+        Map<String, Object> snapshot = AgentInvocations.input(scope);
+
+        Map<String, Future<Object>> speculated = new LinkedHashMap<>();
+        String chosen = null;
+        Object result;
+        try (BranchScope<Object> branches = new BranchScope<>(executor, 0)) {
+            for (String agentId : candidates) {
+                UntypedAgent agent = branchAgents.get(agentId);
+                speculated.put(agentId, branches.fork(() -> ScopedValue.where(SPECULATING, Boolean.TRUE)
+                        .call(() -> agent.invoke(new HashMap<>(snapshot)))));
+            }
+            log.debug("Speculating conditional nodeId={} branches={}", node.id(), speculated.keySet());
+
+            try {
+                Object routed = routerAgent.invoke(snapshot);
+                runContext.executed(router.id());
+                if (router.outputKey() != null && !router.outputKey().isBlank()) {
+                    scope.writeState(router.outputKey(), routed);
+                }
+                chosen = dispatch.route(scope);
+                routingStats.record(statsKey, chosen);
+            } finally {
+                for (Map.Entry<String, Future<Object>> entry : speculated.entrySet()) {
+                    if (!entry.getKey().equals(chosen) && entry.getValue().cancel(true)) {
+                        meterRegistry.counter("agent.conditional.speculation.cancelled").increment();
+                    }
+                }
+            }
+
+            Future<Object> winner = speculated.get(chosen);
+            if (winner != null) {
+                result = awaitSpeculated(winner, chosen, scope);
+            } else {
+                String outcome = !affordable ? "over-budget" : speculated.isEmpty() ? "none" : "miss";
+                meterRegistry.counter("agent.conditional.speculation", "outcome", outcome).increment();
+                result = branchAgents.get(chosen).invoke(AgentInvocations.input(scope));
+            }
+        }
+        runContext.executed(chosen);
+        log.info("Conditional nodeId={} routed to {} speculated={}", node.id(), chosen, speculated.keySet());
+
+        WorkflowNodeDto branch = branchNodes.get(chosen);
+        if (branch != null && branch.outputKey() != null && !branch.outputKey().isBlank()) {
+            scope.writeState(branch.outputKey(), result);
+        }
+        if (node.outputKey() != null && !node.outputKey().isBlank()) {
+            scope.writeState(node.outputKey(), result);
+        }
+    }
+
+    /**
+     * True for a branch that is a single agent.
+     */
+    private boolean speculable(String agentId) {
+        WorkflowNodeDto branch = branchNodes.get(agentId);
+        return branch != null && "agent".equals(branch.type());
+    }
+
+    /**
+     * The chosen branch's speculated result; runs the branch again when speculation ran out of budget in it.
+     */
+    private Object awaitSpeculated(Future<Object> winner, String chosen, AgenticScope scope) {
+        try {
+            Object result = AgentInvocations.await(winner);
+            meterRegistry.counter("agent.conditional.speculation", "outcome", "hit").increment();
+            return result;
+        } catch (RuntimeException e) {
+            BudgetExceededException exceeded = BudgetExceededException.find(e);
+            if (exceeded == null || !"speculation".equals(exceeded.getScope())) {
+                throw e;
+            }
+            log.info("Speculated branch {} of conditional nodeId={} ran out of speculation budget; running it again", chosen, node.id());
+            meterRegistry.counter("agent.conditional.speculation", "outcome", "over-budget").increment();
+            return branchAgents.get(chosen).invoke(AgentInvocations.input(scope));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.agenteditor.interpreter;
+
+/**
+ * A tenant's share of LLM capacity in the {@link LlmCallScheduler}.
+ *
+ * @param weight             share of call permits relative to other backlogged tenants (default 1)
+ * @param maxConcurrentCalls LLM calls of the tenant in flight at once (0 = no limit)
+ * @param tokensPerMinute    input plus output tokens the tenant may use per minute (0 = no limit)
+ */
+public record TenantQuota(double weight, int maxConcurrentCalls, long tokensPerMinute) {
+
+    public static final TenantQuota UNLIMITED = new TenantQuota(1, 0, 0);
+
+    public TenantQuota {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        maxConcurrentCalls = Math.max(0, maxConcurrentCalls);
+        tokensPerMinute = Math.max(0, tokensPerMinute);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.agenteditor.interpreter;
+
+/**
+ * Receives a notice for every scope value cut (or dropped) to fit {@link PromptLimits}.
+ */
+@FunctionalInterface
+public interface TruncationListener {
+
+    TruncationListener NONE = (key, originalChars, keptChars) -> { };
+
+    /**
+     * @param key           scope key of the value
+     * @param originalChars length of the value's full canonical form
+     * @param keptChars     characters kept in the prompt (0 when the entry was dropped)
+     */
+    void truncated(String key, long originalChars, int keptChars);
+}
@@ -0,0 +1,13 @@
+package com.example.agenteditor.interpreter;
+
+import dev.langchain4j.agentic.scope.AgenticScope;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a run that did not execute inside a single agentic scope (see {@link DagScheduler}): the entry
+ * output, the final scope state, and the scopes of the individual node invocations in completion order.
+ */
+public record WorkflowExecution(Object result, Map<String, Object> state, List<AgenticScope> scopes) {
+}
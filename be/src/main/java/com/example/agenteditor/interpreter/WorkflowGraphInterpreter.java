@@ -1,54 +1,364 @@
 package com.example.agenteditor.interpreter;
 
 import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.ExecutionPlanDto;
+import com.example.agenteditor.api.v1.dto.ModelCandidateDto;
+import com.example.agenteditor.api.v1.dto.SequencePlanDto;
 import com.example.agenteditor.api.v1.dto.ToolInfoDto;
 import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.MeteredChatModel;
+import com.example.agenteditor.llm.ModelCandidate;
 import com.example.agenteditor.llm.OpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
+import com.example.agenteditor.tools.ToolCachePolicy;
 import com.example.agenteditor.tools.ToolRegistry;
+import com.example.agenteditor.tools.ToolResultCache;
 import dev.langchain4j.agentic.AgenticServices;
 import dev.langchain4j.agentic.UntypedAgent;
 import dev.langchain4j.agentic.scope.AgenticScope;
 import dev.langchain4j.agentic.supervisor.SupervisorResponseStrategy;
 import dev.langchain4j.invocation.LangChain4jManaged;
 import dev.langchain4j.model.chat.ChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Interprets a workflow graph (all node types) and builds a runnable for the entry node.
+ * <p>
+ * Prompts are built through {@link PromptCanonicalizer} so identical inputs produce identical prompts
+ * (stable for provider prefix caching), and every chat model is wrapped in a {@link MeteredChatModel}.
+ * Scope values serialized into prompts and composite outputs are capped by {@link PromptLimits}; cuts are
+ * recorded on the run's {@link RunContext}.
+ * </p>
+ * <p>
+ * Conditional nodes route through a {@link ConditionalDispatch} table (one state read and lookup per
+ * condition key) with optional value normalization and a default branch. A speculative conditional that
+ * directly follows its router in a sequence is fused with it into one {@link SpeculativeConditional} step.
+ * Parallel nodes with a completion policy other than {@code ALL} run through {@link ParallelCompletion};
+ * map nodes fan a single sub-agent out over a collection through {@link MapStep}; chunk nodes describe a large
+ * value as token-bounded chunks through {@link ChunkStep}, which a map node cuts as it iterates them.
+ * </p>
+ * <p>
+ * Agents with a {@code maxInputTokens} budget (own or inherited from their LLM node) have their prompt
+ * counted locally with {@link TokenEstimator}; when over budget, scope entries the template does not
+ * reference are dropped largest-first, then the prompt is cut to the remaining token budget.
+ * </p>
+ * <p>
+ * Sequences are grouped by {@link SequencePlanner}: consecutive steps that share no scope key (per
+ * {@link DataflowAnalysis}) run as one parallel stage, leaving the final scope state unchanged. Sequences are
+ * planned against the run input when the {@link RunContext} carries it, and conservatively otherwise;
+ * {@link #explain} reports the stages and the estimated latency saved. With a checkpointing {@link RunContext}, each stage of the
+ * entry sequence is followed by a step handing the run scope's state to the run's {@link Checkpointer}, and steps
+ * a resumed run already completed are left out; nested sequences run whole, as one step of their parent.
+ * </p>
+ * <p>
+ * {@link #buildDagRunnable} runs the same nodes on the dataflow engine ({@link DagScheduler}) instead of
+ * nested sequence/parallel workflows. Both runnables record {@code agent.workflow.duration} tagged by engine and
+ * run priority.
+ * </p>
+ * <p>
+ * All fan-out (parallel nodes, parallel sequence stages, map elements, speculative branches and DAG units) runs on
+ * one virtual-thread executor; a parallel node's {@code threadPoolSize} only limits how many of its branches run at
+ * once. Fan-outs driven by the interpreter itself use a {@link BranchScope}, so cancelled branches have stopped
+ * before their step returns. Every LLM call first takes a permit from the {@link LlmCallScheduler} at the run's
+ * {@link RunPriority}.
+ * </p>
  */
 public class WorkflowGraphInterpreter {
 
     private static final Logger log = LoggerFactory.getLogger(WorkflowGraphInterpreter.class);
-    private static final List<String> VALID_ENTRY_TYPES = List.of("sequence", "parallel", "supervisor");
+    private static final List<String> VALID_ENTRY_TYPES = List.of("sequence", "parallel", "supervisor", "map");
     private static final Pattern TEMPLATE_VAR_PATTERN = Pattern.compile("\\{\\{\\s*([a-zA-Z0-9_.-]+)\\s*}}");
+    /** Assumed latency of an LLM call before any has been observed for the model. */
+    static final long DEFAULT_CALL_LATENCY_MS = 2_000;
 
     private final OpenRouterChatModelFactory chatModelFactory;
     private final ToolRegistry toolRegistry;
+    private final MeterRegistry meterRegistry;
+    private final PromptLimits promptLimits;
+    private final TokenEstimator tokenEstimator;
+    private final boolean autoParallelize;
+    private final LlmCallScheduler llmScheduler;
+    private final RoutingStats routingStats = new RoutingStats();
+    private final ExecutorService branchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, ToolResultCache> toolCaches = new ConcurrentHashMap<>();
 
     public WorkflowGraphInterpreter(OpenRouterChatModelFactory chatModelFactory, ToolRegistry toolRegistry) {
+        this(chatModelFactory, toolRegistry, new SimpleMeterRegistry(), PromptLimits.DEFAULT, new TokenEstimator());
+    }
+
+    public WorkflowGraphInterpreter(
+            OpenRouterChatModelFactory chatModelFactory,
+            ToolRegistry toolRegistry,
+            MeterRegistry meterRegistry,
+            PromptLimits promptLimits,
+            TokenEstimator tokenEstimator
+    ) {
+        this(chatModelFactory, toolRegistry, meterRegistry, promptLimits, tokenEstimator, true);
+    }
+
+    public WorkflowGraphInterpreter(
+            OpenRouterChatModelFactory chatModelFactory,
+            ToolRegistry toolRegistry,
+            MeterRegistry meterRegistry,
+            PromptLimits promptLimits,
+            TokenEstimator tokenEstimator,
+            boolean autoParallelize
+    ) {
+        this(chatModelFactory, toolRegistry, meterRegistry, promptLimits, tokenEstimator, autoParallelize,
+                new LlmCallScheduler(0, Duration.ZERO, meterRegistry));
+    }
+
+    public WorkflowGraphInterpreter(
+            OpenRouterChatModelFactory chatModelFactory,
+            ToolRegistry toolRegistry,
+            MeterRegistry meterRegistry,
+            PromptLimits promptLimits,
+            TokenEstimator tokenEstimator,
+            boolean autoParallelize,
+            LlmCallScheduler llmScheduler
+    ) {
+        this.llmScheduler = Objects.requireNonNull(llmScheduler, "llmScheduler");
         this.chatModelFactory = Objects.requireNonNull(chatModelFactory, "chatModelFactory");
         this.toolRegistry = Objects.requireNonNull(toolRegistry, "toolRegistry");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.promptLimits = Objects.requireNonNull(promptLimits, "promptLimits");
+        this.tokenEstimator = Objects.requireNonNull(tokenEstimator, "tokenEstimator");
+        this.autoParallelize = autoParallelize;
     }
 
     /**
-     * Builds the runnable for the given graph. Entry node must be sequence, parallel, or supervisor.
+     * Closes the branch executor on shutdown, waiting for branches still running.
+     */
+    @PreDestroy
+    public void shutdown() {
+        branchExecutor.close();
+    }
+
+    /**
+     * Builds the runnable for the given graph. Entry node must be sequence, parallel, supervisor, or map.
      */
     public WorkflowRunnable buildEntryRunnable(String entryNodeId, List<WorkflowNodeDto> nodes) {
-        Objects.requireNonNull(entryNodeId, "entryNodeId");
-        Objects.requireNonNull(nodes, "nodes");
+        return buildEntryRunnable(entryNodeId, nodes, new RunContext());
+    }
+
+    /**
+     * Builds the runnable for the given graph, recording per-run trace data on {@code runContext}.
+     * Build a fresh runnable (and context) per run.
+     */
+    public WorkflowRunnable buildEntryRunnable(String entryNodeId, List<WorkflowNodeDto> nodes, RunContext runContext) {
+        Objects.requireNonNull(runContext, "runContext");
+        Map<String, WorkflowNodeDto> byId = indexById(Objects.requireNonNull(nodes, "nodes"));
+        entryNode(entryNodeId, byId);
         log.info("Building runnable entryNodeId={} nodeCount={}", entryNodeId, nodes.size());
-        Map<String, WorkflowNodeDto> byId = indexById(nodes);
+        Map<String, Object> runnables = buildRunnables(nodes, byId, runContext, entryNodeId);
+
+        Object entryRunnable = runnables.get(entryNodeId);
+        if (entryRunnable == null) {
+            throw new IllegalArgumentException("Could not build runnable for entry node: " + entryNodeId);
+        }
+        log.info("Runnable built successfully for entryNodeId={}", entryNodeId);
+        return timed(toWorkflowRunnable(entryRunnable, runContext), ExecutionEngine.INTERPRETER, runContext.priority());
+    }
+
+    /**
+     * Builds a runnable that executes the graph on the dataflow engine: nodes under the entry start as soon
+     * as the scope keys they read are written (see {@link DagScheduler}). It returns a {@link WorkflowExecution}.
+     * Build a fresh runnable (and context) per run.
+     */
+    public WorkflowRunnable buildDagRunnable(String entryNodeId, List<WorkflowNodeDto> nodes, RunContext runContext) {
+        Objects.requireNonNull(runContext, "runContext");
+        Map<String, WorkflowNodeDto> byId = indexById(Objects.requireNonNull(nodes, "nodes"));
+        WorkflowNodeDto entry = entryNode(entryNodeId, byId);
+        log.info("Building DAG runnable entryNodeId={} nodeCount={}", entryNodeId, nodes.size());
+        Map<String, Object> runnables = buildRunnables(nodes, byId, runContext, null);
+
+        Map<String, UntypedAgent> agents = new HashMap<>();
+        runnables.forEach((id, runnable) -> agents.put(id, asUntypedAgent(byId.get(id), runnable)));
+        DagScheduler scheduler = new DagScheduler(entry, byId, runContext.input(), agents, branchExecutor, meterRegistry,
+                (node, state) -> compositeOutput(state, node, "result", runContext));
+        return timed(input -> scheduler.run(input, runContext), ExecutionEngine.DAG, runContext.priority());
+    }
+
+    /**
+     * Stages the interpreter runs each sequence node reachable from the entry in, with latency estimates based on
+     * the observed mean LLM call latency per model ({@link #DEFAULT_CALL_LATENCY_MS} for models not called yet).
+     * Sequences the entry never runs are left out, so they do not count towards the estimated saving.
+     */
+    public ExecutionPlanDto explain(String entryNodeId, List<WorkflowNodeDto> nodes) {
+        return explain(entryNodeId, nodes, null);
+    }
 
+    /**
+     * Stages as for a run with the given input; a null input gives the stages of a run whose input is unknown.
+     */
+    public ExecutionPlanDto explain(String entryNodeId, List<WorkflowNodeDto> nodes, Map<String, Object> input) {
+        Map<String, WorkflowNodeDto> byId = indexById(Objects.requireNonNull(nodes, "nodes"));
+        WorkflowNodeDto entry = entryNode(entryNodeId, byId);
+        DataflowAnalysis analysis = new DataflowAnalysis(byId, input);
+        Map<String, Long> estimates = new HashMap<>();
+        List<SequencePlanDto> sequences = new ArrayList<>();
+        long saved = 0;
+        for (WorkflowNodeDto node : reachable(entry, byId)) {
+            if ("sequence".equals(node.type()) && node.subAgentIds() != null) {
+                SequencePlanDto plan = planSequence(node, byId, analysis, estimates);
+                sequences.add(plan);
+                saved += plan.estimatedSerialMs() - plan.estimatedPlannedMs();
+            }
+        }
+        return new ExecutionPlanDto(entryNodeId, autoParallelize, sequences, saved);
+    }
+
+    /**
+     * Nodes the entry runs, directly or through composites, routers and branches; entry first, then depth-first
+     * in the order the graph lists them.
+     */
+    private static List<WorkflowNodeDto> reachable(WorkflowNodeDto entry, Map<String, WorkflowNodeDto> byId) {
+        Map<String, WorkflowNodeDto> seen = new LinkedHashMap<>();
+        Deque<WorkflowNodeDto> pending = new ArrayDeque<>();
+        pending.push(entry);
+        while (!pending.isEmpty()) {
+            WorkflowNodeDto node = pending.pop();
+            if (seen.putIfAbsent(node.id(), node) != null) {
+                continue;
+            }
+            List<String> next = new ArrayList<>();
+            if (node.routerAgentId() != null) {
+                next.add(node.routerAgentId());
+            }
+            if (node.subAgentIds() != null) {
+                next.addAll(node.subAgentIds());
+            }
+            if (node.branches() != null) {
+                node.branches().forEach(branch -> next.add(branch.agentId()));
+            }
+            if (node.defaultAgentId() != null) {
+                next.add(node.defaultAgentId());
+            }
+            for (int i = next.size() - 1; i >= 0; i--) {
+                WorkflowNodeDto child = byId.get(next.get(i));
+                if (child != null && !seen.containsKey(child.id())) {
+                    pending.push(child);
+                }
+            }
+        }
+        return List.copyOf(seen.values());
+    }
+
+    private SequencePlanDto planSequence(
+            WorkflowNodeDto node,
+            Map<String, WorkflowNodeDto> byId,
+            DataflowAnalysis analysis,
+            Map<String, Long> estimates
+    ) {
+        List<SequencePlanner.Step> steps = new ArrayList<>();
+        List<Long> costs = new ArrayList<>();
+        List<String> subIds = node.subAgentIds();
+        for (int i = 0; i < subIds.size(); i++) {
+            WorkflowNodeDto sub = byId.get(subIds.get(i));
+            if (sub == null) {
+                continue;
+            }
+            WorkflowNodeDto next = i + 1 < subIds.size() ? byId.get(subIds.get(i + 1)) : null;
+            if (next != null && "conditional".equals(next.type()) && Boolean.TRUE.equals(next.speculative())
+                    && sub.id().equals(next.routerAgentId())) {
+                steps.add(new SequencePlanner.Step(List.of(sub.id(), next.id()),
+                        analysis.access(sub).union(analysis.access(next)), false));
+                costs.add(estimateMs(sub, byId, analysis, estimates) + estimateMs(next, byId, analysis, estimates));
+                i++;
+            } else {
+                boolean untyped = !"chunk".equals(sub.type()) && !"supervisor".equals(sub.type());
+                steps.add(new SequencePlanner.Step(List.of(sub.id()), analysis.access(sub), autoParallelize && untyped));
+                costs.add(estimateMs(sub, byId, analysis, estimates));
+            }
+        }
+        List<List<String>> stages = new ArrayList<>();
+        long serial = 0;
+        long planned = 0;
+        for (List<Integer> stage : SequencePlanner.stages(steps)) {
+            stages.add(stage.stream().flatMap(j -> steps.get(j).nodeIds().stream()).toList());
+            serial += stage.stream().mapToLong(costs::get).sum();
+            planned += stage.stream().mapToLong(costs::get).max().orElse(0);
+        }
+        return new SequencePlanDto(node.id(), stages, serial, planned);
+    }
+
+    /**
+     * Estimated latency of running a node: one LLM call per agent, sum or max over composites as they run.
+     */
+    private long estimateMs(
+            WorkflowNodeDto node,
+            Map<String, WorkflowNodeDto> byId,
+            DataflowAnalysis analysis,
+            Map<String, Long> estimates
+    ) {
+        if (node == null) {
+            return 0;
+        }
+        Long known = estimates.get(node.id());
+        if (known != null) {
+            return known;
+        }
+        estimates.put(node.id(), 0L);
+        List<WorkflowNodeDto> children = new ArrayList<>();
+        if (node.subAgentIds() != null) {
+            node.subAgentIds().stream().map(byId::get).filter(Objects::nonNull).forEach(children::add);
+        }
+        if (node.branches() != null) {
+            node.branches().stream().map(b -> byId.get(b.agentId())).filter(Objects::nonNull).forEach(children::add);
+        }
+        if (node.defaultAgentId() != null && byId.containsKey(node.defaultAgentId())) {
+            children.add(byId.get(node.defaultAgentId()));
+        }
+        long estimate = switch (node.type()) {
+            case "agent" -> callLatencyMs(byId.get(node.llmId()));
+            case "sequence" -> planSequence(node, byId, analysis, estimates).estimatedPlannedMs();
+            case "supervisor" -> callLatencyMs(byId.get(node.llmId()))
+                    + children.stream().mapToLong(c -> estimateMs(c, byId, analysis, estimates)).sum();
+            case "parallel", "map", "conditional" -> children.stream()
+                    .mapToLong(c -> estimateMs(c, byId, analysis, estimates)).max().orElse(0);
+            default -> 0;
+        };
+        estimates.put(node.id(), estimate);
+        return estimate;
+    }
+
+    private long callLatencyMs(WorkflowNodeDto llmNode) {
+        String modelName = primaryModelName(llmNode);
+        if (modelName == null) {
+            return DEFAULT_CALL_LATENCY_MS;
+        }
+        Timer timer = meterRegistry.find("agent.llm.latency").tag("model", modelName).tag("outcome", "success").timer();
+        return timer != null && timer.count() > 0 ? Math.round(timer.mean(TimeUnit.MILLISECONDS)) : DEFAULT_CALL_LATENCY_MS;
+    }
+
+    private WorkflowNodeDto entryNode(String entryNodeId, Map<String, WorkflowNodeDto> byId) {
+        Objects.requireNonNull(entryNodeId, "entryNodeId");
         WorkflowNodeDto entry = byId.get(entryNodeId);
         if (entry == null) {
             throw new IllegalArgumentException("Entry node not found: " + entryNodeId);
@@ -58,41 +368,97 @@ public class WorkflowGraphInterpreter {
             throw new IllegalArgumentException("Entry node must be one of " + VALID_ENTRY_TYPES + ", got: " + type);
         }
         log.debug("Entry node type={} id={}", type, entryNodeId);
+        return entry;
+    }
 
+    /**
+     * Builds the runnable of every buildable node (LLM models, agents and chunk actions, then composites).
+     *
+     * @param checkpointedId the sequence whose stages are checkpointed and skipped on resume: the entry node, which
+     *                       runs in the run's own scope; null when the caller checkpoints (DAG engine)
+     */
+    private Map<String, Object> buildRunnables(List<WorkflowNodeDto> nodes, Map<String, WorkflowNodeDto> byId,
+                                               RunContext runContext, String checkpointedId) {
         Map<String, ChatModel> chatModels = new HashMap<>();
         Map<String, Object> runnables = new HashMap<>();
 
         for (WorkflowNodeDto node : nodes) {
-            if ("llm".equals(node.type())) {
+            if ("llm".equals(node.type()) && node.candidateModels() != null && !node.candidateModels().isEmpty()) {
+                ChatModel model = chatModelFactory.buildRouted(
+                        node.baseUrl(),
+                        node.candidateModels().stream().map(WorkflowGraphInterpreter::modelCandidate).toList(),
+                        node.temperature(),
+                        node.maxTokens(),
+                        (modelName, candidate) -> new MeteredChatModel(candidate, modelName, meterRegistry, tokenEstimator),
+                        meterRegistry
+                );
+                chatModels.put(node.id(), model);
+                log.debug("Built routed LLM node id={} candidates={}", node.id(), node.candidateModels().size());
+            } else if ("llm".equals(node.type())) {
                 ChatModel model = chatModelFactory.build(
                         node.baseUrl(),
                         node.modelName(),
                         node.temperature(),
                         node.maxTokens()
                 );
-                chatModels.put(node.id(), model);
+                chatModels.put(node.id(), new MeteredChatModel(model, node.modelName(), meterRegistry, tokenEstimator));
                 log.debug("Built LLM node id={}", node.id());
             }
         }
         for (WorkflowNodeDto node : nodes) {
             if ("agent".equals(node.type())) {
-                buildAgent(node, chatModels, runnables);
+                buildAgent(node, byId, chatModels, runnables, runContext);
+            } else if ("chunk".equals(node.type())) {
+                buildChunk(node, byId, runnables, runContext);
             }
         }
-        buildCompositeNodesUntilStable(nodes, chatModels, runnables);
+        buildCompositeNodesUntilStable(nodes, byId, chatModels, runnables, runContext, checkpointedId);
+        return runnables;
+    }
 
-        Object entryRunnable = runnables.get(entryNodeId);
-        if (entryRunnable == null) {
-            throw new IllegalArgumentException("Could not build runnable for entry node: " + entryNodeId);
-        }
-        log.info("Runnable built successfully for entryNodeId={}", entryNodeId);
-        return toWorkflowRunnable(entryRunnable);
+    /**
+     * Runnables that are not untyped agents (chunk actions, supervisors) are wrapped in a one-step sequence
+     * so the DAG engine can invoke them on their own.
+     */
+    private static UntypedAgent asUntypedAgent(WorkflowNodeDto node, Object runnable) {
+        if (runnable instanceof UntypedAgent agent) {
+            return agent;
+        }
+        String outputKey = node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey()
+                : "chunk".equals(node.type()) ? ChunkStep.DEFAULT_OUTPUT_KEY : "response";
+        return AgenticServices.sequenceBuilder()
+                .subAgents(runnable)
+                .outputKey(outputKey)
+                .output(scope -> scope.readState(outputKey))
+                .build();
+    }
+
+    private WorkflowRunnable timed(WorkflowRunnable runnable, ExecutionEngine engine, RunPriority priority) {
+        return input -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                Object result = runnable.run(input);
+                outcome = "success";
+                return result;
+            } finally {
+                sample.stop(Timer.builder("agent.workflow.duration")
+                        .tag("engine", engine.name().toLowerCase(Locale.ROOT))
+                        .tag("outcome", outcome)
+                        .tag("priority", priority.tag())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        };
     }
 
     private void buildCompositeNodesUntilStable(
             List<WorkflowNodeDto> nodes,
+            Map<String, WorkflowNodeDto> byId,
             Map<String, ChatModel> chatModels,
-            Map<String, Object> runnables
+            Map<String, Object> runnables,
+            RunContext runContext,
+            String checkpointedId
     ) {
         boolean progress;
         do {
@@ -103,24 +469,31 @@ public class WorkflowGraphInterpreter {
                 }
                 String type = node.type();
                 if ("sequence".equals(type) && allBuilt(node.subAgentIds(), runnables)) {
-                    buildSequence(node, runnables);
+                    buildSequence(node, byId, runnables, runContext, node.id().equals(checkpointedId));
                     progress = true;
                     continue;
                 }
                 if ("parallel".equals(type) && allBuilt(node.subAgentIds(), runnables)) {
-                    buildParallel(node, runnables);
+                    buildParallel(node, byId, runnables, runContext);
+                    progress = true;
+                    continue;
+                }
+                if ("map".equals(type) && allBuilt(node.subAgentIds(), runnables)) {
+                    buildMap(node, runnables, runContext);
                     progress = true;
                     continue;
                 }
                 if ("conditional".equals(type)
                         && isBuilt(node.routerAgentId(), runnables)
-                        && allBranchesBuilt(node.branches(), runnables)) {
-                    buildConditional(node, runnables);
+                        && allBranchesBuilt(node.branches(), runnables)
+                        && (node.defaultAgentId() == null || node.defaultAgentId().isBlank()
+                            || isBuilt(node.defaultAgentId(), runnables))) {
+                    buildConditional(node, runnables, runContext);
                     progress = true;
                     continue;
                 }
                 if ("supervisor".equals(type) && allBuilt(node.subAgentIds(), runnables)) {
-                    buildSupervisor(node, chatModels, runnables);
+                    buildSupervisor(node, byId, chatModels, runnables, runContext);
                     progress = true;
                 }
             }
@@ -155,12 +528,12 @@ public class WorkflowGraphInterpreter {
         return true;
     }
 
-    private WorkflowRunnable toWorkflowRunnable(Object runnable) {
+    private WorkflowRunnable toWorkflowRunnable(Object runnable, RunContext runContext) {
         if (runnable instanceof UntypedAgent agent) {
             return agent::invokeWithAgenticScope;
         }
         if (runnable instanceof dev.langchain4j.agentic.supervisor.SupervisorAgent supervisor) {
-            return input -> supervisor.invokeWithAgenticScope(userMessageFromScope(input));
+            return input -> supervisor.invokeWithAgenticScope(userMessageFromScope(input, null, runContext.truncationListener("input")));
         }
         return input -> {
             try {
@@ -184,7 +557,13 @@ public class WorkflowGraphInterpreter {
     }
 
     @SuppressWarnings("unchecked")
-    private void buildAgent(WorkflowNodeDto node, Map<String, ChatModel> chatModels, Map<String, Object> runnables) {
+    private void buildAgent(
+            WorkflowNodeDto node,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, ChatModel> chatModels,
+            Map<String, Object> runnables,
+            RunContext runContext
+    ) {
         if (runnables.containsKey(node.id())) return;
 
         String llmId = node.llmId();
@@ -196,31 +575,102 @@ public class WorkflowGraphInterpreter {
             throw new IllegalArgumentException("LLM node not found for agent " + node.id() + ": " + llmId);
         }
 
-        List<String> toolIdsToUse = (node.tools() != null && !node.tools().isEmpty())
+        List<String> toolIdsToUse = PromptCanonicalizer.canonicalToolIds((node.tools() != null && !node.tools().isEmpty())
                 ? node.tools().stream().map(ToolInfoDto::id).toList()
-                : (node.toolIds() != null ? node.toolIds() : List.of());
-        Object[] tools = toolRegistry.getTools(toolIdsToUse);
+                : node.toolIds());
+        AgentTools tools = agentTools(node, toolIdsToUse, runContext);
+        String systemMessage = resolveSystemMessage(node);
+        WorkflowNodeDto llmNode = byId.get(llmId);
+        String modelName = primaryModelName(llmNode);
+        Integer inputBudget = node.maxInputTokens() != null ? node.maxInputTokens()
+                : (llmNode != null ? llmNode.maxInputTokens() : null);
         var builder = AgenticServices.agentBuilder()
-                .chatModel(chatModel)
+                .chatModel(new RecordingChatModel(chatModel, node.id(), resolvedModelName(llmNode), runContext, llmScheduler))
                 .name(node.name() != null ? node.name() : node.id())
-                .userMessageProvider(scope -> userMessageFromScope(scope, node.promptTemplate()));
-        String systemMessage = resolveSystemMessage(node);
+                .userMessageProvider(scope -> budgetedUserMessage(
+                        scope, node, systemMessage, modelName, inputBudget, runContext.truncationListener(node.id())));
         if (systemMessage != null) {
             builder.systemMessage(systemMessage);
         }
         if (node.outputKey() != null && !node.outputKey().isBlank()) {
             builder.outputKey(node.outputKey());
         }
-        if (tools.length > 0) {
-            builder.tools(tools);
+        if (tools.size() > 0) {
+            builder.toolProvider(tools);
+            int maxParallel = node.threadPoolSize() != null ? node.threadPoolSize() : AgentTools.DEFAULT_MAX_CONCURRENT_CALLS;
+            if (maxParallel > 1) {
+                builder.executeToolsConcurrently(new BoundedExecutor(branchExecutor, maxParallel));
+            }
         }
         runnables.put(node.id(), builder.build());
     }
 
+    /**
+     * Tools of an agent node, each bounded by its tool definition's {@code timeoutMs} and cached as its
+     * {@link ToolCachePolicy} says: per run in the {@link RunContext}, or globally here.
+     */
+    private AgentTools agentTools(WorkflowNodeDto node, List<String> toolIds, RunContext runContext) {
+        Map<String, Long> timeouts = new HashMap<>();
+        if (node.tools() != null) {
+            for (ToolInfoDto tool : node.tools()) {
+                if (tool.timeoutMs() != null) {
+                    timeouts.put(tool.id(), tool.timeoutMs());
+                }
+            }
+        }
+        List<AgentTools.Binding> bindings = new ArrayList<>();
+        for (String id : toolIds) {
+            Object[] tools = toolRegistry.getTools(List.of(id));
+            if (tools.length == 0) {
+                continue;
+            }
+            Long timeoutMs = timeouts.get(id);
+            ToolCachePolicy policy = toolRegistry.cachePolicy(id);
+            ToolResultCache cache = switch (policy.scope()) {
+                case NONE -> null;
+                case RUN -> runContext.toolCache(id, policy);
+                case GLOBAL -> toolCaches.computeIfAbsent(id, key -> new ToolResultCache(policy));
+            };
+            for (Object tool : tools) {
+                bindings.add(new AgentTools.Binding(tool,
+                        timeoutMs != null ? Duration.ofMillis(timeoutMs) : AgentTools.DEFAULT_TIMEOUT, cache));
+            }
+        }
+        return new AgentTools(bindings, meterRegistry);
+    }
+
+    /**
+     * Chunk node: an action step that writes the chunks of its input as a lazy descriptor (see {@link ChunkStep}).
+     */
+    private void buildChunk(WorkflowNodeDto node, Map<String, WorkflowNodeDto> byId, Map<String, Object> runnables,
+                            RunContext runContext) {
+        if (node.inputKey() == null || node.inputKey().isBlank()) {
+            throw new IllegalArgumentException("Chunk node " + node.id() + " has no inputKey");
+        }
+        WorkflowNodeDto llmNode = node.llmId() != null ? byId.get(node.llmId()) : null;
+        ChunkStep step = new ChunkStep(node, primaryModelName(llmNode));
+        runnables.put(node.id(), timedAction(node.id(), step::run, runContext));
+    }
+
+    /**
+     * Action step that records its node's wall-clock span in the run's node usage, so nodes without LLM calls
+     * have a duration in the run history too.
+     */
+    private static Object timedAction(String nodeId, Consumer<AgenticScope> action, RunContext runContext) {
+        return AgenticServices.agentAction(scope -> {
+            Instant startedAt = Instant.now();
+            try {
+                action.accept(scope);
+            } finally {
+                runContext.nodeRan(nodeId, startedAt);
+            }
+        });
+    }
+
     private String resolveSystemMessage(WorkflowNodeDto node) {
         String explicit = node.systemMessage();
         if (explicit != null && !explicit.isBlank()) {
-            return explicit.trim();
+            return PromptCanonicalizer.normalizeWhitespace(explicit);
         }
         String role = node.role();
         if (role != null && !role.isBlank()) {
@@ -229,7 +679,13 @@ public class WorkflowGraphInterpreter {
         return null;
     }
 
-    private void buildSequence(WorkflowNodeDto node, Map<String, Object> runnables) {
+    /**
+     * @param checkpointed whether this sequence checkpoints its stages and skips the ones a resumed run completed;
+     *                     only the entry sequence does, since nested sequences may run in a separate scope (a map
+     *                     element, a parallel or conditional branch) whose state is not the run's
+     */
+    private void buildSequence(WorkflowNodeDto node, Map<String, WorkflowNodeDto> byId, Map<String, Object> runnables,
+                               RunContext runContext, boolean checkpointed) {
         if (runnables.containsKey(node.id())) return;
 
         List<String> subIds = node.subAgentIds();
@@ -242,15 +698,89 @@ public class WorkflowGraphInterpreter {
             }
         }
 
-        UntypedAgent[] subAgents = subIds.stream().map(runnables::get).map(UntypedAgent.class::cast).toArray(UntypedAgent[]::new);
+        DataflowAnalysis analysis = new DataflowAnalysis(byId, runContext.input());
+        List<Object> stepRunnables = new ArrayList<>(subIds.size());
+        List<SequencePlanner.Step> steps = new ArrayList<>(subIds.size());
+        for (int i = 0; i < subIds.size(); i++) {
+            WorkflowNodeDto sub = byId.get(subIds.get(i));
+            if (checkpointed && runContext.resumed(sub.id())) {
+                log.debug("Sequence nodeId={} skips step {} completed before resume", node.id(), sub.id());
+                continue;
+            }
+            Object speculative = i + 1 < subIds.size()
+                    ? speculativeStep(sub, byId.get(subIds.get(i + 1)), byId, runnables, runContext)
+                    : null;
+            if (speculative != null) {
+                WorkflowNodeDto conditional = byId.get(subIds.get(i + 1));
+                stepRunnables.add(speculative);
+                steps.add(new SequencePlanner.Step(List.of(sub.id(), conditional.id()),
+                        analysis.access(sub).union(analysis.access(conditional)), false));
+                i++;
+            } else {
+                Object runnable = runnables.get(subIds.get(i));
+                stepRunnables.add(runnable);
+                steps.add(new SequencePlanner.Step(List.of(sub.id()), analysis.access(sub),
+                        autoParallelize && runnable instanceof UntypedAgent));
+            }
+        }
+        List<Object> subAgents = new ArrayList<>();
+        for (List<Integer> stage : SequencePlanner.stages(steps)) {
+            if (stage.size() == 1) {
+                subAgents.add(stepRunnables.get(stage.get(0)));
+            } else {
+                UntypedAgent[] group = stage.stream().map(stepRunnables::get).map(UntypedAgent.class::cast).toArray(UntypedAgent[]::new);
+                log.debug("Sequence nodeId={} runs steps {} concurrently", node.id(),
+                        stage.stream().map(j -> steps.get(j).nodeIds()).toList());
+                subAgents.add(AgenticServices.parallelBuilder().subAgents(group).executor(branchExecutor).build());
+            }
+            if (checkpointed && runContext.checkpointing()) {
+                List<String> stageNodeIds = stage.stream().flatMap(j -> steps.get(j).nodeIds().stream()).toList();
+                subAgents.add(AgenticServices.agentAction(scope -> runContext.checkpoint(stageNodeIds, scope.state())));
+            }
+        }
+        if (subAgents.isEmpty()) {
+            subAgents.add(AgenticServices.agentAction(scope -> { }));
+        }
         var builder = AgenticServices.sequenceBuilder()
-                .subAgents(subAgents)
+                .subAgents(subAgents.toArray())
                 .outputKey(node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : "result")
-                .output(scope -> nonNullCompositeOutput(scope, node, "result"));
+                .output(scope -> nonNullCompositeOutput(scope, node, "result", runContext));
         runnables.put(node.id(), builder.build());
     }
 
-    private void buildParallel(WorkflowNodeDto node, Map<String, Object> runnables) {
+    /**
+     * Fuses a router and the speculative conditional right after it into one action, or returns null when
+     * the pair does not qualify (not speculative, different router, or agents that cannot be invoked alone).
+     */
+    private Object speculativeStep(
+            WorkflowNodeDto router,
+            WorkflowNodeDto conditional,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, Object> runnables,
+            RunContext runContext
+    ) {
+        if (router == null || conditional == null || !"conditional".equals(conditional.type())
+                || !Boolean.TRUE.equals(conditional.speculative()) || !router.id().equals(conditional.routerAgentId())
+                || !(runnables.get(router.id()) instanceof UntypedAgent routerAgent)) {
+            return null;
+        }
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(conditional, meterRegistry);
+        Map<String, UntypedAgent> branchAgents = new HashMap<>();
+        Map<String, WorkflowNodeDto> branchNodes = new HashMap<>();
+        for (String agentId : dispatch.agentIds()) {
+            if (!(runnables.get(agentId) instanceof UntypedAgent agent)) {
+                log.debug("Conditional {} not speculated: branch {} is not an untyped agent", conditional.id(), agentId);
+                return null;
+            }
+            branchAgents.put(agentId, agent);
+            branchNodes.put(agentId, byId.get(agentId));
+        }
+        SpeculativeConditional step = new SpeculativeConditional(conditional, router, routerAgent, branchAgents,
+                branchNodes, dispatch, routingStats, branchExecutor, meterRegistry, runContext);
+        return timedAction(conditional.id(), step::run, runContext);
+    }
+
+    private void buildParallel(WorkflowNodeDto node, Map<String, WorkflowNodeDto> byId, Map<String, Object> runnables, RunContext runContext) {
         if (runnables.containsKey(node.id())) return;
 
         List<String> subIds = node.subAgentIds();
@@ -263,19 +793,76 @@ public class WorkflowGraphInterpreter {
             }
         }
 
+        ParallelCompletion.Policy policy = ParallelCompletion.Policy.parse(node.completionPolicy());
+        if (policy != ParallelCompletion.Policy.ALL) {
+            runnables.put(node.id(), buildPartialParallel(node, policy, byId, runnables, runContext));
+            return;
+        }
         UntypedAgent[] subAgents = subIds.stream().map(runnables::get).map(UntypedAgent.class::cast).toArray(UntypedAgent[]::new);
         var builder = AgenticServices.parallelBuilder()
                 .subAgents(subAgents)
                 .outputKey(node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : "result")
-                .output(scope -> nonNullCompositeOutput(scope, node, "result"));
+                .output(scope -> nonNullCompositeOutput(scope, node, "result", runContext));
         Integer poolSize = node.threadPoolSize();
-        if (poolSize != null && poolSize > 0) {
-            builder.executor(Executors.newFixedThreadPool(poolSize));
-        }
+        builder.executor(poolSize != null && poolSize > 0 ? new BoundedExecutor(branchExecutor, poolSize) : branchExecutor);
         runnables.put(node.id(), builder.build());
     }
 
-    private void buildConditional(WorkflowNodeDto node, Map<String, Object> runnables) {
+    /**
+     * Parallel node with a non-ALL completion policy: a one-step sequence around a {@link ParallelCompletion}
+     * action, so it can still be an entry node or a sub-agent.
+     */
+    private Object buildPartialParallel(
+            WorkflowNodeDto node,
+            ParallelCompletion.Policy policy,
+            Map<String, WorkflowNodeDto> byId,
+            Map<String, Object> runnables,
+            RunContext runContext
+    ) {
+        Map<String, UntypedAgent> branchAgents = new HashMap<>();
+        Map<String, WorkflowNodeDto> branchNodes = new HashMap<>();
+        for (String subId : node.subAgentIds()) {
+            if (!(runnables.get(subId) instanceof UntypedAgent agent)) {
+                throw new IllegalArgumentException("Parallel node " + node.id() + " with completionPolicy " + policy
+                        + " requires agent or workflow sub-agents: " + subId);
+            }
+            branchAgents.put(subId, agent);
+            branchNodes.put(subId, byId.get(subId));
+        }
+        ParallelCompletion completion = new ParallelCompletion(node, policy, branchAgents, branchNodes,
+                branchExecutor, meterRegistry, runContext);
+        return AgenticServices.sequenceBuilder()
+                .subAgents(timedAction(node.id(), completion::run, runContext))
+                .outputKey(ParallelCompletion.outputKey(node))
+                .output(scope -> nonNullCompositeOutput(scope, node, "result", runContext))
+                .build();
+    }
+
+    /**
+     * Map node: a one-step sequence around a {@link MapStep} over its single sub-agent.
+     */
+    private void buildMap(WorkflowNodeDto node, Map<String, Object> runnables, RunContext runContext) {
+        if (runnables.containsKey(node.id())) return;
+
+        List<String> subIds = node.subAgentIds();
+        if (subIds == null || subIds.size() != 1) {
+            throw new IllegalArgumentException("Map node " + node.id() + " needs exactly one sub-agent");
+        }
+        if (node.itemsKey() == null || node.itemsKey().isBlank()) {
+            throw new IllegalArgumentException("Map node " + node.id() + " has no itemsKey");
+        }
+        if (!(runnables.get(subIds.get(0)) instanceof UntypedAgent agent)) {
+            throw new IllegalArgumentException("Map node " + node.id() + " requires an agent or workflow sub-agent: " + subIds.get(0));
+        }
+        MapStep step = new MapStep(node, agent, subIds.get(0), branchExecutor, meterRegistry, tokenEstimator, runContext);
+        runnables.put(node.id(), AgenticServices.sequenceBuilder()
+                .subAgents(timedAction(node.id(), step::run, runContext))
+                .outputKey(ParallelCompletion.outputKey(node))
+                .output(scope -> nonNullCompositeOutput(scope, node, "result", runContext))
+                .build());
+    }
+
+    private void buildConditional(WorkflowNodeDto node, Map<String, Object> runnables, RunContext runContext) {
         if (runnables.containsKey(node.id())) return;
 
         String routerId = node.routerAgentId();
@@ -287,27 +874,26 @@ public class WorkflowGraphInterpreter {
             throw new IllegalArgumentException("Conditional node " + node.id() + " has no branches");
         }
 
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(node, meterRegistry);
         var condBuilder = AgenticServices.conditionalBuilder();
-        for (ConditionalBranchDto branch : branches) {
-            if (!runnables.containsKey(branch.agentId())) {
-                throw new IllegalArgumentException("Branch agent not built for conditional " + node.id() + ": " + branch.agentId());
-            }
-            String conditionKey = branch.conditionKey();
-            String value = branch.value();
-            Object agent = runnables.get(branch.agentId());
-            condBuilder.subAgents(
-                    scope -> Objects.equals(value, scope.readState(conditionKey)),
-                    agent
-            );
+        boolean first = true;
+        for (String agentId : dispatch.agentIds()) {
+            if (!runnables.containsKey(agentId)) {
+                throw new IllegalArgumentException("Branch agent not built for conditional " + node.id() + ": " + agentId);
+            }
+            boolean resolves = first;
+            condBuilder.subAgents(scope -> dispatch.selects(scope, agentId, resolves), runnables.get(agentId));
+            first = false;
         }
         if (node.outputKey() != null && !node.outputKey().isBlank()) {
             condBuilder.outputKey(node.outputKey());
         }
-        condBuilder.output(scope -> nonNullCompositeOutput(scope, node, "result"));
+        condBuilder.output(scope -> nonNullCompositeOutput(scope, node, "result", runContext));
         runnables.put(node.id(), condBuilder.build());
     }
 
-    private void buildSupervisor(WorkflowNodeDto node, Map<String, ChatModel> chatModels, Map<String, Object> runnables) {
+    private void buildSupervisor(WorkflowNodeDto node, Map<String, WorkflowNodeDto> byId, Map<String, ChatModel> chatModels,
+                                 Map<String, Object> runnables, RunContext runContext) {
         if (runnables.containsKey(node.id())) return;
 
         String llmId = node.llmId();
@@ -330,13 +916,14 @@ public class WorkflowGraphInterpreter {
 
         Object[] subAgents = subIds.stream().map(runnables::get).toArray();
         var builder = AgenticServices.supervisorBuilder()
-                .chatModel(chatModel)
+                .chatModel(new RecordingChatModel(chatModel, node.id(), resolvedModelName(byId.get(llmId)), runContext,
+                        llmScheduler))
                 .name(node.name() != null ? node.name() : node.id())
                 .subAgents(subAgents);
         if (node.outputKey() != null && !node.outputKey().isBlank()) {
             builder.outputKey(node.outputKey());
         }
-        builder.output(scope -> nonNullCompositeOutput(scope, node, "response"));
+        builder.output(scope -> nonNullCompositeOutput(scope, node, "response", runContext));
         String strategy = node.responseStrategy();
         if (strategy != null && !strategy.isBlank()) {
             try {
@@ -348,20 +935,56 @@ public class WorkflowGraphInterpreter {
         runnables.put(node.id(), builder.build());
     }
 
-    private Object nonNullCompositeOutput(AgenticScope scope, WorkflowNodeDto node, String defaultKey) {
+    /**
+     * Model an LLM node calls (its {@code modelName}, or the factory default), for cost estimates.
+     */
+    private String resolvedModelName(WorkflowNodeDto llmNode) {
+        String modelName = primaryModelName(llmNode);
+        return modelName != null ? modelName : chatModelFactory.defaultModel();
+    }
+
+    /**
+     * Model an LLM node calls first: its first candidate model when it has candidates, else its {@code modelName};
+     * null when it names none.
+     */
+    private static String primaryModelName(WorkflowNodeDto llmNode) {
+        if (llmNode == null) {
+            return null;
+        }
+        String modelName = llmNode.candidateModels() != null && !llmNode.candidateModels().isEmpty()
+                ? llmNode.candidateModels().getFirst().modelName()
+                : llmNode.modelName();
+        return modelName != null && !modelName.isBlank() ? modelName.trim() : null;
+    }
+
+    private static ModelCandidate modelCandidate(ModelCandidateDto dto) {
+        return new ModelCandidate(
+                dto.modelName().trim(),
+                dto.timeoutMs() != null ? Duration.ofMillis(dto.timeoutMs()) : OpenRouterChatModelFactory.DEFAULT_TIMEOUT,
+                dto.latencySloMs() != null ? Duration.ofMillis(dto.latencySloMs()) : null,
+                dto.maxErrorRate() != null ? dto.maxErrorRate() : 1.0);
+    }
+
+    private Object nonNullCompositeOutput(AgenticScope scope, WorkflowNodeDto node, String defaultKey, RunContext runContext) {
         if (scope == null) {
             return "";
         }
+        return compositeOutput(scope.state(), node, defaultKey, runContext);
+    }
+
+    /**
+     * Output of a composite node: its output key's value when set, otherwise the formatted scope state.
+     */
+    private Object compositeOutput(Map<?, ?> state, WorkflowNodeDto node, String defaultKey, RunContext runContext) {
         String key = node.outputKey() != null && !node.outputKey().isBlank() ? node.outputKey() : defaultKey;
-        Object direct = scope.readState(key);
+        Object direct = state != null ? state.get(key) : null;
         if (direct != null) {
             return direct;
         }
-        Map<?, ?> state = scope.state();
         if (state == null || state.isEmpty()) {
             return "";
         }
-        String formatted = formatMap(state);
+        String formatted = formatMap(state, runContext.truncationListener(node.id()));
         return formatted != null ? formatted : "";
     }
 
@@ -371,15 +994,90 @@ public class WorkflowGraphInterpreter {
      * We read that map (or the scope state directly) and extract a prompt from "metadata"
      * (preferred), then fallback to formatted key-value pairs.
      */
-    private String userMessageFromScope(Object scope) {
-        return userMessageFromScope(scope, null);
-    }
-
-    private String userMessageFromScope(Object scope, String promptTemplate) {
+    private String userMessageFromScope(Object scope, String promptTemplate, TruncationListener truncations) {
         if (scope == null) {
             log.debug("userMessageFromScope: scope=null");
             return "Please respond.";
         }
+        return userMessageFromMap(scope, promptMap(scope), promptTemplate, truncations);
+    }
+
+    /**
+     * Builds the user prompt and, when the agent has an input token budget, trims it to fit alongside the
+     * system message. Entries the template does not reference (other than input and metadata) are dropped
+     * largest-first; whatever is still over budget is cut at a token boundary.
+     */
+    private String budgetedUserMessage(
+            Object scope,
+            WorkflowNodeDto node,
+            String systemMessage,
+            String modelName,
+            Integer inputBudget,
+            TruncationListener truncations
+    ) {
+        String message = userMessageFromScope(scope, node.promptTemplate(), truncations);
+        if (inputBudget == null || scope == null) {
+            return message;
+        }
+        int available = inputBudget - TokenEstimator.MESSAGE_OVERHEAD_TOKENS
+                - (systemMessage != null ? tokenEstimator.countTokens(systemMessage, modelName) + TokenEstimator.MESSAGE_OVERHEAD_TOKENS : 0);
+        int tokens = tokenEstimator.countTokens(message, modelName);
+        if (tokens <= available) {
+            return message;
+        }
+        log.info("Prompt over budget nodeId={} tokens={} available={}", node.id(), tokens, available);
+        Map<?, ?> map = promptMap(scope);
+        if (map != null && map.size() > 1) {
+            Map<Object, Object> working = new LinkedHashMap<>(map);
+            for (Object key : droppableKeys(map, node.promptTemplate())) {
+                if (working.size() <= 1) {
+                    break;
+                }
+                Object dropped = working.remove(key);
+                truncations.truncated(String.valueOf(key), PromptCanonicalizer.canonicalLength(dropped), 0);
+                message = userMessageFromMap(scope, working, node.promptTemplate(), truncations);
+                tokens = tokenEstimator.countTokens(message, modelName);
+                if (tokens <= available) {
+                    return message;
+                }
+            }
+        }
+        String cut = tokenEstimator.truncateToTokens(message, Math.max(available, 0), modelName);
+        truncations.truncated("prompt", message.length(), cut.length());
+        return cut;
+    }
+
+    /**
+     * Scope keys that may be dropped to meet a token budget, largest canonical value first. Keys referenced
+     * by the template (first path segment) and the run's {@code input}/{@code metadata} are kept.
+     */
+    private static List<Object> droppableKeys(Map<?, ?> map, String promptTemplate) {
+        List<String> referenced = new ArrayList<>(List.of("input", "metadata"));
+        if (promptTemplate != null) {
+            Matcher matcher = TEMPLATE_VAR_PATTERN.matcher(promptTemplate);
+            while (matcher.find()) {
+                String path = matcher.group(1);
+                if ("prompt".equalsIgnoreCase(path)) {
+                    continue;
+                }
+                int dot = path.indexOf('.');
+                referenced.add((dot < 0 ? path : path.substring(0, dot)).toLowerCase(Locale.ROOT));
+            }
+        }
+        Map<Object, Long> sizes = new HashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            if (key != null && !referenced.contains(key.toString().toLowerCase(Locale.ROOT))) {
+                sizes.put(key, PromptCanonicalizer.canonicalLength(entry.getValue()));
+            }
+        }
+        List<Object> keys = new ArrayList<>(sizes.keySet());
+        keys.sort(Comparator.comparing((Object key) -> sizes.get(key)).reversed()
+                .thenComparing(key -> key.toString()));
+        return keys;
+    }
+
+    private Map<?, ?> promptMap(Object scope) {
         Map<?, ?> map = mapFromScope(scope);
         if (map == null || map.isEmpty()) {
             Map<?, ?> managedScopeMap = mapFromCurrentManagedScope();
@@ -388,13 +1086,17 @@ public class WorkflowGraphInterpreter {
                 log.info("userMessageFromScope: using current managed scope keys={}", map.keySet());
             }
         }
-        String fromTemplate = messageFromTemplate(promptTemplate, map != null ? map : Map.of());
+        return map;
+    }
+
+    private String userMessageFromMap(Object scope, Map<?, ?> map, String promptTemplate, TruncationListener truncations) {
+        String fromTemplate = messageFromTemplate(promptTemplate, map != null ? map : Map.of(), truncations);
         if (fromTemplate != null) {
             log.info("userMessageFromScope: resolved prompt from template length={}", fromTemplate.length());
             return fromTemplate;
         }
         if (map != null && !map.isEmpty()) {
-            String msg = messageFromMap(map);
+            String msg = messageFromMap(map, truncations);
             if (msg != null) {
                 log.info("userMessageFromScope: resolved userMessage length={}", msg.length());
                 return msg;
@@ -406,11 +1108,11 @@ public class WorkflowGraphInterpreter {
         return fallback;
     }
 
-    private String messageFromTemplate(String promptTemplate, Map<?, ?> map) {
+    private String messageFromTemplate(String promptTemplate, Map<?, ?> map, TruncationListener truncations) {
         if (promptTemplate == null || promptTemplate.isBlank()) {
             return null;
         }
-        String rendered = renderTemplate(promptTemplate, map);
+        String rendered = renderTemplate(promptTemplate, map, truncations);
         if (rendered == null || rendered.isBlank()) {
             return null;
         }
@@ -420,45 +1122,45 @@ public class WorkflowGraphInterpreter {
         return rendered;
     }
 
-    private String renderTemplate(String template, Map<?, ?> map) {
+    private String renderTemplate(String template, Map<?, ?> map, TruncationListener truncations) {
         if (template == null) {
             return null;
         }
         Matcher matcher = TEMPLATE_VAR_PATTERN.matcher(template);
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         boolean hadVariables = false;
         while (matcher.find()) {
             hadVariables = true;
             String path = matcher.group(1);
-            String replacement = resolveTemplateValue(path, map);
+            String replacement = resolveTemplateValue(path, map, truncations);
             if (replacement == null) {
                 replacement = "";
             }
             matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
         }
         matcher.appendTail(result);
-        String rendered = result.toString().trim();
+        String rendered = PromptCanonicalizer.normalizeWhitespace(result.toString());
         if (!rendered.isBlank()) {
             return rendered;
         }
         if (hadVariables) {
             return null;
         }
-        return template.trim();
+        return PromptCanonicalizer.normalizeWhitespace(template);
     }
 
-    private String resolveTemplateValue(String path, Map<?, ?> map) {
+    private String resolveTemplateValue(String path, Map<?, ?> map, TruncationListener truncations) {
         if (path == null || path.isBlank()) {
             return null;
         }
         if ("prompt".equalsIgnoreCase(path)) {
-            return messageFromMap(map);
+            return messageFromMap(map, truncations);
         }
         Object value = valueByPathIgnoreCase(map, path);
         if (value == null) {
             return null;
         }
-        String text = value.toString().trim();
+        String text = PromptCanonicalizer.canonicalValue(value, promptLimits.maxValueChars(), path, truncations);
         return text.isBlank() ? null : text;
     }
 
@@ -527,23 +1229,23 @@ public class WorkflowGraphInterpreter {
         return state;
     }
 
-    private String messageFromMap(Map<?, ?> map) {
+    private String messageFromMap(Map<?, ?> map, TruncationListener truncations) {
         if (map == null || map.isEmpty()) {
             return null;
         }
         Object metadata = map.get("metadata");
-        String fromMetadata = messageFromMetadata(metadata);
+        String fromMetadata = messageFromMetadata(metadata, truncations);
         if (fromMetadata != null) {
             return fromMetadata;
         }
-        String formatted = formatMap(map);
+        String formatted = formatMap(map, truncations);
         if (formatted != null && !formatted.isBlank() && !"default".equalsIgnoreCase(formatted.trim())) {
             return formatted;
         }
         return null;
     }
 
-    private String messageFromMetadata(Object metadata) {
+    private String messageFromMetadata(Object metadata, TruncationListener truncations) {
         if (metadata instanceof Map<?, ?> metadataMap && !metadataMap.isEmpty()) {
             for (String key : List.of("prompt", "query", "task", "instruction", "request", "text", "message")) {
                 String text = valueByKeyIgnoreCase(metadataMap, key);
@@ -554,7 +1256,7 @@ public class WorkflowGraphInterpreter {
                     return text;
                 }
             }
-            String formattedMetadata = formatMap(metadataMap);
+            String formattedMetadata = formatMap(metadataMap, truncations);
             if (formattedMetadata != null && !formattedMetadata.isBlank()) {
                 return formattedMetadata;
             }
@@ -588,14 +1290,7 @@ public class WorkflowGraphInterpreter {
         return null;
     }
 
-    private String formatMap(Map<?, ?> map) {
-        if (map == null || map.isEmpty()) {
-            return null;
-        }
-        return map.entrySet().stream()
-                .filter(e -> e.getKey() != null && e.getValue() != null)
-                .map(e -> e.getKey() + ": " + e.getValue())
-                .reduce((a, b) -> a + "\n" + b)
-                .orElse(null);
+    private String formatMap(Map<?, ?> map, TruncationListener truncations) {
+        return PromptCanonicalizer.formatEntries(map, promptLimits, truncations);
     }
 }
@@ -0,0 +1,161 @@
+package com.example.agenteditor.llm;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recorded LLM calls of one model, one JSON line per call in call order.
+ * <p>
+ * Each line holds the request fingerprint ({@link CassetteChatModel#fingerprint}), the call latency and the
+ * response: the AI message in langchain4j's own JSON form (so tool calls survive), finish reason, token usage and
+ * the model the provider reported. Prompts are not stored, only their fingerprint.
+ * </p>
+ * <p>
+ * Replay serves the recordings of a fingerprint in recorded order and then repeats the last one, so a workflow
+ * recorded once can be replayed any number of times. Safe to use from any thread.
+ * </p>
+ */
+final class Cassette implements AutoCloseable {
+
+    /**
+     * One recorded call. Token counts are null when the provider did not report them.
+     */
+    record Interaction(String key, long latencyNanos, String message, String finishReason, Integer inputTokens,
+                       Integer outputTokens, Integer cachedInputTokens, String servedModel) {
+    }
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private final Path file;
+    private final List<Interaction> interactions = new ArrayList<>();
+    private final Map<String, Deque<Integer>> unserved = new HashMap<>();
+    private final Map<String, Integer> lastServed = new HashMap<>();
+    private final boolean[] served;
+    private int cursor;
+    private BufferedWriter writer;
+
+    private Cassette(Path file, List<Interaction> recorded) {
+        this.file = file;
+        this.interactions.addAll(recorded);
+        this.served = new boolean[recorded.size()];
+        for (int i = 0; i < recorded.size(); i++) {
+            unserved.computeIfAbsent(recorded.get(i).key(), key -> new ArrayDeque<>()).add(i);
+        }
+    }
+
+    /**
+     * Cassette to append recordings to; recordings already in the file are kept.
+     */
+    static Cassette forRecording(Path file) {
+        return new Cassette(file, List.of());
+    }
+
+    /**
+     * Cassette to replay; empty when the file does not exist.
+     */
+    static Cassette forReplay(Path file) {
+        if (!Files.exists(file)) {
+            return new Cassette(file, List.of());
+        }
+        try {
+            List<Interaction> recorded = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    recorded.add(JSON.readValue(line, Interaction.class));
+                }
+            }
+            return new Cassette(file, recorded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cassette " + file, e);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    synchronized void append(Interaction interaction) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(JSON.writeValueAsString(interaction));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cassette " + file, e);
+        }
+    }
+
+    /**
+     * Next recording of the fingerprint, or null if it was never recorded.
+     */
+    synchronized Interaction match(String key) {
+        Deque<Integer> queue = unserved.get(key);
+        if (queue == null) {
+            return null;
+        }
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            if (!served[index]) {
+                return serve(index);
+            }
+        }
+        return interactions.get(lastServed.get(key));
+    }
+
+    /**
+     * Next recording not served yet in recorded order (wrapping around once all were served), or null when empty.
+     */
+    synchronized Interaction next() {
+        if (interactions.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < interactions.size(); i++) {
+            int index = (cursor + i) % interactions.size();
+            if (!served[index]) {
+                cursor = index + 1;
+                return serve(index);
+            }
+        }
+        Interaction interaction = interactions.get(cursor % interactions.size());
+        cursor++;
+        return interaction;
+    }
+
+    private Interaction serve(int index) {
+        served[index] = true;
+        Interaction interaction = interactions.get(index);
+        lastServed.put(interaction.key(), index);
+        return interaction;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close cassette " + file, e);
+        } finally {
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link ChatModel} decorator that records calls to a {@link Cassette} or replays them from it.
+ * <p>
+ * Recording passes each call to the delegate and appends the response with its latency. Replaying never calls the
+ * delegate: it serves the recording with the same request fingerprint, optionally after sleeping for the recorded
+ * latency. A request that was not recorded fails, or in non-strict mode gets the next recording of the cassette in
+ * recorded order (for prompts that are not reproducible, e.g. with the current time in a tool result).
+ * </p>
+ */
+@Slf4j
+public class CassetteChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final String modelName;
+    private final Cassette cassette;
+    private final CassetteStore.Mode mode;
+    private final boolean replayLatency;
+    private final boolean strict;
+
+    CassetteChatModel(ChatModel delegate, String modelName, Cassette cassette, CassetteStore.Mode mode,
+                      boolean replayLatency, boolean strict) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.modelName = modelName;
+        this.cassette = Objects.requireNonNull(cassette, "cassette");
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.replayLatency = replayLatency;
+        this.strict = strict;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        String key = fingerprint(modelName, chatRequest);
+        return mode == CassetteStore.Mode.REPLAY ? replay(key) : record(key, chatRequest);
+    }
+
+    private ChatResponse record(String key, ChatRequest chatRequest) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.chat(chatRequest);
+        long latency = System.nanoTime() - start;
+        TokenUsage usage = response.tokenUsage();
+        cassette.append(new Cassette.Interaction(key, latency,
+                ChatMessageSerializer.messageToJson(response.aiMessage()),
+                response.finishReason() != null ? response.finishReason().name() : null,
+                usage != null ? usage.inputTokenCount() : null,
+                usage != null ? usage.outputTokenCount() : null,
+                cachedInputTokens(usage),
+                response.metadata() != null ? response.metadata().modelName() : null));
+        return response;
+    }
+
+    private ChatResponse replay(String key) {
+        Cassette.Interaction interaction = cassette.match(key);
+        if (interaction == null && !strict) {
+            interaction = cassette.next();
+            if (interaction != null) {
+                log.debug("No recording of request {} for model={}; replaying the next one in {}",
+                        key, modelName, cassette.file());
+            }
+        }
+        if (interaction == null) {
+            throw new IllegalStateException("No recorded response for model " + modelName + " (request " + key
+                    + ") in cassette " + cassette.file());
+        }
+        if (replayLatency && interaction.latencyNanos() > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(interaction.latencyNanos()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying an LLM call", e);
+            }
+        }
+        return ChatResponse.builder()
+                .aiMessage((AiMessage) ChatMessageDeserializer.messageFromJson(interaction.message()))
+                .finishReason(interaction.finishReason() != null ? FinishReason.valueOf(interaction.finishReason()) : null)
+                .tokenUsage(tokenUsage(interaction))
+                .modelName(interaction.servedModel())
+                .build();
+    }
+
+    /**
+     * SHA-256 of what determines a model's answer: model name, messages (with tool calls and results), tool
+     * specifications, response format, temperature and output token limit.
+     */
+    static String fingerprint(String modelName, ChatRequest chatRequest) {
+        ChatRequestParameters parameters = chatRequest.parameters();
+        String canonical = String.join("\n",
+                String.valueOf(modelName),
+                ChatMessageSerializer.messagesToJson(chatRequest.messages()),
+                String.valueOf(parameters != null ? parameters.toolSpecifications() : null),
+                String.valueOf(parameters != null ? parameters.responseFormat() : null),
+                String.valueOf(parameters != null ? parameters.temperature() : null),
+                String.valueOf(parameters != null ? parameters.maxOutputTokens() : null));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Integer cachedInputTokens(TokenUsage usage) {
+        if (usage instanceof OpenAiTokenUsage openAiUsage && openAiUsage.inputTokensDetails() != null) {
+            return openAiUsage.inputTokensDetails().cachedTokens();
+        }
+        return null;
+    }
+
+    private static TokenUsage tokenUsage(Cassette.Interaction interaction) {
+        if (interaction.inputTokens() == null && interaction.outputTokens() == null) {
+            return null;
+        }
+        var builder = OpenAiTokenUsage.builder()
+                .inputTokenCount(interaction.inputTokens())
+                .outputTokenCount(interaction.outputTokens())
+                .totalTokenCount(interaction.inputTokens() != null && interaction.outputTokens() != null
+                        ? interaction.inputTokens() + interaction.outputTokens() : null);
+        if (interaction.cachedInputTokens() != null) {
+            builder.inputTokensDetails(OpenAiTokenUsage.InputTokensDetails.builder()
+                    .cachedTokens(interaction.cachedInputTokens())
+                    .build());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return chat(chatRequest);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
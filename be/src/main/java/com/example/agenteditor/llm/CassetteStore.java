@@ -0,0 +1,79 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.model.chat.ChatModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cassettes of recorded LLM calls, one file per model ({@code <directory>/<model>.jsonl}, with characters other than
+ * letters, digits, {@code .}, {@code _} and {@code -} replaced by {@code _}).
+ * <p>
+ * In {@link Mode#RECORD} every call is appended to its model's cassette; in {@link Mode#REPLAY} calls are served
+ * from it without reaching the provider, so no API key is needed. Performance tests replay the example workflows
+ * offline with realistic payloads this way.
+ * </p>
+ */
+@Slf4j
+public class CassetteStore implements AutoCloseable {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    private final Mode mode;
+    private final Path directory;
+    private final boolean replayLatency;
+    private final boolean strict;
+    private final Map<String, Cassette> cassettes = new ConcurrentHashMap<>();
+
+    /**
+     * @param replayLatency sleep for each call's recorded latency when replaying
+     * @param strict        fail replayed requests that were not recorded instead of serving the next recording
+     */
+    public CassetteStore(Mode mode, Path directory, boolean replayLatency, boolean strict) {
+        this.mode = mode != null ? mode : Mode.OFF;
+        this.directory = directory;
+        this.replayLatency = replayLatency;
+        this.strict = strict;
+        if (this.mode != Mode.OFF) {
+            log.info("LLM cassettes: {} in {}", this.mode, directory.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Store that neither records nor replays.
+     */
+    public static CassetteStore off() {
+        return new CassetteStore(Mode.OFF, null, false, true);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean replaying() {
+        return mode == Mode.REPLAY;
+    }
+
+    /**
+     * Wraps the model to record to or replay from its cassette; returns it unchanged when off.
+     */
+    public ChatModel decorate(String modelName, ChatModel model) {
+        if (mode == Mode.OFF) {
+            return model;
+        }
+        Cassette cassette = cassettes.computeIfAbsent(modelName, name -> {
+            Path file = directory.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".jsonl");
+            return mode == Mode.REPLAY ? Cassette.forReplay(file) : Cassette.forRecording(file);
+        });
+        return new CassetteChatModel(model, modelName, cassette, mode, replayLatency, strict);
+    }
+
+    @Override
+    public void close() {
+        cassettes.values().forEach(Cassette::close);
+    }
+}
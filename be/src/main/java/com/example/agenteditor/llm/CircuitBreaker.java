@@ -0,0 +1,204 @@
+package com.example.agenteditor.llm;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker of one model endpoint (base URL and model).
+ * <p>
+ * While {@link State#CLOSED} it keeps the outcome of the last {@code windowSize} calls. Once at least
+ * {@code minimumCalls} are recorded and the failure rate or the rate of calls slower than {@code slowCallDuration}
+ * reaches its threshold, it opens: calls are rejected at once for {@code openDuration}. It then lets
+ * {@code halfOpenCalls} probe calls through ({@link State#HALF_OPEN}); if their failure and slow-call rates are
+ * below the thresholds it closes with an empty window, otherwise it opens again. Safe to use from any thread.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * @param windowSize            calls the failure and slow-call rates are computed over
+     * @param minimumCalls          calls needed before the breaker can open
+     * @param failureRateThreshold  failure rate (0..1) that opens the breaker
+     * @param slowCallDuration      calls at least this long count as slow
+     * @param slowCallRateThreshold slow-call rate (0..1) that opens the breaker; above 1 never opens on slow calls
+     * @param openDuration          how long an open breaker rejects calls before probing
+     * @param halfOpenCalls         probe calls let through while half-open
+     */
+    public record Settings(int windowSize, int minimumCalls, double failureRateThreshold, Duration slowCallDuration,
+                           double slowCallRateThreshold, Duration openDuration, int halfOpenCalls) {
+
+        public static final Settings DEFAULT = new Settings(20, 10, 0.5, Duration.ofSeconds(30), 0.8,
+                Duration.ofSeconds(30), 3);
+    }
+
+    /**
+     * Current state and rates of the breaker (rates are over the closed window, or over the probes while half-open).
+     */
+    public record Snapshot(String baseUrl, String model, State state, int calls, double failureRate,
+                           double slowCallRate) {
+    }
+
+    private final String baseUrl;
+    private final String model;
+    private final Settings settings;
+    private final Consumer<State> onTransition;
+    private final long slowNanos;
+    private final long openNanos;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int size;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesFinished;
+    private int probesFailed;
+    private int probesSlow;
+
+    public CircuitBreaker(String baseUrl, String model, Settings settings) {
+        this(baseUrl, model, settings, state -> { });
+    }
+
+    /**
+     * @param onTransition called with the new state on every state change, with the breaker locked
+     */
+    public CircuitBreaker(String baseUrl, String model, Settings settings, Consumer<State> onTransition) {
+        this.baseUrl = baseUrl;
+        this.model = model;
+        this.settings = settings;
+        this.onTransition = onTransition;
+        this.slowNanos = settings.slowCallDuration().toNanos();
+        this.openNanos = settings.openDuration().toNanos();
+        this.failed = new boolean[settings.windowSize()];
+        this.slow = new boolean[settings.windowSize()];
+    }
+
+    /**
+     * Whether a call may go through now; a call let through must be reported with {@link #record} or
+     * {@link #release}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= settings.halfOpenCalls()) {
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Reports a call that was let through.
+     */
+    public synchronized void record(long latencyNanos, boolean success) {
+        boolean wasSlow = latencyNanos >= slowNanos;
+        switch (state) {
+            case CLOSED -> {
+                failed[next] = !success;
+                slow[next] = wasSlow;
+                next = (next + 1) % failed.length;
+                size = Math.min(size + 1, failed.length);
+                if (size >= settings.minimumCalls() && tripped(count(failed), count(slow), size)) {
+                    transition(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                probesFinished++;
+                probesFailed += success ? 0 : 1;
+                probesSlow += wasSlow ? 1 : 0;
+                if (tripped(probesFailed, probesSlow, probesFinished)) {
+                    transition(State.OPEN);
+                } else if (probesFinished >= settings.halfOpenCalls()) {
+                    transition(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // A call started before the breaker opened; it does not change the decision.
+            }
+        }
+    }
+
+    /**
+     * Gives back a call that was let through but says nothing about the endpoint (cancelled, or rejected as an
+     * invalid request), so a half-open breaker lets another probe through instead.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesStarted > probesFinished) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * Time until an open breaker lets a probe through; zero unless open.
+     */
+    public synchronized Duration retryAfter() {
+        return state == State.OPEN
+                ? Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)))
+                : Duration.ZERO;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Snapshot snapshot() {
+        if (state == State.HALF_OPEN) {
+            return new Snapshot(baseUrl, model, state, probesFinished, rate(probesFailed, probesFinished),
+                    rate(probesSlow, probesFinished));
+        }
+        return new Snapshot(baseUrl, model, state, size, rate(count(failed), size), rate(count(slow), size));
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    private boolean tripped(int failures, int slowCalls, int calls) {
+        return rate(failures, calls) >= settings.failureRateThreshold()
+                || rate(slowCalls, calls) >= settings.slowCallRateThreshold();
+    }
+
+    private void transition(State to) {
+        state = to;
+        probesStarted = 0;
+        probesFinished = 0;
+        probesFailed = 0;
+        probesSlow = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (to == State.CLOSED) {
+            next = 0;
+            size = 0;
+        }
+        onTransition.accept(to);
+    }
+
+    private int count(boolean[] outcomes) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (outcomes[i]) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static double rate(int count, int calls) {
+        return calls == 0 ? 0 : (double) count / calls;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.exception.InvalidRequestException;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link ChatModel} decorator that passes calls through its endpoint's {@link CircuitBreaker}: while the breaker is
+ * open, calls fail at once with {@link CircuitOpenException} instead of waiting for the provider's timeout.
+ * Invalid requests and cancelled calls do not count against the endpoint.
+ */
+public class CircuitBreakerChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakerChatModel(ChatModel delegate, CircuitBreaker breaker, CircuitBreakerRegistry registry) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.breaker = Objects.requireNonNull(breaker, "breaker");
+        this.registry = Objects.requireNonNull(registry, "registry");
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        if (!breaker.tryAcquire()) {
+            registry.rejected(breaker);
+            throw new CircuitOpenException(breaker.baseUrl(), breaker.model(), breaker.retryAfter());
+        }
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.chat(chatRequest);
+            breaker.record(System.nanoTime() - start, true);
+            return response;
+        } catch (RuntimeException e) {
+            if (e instanceof InvalidRequestException || Thread.currentThread().isInterrupted()) {
+                breaker.release();
+            } else {
+                breaker.record(System.nanoTime() - start, false);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return chat(chatRequest);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
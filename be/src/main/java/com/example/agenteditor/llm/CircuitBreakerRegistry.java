@@ -0,0 +1,69 @@
+package com.example.agenteditor.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link CircuitBreaker} per model endpoint (base URL and model), shared by every run that calls it.
+ * <p>
+ * Metrics per breaker (tags {@code model}, {@code url}): {@code agent.llm.circuit.state} (0 closed, 1 half-open,
+ * 2 open), {@code agent.llm.circuit.transitions} (tag {@code state}) and {@code agent.llm.circuit.rejected}.
+ * </p>
+ */
+@Slf4j
+public class CircuitBreakerRegistry {
+
+    private final boolean enabled;
+    private final CircuitBreaker.Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(boolean enabled, CircuitBreaker.Settings settings, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Breaker of the endpoint, created closed on first use.
+     */
+    public CircuitBreaker breaker(String baseUrl, String model) {
+        return breakers.computeIfAbsent(baseUrl + " " + model, key -> create(baseUrl, model));
+    }
+
+    /**
+     * Snapshots of every breaker created so far, by base URL and model.
+     */
+    public List<CircuitBreaker.Snapshot> snapshots() {
+        return breakers.values().stream()
+                .map(CircuitBreaker::snapshot)
+                .sorted(Comparator.comparing(CircuitBreaker.Snapshot::baseUrl).thenComparing(CircuitBreaker.Snapshot::model))
+                .toList();
+    }
+
+    void rejected(CircuitBreaker breaker) {
+        meterRegistry.counter("agent.llm.circuit.rejected", "model", breaker.model(), "url", breaker.baseUrl()).increment();
+    }
+
+    private CircuitBreaker create(String baseUrl, String model) {
+        CircuitBreaker breaker = new CircuitBreaker(baseUrl, model, settings, state -> {
+            log.warn("Circuit for model={} url={} is now {}", model, baseUrl, state);
+            meterRegistry.counter("agent.llm.circuit.transitions", "model", model, "url", baseUrl,
+                    "state", state.name().toLowerCase(Locale.ROOT)).increment();
+        });
+        meterRegistry.gauge("agent.llm.circuit.state", Tags.of("model", model, "url", baseUrl), breaker,
+                b -> b.state().ordinal());
+        return breaker;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.agenteditor.llm;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling a model endpoint whose {@link CircuitBreaker} is open.
+ * <p>
+ * A routed LLM node fails over to its next candidate; otherwise the run fails and {@code GlobalExceptionHandler}
+ * answers 503 with {@code Retry-After}.
+ * </p>
+ */
+@Getter
+public class CircuitOpenException extends RuntimeException {
+
+    private final String baseUrl;
+    private final String model;
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String baseUrl, String model, Duration retryAfter) {
+        super("Circuit open for model " + model + " at " + baseUrl + "; retry in " + Math.max(1, retryAfter.toSeconds()) + "s");
+        this.baseUrl = baseUrl;
+        this.model = model;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * The circuit exception in the cause chain of {@code failure}, or null.
+     */
+    public static CircuitOpenException find(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof CircuitOpenException open) {
+                return open;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatModel} decorator that records per-call latency and token usage as metrics.
+ * <p>
+ * Prompt prefix-cache hits reported by OpenAI-compatible providers (cached input tokens) are recorded
+ * next to total input tokens, so {@code agent.llm.tokens.input.cached / agent.llm.tokens.input} is the
+ * prefix-cache hit rate per model.
+ * </p>
+ * <p>
+ * With a {@link TokenEstimator}, the locally estimated prompt tokens are recorded as well, so estimate
+ * drift per model is visible ({@code agent.llm.tokens.estimate.ratio}, estimated / actual).
+ * </p>
+ */
+public class MeteredChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final String modelName;
+    private final MeterRegistry meterRegistry;
+    private final TokenEstimator tokenEstimator;
+
+    public MeteredChatModel(ChatModel delegate, String modelName, MeterRegistry meterRegistry) {
+        this(delegate, modelName, meterRegistry, null);
+    }
+
+    public MeteredChatModel(ChatModel delegate, String modelName, MeterRegistry meterRegistry, TokenEstimator tokenEstimator) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.modelName = modelName != null && !modelName.isBlank() ? modelName : "default";
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        Integer estimated = estimateInputTokens(chatRequest);
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.chat(chatRequest);
+            timer("success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordUsage(response != null ? response.tokenUsage() : null, estimated);
+            return response;
+        } catch (RuntimeException e) {
+            timer(e instanceof CircuitOpenException ? "rejected" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return chat(chatRequest);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("agent.llm.latency")
+                .tag("model", modelName)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Integer estimateInputTokens(ChatRequest chatRequest) {
+        if (tokenEstimator == null || chatRequest == null) {
+            return null;
+        }
+        int estimated = tokenEstimator.countTokens(chatRequest.messages(), modelName);
+        meterRegistry.counter("agent.llm.tokens.input.estimated", "model", modelName).increment(estimated);
+        return estimated;
+    }
+
+    private void recordUsage(TokenUsage usage, Integer estimatedInputTokens) {
+        if (usage == null) {
+            return;
+        }
+        if (estimatedInputTokens != null && usage.inputTokenCount() != null && usage.inputTokenCount() > 0) {
+            meterRegistry.summary("agent.llm.tokens.estimate.ratio", "model", modelName)
+                    .record((double) estimatedInputTokens / usage.inputTokenCount());
+        }
+        if (usage.inputTokenCount() != null) {
+            meterRegistry.counter("agent.llm.tokens.input", "model", modelName).increment(usage.inputTokenCount());
+        }
+        if (usage.outputTokenCount() != null) {
+            meterRegistry.counter("agent.llm.tokens.output", "model", modelName).increment(usage.outputTokenCount());
+        }
+        Integer cached = cachedInputTokens(usage);
+        if (cached != null) {
+            meterRegistry.counter("agent.llm.tokens.input.cached", "model", modelName).increment(cached);
+            if (usage.inputTokenCount() != null && usage.inputTokenCount() > 0) {
+                meterRegistry.summary("agent.llm.prompt.cache.hit.ratio", "model", modelName)
+                        .record((double) cached / usage.inputTokenCount());
+            }
+        }
+    }
+
+    private static Integer cachedInputTokens(TokenUsage usage) {
+        if (usage instanceof OpenAiTokenUsage openAiUsage && openAiUsage.inputTokensDetails() != null) {
+            return openAiUsage.inputTokensDetails().cachedTokens();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.agenteditor.llm;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and outcome of the most recent calls to one model endpoint: at most {@link #MAX_CALLS} calls, none older
+ * than {@link #MAX_AGE_NANOS}. Old calls age out, so an endpoint that got no traffic while it was out of its
+ * objectives is trusted again and probed by the next call.
+ */
+public final class ModelCallWindow {
+
+    static final int MAX_CALLS = 100;
+    static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /**
+     * Recent calls of the endpoint; {@code p95Nanos} and {@code errorRate} are 0 without calls.
+     */
+    public record Snapshot(int calls, long p95Nanos, double errorRate) {
+    }
+
+    private final long[] endedAt = new long[MAX_CALLS];
+    private final long[] latencies = new long[MAX_CALLS];
+    private final boolean[] failed = new boolean[MAX_CALLS];
+    private int next;
+    private int size;
+
+    public synchronized void record(long latencyNanos, boolean success) {
+        endedAt[next] = System.nanoTime();
+        latencies[next] = latencyNanos;
+        failed[next] = !success;
+        next = (next + 1) % MAX_CALLS;
+        size = Math.min(size + 1, MAX_CALLS);
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long[] recent = new long[size];
+        int calls = 0;
+        int failures = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - endedAt[i] > MAX_AGE_NANOS) {
+                continue;
+            }
+            recent[calls++] = latencies[i];
+            if (failed[i]) {
+                failures++;
+            }
+        }
+        if (calls == 0) {
+            return new Snapshot(0, 0, 0);
+        }
+        Arrays.sort(recent, 0, calls);
+        long p95 = recent[Math.min(calls - 1, (int) Math.ceil(calls * 0.95) - 1)];
+        return new Snapshot(calls, p95, (double) failures / calls);
+    }
+}
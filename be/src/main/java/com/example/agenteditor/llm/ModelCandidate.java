@@ -0,0 +1,15 @@
+package com.example.agenteditor.llm;
+
+import java.time.Duration;
+
+/**
+ * One model a {@link RoutingChatModel} may call, with its objectives.
+ *
+ * @param modelName    model to call
+ * @param timeout      bound of each call
+ * @param latencySlo   recent p95 latency above which the candidate is tried after healthy ones (null = none)
+ * @param maxErrorRate recent error rate (0..1) above which the candidate is tried after healthy ones
+ *                     (1 = no limit)
+ */
+public record ModelCandidate(String modelName, Duration timeout, Duration latencySlo, double maxErrorRate) {
+}
@@ -0,0 +1,55 @@
+package com.example.agenteditor.llm;
+
+import java.util.Map;
+
+/**
+ * Price table for estimating LLM cost: USD per million input and output tokens, by model name. A model without an
+ * entry takes the price of the longest entry its name starts with (providers report dated versions such as
+ * {@code openai/gpt-4o-mini-2024-07-18}), else the fallback price (free unless configured), so cost is an estimate,
+ * not a bill.
+ */
+public final class ModelPricing {
+
+    /**
+     * USD per million input and output tokens.
+     */
+    public record Price(double inputPerMillion, double outputPerMillion) {
+
+        public static final Price FREE = new Price(0, 0);
+
+        public double cost(long inputTokens, long outputTokens) {
+            return (inputTokens * inputPerMillion + outputTokens * outputPerMillion) / 1_000_000d;
+        }
+    }
+
+    public static final ModelPricing NONE = new ModelPricing(Map.of(), Price.FREE);
+
+    private final Map<String, Price> prices;
+    private final Price fallback;
+
+    public ModelPricing(Map<String, Price> prices, Price fallback) {
+        this.prices = Map.copyOf(prices);
+        this.fallback = fallback;
+    }
+
+    public Price price(String model) {
+        if (model == null) {
+            return fallback;
+        }
+        Price exact = prices.get(model);
+        if (exact != null) {
+            return exact;
+        }
+        String longest = null;
+        for (String name : prices.keySet()) {
+            if (model.startsWith(name) && (longest == null || name.length() > longest.length())) {
+                longest = name;
+            }
+        }
+        return longest != null ? prices.get(longest) : fallback;
+    }
+
+    public double cost(String model, long inputTokens, long outputTokens) {
+        return price(model).cost(inputTokens, outputTokens);
+    }
+}
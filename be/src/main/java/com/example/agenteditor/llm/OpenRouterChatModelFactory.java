@@ -2,27 +2,68 @@ package com.example.agenteditor.llm;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 /**
  * Builds a {@link ChatModel} for OpenRouter (OpenAI-compatible API).
  * API key is read from config/env only; startup fails if key is missing.
+ * <p>
+ * {@link #buildRouted} builds a {@link RoutingChatModel} over candidate models. The recent calls of each
+ * (baseUrl, model) endpoint are kept here, shared by every routed model and run that calls it.
+ * </p>
+ * <p>
+ * Every model built here goes through its endpoint's {@link CircuitBreaker} (when enabled), so a failing or
+ * hanging endpoint is rejected within milliseconds instead of after the call timeout. With a recording or
+ * replaying {@link CassetteStore}, calls are recorded to or replayed from its cassettes (outside the breaker).
+ * </p>
  */
 @Component
 public class OpenRouterChatModelFactory {
 
+    /** Bound of a call to a model without its own timeout. */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(120);
+
     private final String apiKey;
     private final String defaultBaseUrl;
     private final String defaultModel;
+    private final Map<String, ModelCallWindow> callWindows = new ConcurrentHashMap<>();
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final CassetteStore cassettes;
+
+    /**
+     * Factory without circuit breakers or cassettes.
+     */
+    public OpenRouterChatModelFactory(String apiKey, String defaultBaseUrl, String defaultModel) {
+        this(apiKey, defaultBaseUrl, defaultModel,
+                new CircuitBreakerRegistry(false, CircuitBreaker.Settings.DEFAULT, new SimpleMeterRegistry()),
+                CassetteStore.off());
+    }
 
+    /**
+     * With {@code cassettes} replaying, no API key is needed.
+     */
+    @Autowired
     public OpenRouterChatModelFactory(
             @Value("${openrouter.api-key:}") String apiKey,
             @Value("${openrouter.base-url:https://openrouter.ai/api/v1}") String defaultBaseUrl,
-            @Value("${openrouter.model:openai/gpt-4o-mini}") String defaultModel) {
+            @Value("${openrouter.model:openai/gpt-4o-mini}") String defaultModel,
+            CircuitBreakerRegistry circuitBreakers,
+            CassetteStore cassettes) {
         String key = apiKey != null ? apiKey.trim() : "";
+        if (key.isEmpty() && cassettes.replaying()) {
+            key = "replay";
+        }
         if (key.isEmpty()) {
             throw new IllegalStateException(
                     "OpenRouter API key is required. Set OPENROUTER_API_KEY in the environment or openrouter.api-key in configuration.");
@@ -30,6 +71,15 @@ public class OpenRouterChatModelFactory {
         this.apiKey = key;
         this.defaultBaseUrl = defaultBaseUrl != null && !defaultBaseUrl.isBlank() ? defaultBaseUrl.trim() : "https://openrouter.ai/api/v1";
         this.defaultModel = defaultModel != null && !defaultModel.isBlank() ? defaultModel.trim() : "openai/gpt-4o-mini";
+        this.circuitBreakers = circuitBreakers;
+        this.cassettes = cassettes;
+    }
+
+    /**
+     * Model used when an LLM node does not name one.
+     */
+    public String defaultModel() {
+        return defaultModel;
     }
 
     /**
@@ -51,13 +101,72 @@ public class OpenRouterChatModelFactory {
                 .apiKey(apiKey)
                 .baseUrl(url)
                 .modelName(model)
-                .timeout(Duration.ofSeconds(120));
+                .timeout(DEFAULT_TIMEOUT);
+        if (temperature != null) {
+            builder.temperature(temperature);
+        }
+        if (maxTokens != null && maxTokens > 0) {
+            builder.maxTokens(maxTokens);
+        }
+        return guarded(url, model, builder.build());
+    }
+
+    /**
+     * Builds a model routing over the candidates in order, failing over on timeouts and errors. Each candidate
+     * is built by {@link #buildCandidate} and wrapped by {@code decorator} (called with the model name).
+     */
+    public ChatModel buildRouted(String baseUrl, List<ModelCandidate> candidates, Double temperature, Integer maxTokens,
+                                 BiFunction<String, ChatModel, ChatModel> decorator, MeterRegistry meterRegistry) {
+        String url = (baseUrl != null && !baseUrl.isBlank()) ? baseUrl.trim() : defaultBaseUrl;
+        List<RoutingChatModel.Route> routes = new ArrayList<>();
+        for (ModelCandidate candidate : candidates) {
+            ChatModel model = buildCandidate(url, candidate.modelName(), temperature, maxTokens, candidate.timeout());
+            routes.add(new RoutingChatModel.Route(candidate, decorator.apply(candidate.modelName(), model),
+                    callWindow(url, candidate.modelName()),
+                    circuitBreakers.enabled() ? circuitBreakers.breaker(url, candidate.modelName()) : null));
+        }
+        return new RoutingChatModel(routes, meterRegistry);
+    }
+
+    /**
+     * Builds one candidate of a routed model. It does not retry: the router fails over to the next candidate
+     * instead.
+     */
+    public ChatModel buildCandidate(String baseUrl, String modelName, Double temperature, Integer maxTokens,
+                                    Duration timeout) {
+        var builder = OpenAiChatModel.builder()
+                .apiKey(apiKey)
+                .baseUrl(baseUrl)
+                .modelName(modelName)
+                .timeout(timeout != null ? timeout : DEFAULT_TIMEOUT)
+                .maxRetries(0);
         if (temperature != null) {
             builder.temperature(temperature);
         }
         if (maxTokens != null && maxTokens > 0) {
             builder.maxTokens(maxTokens);
         }
-        return builder.build();
+        return guarded(baseUrl, modelName, builder.build());
+    }
+
+    /**
+     * Circuit breakers of the model endpoints called so far.
+     */
+    public CircuitBreakerRegistry circuitBreakers() {
+        return circuitBreakers;
+    }
+
+    private ChatModel guarded(String baseUrl, String modelName, ChatModel model) {
+        ChatModel guarded = circuitBreakers.enabled()
+                ? new CircuitBreakerChatModel(model, circuitBreakers.breaker(baseUrl, modelName), circuitBreakers)
+                : model;
+        return cassettes.decorate(modelName, guarded);
+    }
+
+    /**
+     * Recent calls of the (baseUrl, model) endpoint.
+     */
+    public ModelCallWindow callWindow(String baseUrl, String modelName) {
+        return callWindows.computeIfAbsent(baseUrl + " " + modelName, key -> new ModelCallWindow());
     }
 }
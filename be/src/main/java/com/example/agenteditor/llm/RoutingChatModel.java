@@ -0,0 +1,154 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ChatModel} that routes each call over an ordered list of candidate models.
+ * <p>
+ * Candidates within their objectives (recent p95 latency and error rate from their {@link ModelCallWindow}) are
+ * tried first, in their declared order; the others follow, fastest and least failing first. A candidate with fewer
+ * than {@link #MIN_CALLS} recent calls counts as within its objectives. Candidates whose {@link CircuitBreaker} is
+ * open go last. A call that times out, fails or is rejected by an open circuit moves on to the next candidate; the
+ * last failure is thrown when every candidate failed. Failovers are counted in {@code agent.llm.failover} (tags
+ * {@code model} and {@code reason}: timeout, error, circuit_open).
+ * </p>
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel {
+
+    /** Recent calls needed before a candidate's objectives are checked. */
+    static final int MIN_CALLS = 5;
+
+    /**
+     * A candidate with its model (built with the candidate's timeout), its endpoint's call window and its endpoint's
+     * circuit breaker (null when breakers are disabled).
+     */
+    public record Route(ModelCandidate candidate, ChatModel model, ModelCallWindow window, CircuitBreaker breaker) {
+
+        boolean open() {
+            return breaker != null && breaker.state() == CircuitBreaker.State.OPEN;
+        }
+    }
+
+    private final List<Route> routes;
+    private final MeterRegistry meterRegistry;
+
+    public RoutingChatModel(List<Route> routes, MeterRegistry meterRegistry) {
+        if (routes == null || routes.isEmpty()) {
+            throw new IllegalArgumentException("At least one candidate model is required");
+        }
+        this.routes = List.copyOf(routes);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        RuntimeException failure = null;
+        for (Route route : order()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = route.model().chat(chatRequest);
+                route.window().record(System.nanoTime() - start, true);
+                return response;
+            } catch (RuntimeException e) {
+                String reason;
+                if (e instanceof CircuitOpenException) {
+                    reason = "circuit_open";
+                } else {
+                    route.window().record(System.nanoTime() - start, false);
+                    reason = isTimeout(e) ? "timeout" : "error";
+                }
+                meterRegistry.counter("agent.llm.failover", "model", route.candidate().modelName(), "reason", reason)
+                        .increment();
+                log.warn("LLM call to candidate model={} failed ({}): {}",
+                        route.candidate().modelName(), reason, e.getMessage());
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            throw new IllegalStateException("LLM call interrupted before any candidate model was called");
+        }
+        throw failure;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return chat(chatRequest);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return routes.getFirst().model().defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return routes.getFirst().model().supportedCapabilities();
+    }
+
+    /**
+     * Candidates in the order the next call tries them.
+     */
+    List<Route> order() {
+        record Ranked(Route route, ModelCallWindow.Snapshot snapshot) {
+        }
+        List<Route> ordered = new ArrayList<>();
+        List<Ranked> degraded = new ArrayList<>();
+        List<Route> open = new ArrayList<>();
+        for (Route route : routes) {
+            ModelCallWindow.Snapshot snapshot = route.window().snapshot();
+            if (route.open()) {
+                open.add(route);
+            } else if (withinObjectives(route.candidate(), snapshot)) {
+                ordered.add(route);
+            } else {
+                degraded.add(new Ranked(route, snapshot));
+            }
+        }
+        degraded.stream()
+                .sorted(Comparator.comparingDouble((Ranked r) -> r.snapshot().errorRate())
+                        .thenComparingLong(r -> r.snapshot().p95Nanos()))
+                .forEach(r -> ordered.add(r.route()));
+        ordered.addAll(open);
+        return ordered;
+    }
+
+    private static boolean withinObjectives(ModelCandidate candidate, ModelCallWindow.Snapshot snapshot) {
+        if (snapshot.calls() < MIN_CALLS) {
+            return true;
+        }
+        boolean fastEnough = candidate.latencySlo() == null || snapshot.p95Nanos() <= candidate.latencySlo().toNanos();
+        return fastEnough && snapshot.errorRate() <= candidate.maxErrorRate();
+    }
+
+    private static boolean isTimeout(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof dev.langchain4j.exception.TimeoutException || t instanceof TimeoutException
+                    || t instanceof HttpTimeoutException || t instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
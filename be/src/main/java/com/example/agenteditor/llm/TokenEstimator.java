@@ -0,0 +1,183 @@
+package com.example.agenteditor.llm;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offline token counting (jtokkit BPE encodings) for prompt budgeting, without calling the provider.
+ * <p>
+ * Model names may carry an OpenRouter provider prefix ({@code openai/gpt-4o-mini}); unknown models fall back
+ * to {@code o200k_base}, so counts for non-OpenAI models are estimates.
+ * </p>
+ */
+@Component
+public class TokenEstimator {
+
+    /** Per-message framing tokens added by chat formats (role markers, separators). */
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+    private final Map<String, Encoding> encodingsByModel = new ConcurrentHashMap<>();
+
+    public int countTokens(String text, String modelName) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encodingFor(modelName).countTokens(text);
+    }
+
+    /**
+     * Estimates the prompt tokens of a chat request's messages (text, tool calls and tool results).
+     */
+    public int countTokens(List<ChatMessage> messages, String modelName) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        for (ChatMessage message : messages) {
+            total += MESSAGE_OVERHEAD_TOKENS + countTokens(textOf(message), modelName);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the text cut to at most {@code maxTokens} tokens (the head is kept).
+     */
+    public String truncateToTokens(String text, int maxTokens, String modelName) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        Encoding encoding = encodingFor(modelName);
+        var result = encoding.encode(text, maxTokens);
+        if (!result.isTruncated()) {
+            return text;
+        }
+        IntArrayList tokens = result.getTokens();
+        return encoding.decode(tokens);
+    }
+
+    /**
+     * Splits text into chunks of at most {@code chunkTokens} tokens, each starting {@code overlapTokens} tokens
+     * before the end of the previous one. Chunks are produced lazily, one window at a time, so only the
+     * current chunk's tokens are held; each call to {@code iterator()} starts over.
+     */
+    public Iterable<String> chunks(String text, int chunkTokens, int overlapTokens, String modelName) {
+        if (chunkTokens <= 0) {
+            throw new IllegalArgumentException("chunkTokens must be positive");
+        }
+        if (overlapTokens < 0 || overlapTokens >= chunkTokens) {
+            throw new IllegalArgumentException("overlapTokens must be between 0 and chunkTokens - 1");
+        }
+        Encoding encoding = encodingFor(modelName);
+        String source = text != null ? text : "";
+        return () -> new Iterator<>() {
+            private int start;
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && start < source.length()) {
+                    next = advance();
+                }
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String chunk = next;
+                next = null;
+                return chunk;
+            }
+
+            private String advance() {
+                int windowChars = chunkTokens * 4;
+                while (true) {
+                    int end = (int) Math.min(source.length(), (long) start + windowChars);
+                    String window = source.substring(start, end);
+                    var result = encoding.encode(window, chunkTokens);
+                    if (!result.isTruncated() && end < source.length()) {
+                        windowChars *= 2;
+                        continue;
+                    }
+                    if (!result.isTruncated()) {
+                        start = source.length();
+                        return window;
+                    }
+                    IntArrayList tokens = result.getTokens();
+                    int chunkChars = Math.max(1, commonPrefixLength(window, encoding.decode(tokens)));
+                    int overlapChars = 0;
+                    if (overlapTokens > 0) {
+                        IntArrayList tail = new IntArrayList();
+                        for (int i = tokens.size() - overlapTokens; i < tokens.size(); i++) {
+                            tail.add(tokens.get(i));
+                        }
+                        overlapChars = Math.min(encoding.decode(tail).length(), chunkChars - 1);
+                    }
+                    start += chunkChars - overlapChars;
+                    return window.substring(0, chunkChars);
+                }
+            }
+        };
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private Encoding encodingFor(String modelName) {
+        String key = modelName != null && !modelName.isBlank() ? modelName.trim() : "";
+        return encodingsByModel.computeIfAbsent(key, this::resolveEncoding);
+    }
+
+    private Encoding resolveEncoding(String modelName) {
+        String bare = modelName.contains("/") ? modelName.substring(modelName.lastIndexOf('/') + 1) : modelName;
+        return registry.getEncodingForModel(bare)
+                .orElseGet(() -> registry.getEncoding(EncodingType.O200K_BASE));
+    }
+
+    private static String textOf(ChatMessage message) {
+        if (message instanceof SystemMessage system) {
+            return system.text();
+        }
+        if (message instanceof UserMessage user) {
+            return user.hasSingleText() ? user.singleText() : user.toString();
+        }
+        if (message instanceof AiMessage ai) {
+            StringBuilder text = new StringBuilder(ai.text() != null ? ai.text() : "");
+            if (ai.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : ai.toolExecutionRequests()) {
+                    text.append(request.name()).append(request.arguments());
+                }
+            }
+            return text.toString();
+        }
+        if (message instanceof ToolExecutionResultMessage toolResult) {
+            return toolResult.text();
+        }
+        return message != null ? message.toString() : "";
+    }
+}
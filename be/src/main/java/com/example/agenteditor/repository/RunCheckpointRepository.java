@@ -0,0 +1,15 @@
+package com.example.agenteditor.repository;
+
+import com.example.agenteditor.domain.RunCheckpoint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RunCheckpointRepository extends JpaRepository<RunCheckpoint, UUID> {
+
+    List<RunCheckpoint> findByRunIdOrderBySeqAsc(UUID runId);
+
+    void deleteByWorkflowId(UUID workflowId);
+}
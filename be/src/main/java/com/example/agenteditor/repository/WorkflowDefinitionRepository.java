@@ -2,7 +2,10 @@ package com.example.agenteditor.repository;
 
 import com.example.agenteditor.domain.WorkflowDefinition;
 
+import jakarta.persistence.LockModeType;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +16,10 @@ public interface WorkflowDefinitionRepository extends JpaRepository<WorkflowDefi
     Optional<WorkflowDefinition> findByName(String name);
 
     List<WorkflowDefinition> findByNameIn(List<String> names);
+
+    /**
+     * The definition, write-locked until the transaction ends, so concurrent saves of one workflow run one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WorkflowDefinition> findLockedById(UUID id);
 }
@@ -0,0 +1,16 @@
+package com.example.agenteditor.repository;
+
+import com.example.agenteditor.domain.WorkflowNodeRun;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface WorkflowNodeRunRepository extends JpaRepository<WorkflowNodeRun, UUID> {
+
+    List<WorkflowNodeRun> findByWorkflowRunId(UUID workflowRunId);
+
+    void deleteByWorkflowRunIdIn(Collection<UUID> workflowRunIds);
+}
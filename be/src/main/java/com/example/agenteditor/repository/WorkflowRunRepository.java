@@ -0,0 +1,17 @@
+package com.example.agenteditor.repository;
+
+import com.example.agenteditor.domain.WorkflowRun;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface WorkflowRunRepository extends JpaRepository<WorkflowRun, UUID> {
+
+    List<WorkflowRun> findTop50ByWorkflowIdOrderByStartedAtDesc(UUID workflowId);
+
+    List<WorkflowRun> findByWorkflowId(UUID workflowId);
+
+    void deleteByWorkflowId(UUID workflowId);
+}
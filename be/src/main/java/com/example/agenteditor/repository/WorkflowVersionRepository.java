@@ -0,0 +1,40 @@
+package com.example.agenteditor.repository;
+
+import com.example.agenteditor.domain.WorkflowVersion;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WorkflowVersionRepository extends JpaRepository<WorkflowVersion, UUID> {
+
+    Optional<WorkflowVersion> findByWorkflowIdAndGraphHash(UUID workflowId, String graphHash);
+
+    List<WorkflowVersion> findByWorkflowIdOrderByCreatedAtDesc(UUID workflowId);
+
+    void deleteByWorkflowId(UUID workflowId);
+
+    /**
+     * Inserts a version in the caller's transaction unless the workflow already has one with this graph hash.
+     *
+     * @return 1 if the row was inserted, 0 if it already existed
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            MERGE INTO workflow_version v
+            USING (VALUES (CAST(:workflowId AS UUID), CAST(:graphHash AS VARCHAR(64)))) s(workflow_id, graph_hash)
+            ON v.workflow_id = s.workflow_id AND v.graph_hash = s.graph_hash
+            WHEN NOT MATCHED THEN
+                INSERT (id, workflow_id, graph_hash, entry_node_id, graph_json, created_at)
+                VALUES (:id, :workflowId, :graphHash, :entryNodeId, :graphJson, :createdAt)
+            """)
+    int insertIfAbsent(@Param("id") UUID id, @Param("workflowId") UUID workflowId, @Param("graphHash") String graphHash,
+                       @Param("entryNodeId") String entryNodeId, @Param("graphJson") String graphJson,
+                       @Param("createdAt") Instant createdAt);
+}
@@ -0,0 +1,230 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.RunRejectedException;
+import com.example.agenteditor.api.RunRejectedException.Reason;
+import com.example.agenteditor.config.AdmissionProperties;
+import com.example.agenteditor.interpreter.PriorityWaitQueue;
+import com.example.agenteditor.interpreter.RunPriority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of the run endpoints: at most {@code max-concurrent-runs} runs in progress, at most
+ * {@code max-queued-runs} waiting for a slot, and no run waiting longer than {@code max-queue-time}.
+ * <p>
+ * Waiting runs are admitted by {@link RunPriority} (interactive first, batch last) and in arrival order within a
+ * class; a run is promoted one class for every {@code priority-aging} it has waited, so batch runs are not starved.
+ * </p>
+ * <p>
+ * A saturated service rejects at once instead of letting every request slow down until it times out: a full queue
+ * or an expired wait is a {@link RunRejectedException} (503), and a workflow over its own limit is rejected before it
+ * queues (429). Both carry a retry delay estimated from the mean run time and the queue length.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RunAdmissionService {
+
+    static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    static final Duration MAX_RETRY_AFTER = Duration.ofSeconds(60);
+
+    /** Weight of the latest run in the mean run time used for retry estimates. */
+    private static final double RUN_TIME_WEIGHT = 0.2;
+
+    /**
+     * A slot held by an admitted run; closing it (once) admits the next queued run.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit UNLIMITED = () -> { };
+
+    private final class Waiter {
+        private final Condition admittedSignal = lock.newCondition();
+        private boolean admitted;
+    }
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxQueueNanos;
+    private final int workflowLimit;
+    private final Map<UUID, Integer> workflowLimits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityWaitQueue<Waiter> queue;
+    /** Runs of each workflow in progress or queued. */
+    private final Map<UUID, Integer> inFlight = new HashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private double meanRunNanos;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<RunPriority, Timer> queueTimes = new EnumMap<>(RunPriority.class);
+
+    @Autowired
+    public RunAdmissionService(AdmissionProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    RunAdmissionService(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.maxConcurrent = properties.maxConcurrentRuns();
+        this.maxQueued = properties.maxQueuedRuns();
+        this.maxQueueNanos = properties.maxQueueTime().toNanos();
+        this.workflowLimit = properties.workflowMaxConcurrentRuns();
+        this.workflowLimits = properties.workflows();
+        this.queue = new PriorityWaitQueue<>(properties.priorityAging().toNanos());
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("agent.admission.active", active);
+        meterRegistry.gauge("agent.admission.queue", queued);
+        for (RunPriority priority : RunPriority.values()) {
+            queueTimes.put(priority, Timer.builder("agent.admission.wait")
+                    .description("Time runs waited for an admission slot")
+                    .tag("priority", priority.tag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Admits a run of the workflow at {@link RunPriority#STANDARD}.
+     */
+    public Permit acquire(UUID workflowId) {
+        return acquire(workflowId, RunPriority.STANDARD);
+    }
+
+    /**
+     * Admits a run of the workflow, waiting in the queue for a slot when all are taken.
+     *
+     * @return the slot, to be closed when the run finishes
+     * @throws RunRejectedException if the workflow is at its limit, the queue is full or the wait expired
+     */
+    public Permit acquire(UUID workflowId, RunPriority priority) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            int limit = workflowLimits.getOrDefault(workflowId, workflowLimit);
+            if (limit > 0 && inFlight.getOrDefault(workflowId, 0) >= limit) {
+                throw reject(Reason.WORKFLOW_LIMIT, priority, "Workflow " + workflowId + " already has " + limit
+                        + " runs in progress", 1);
+            }
+            if (active.get() < maxConcurrent && queue.isEmpty()) {
+                active.incrementAndGet();
+                inFlight.merge(workflowId, 1, Integer::sum);
+                queueTimes.get(priority).record(0, TimeUnit.NANOSECONDS);
+                return permit(workflowId);
+            }
+            if (queue.size() >= maxQueued) {
+                throw reject(Reason.QUEUE_FULL, priority, "Too many runs waiting; try again later", queue.size() + 1);
+            }
+            Waiter waiter = new Waiter();
+            queue.add(priority, waiter);
+            queued.set(queue.size());
+            inFlight.merge(workflowId, 1, Integer::sum);
+            long remaining = maxQueueNanos - (System.nanoTime() - start);
+            while (!waiter.admitted) {
+                if (remaining <= 0) {
+                    leaveQueue(waiter, workflowId);
+                    throw reject(Reason.QUEUE_TIMEOUT, priority, "No run slot within "
+                            + Duration.ofNanos(maxQueueNanos).toMillis() + "ms; try again later", queue.size() + 1);
+                }
+                try {
+                    remaining = waiter.admittedSignal.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (waiter.admitted) {
+                        release(workflowId, 0);
+                    } else {
+                        leaveQueue(waiter, workflowId);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a run slot", e);
+                }
+            }
+            queueTimes.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return permit(workflowId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit permit(UUID workflowId) {
+        long admittedAt = System.nanoTime();
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                release(workflowId, System.nanoTime() - admittedAt);
+            }
+        };
+    }
+
+    private void release(UUID workflowId, long runNanos) {
+        lock.lock();
+        try {
+            if (runNanos > 0) {
+                meanRunNanos = meanRunNanos == 0 ? runNanos
+                        : meanRunNanos + RUN_TIME_WEIGHT * (runNanos - meanRunNanos);
+            }
+            active.decrementAndGet();
+            leaveWorkflow(workflowId);
+            while (active.get() < maxConcurrent && !queue.isEmpty()) {
+                Waiter next = queue.poll();
+                next.admitted = true;
+                active.incrementAndGet();
+                next.admittedSignal.signal();
+            }
+            queued.set(queue.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leaveQueue(Waiter waiter, UUID workflowId) {
+        queue.remove(waiter);
+        queued.set(queue.size());
+        leaveWorkflow(workflowId);
+    }
+
+    private void leaveWorkflow(UUID workflowId) {
+        inFlight.computeIfPresent(workflowId, (id, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /**
+     * Rejection whose retry delay is the time {@code runsAhead} runs take to finish on the available slots.
+     */
+    private RunRejectedException reject(Reason reason, RunPriority priority, String message, int runsAhead) {
+        meterRegistry.counter("agent.admission.rejected", "reason", reason.name().toLowerCase(Locale.ROOT), "priority",
+                priority.tag()).increment();
+        long estimate = (long) (meanRunNanos * Math.ceil((double) runsAhead / maxConcurrent));
+        Duration retryAfter = Duration.ofSeconds(Math.clamp(
+                TimeUnit.NANOSECONDS.toSeconds(estimate + TimeUnit.SECONDS.toNanos(1) - 1),
+                MIN_RETRY_AFTER.toSeconds(), MAX_RETRY_AFTER.toSeconds()));
+        log.debug("Rejecting run reason={} active={} queued={} retryAfter={}", reason, active.get(), queue.size(), retryAfter);
+        return new RunRejectedException(reason, message, retryAfter);
+    }
+}
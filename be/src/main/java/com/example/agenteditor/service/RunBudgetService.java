@@ -0,0 +1,147 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.v1.dto.RunUsageDto;
+import com.example.agenteditor.config.BudgetProperties;
+import com.example.agenteditor.config.PricingProperties;
+import com.example.agenteditor.interpreter.BudgetExceededException;
+import com.example.agenteditor.interpreter.RunBudget;
+import com.example.agenteditor.llm.ModelPricing;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a {@link RunBudget} for each run and settles its spend afterwards.
+ * <p>
+ * A run is limited by the per-run limits and by what is left of its workflow's budget in the current window; a
+ * workflow whose window budget is used up is rejected before the run starts. Windows are fixed (they restart
+ * {@code workflow-window} after their first run) and kept in memory per instance, so they reset on restart and
+ * are not shared between instances. Runs of one workflow in progress at once each see the remainder at their start,
+ * so together they can overshoot the window budget.
+ * </p>
+ * <p>
+ * Metrics: {@code agent.run.tokens} and {@code agent.run.cost} per run, {@code agent.budget.exceeded} (tag
+ * {@code scope}: run, workflow).
+ * </p>
+ */
+@Service
+@Slf4j
+public class RunBudgetService {
+
+    private static final class Window {
+        private final long startedAt;
+        private volatile RunUsageDto spent = RunUsageDto.NONE;
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final ModelPricing pricing;
+    private final BudgetProperties properties;
+    private final long windowNanos;
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary runTokens;
+    private final DistributionSummary runCost;
+
+    @Autowired
+    public RunBudgetService(PricingProperties pricing, BudgetProperties properties,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(pricing.toModelPricing(), properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    RunBudgetService(ModelPricing pricing, BudgetProperties properties, MeterRegistry meterRegistry) {
+        this.pricing = pricing;
+        this.properties = properties;
+        this.windowNanos = properties.workflowWindow().toNanos();
+        this.meterRegistry = meterRegistry;
+        this.runTokens = DistributionSummary.builder("agent.run.tokens")
+                .description("Input plus output tokens per run")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.runCost = DistributionSummary.builder("agent.run.cost")
+                .description("Estimated LLM cost per run")
+                .baseUnit("usd")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Budget for a new run (or resume) of the workflow.
+     *
+     * @throws BudgetExceededException if the workflow has used up its budget for the current window
+     */
+    public RunBudget open(UUID workflowId) {
+        List<RunBudget.Limit> limits = new ArrayList<>();
+        BudgetProperties.Limits run = properties.run();
+        limits.add(new RunBudget.Limit("run", run.maxTokens(), run.maxCost()));
+        BudgetProperties.Limits workflow = properties.workflow(workflowId);
+        if (workflow.maxTokens() > 0 || workflow.maxCost() > 0) {
+            RunUsageDto spent = spent(workflowId);
+            boolean tokensLeft = workflow.maxTokens() == 0 || spent.totalTokens() < workflow.maxTokens();
+            boolean costLeft = workflow.maxCost() == 0 || spent.estimatedCost() < workflow.maxCost();
+            if (!tokensLeft || !costLeft) {
+                meterRegistry.counter("agent.budget.exceeded", "scope", "workflow").increment();
+                throw new BudgetExceededException("workflow", String.format(
+                        "workflow budget exceeded: %d tokens, estimated cost %.4f USD spent in the current %s window",
+                        spent.totalTokens(), spent.estimatedCost(), properties.workflowWindow()), spent);
+            }
+            limits.add(new RunBudget.Limit("workflow",
+                    workflow.maxTokens() > 0 ? workflow.maxTokens() - spent.totalTokens() : 0,
+                    workflow.maxCost() > 0 ? workflow.maxCost() - spent.estimatedCost() : 0));
+        }
+        BudgetProperties.Limits speculation = properties.speculation();
+        return new RunBudget(pricing, limits,
+                new RunBudget.Limit("speculation", speculation.maxTokens(), speculation.maxCost()));
+    }
+
+    /**
+     * Adds a finished run's spend to its workflow's window and records it; {@code failure} is null for a
+     * successful run.
+     */
+    public void settle(UUID workflowId, RunUsageDto usage, Throwable failure) {
+        runTokens.record(usage.totalTokens());
+        runCost.record(usage.estimatedCost());
+        BudgetExceededException exceeded = BudgetExceededException.find(failure);
+        if (exceeded != null) {
+            meterRegistry.counter("agent.budget.exceeded", "scope", exceeded.getScope()).increment();
+            log.warn("Run of workflow id={} stopped by its {} budget: {}", workflowId, exceeded.getScope(), exceeded.getMessage());
+        }
+        if (usage.llmCalls() == 0) {
+            return;
+        }
+        windows.compute(workflowId, (id, window) -> {
+            Window current = current(window, System.nanoTime());
+            RunUsageDto spent = current.spent;
+            current.spent = new RunUsageDto(spent.llmCalls() + usage.llmCalls(),
+                    spent.inputTokens() + usage.inputTokens(), spent.outputTokens() + usage.outputTokens(),
+                    spent.estimatedCost() + usage.estimatedCost());
+            return current;
+        });
+    }
+
+    /**
+     * Spend of the workflow in its current window.
+     */
+    public RunUsageDto spent(UUID workflowId) {
+        Window window = windows.computeIfPresent(workflowId, (id, w) -> current(w, System.nanoTime()));
+        return window != null ? window.spent : RunUsageDto.NONE;
+    }
+
+    private Window current(Window window, long now) {
+        return window != null && now - window.startedAt < windowNanos ? window : new Window(now);
+    }
+}
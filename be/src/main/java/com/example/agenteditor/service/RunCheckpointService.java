@@ -0,0 +1,195 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.config.CheckpointProperties;
+import com.example.agenteditor.domain.RunCheckpoint;
+import com.example.agenteditor.interpreter.CheckpointedStep;
+import com.example.agenteditor.interpreter.Checkpointer;
+import com.example.agenteditor.repository.RunCheckpointRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable run checkpoints: the run input, then the scope state after each completed step, appended to
+ * {@code run_checkpoint}.
+ * <p>
+ * The run thread serializes the state (a deep copy, so later steps cannot change what was checkpointed) and
+ * queues the row on a bounded {@link WriteBehindQueue}; its writer stores checkpoints in batches in the order
+ * they were taken, so checkpointing adds no store latency to a step unless the queue is full. Reading a resume
+ * point first flushes the queue, so a run that just failed can be resumed immediately.
+ * </p>
+ * <p>
+ * Only values that survive a JSON round trip are checkpointed. When a step leaves a value that does not
+ * serialize, the run stops checkpointing ({@code agent.checkpoint.unserializable}) and a resume starts from the
+ * last faithful checkpoint instead of from a lossy one.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RunCheckpointService {
+
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final RunCheckpointRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactions;
+    private final JsonMapper jsonMapper;
+    private final WriteBehindQueue<RunCheckpoint> queue;
+    private final Counter unserializable;
+
+    public RunCheckpointService(
+            RunCheckpointRepository repository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            JsonMapper jsonMapper,
+            CheckpointProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.queue = new WriteBehindQueue<>("run-checkpoint", properties.capacity(), properties.batchSize(),
+                properties.flushInterval(), properties.overflow(), this::write, registry, "agent.checkpoint");
+        this.unserializable = registry.counter("agent.checkpoint.unserializable");
+    }
+
+    /**
+     * Where a resumed run starts: the nodes already completed and the scope state after the last of them.
+     */
+    public record ResumePoint(UUID runId, UUID workflowId, UUID versionId, Set<String> completedNodeIds,
+                              Map<String, Object> state, int nextSeq) {
+    }
+
+    /**
+     * All checkpoints of a run in order; the first one (no node ids) holds the run input.
+     */
+    public record RunHistory(UUID runId, UUID workflowId, UUID versionId, List<CheckpointedStep> steps) {
+    }
+
+    /**
+     * Checkpointer for one run; sequence numbers continue from {@code firstSeq} (non-zero when resuming).
+     */
+    public Checkpointer checkpointer(UUID runId, UUID workflowId, UUID versionId, int firstSeq) {
+        AtomicInteger seq = new AtomicInteger(firstSeq);
+        AtomicBoolean stopped = new AtomicBoolean();
+        return (nodeIds, state) -> {
+            if (stopped.get()) {
+                return;
+            }
+            String json;
+            try {
+                json = jsonMapper.writeValueAsString(state);
+            } catch (JacksonException e) {
+                if (stopped.compareAndSet(false, true)) {
+                    unserializable.increment();
+                    log.warn("Checkpoints stopped runId={} after nodeIds={}: state does not serialize ({}); a resume "
+                            + "starts from the last checkpoint before it", runId, nodeIds, e.getMessage());
+                }
+                return;
+            }
+            RunCheckpoint checkpoint = new RunCheckpoint(UUID.randomUUID(), runId, workflowId, versionId,
+                    seq.getAndIncrement(), String.join(",", nodeIds), json, Instant.now());
+            if (!queue.offer(checkpoint)) {
+                log.warn("Checkpoint dropped (queue full) runId={} seq={}", runId, checkpoint.getSeq());
+            }
+        };
+    }
+
+    /**
+     * Resume point of a run, or empty when the run has no checkpoints.
+     */
+    public Optional<ResumePoint> resumePoint(UUID runId) {
+        drain();
+        List<RunCheckpoint> checkpoints = repository.findByRunIdOrderBySeqAsc(runId);
+        if (checkpoints.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<String> completed = new LinkedHashSet<>();
+        for (RunCheckpoint checkpoint : checkpoints) {
+            completed.addAll(nodeIds(checkpoint));
+        }
+        RunCheckpoint last = checkpoints.get(checkpoints.size() - 1);
+        return Optional.of(new ResumePoint(runId, last.getWorkflowId(), last.getVersionId(), completed, state(last), last.getSeq() + 1));
+    }
+
+    /**
+     * Checkpoint history of a run, or empty when the run has no checkpoints.
+     */
+    public Optional<RunHistory> history(UUID runId) {
+        drain();
+        List<RunCheckpoint> checkpoints = repository.findByRunIdOrderBySeqAsc(runId);
+        if (checkpoints.isEmpty()) {
+            return Optional.empty();
+        }
+        List<CheckpointedStep> steps = checkpoints.stream()
+                .map(checkpoint -> new CheckpointedStep(nodeIds(checkpoint), state(checkpoint)))
+                .toList();
+        RunCheckpoint last = checkpoints.get(checkpoints.size() - 1);
+        return Optional.of(new RunHistory(runId, last.getWorkflowId(), last.getVersionId(), steps));
+    }
+
+    private static List<String> nodeIds(RunCheckpoint checkpoint) {
+        return Arrays.stream(checkpoint.getNodeIds().split(",")).filter(id -> !id.isBlank()).toList();
+    }
+
+    private Map<String, Object> state(RunCheckpoint checkpoint) {
+        try {
+            return jsonMapper.readValue(checkpoint.getStateJson(), new TypeReference<LinkedHashMap<String, Object>>() { });
+        } catch (JacksonException e) {
+            throw new IllegalStateException("Unreadable checkpoint for run " + checkpoint.getRunId(), e);
+        }
+    }
+
+    /**
+     * Persists a batch in one transaction. Checkpoint ids are assigned up front, so the rows are persisted rather
+     * than saved, which would select each one to decide between insert and merge.
+     */
+    private void write(List<RunCheckpoint> batch) {
+        transactions.executeWithoutResult(status -> batch.forEach(entityManager::persist));
+    }
+
+    private void drain() {
+        try {
+            if (!queue.flush(FLUSH_TIMEOUT)) {
+                log.warn("Checkpoint queue not flushed within {}; reading what is stored", FLUSH_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        queue.close(FLUSH_TIMEOUT);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.WorkflowNotFoundException;
+import com.example.agenteditor.api.v1.dto.WorkflowRunItem;
+import com.example.agenteditor.config.RunHistoryProperties;
+import com.example.agenteditor.domain.WorkflowNodeRun;
+import com.example.agenteditor.domain.WorkflowRun;
+import com.example.agenteditor.repository.WorkflowDefinitionRepository;
+import com.example.agenteditor.repository.WorkflowRunRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Durable run history: every run (and every resume) as a {@code workflow_run} row with a
+ * {@code workflow_node_run} row per executed or reused node.
+ * <p>
+ * Recording only queues the run; a {@link WriteBehindQueue} writes queued runs in batches, one transaction per
+ * batch with Hibernate JDBC batching, so the store is never on a run's critical path. History is therefore
+ * eventually consistent: a run appears once its batch is written (at most {@code flush-interval} later under
+ * light load). When the queue is full, {@code agent.run-history.overflow} decides which run is dropped.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RunHistoryService {
+
+    static final int MAX_ERROR_CHARS = 1000;
+
+    public enum RunStatus { SUCCEEDED, FAILED }
+
+    public enum NodeStatus { EXECUTED, REUSED }
+
+    /**
+     * One node of a recorded run: its wall-clock span and its LLM calls; {@code startedAt} is null for reused nodes.
+     */
+    public record NodeRecord(String nodeId, NodeStatus status, Instant startedAt, long durationMs, long llmMs,
+                             int llmCalls, int llmErrors, long inputTokens, long outputTokens, String output) {
+    }
+
+    /**
+     * A finished run: {@code result} on success, {@code error} on failure. Totals are summed from the nodes;
+     * {@code estimatedCost} is the run's estimated LLM cost in USD.
+     */
+    public record RunRecord(UUID runId, UUID workflowId, UUID versionId, String engine, RunStatus status,
+                            Map<String, Object> input, String result, String error, Instant startedAt,
+                            long durationMs, List<NodeRecord> nodes, double estimatedCost) {
+    }
+
+    private final WorkflowRunRepository runRepository;
+    private final WorkflowDefinitionRepository definitionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactions;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final WriteBehindQueue<RunRecord> queue;
+
+    public RunHistoryService(
+            WorkflowRunRepository runRepository,
+            WorkflowDefinitionRepository definitionRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            JsonMapper jsonMapper,
+            RunHistoryProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this.runRepository = runRepository;
+        this.definitionRepository = definitionRepository;
+        this.entityManager = entityManager;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.enabled = properties.enabled();
+        this.queue = new WriteBehindQueue<>("run-history", properties.capacity(), properties.batchSize(),
+                properties.flushInterval(), properties.overflow(), this::write,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new), "agent.run.history");
+    }
+
+    /**
+     * Queues a finished run for writing; returns immediately unless the overflow policy is {@code BLOCK}.
+     */
+    public void record(RunRecord run) {
+        if (enabled && !queue.offer(run)) {
+            log.debug("Run history dropped a run (queue full) runId={}", run.runId());
+        }
+    }
+
+    /**
+     * The 50 most recently started runs of the workflow, newest first.
+     *
+     * @throws WorkflowNotFoundException if the workflow does not exist
+     */
+    @Transactional(readOnly = true)
+    public List<WorkflowRunItem> findRuns(UUID workflowId) {
+        if (!definitionRepository.existsById(workflowId)) {
+            throw new WorkflowNotFoundException(workflowId);
+        }
+        return runRepository.findTop50ByWorkflowIdOrderByStartedAtDesc(workflowId).stream()
+                .map(r -> new WorkflowRunItem(r.getRunId(), r.getVersionId(), r.getEngine(), r.getStatus(), r.getError(),
+                        r.getStartedAt(), r.getDurationMs(), r.getLlmCalls(), r.getInputTokens(), r.getOutputTokens(),
+                        r.getEstimatedCost()))
+                .toList();
+    }
+
+    private void write(List<RunRecord> batch) {
+        transactions.executeWithoutResult(status -> {
+            for (RunRecord run : batch) {
+                UUID id = UUID.randomUUID();
+                entityManager.persist(new WorkflowRun(id, run.runId(), run.workflowId(), run.versionId(), run.engine(),
+                        run.status().name(), serialize(run.input()), run.result(), truncate(run.error()), run.startedAt(),
+                        run.durationMs(),
+                        run.nodes().stream().mapToInt(NodeRecord::llmCalls).sum(),
+                        run.nodes().stream().mapToLong(NodeRecord::inputTokens).sum(),
+                        run.nodes().stream().mapToLong(NodeRecord::outputTokens).sum(),
+                        run.estimatedCost()));
+                for (NodeRecord node : run.nodes()) {
+                    entityManager.persist(new WorkflowNodeRun(UUID.randomUUID(), id, node.nodeId(), node.status().name(),
+                            node.startedAt(), node.durationMs(), node.llmMs(), node.llmCalls(), node.llmErrors(),
+                            node.inputTokens(), node.outputTokens(), node.output()));
+                }
+            }
+        });
+        log.debug("Run history wrote {} runs", batch.size());
+    }
+
+    /**
+     * Input values that do not serialize are stored as the input's string form.
+     */
+    private String serialize(Map<String, Object> input) {
+        if (input == null) {
+            return null;
+        }
+        try {
+            return jsonMapper.writeValueAsString(input);
+        } catch (JacksonException e) {
+            return String.valueOf(input);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_CHARS ? error.substring(0, MAX_ERROR_CHARS) : error;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        queue.close();
+    }
+}
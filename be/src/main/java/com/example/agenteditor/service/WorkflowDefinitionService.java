@@ -1,14 +1,23 @@
 package com.example.agenteditor.service;
 
 import com.example.agenteditor.api.WorkflowNotFoundException;
+import com.example.agenteditor.api.WorkflowVersionNotFoundException;
 import com.example.agenteditor.api.v1.dto.ToolInfoDto;
 import com.example.agenteditor.api.v1.dto.WorkflowCreateRequest;
 import com.example.agenteditor.api.v1.dto.WorkflowListItem;
 import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
 import com.example.agenteditor.api.v1.dto.WorkflowResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowUpdateRequest;
+import com.example.agenteditor.api.v1.dto.WorkflowVersionItem;
 import com.example.agenteditor.domain.WorkflowDefinition;
+import com.example.agenteditor.domain.WorkflowRun;
+import com.example.agenteditor.domain.WorkflowVersion;
+import com.example.agenteditor.interpreter.ExecutionEngine;
+import com.example.agenteditor.repository.RunCheckpointRepository;
 import com.example.agenteditor.repository.WorkflowDefinitionRepository;
+import com.example.agenteditor.repository.WorkflowNodeRunRepository;
+import com.example.agenteditor.repository.WorkflowRunRepository;
+import com.example.agenteditor.repository.WorkflowVersionRepository;
 import com.example.agenteditor.validation.WorkflowGraphValidator;
 
 import lombok.RequiredArgsConstructor;
@@ -21,9 +30,15 @@ import tools.jackson.databind.json.JsonMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import static java.util.Collections.unmodifiableList;
@@ -35,32 +50,57 @@ import static java.util.Collections.unmodifiableList;
  * persists the graph as JSON in {@link WorkflowDefinition#getGraphJson()}, and maps
  * entities to/from DTOs.
  * </p>
+ * <p>
+ * Every save also records an immutable {@link WorkflowVersion} keyed by graph hash; saving an
+ * identical graph reuses the existing version, and the definition only moves its current-version
+ * pointer. Saves of one workflow run one after another (the definition row is locked first), and the version is
+ * inserted in the same transaction, so a save that rolls back leaves no version behind. Parsed version graphs are
+ * cached with their hash by version id without invalidation, since versions never change.
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WorkflowDefinitionService {
 
+    /** Upper bound on parsed version graphs kept in memory. */
+    private static final int VERSION_GRAPH_CACHE_SIZE = 256;
+
     private final WorkflowDefinitionRepository repository;
+    private final WorkflowVersionRepository versionRepository;
+    private final RunCheckpointRepository checkpointRepository;
+    private final WorkflowRunRepository runRepository;
+    private final WorkflowNodeRunRepository nodeRunRepository;
     private final JsonMapper jsonMapper;
 
+    private final Map<UUID, VersionGraph> versionGraphs = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, VersionGraph> eldest) {
+            return size() > VERSION_GRAPH_CACHE_SIZE;
+        }
+    };
+
     @Transactional
     public UUID create(WorkflowCreateRequest request) {
         log.debug("Validating and persisting new workflow name={} nodes={}", request.name(), request.nodes() != null ? request.nodes().size() : 0);
         WorkflowGraphValidator.validate(request.entryNodeId(), request.nodes());
+        String engine = engineName(request.executionEngine());
         String graphJson = writeNodesAsJson(request.nodes());
         Instant now = Instant.now();
         UUID id = UUID.randomUUID();
+        WorkflowVersion version = snapshot(id, request.entryNodeId(), graphJson, now);
         WorkflowDefinition entity = new WorkflowDefinition(
                 id,
                 request.name(),
                 request.entryNodeId(),
                 graphJson,
                 now,
-                now
+                now,
+                version.getId(),
+                engine
         );
         repository.save(entity);
-        log.debug("Persisted workflow id={} entryNodeId={}", id, request.entryNodeId());
+        log.debug("Persisted workflow id={} entryNodeId={} versionId={}", id, request.entryNodeId(), version.getId());
         return id;
     }
 
@@ -101,21 +141,25 @@ public class WorkflowDefinitionService {
     @Transactional
     public WorkflowResponse update(UUID id, WorkflowUpdateRequest request) {
         log.debug("Updating workflow id={} name={}", id, request.name());
-        WorkflowDefinition existing = repository.findById(id)
+        WorkflowDefinition existing = repository.findLockedById(id)
                 .orElseThrow(() -> new WorkflowNotFoundException(id));
         WorkflowGraphValidator.validate(request.entryNodeId(), request.nodes());
+        String engine = engineName(request.executionEngine());
         String graphJson = writeNodesAsJson(request.nodes());
         Instant now = Instant.now();
+        WorkflowVersion version = snapshot(id, request.entryNodeId(), graphJson, now);
         WorkflowDefinition updated = new WorkflowDefinition(
                 existing.getId(),
                 request.name(),
                 request.entryNodeId(),
                 graphJson,
                 existing.getCreatedAt(),
-                now
+                now,
+                version.getId(),
+                engine
         );
         repository.save(updated);
-        log.debug("Updated workflow id={}", id);
+        log.debug("Updated workflow id={} versionId={} changed={}", id, version.getId(), !version.getId().equals(existing.getCurrentVersionId()));
         return toResponse(updated);
     }
 
@@ -126,6 +170,114 @@ public class WorkflowDefinitionService {
             throw new WorkflowNotFoundException(id);
         }
         repository.deleteById(id);
+        versionRepository.deleteByWorkflowId(id);
+        checkpointRepository.deleteByWorkflowId(id);
+        List<UUID> runIds = runRepository.findByWorkflowId(id).stream().map(WorkflowRun::getId).toList();
+        if (!runIds.isEmpty()) {
+            nodeRunRepository.deleteByWorkflowRunIdIn(runIds);
+            runRepository.deleteByWorkflowId(id);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<WorkflowVersionItem> findVersions(UUID id) {
+        WorkflowDefinition entity = repository.findById(id)
+                .orElseThrow(() -> new WorkflowNotFoundException(id));
+        return versionRepository.findByWorkflowIdOrderByCreatedAtDesc(id).stream()
+                .map(v -> new WorkflowVersionItem(v.getId(), v.getGraphHash(), v.getCreatedAt(), v.getId().equals(entity.getCurrentVersionId())))
+                .toList();
+    }
+
+    /**
+     * Returns the current version of the workflow, pinned by version id. Definitions saved before
+     * versioning have no current version yet; one is snapshotted from the stored graph on first access.
+     */
+    @Transactional
+    public WorkflowResponse findCurrentVersion(UUID id) {
+        WorkflowDefinition entity = repository.findById(id)
+                .orElseThrow(() -> new WorkflowNotFoundException(id));
+        if (entity.getCurrentVersionId() == null) {
+            WorkflowVersion version = snapshot(id, entity.getEntryNodeId(), entity.getGraphJson(), entity.getUpdatedAt());
+            entity = new WorkflowDefinition(
+                    entity.getId(),
+                    entity.getName(),
+                    entity.getEntryNodeId(),
+                    entity.getGraphJson(),
+                    entity.getCreatedAt(),
+                    entity.getUpdatedAt(),
+                    version.getId(),
+                    entity.getExecutionEngine()
+            );
+            repository.save(entity);
+            log.info("Snapshotted legacy workflow id={} as versionId={}", id, version.getId());
+        }
+        return toResponse(entity);
+    }
+
+    /**
+     * Returns the given version of the workflow (graph and entry node from the immutable snapshot).
+     *
+     * @throws WorkflowNotFoundException        if the workflow does not exist
+     * @throws WorkflowVersionNotFoundException if the version does not exist or belongs to another workflow
+     */
+    @Transactional(readOnly = true)
+    public WorkflowResponse findVersion(UUID id, UUID versionId) {
+        WorkflowDefinition entity = repository.findById(id)
+                .orElseThrow(() -> new WorkflowNotFoundException(id));
+        WorkflowVersion version = versionRepository.findById(versionId)
+                .filter(v -> v.getWorkflowId().equals(id))
+                .orElseThrow(() -> new WorkflowVersionNotFoundException(id, versionId));
+        return new WorkflowResponse(
+                entity.getId(),
+                entity.getName(),
+                version.getEntryNodeId(),
+                enrichNodesWithTools(versionGraph(version).nodes()),
+                entity.getCreatedAt(),
+                version.getCreatedAt(),
+                version.getId(),
+                version.getGraphHash(),
+                entity.getExecutionEngine()
+        );
+    }
+
+    /**
+     * Returns the version for this graph content, creating it if no identical graph was saved before.
+     * <p>
+     * The row is inserted with a merge on {@code uq_workflow_version_hash} in the caller's transaction and read
+     * back, so a version saved since the lookup is reused rather than failing the save.
+     * </p>
+     */
+    private WorkflowVersion snapshot(UUID workflowId, String entryNodeId, String graphJson, Instant now) {
+        String hash = graphHash(entryNodeId, graphJson);
+        return versionRepository.findByWorkflowIdAndGraphHash(workflowId, hash).orElseGet(() -> {
+            if (versionRepository.insertIfAbsent(UUID.randomUUID(), workflowId, hash, entryNodeId, graphJson, now) == 0) {
+                log.debug("Version of workflow id={} hash={} was saved concurrently; reusing it", workflowId, hash);
+            }
+            return versionRepository.findByWorkflowIdAndGraphHash(workflowId, hash)
+                    .orElseThrow(() -> new IllegalStateException("Version of workflow " + workflowId + " not found after insert"));
+        });
+    }
+
+    static String graphHash(String entryNodeId, String graphJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(entryNodeId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(graphJson.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Canonical engine name to store, or null for the default.
+     *
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    private static String engineName(String executionEngine) {
+        ExecutionEngine engine = ExecutionEngine.parse(executionEngine);
+        return engine != null ? engine.name() : null;
     }
 
     private WorkflowListItem toListItem(WorkflowDefinition entity) {
@@ -138,19 +290,60 @@ public class WorkflowDefinitionService {
             "calculator", "Evaluate arithmetic expressions (e.g. 2 + 3 * 4)"
     );
 
+    /**
+     * Response for the definition; the graph and hash come from its current version (parsed and hashed once
+     * per version), or from the stored graph for a definition saved before versioning.
+     */
     private WorkflowResponse toResponse(WorkflowDefinition entity) {
-        List<WorkflowNodeDto> nodes = readNodesFromJson(entity.getGraphJson());
-        List<WorkflowNodeDto> enriched = enrichNodesWithTools(nodes);
+        VersionGraph current = entity.getCurrentVersionId() != null
+                ? versionGraph(entity.getCurrentVersionId())
+                : new VersionGraph(readNodesFromJson(entity.getGraphJson()), graphHash(entity.getEntryNodeId(), entity.getGraphJson()));
+        List<WorkflowNodeDto> enriched = enrichNodesWithTools(current.nodes());
         return new WorkflowResponse(
                 entity.getId(),
                 entity.getName(),
                 entity.getEntryNodeId(),
                 enriched,
                 entity.getCreatedAt(),
-                entity.getUpdatedAt()
+                entity.getUpdatedAt(),
+                entity.getCurrentVersionId(),
+                current.graphHash(),
+                entity.getExecutionEngine()
         );
     }
 
+    /** Parsed graph and stored hash of an immutable version. */
+    private record VersionGraph(List<WorkflowNodeDto> nodes, String graphHash) {
+    }
+
+    /** Graph of an immutable version; cached by version id, loading the version on a miss. */
+    private VersionGraph versionGraph(UUID versionId) {
+        synchronized (versionGraphs) {
+            VersionGraph cached = versionGraphs.get(versionId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return versionGraph(versionRepository.findById(versionId)
+                .orElseThrow(() -> new IllegalStateException("Version " + versionId + " not found")));
+    }
+
+    /** Graph of the given version; cached by version id. */
+    private VersionGraph versionGraph(WorkflowVersion version) {
+        synchronized (versionGraphs) {
+            VersionGraph cached = versionGraphs.get(version.getId());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        VersionGraph graph = new VersionGraph(List.copyOf(readNodesFromJson(Objects.requireNonNull(version.getGraphJson(), "graphJson"))),
+                version.getGraphHash());
+        synchronized (versionGraphs) {
+            versionGraphs.put(version.getId(), graph);
+        }
+        return graph;
+    }
+
     /**
      * For any node that has toolIds but no tools array, populate tools from known descriptions
      * so the frontend canvas can render tool nodes.
@@ -170,27 +363,7 @@ public class WorkflowDefinitionService {
         List<ToolInfoDto> tools = node.toolIds().stream()
                 .map(id -> new ToolInfoDto(id, TOOL_DESCRIPTIONS.getOrDefault(id, "")))
                 .toList();
-        return new WorkflowNodeDto(
-                node.id(),
-                node.type(),
-                node.baseUrl(),
-                node.modelName(),
-                node.temperature(),
-                node.maxTokens(),
-                node.llmId(),
-                node.name(),
-                node.role(),
-                node.systemMessage(),
-                node.promptTemplate(),
-                node.outputKey(),
-                tools,
-                node.toolIds(),
-                node.subAgentIds(),
-                node.responseStrategy(),
-                node.routerAgentId(),
-                node.branches(),
-                node.threadPoolSize()
-        );
+        return node.withTools(tools);
     }
 
     private String writeNodesAsJson(List<WorkflowNodeDto> nodes) {
@@ -1,8 +1,25 @@
 package com.example.agenteditor.service;
 
+import com.example.agenteditor.api.RunFailedException;
+import com.example.agenteditor.api.RunNotFoundException;
 import com.example.agenteditor.api.WorkflowNotFoundException;
+import com.example.agenteditor.api.WorkflowVersionNotFoundException;
+import com.example.agenteditor.api.v1.dto.ExecutionPlanDto;
+import com.example.agenteditor.api.v1.dto.PartialResultDto;
+import com.example.agenteditor.api.v1.dto.RunUsageDto;
 import com.example.agenteditor.api.v1.dto.RunWorkflowResponse;
 import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.api.v1.dto.WorkflowResponse;
+import com.example.agenteditor.eventlog.RunEvent;
+import com.example.agenteditor.eventlog.RunEventLog;
+import com.example.agenteditor.interpreter.Checkpointer;
+import com.example.agenteditor.interpreter.ExecutionEngine;
+import com.example.agenteditor.interpreter.IncrementalPlanner;
+import com.example.agenteditor.interpreter.NodeUsage;
+import com.example.agenteditor.interpreter.RunBudget;
+import com.example.agenteditor.interpreter.RunCaller;
+import com.example.agenteditor.interpreter.RunContext;
+import com.example.agenteditor.interpreter.WorkflowExecution;
 import com.example.agenteditor.interpreter.WorkflowGraphInterpreter;
 import com.example.agenteditor.interpreter.WorkflowRunnable;
 import dev.langchain4j.agentic.scope.AgentInvocation;
@@ -10,18 +27,29 @@ import dev.langchain4j.agentic.scope.AgenticScope;
 import dev.langchain4j.agentic.scope.ResultWithAgenticScope;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Runs a workflow by id: loads graph, builds entry runnable, invokes with input.
+ * Each run is pinned to one immutable workflow version (the current one unless a version id is given),
+ * so concurrent edits never change the graph a run executes. Runs use the workflow's execution engine
+ * unless the caller overrides it (for A/B comparisons of the interpreter and the DAG engine).
+ * Every finished run, successful or not, is queued to the {@link RunHistoryService} and, when enabled, appended
+ * to the {@link RunEventLog}. Runs are charged against the budgets of the {@link RunBudgetService}.
  */
 @Service
 @RequiredArgsConstructor
@@ -30,6 +58,10 @@ public class WorkflowRunService {
 
     private final WorkflowDefinitionService workflowDefinitionService;
     private final WorkflowGraphInterpreter interpreter;
+    private final RunCheckpointService checkpointService;
+    private final RunHistoryService historyService;
+    private final RunBudgetService budgetService;
+    private final ObjectProvider<RunEventLog> eventLog;
 
     /**
      * Runs the workflow with the given id using input as scope. Returns the result string.
@@ -38,9 +70,146 @@ public class WorkflowRunService {
      * @throws IllegalArgumentException  if the graph cannot be interpreted (invalid entry, missing refs, etc.)
      */
     public RunWorkflowResponse run(UUID workflowId, Map<String, Object> input) {
-        var response = workflowDefinitionService.findById(workflowId);
+        return run(workflowId, null, input);
+    }
+
+    /**
+     * Runs the given version of the workflow, or the current version when {@code versionId} is null.
+     *
+     * @throws WorkflowNotFoundException        if the workflow does not exist
+     * @throws WorkflowVersionNotFoundException if the version does not exist or belongs to another workflow
+     * @throws IllegalArgumentException         if the graph cannot be interpreted
+     */
+    public RunWorkflowResponse run(UUID workflowId, UUID versionId, Map<String, Object> input) {
+        return run(workflowId, versionId, input, partial -> { });
+    }
+
+    /**
+     * Runs the workflow, publishing map-node element results to {@code partialResults} as they complete
+     * (for nodes with {@code streamResults}).
+     */
+    public RunWorkflowResponse run(UUID workflowId, UUID versionId, Map<String, Object> input, Consumer<PartialResultDto> partialResults) {
+        return run(workflowId, versionId, null, input, partialResults);
+    }
+
+    /**
+     * Execution plan of the given version (or the current one): which sequence steps run concurrently and
+     * the estimated latency saved.
+     *
+     * @throws WorkflowNotFoundException        if the workflow does not exist
+     * @throws WorkflowVersionNotFoundException if the version does not exist or belongs to another workflow
+     * @throws IllegalArgumentException         if the graph cannot be interpreted
+     */
+    public ExecutionPlanDto explain(UUID workflowId, UUID versionId) {
+        var response = versionId != null
+                ? workflowDefinitionService.findVersion(workflowId, versionId)
+                : workflowDefinitionService.findCurrentVersion(workflowId);
+        return interpreter.explain(response.entryNodeId(), response.nodes());
+    }
+
+    /**
+     * Runs the workflow on the given engine, or on the workflow's configured engine when {@code engine} is null.
+     *
+     * @throws IllegalArgumentException if the engine name is unknown
+     */
+    public RunWorkflowResponse run(UUID workflowId, UUID versionId, String engine, Map<String, Object> input,
+                                   Consumer<PartialResultDto> partialResults) {
+        return freshRun(workflowId, versionId, engine, input, partialResults, RunCaller.DEFAULT);
+    }
+
+    private RunWorkflowResponse freshRun(UUID workflowId, UUID versionId, String engine, Map<String, Object> input,
+                                         Consumer<PartialResultDto> partialResults, RunCaller caller) {
+        ExecutionEngine requested = ExecutionEngine.parse(engine);
+        var response = versionId != null
+                ? workflowDefinitionService.findVersion(workflowId, versionId)
+                : workflowDefinitionService.findCurrentVersion(workflowId);
+        UUID runId = UUID.randomUUID();
+        Checkpointer checkpointer = checkpointService.checkpointer(runId, workflowId, response.versionId(), 0);
+        checkpointer.completed(List.of(), input != null ? input : Map.of());
+        return execute(workflowId, response, requested, input, partialResults, runId, checkpointer, Set.of(), caller);
+    }
+
+    /**
+     * Incremental run when {@code previousRunId} is set: reuses what that run recorded for every node the
+     * changes since then (graph edits and changed input values) do not affect, and runs only the affected
+     * steps. The reused checkpoints are copied to the new run, so it can be the base of the next incremental run.
+     *
+     * @throws RunNotFoundException     if the previous run has no checkpoints or belongs to another workflow
+     * @throws IllegalArgumentException if the previous run did not record its input, or the engine name is unknown
+     */
+    public RunWorkflowResponse run(UUID workflowId, UUID versionId, String engine, Map<String, Object> input,
+                                   Consumer<PartialResultDto> partialResults, UUID previousRunId) {
+        return run(workflowId, versionId, engine, input, partialResults, previousRunId, RunCaller.DEFAULT);
+    }
+
+    /**
+     * Full run for the given caller, whose tenant and priority class decide how the run's LLM calls are scheduled
+     * against those of other runs.
+     */
+    public RunWorkflowResponse run(UUID workflowId, UUID versionId, String engine, Map<String, Object> input,
+                                   Consumer<PartialResultDto> partialResults, UUID previousRunId, RunCaller caller) {
+        if (previousRunId == null) {
+            return freshRun(workflowId, versionId, engine, input, partialResults, caller);
+        }
+        ExecutionEngine requested = ExecutionEngine.parse(engine);
+        RunCheckpointService.RunHistory history = checkpointService.history(previousRunId)
+                .filter(h -> h.workflowId().equals(workflowId))
+                .orElseThrow(() -> new RunNotFoundException(previousRunId));
+        var previous = workflowDefinitionService.findVersion(workflowId, history.versionId());
+        var response = versionId != null
+                ? workflowDefinitionService.findVersion(workflowId, versionId)
+                : workflowDefinitionService.findCurrentVersion(workflowId);
+        IncrementalPlanner.Plan plan = IncrementalPlanner.plan(previous.nodes(), response.nodes(), history.steps(), input);
+        log.info("Incremental run id={} previousRunId={} reusedNodes={} dirtyNodes={}", workflowId, previousRunId,
+                plan.reusedNodeIds(), plan.dirtyNodeIds());
+        UUID runId = UUID.randomUUID();
+        Checkpointer checkpointer = checkpointService.checkpointer(runId, workflowId, response.versionId(), 0);
+        checkpointer.completed(List.of(), plan.input());
+        plan.reusedSteps().forEach(step -> checkpointer.completed(step.nodeIds(), step.state()));
+        return execute(workflowId, response, requested, plan.state(), partialResults, runId, checkpointer, plan.reusedNodeIds(),
+                caller);
+    }
+
+    /**
+     * Resumes a failed or interrupted run from its last checkpoint: runs the checkpointed version on the
+     * checkpointed scope state, skipping the steps already completed. New checkpoints extend the same run.
+     *
+     * @throws RunNotFoundException     if the run has no checkpoints or belongs to another workflow
+     * @throws IllegalArgumentException if the engine name is unknown
+     */
+    public RunWorkflowResponse resume(UUID workflowId, UUID runId, String engine, Consumer<PartialResultDto> partialResults) {
+        return resume(workflowId, runId, engine, partialResults, RunCaller.DEFAULT);
+    }
+
+    /**
+     * Resumes the run for the given caller.
+     */
+    public RunWorkflowResponse resume(UUID workflowId, UUID runId, String engine, Consumer<PartialResultDto> partialResults,
+                                      RunCaller caller) {
+        ExecutionEngine requested = ExecutionEngine.parse(engine);
+        RunCheckpointService.ResumePoint point = checkpointService.resumePoint(runId)
+                .filter(p -> p.workflowId().equals(workflowId))
+                .orElseThrow(() -> new RunNotFoundException(runId));
+        var response = workflowDefinitionService.findVersion(workflowId, point.versionId());
+        log.info("Resuming run id={} runId={} completedNodes={}", workflowId, runId, point.completedNodeIds());
+        Checkpointer checkpointer = checkpointService.checkpointer(runId, workflowId, response.versionId(), point.nextSeq());
+        return execute(workflowId, response, requested, point.state(), partialResults, runId, checkpointer,
+                point.completedNodeIds(), caller);
+    }
+
+    private RunWorkflowResponse execute(
+            UUID workflowId,
+            WorkflowResponse response,
+            ExecutionEngine requested,
+            Map<String, Object> input,
+            Consumer<PartialResultDto> partialResults,
+            UUID runId,
+            Checkpointer checkpointer,
+            Set<String> reusedNodeIds,
+            RunCaller caller
+    ) {
         Map<String, Object> runInput = input != null ? new HashMap<>(input) : new HashMap<>();
-        log.info("Run workflow id={} name={} entryNodeId={} inputKeys={}", workflowId, response.name(), response.entryNodeId(), runInput.keySet());
+        log.info("Run workflow id={} versionId={} name={} entryNodeId={} inputKeys={}", workflowId, response.versionId(), response.name(), response.entryNodeId(), runInput.keySet());
         Object metadata = runInput.get("metadata");
         if (metadata instanceof Map<?, ?> metadataMap) {
             log.info("Run input: hasMetadataKey=true metadataKeys={}", metadataMap.keySet());
@@ -50,14 +219,48 @@ public class WorkflowRunService {
         List<WorkflowNodeDto> nodes = response.nodes();
         String entryNodeId = response.entryNodeId();
         log.debug("Building runnable entryNodeId={} nodeCount={}", entryNodeId, nodes != null ? nodes.size() : 0);
-        WorkflowRunnable runnable = interpreter.buildEntryRunnable(entryNodeId, nodes);
-        log.info("Executing workflow id={}", workflowId);
-        Object execution = runnable.run(runInput);
-        AgenticScope scope = executionScope(execution);
-        if (scope != null && scope.state() != null && !scope.state().isEmpty()) {
-            runInput.putAll(scope.state());
-        }
-        List<String> executedNodeIds = executedNodeIds(scope, nodes);
+        ExecutionEngine executionEngine = requested != null ? requested
+                : Objects.requireNonNullElse(ExecutionEngine.parse(response.executionEngine()), ExecutionEngine.INTERPRETER);
+        RunBudget budget = budgetService.open(workflowId);
+        RunContext runContext = new RunContext(partialResults, checkpointer, reusedNodeIds, caller, budget, runInput);
+        WorkflowRunnable runnable = executionEngine == ExecutionEngine.DAG
+                ? interpreter.buildDagRunnable(entryNodeId, nodes, runContext)
+                : interpreter.buildEntryRunnable(entryNodeId, nodes, runContext);
+        log.info("Executing workflow id={} runId={} engine={} tenant={} priority={}", workflowId, runId, executionEngine,
+                caller.tenant(), caller.priority());
+        Map<String, Object> inputSnapshot = new HashMap<>(runInput);
+        Instant startedAt = Instant.now();
+        long started = System.nanoTime();
+        Object execution;
+        try {
+            execution = runnable.run(runInput);
+        } catch (RuntimeException e) {
+            budgetService.settle(workflowId, budget.usage(), e);
+            record(new RunHistoryService.RunRecord(runId, workflowId, response.versionId(), executionEngine.name(),
+                    RunHistoryService.RunStatus.FAILED, inputSnapshot, null, String.valueOf(e.getMessage()), startedAt,
+                    elapsedMs(started), nodeRecords(runContext, runContext.executedNodeIds(), reusedNodeIds, Map.of(), nodes),
+                    budget.usage().estimatedCost()));
+            throw new RunFailedException(runId, e);
+        }
+        List<String> executedNodeIds = new ArrayList<>();
+        for (AgenticScope scope : executionScopes(execution)) {
+            if (scope.state() != null && !scope.state().isEmpty()) {
+                runInput.putAll(scope.state());
+            }
+            for (String nodeId : executedNodeIds(scope, nodes)) {
+                if (!executedNodeIds.contains(nodeId)) {
+                    executedNodeIds.add(nodeId);
+                }
+            }
+        }
+        if (execution instanceof WorkflowExecution dagExecution) {
+            runInput.putAll(dagExecution.state());
+        }
+        for (String nodeId : runContext.executedNodeIds()) {
+            if (!executedNodeIds.contains(nodeId)) {
+                executedNodeIds.add(nodeId);
+            }
+        }
         List<String> executedNodeNames = executedNodeNames(executedNodeIds, nodes);
         Object result = executionResult(execution);
         String resultStr = result != null ? result.toString() : "";
@@ -67,22 +270,136 @@ public class WorkflowRunService {
                 resultStr = fallback;
             }
         }
-        log.info("Workflow run completed id={} resultLength={} executedNodes={}", workflowId, resultStr.length(), executedNodeIds);
-        return new RunWorkflowResponse(resultStr, executedNodeIds, executedNodeNames);
+        log.info("Workflow run completed id={} versionId={} resultLength={} executedNodes={}", workflowId, response.versionId(), resultStr.length(), executedNodeIds);
+        RunUsageDto usage = budget.usage();
+        budgetService.settle(workflowId, usage, null);
+        record(new RunHistoryService.RunRecord(runId, workflowId, response.versionId(), executionEngine.name(),
+                RunHistoryService.RunStatus.SUCCEEDED, inputSnapshot, resultStr, null, startedAt, elapsedMs(started),
+                nodeRecords(runContext, executedNodeIds, reusedNodeIds, runInput, nodes), usage.estimatedCost()));
+        return new RunWorkflowResponse(resultStr, executedNodeIds, executedNodeNames, response.versionId(), runContext.truncations(),
+                executionEngine.name(), runId, List.copyOf(reusedNodeIds), usage);
+    }
+
+    private void record(RunHistoryService.RunRecord run) {
+        historyService.record(run);
+        RunEventLog events = eventLog.getIfAvailable();
+        if (events == null) {
+            return;
+        }
+        try {
+            events.append(run.status() == RunHistoryService.RunStatus.SUCCEEDED ? RunEvent.Type.RUN_SUCCEEDED : RunEvent.Type.RUN_FAILED,
+                    run.startedAt(), run.runId(), run.workflowId(), "", run.durationMs(), 0,
+                    run.nodes().stream().mapToInt(RunHistoryService.NodeRecord::llmCalls).sum(),
+                    run.nodes().stream().mapToInt(RunHistoryService.NodeRecord::llmErrors).sum(),
+                    run.nodes().stream().mapToLong(RunHistoryService.NodeRecord::inputTokens).sum(),
+                    run.nodes().stream().mapToLong(RunHistoryService.NodeRecord::outputTokens).sum());
+            for (RunHistoryService.NodeRecord node : run.nodes()) {
+                events.append(node.status() == RunHistoryService.NodeStatus.REUSED ? RunEvent.Type.NODE_REUSED : RunEvent.Type.NODE_EXECUTED,
+                        node.startedAt() != null ? node.startedAt() : run.startedAt(), run.runId(), run.workflowId(), node.nodeId(),
+                        node.durationMs(), node.llmMs(), node.llmCalls(), node.llmErrors(), node.inputTokens(), node.outputTokens());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Run event log append failed runId={}: {}", run.runId(), e.getMessage());
+        }
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
+    }
+
+    /**
+     * History rows for the run's nodes: reused nodes, executed nodes and any other node that made LLM calls,
+     * with each node's output taken from its output key in the final state. A node's span covers its own step
+     * and everything it runs, so composites and nodes without LLM calls get their wall-clock duration.
+     */
+    private List<RunHistoryService.NodeRecord> nodeRecords(RunContext runContext, List<String> executedNodeIds,
+                                                           Set<String> reusedNodeIds, Map<String, Object> state,
+                                                           List<WorkflowNodeDto> nodes) {
+        Map<String, NodeUsage> usage = new HashMap<>();
+        runContext.nodeUsage().forEach(u -> usage.put(u.nodeId(), u));
+        Map<String, WorkflowNodeDto> byId = new HashMap<>();
+        if (nodes != null) {
+            nodes.forEach(n -> byId.put(n.id(), n));
+        }
+        Set<String> ids = new LinkedHashSet<>(reusedNodeIds);
+        ids.addAll(executedNodeIds);
+        ids.addAll(usage.keySet());
+        List<RunHistoryService.NodeRecord> records = new ArrayList<>();
+        for (String id : ids) {
+            NodeUsage u = span(id, byId, usage, new HashSet<>());
+            WorkflowNodeDto node = byId.get(id);
+            Object output = node != null && node.outputKey() != null ? state.get(node.outputKey()) : null;
+            boolean reused = reusedNodeIds.contains(id) && !executedNodeIds.contains(id) && !usage.containsKey(id);
+            boolean timed = u.startedAt() != null;
+            records.add(new RunHistoryService.NodeRecord(
+                    id,
+                    reused ? RunHistoryService.NodeStatus.REUSED : RunHistoryService.NodeStatus.EXECUTED,
+                    u.startedAt(),
+                    timed ? Duration.between(u.startedAt(), u.finishedAt()).toMillis() : 0,
+                    Duration.ofNanos(u.llmNanos()).toMillis(),
+                    u.calls(),
+                    u.errors(),
+                    u.inputTokens(),
+                    u.outputTokens(),
+                    output != null ? output.toString() : null));
+        }
+        return records;
+    }
+
+    /**
+     * The node's usage with its span widened to the spans of the nodes it runs (sub-agents, router and branches).
+     */
+    private static NodeUsage span(String id, Map<String, WorkflowNodeDto> byId, Map<String, NodeUsage> usage,
+                                  Set<String> visiting) {
+        NodeUsage own = usage.getOrDefault(id, NodeUsage.empty(id));
+        WorkflowNodeDto node = byId.get(id);
+        if (node == null || !visiting.add(id)) {
+            return own;
+        }
+        List<String> children = new ArrayList<>();
+        if (node.subAgentIds() != null) {
+            children.addAll(node.subAgentIds());
+        }
+        if (node.routerAgentId() != null) {
+            children.add(node.routerAgentId());
+        }
+        if (node.branches() != null) {
+            node.branches().forEach(branch -> children.add(branch.agentId()));
+        }
+        if (node.defaultAgentId() != null) {
+            children.add(node.defaultAgentId());
+        }
+        for (String childId : children) {
+            NodeUsage child = span(childId, byId, usage, visiting);
+            if (child.startedAt() != null) {
+                own = own.span(child.startedAt(), child.finishedAt());
+            }
+        }
+        visiting.remove(id);
+        return own;
     }
 
     private Object executionResult(Object execution) {
         if (execution instanceof ResultWithAgenticScope<?> withScope) {
             return withScope.result();
         }
+        if (execution instanceof WorkflowExecution dagExecution) {
+            return dagExecution.result();
+        }
         return execution;
     }
 
-    private AgenticScope executionScope(Object execution) {
-        if (execution instanceof ResultWithAgenticScope<?> withScope) {
-            return withScope.agenticScope();
+    /**
+     * Agentic scopes of the run: the single run scope, or the per-node scopes of a DAG execution.
+     */
+    private List<AgenticScope> executionScopes(Object execution) {
+        if (execution instanceof ResultWithAgenticScope<?> withScope && withScope.agenticScope() != null) {
+            return List.of(withScope.agenticScope());
         }
-        return null;
+        if (execution instanceof WorkflowExecution dagExecution) {
+            return dagExecution.scopes();
+        }
+        return List.of();
     }
 
     private List<String> executedNodeIds(AgenticScope scope, List<WorkflowNodeDto> nodes) {
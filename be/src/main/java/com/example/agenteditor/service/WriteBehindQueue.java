@@ -0,0 +1,211 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.config.RunHistoryProperties.Overflow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded buffer drained by one background writer in batches.
+ * <p>
+ * {@link #offer} never waits unless the overflow policy is {@link Overflow#BLOCK}. The writer hands the sink up
+ * to {@code batchSize} items at a time, waiting at most {@code flushInterval} after the first item for a batch to
+ * fill. A failing batch is counted and dropped; the writer keeps going. {@link #flush} waits until everything
+ * queued so far has been written or dropped. Metrics: {@code <metric>.queue} (gauge),
+ * {@code <metric>.written} and {@code <metric>.dropped} (tag {@code reason}: overflow, error, shutdown).
+ * </p>
+ */
+@Slf4j
+public final class WriteBehindQueue<T> implements AutoCloseable {
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int batchSize;
+    private final long flushNanos;
+    private final Overflow overflow;
+    private final Consumer<List<T>> sink;
+    private final Counter written;
+    private final Counter droppedOverflow;
+    private final Counter droppedError;
+    private final Counter droppedShutdown;
+    private final Thread writer;
+    private final AtomicLong accepted = new AtomicLong();
+    private final Object settledLock = new Object();
+    private long settled;
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(String name, int capacity, int batchSize, Duration flushInterval, Overflow overflow,
+                            Consumer<List<T>> sink, MeterRegistry meterRegistry, String metric) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushNanos = flushInterval.toNanos();
+        this.overflow = overflow;
+        this.sink = sink;
+        meterRegistry.gauge(metric + ".queue", queue, BlockingQueue::size);
+        this.written = meterRegistry.counter(metric + ".written");
+        this.droppedOverflow = meterRegistry.counter(metric + ".dropped", "reason", "overflow");
+        this.droppedError = meterRegistry.counter(metric + ".dropped", "reason", "error");
+        this.droppedShutdown = meterRegistry.counter(metric + ".dropped", "reason", "shutdown");
+        this.writer = Thread.ofVirtual().name(name).start(this::drain);
+    }
+
+    /**
+     * Queues an item; when the queue is full, applies the overflow policy.
+     *
+     * @return false if an item (this one or, for {@link Overflow#DROP_OLDEST}, the oldest) was dropped
+     */
+    public boolean offer(T item) {
+        if (!running) {
+            droppedShutdown.increment();
+            return false;
+        }
+        switch (overflow) {
+            case DROP_NEWEST -> {
+                if (queue.offer(item)) {
+                    accepted.incrementAndGet();
+                    return true;
+                }
+                droppedOverflow.increment();
+                return false;
+            }
+            case DROP_OLDEST -> {
+                boolean dropped = false;
+                while (!queue.offer(item)) {
+                    if (queue.poll() != null) {
+                        droppedOverflow.increment();
+                        settle(1);
+                        dropped = true;
+                    }
+                }
+                accepted.incrementAndGet();
+                return !dropped;
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(item);
+                    accepted.incrementAndGet();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedOverflow.increment();
+                    return false;
+                }
+            }
+            default -> throw new IllegalStateException("Unknown overflow policy " + overflow);
+        }
+    }
+
+    /**
+     * Items waiting to be written.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(flushNanos > 0 ? flushNanos : 1, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                sink.accept(batch);
+                written.increment(batch.size());
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                droppedError.increment(batch.size());
+                log.warn("{}: dropped a batch of {} after a write failure: {}", name, batch.size(), e.getMessage());
+            } finally {
+                settle(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void settle(int items) {
+        if (items == 0) {
+            return;
+        }
+        synchronized (settledLock) {
+            settled += items;
+            settledLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} until every item accepted before the call has been written or dropped.
+     *
+     * @return false if items were still pending when the timeout ran out
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (settledLock) {
+            while (settled < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(settledLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    private void fill(List<T> batch) {
+        long deadline = System.nanoTime() + flushNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            try {
+                T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+            } catch (InterruptedException e) {
+                running = false;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting items and waits up to {@code timeout} for the queued ones to be written.
+     */
+    public void close(Duration timeout) throws InterruptedException {
+        running = false;
+        if (!writer.join(timeout)) {
+            writer.interrupt();
+            List<T> lost = new ArrayList<>();
+            queue.drainTo(lost);
+            droppedShutdown.increment(lost.size());
+            settle(lost.size());
+            log.warn("{}: dropped {} pending writes on shutdown", name, lost.size());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        close(Duration.ofSeconds(10));
+    }
+}
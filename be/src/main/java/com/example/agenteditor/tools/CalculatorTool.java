@@ -6,8 +6,10 @@ import dev.langchain4j.agent.tool.Tool;
 import java.util.regex.Pattern;
 
 /**
- * Tool that evaluates simple arithmetic expressions (numbers and +, -, *, /).
+ * Tool that evaluates simple arithmetic expressions (numbers and +, -, *, /). Deterministic, so results are
+ * cached across runs.
  */
+@ToolCaching(scope = ToolCachePolicy.Scope.GLOBAL, ttlSeconds = 3600, maxEntries = 10_000)
 public class CalculatorTool {
 
     private static final Pattern SAFE_EXPRESSION = Pattern.compile("^[\\d\\s+\\-*/().]+$");
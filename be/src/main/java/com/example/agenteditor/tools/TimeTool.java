@@ -7,8 +7,9 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Tool that returns the current time in UTC (ISO-8601).
+ * Tool that returns the current time in UTC (ISO-8601). Never cached: every call must read the clock.
  */
+@ToolCaching(scope = ToolCachePolicy.Scope.NONE)
 public class TimeTool {
 
     @Tool("Get the current date and time in UTC (ISO-8601)")
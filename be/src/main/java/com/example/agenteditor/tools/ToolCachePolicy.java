@@ -0,0 +1,40 @@
+package com.example.agenteditor.tools;
+
+import java.time.Duration;
+
+/**
+ * How results of a tool are cached, by tool arguments.
+ *
+ * @param scope      {@link Scope#NONE}, {@link Scope#RUN} (memoized for one run) or {@link Scope#GLOBAL} (shared by
+ *                   all runs until {@code ttl} expires)
+ * @param ttl        how long a global entry stays valid (ignored for run scope)
+ * @param maxEntries entries kept per tool; the least recently used go first
+ */
+public record ToolCachePolicy(Scope scope, Duration ttl, int maxEntries) {
+
+    public enum Scope {
+        NONE, RUN, GLOBAL
+    }
+
+    public static final ToolCachePolicy NONE = new ToolCachePolicy(Scope.NONE, Duration.ZERO, 0);
+
+    public ToolCachePolicy {
+        if (scope != Scope.NONE && maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive for a cached tool");
+        }
+        if (scope == Scope.GLOBAL && (ttl == null || !ttl.isPositive())) {
+            throw new IllegalArgumentException("ttl must be positive for a globally cached tool");
+        }
+    }
+
+    /**
+     * Policy declared by the tool's {@link ToolCaching} annotation; {@link #NONE} without one.
+     */
+    public static ToolCachePolicy of(Object tool) {
+        ToolCaching caching = tool != null ? tool.getClass().getAnnotation(ToolCaching.class) : null;
+        if (caching == null || caching.scope() == Scope.NONE) {
+            return NONE;
+        }
+        return new ToolCachePolicy(caching.scope(), Duration.ofSeconds(caching.ttlSeconds()), caching.maxEntries());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.agenteditor.tools;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how the results of a tool class's methods may be cached (see {@link ToolCachePolicy}). Only deterministic
+ * tools, whose result depends on nothing but their arguments, should be cached; tools without this annotation
+ * are not.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ToolCaching {
+
+    ToolCachePolicy.Scope scope();
+
+    /** Lifetime of a global entry, in seconds. */
+    long ttlSeconds() default 600;
+
+    /** Entries kept per tool. */
+    int maxEntries() default 1000;
+}
@@ -16,4 +16,12 @@ public interface ToolRegistry {
      * Returns the list of available tool ids that can be assigned to agent nodes.
      */
     List<String> getAvailableToolIds();
+
+    /**
+     * How results of the tool may be cached; by default as declared by its {@link ToolCaching} annotation.
+     */
+    default ToolCachePolicy cachePolicy(String toolId) {
+        Object[] tools = getTools(List.of(toolId));
+        return tools.length > 0 ? ToolCachePolicy.of(tools[0]) : ToolCachePolicy.NONE;
+    }
 }
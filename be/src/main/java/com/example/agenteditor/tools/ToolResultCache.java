@@ -0,0 +1,81 @@
+package com.example.agenteditor.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of tool results by call key (tool name and canonical arguments). Evicts the least recently used
+ * entry beyond {@code maxEntries}; entries older than the policy's TTL are misses (global scope only). Each entry
+ * keeps the latency of the call that produced it, so a hit reports the time it saved. Safe to use from any thread.
+ * <p>
+ * Loads are single-flight: the first caller to miss a key {@link #claim}s it and runs the call, and callers that
+ * miss the same key meanwhile wait for that call's result instead of running the tool again.
+ * </p>
+ */
+public final class ToolResultCache {
+
+    /**
+     * A cached result and the latency of the call that produced it.
+     */
+    public record Entry(String result, long latencyNanos, long storedAt) {
+    }
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    public ToolResultCache(ToolCachePolicy policy) {
+        this.ttlNanos = policy.scope() == ToolCachePolicy.Scope.GLOBAL ? policy.ttl().toNanos() : Long.MAX_VALUE;
+        int maxEntries = policy.maxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The live entry for the key, or null.
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.storedAt() >= ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    public synchronized Entry put(String key, String result, long latencyNanos) {
+        Entry entry = new Entry(result, latencyNanos, System.nanoTime());
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Claims the load of a missed key. Returns null when the caller now owns the load and must end it with
+     * {@link #complete}; otherwise the pending load of the caller that owns it, completed with its entry, or
+     * with null when that call produced nothing to cache.
+     */
+    public CompletableFuture<Entry> claim(String key) {
+        return loading.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    /**
+     * Ends a claimed load and hands its entry to the callers waiting for it (null when the call produced nothing
+     * to cache).
+     */
+    public void complete(String key, Entry entry) {
+        CompletableFuture<Entry> load = loading.remove(key);
+        if (load != null) {
+            load.complete(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
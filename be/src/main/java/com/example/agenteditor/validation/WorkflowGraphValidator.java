@@ -1,10 +1,13 @@
 package com.example.agenteditor.validation;
 
 import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.ModelCandidateDto;
 import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.interpreter.ChunkStep;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -13,8 +16,10 @@ import java.util.stream.Collectors;
  */
 public final class WorkflowGraphValidator {
 
-    private static final Set<String> VALID_TYPES = Set.of("llm", "agent", "supervisor", "sequence", "parallel", "conditional");
-    private static final Set<String> VALID_ENTRY_TYPES = Set.of("sequence", "parallel", "supervisor");
+    private static final Set<String> VALID_TYPES = Set.of("llm", "agent", "supervisor", "sequence", "parallel", "conditional", "map", "chunk");
+    private static final Set<String> VALID_ENTRY_TYPES = Set.of("sequence", "parallel", "supervisor", "map");
+    private static final Set<String> VALID_BRANCH_NORMALIZATIONS = Set.of("NONE", "TRIM", "IGNORE_CASE");
+    private static final Set<String> VALID_COMPLETION_POLICIES = Set.of("ALL", "FIRST_N", "QUORUM", "DEADLINE");
 
     private WorkflowGraphValidator() {
     }
@@ -46,7 +51,7 @@ public final class WorkflowGraphValidator {
                     .findFirst()
                     .orElse(null);
             if (entryNode != null && VALID_TYPES.contains(entryNode.type()) && !VALID_ENTRY_TYPES.contains(entryNode.type())) {
-                errors.add(new ValidationError("entryNodeId", "entryNodeId must reference a node of type sequence, parallel, or supervisor"));
+                errors.add(new ValidationError("entryNodeId", "entryNodeId must reference a node of type sequence, parallel, supervisor, or map"));
             }
         }
 
@@ -72,6 +77,46 @@ public final class WorkflowGraphValidator {
             errors.add(new ValidationError(prefix + ".type", "invalid type '" + node.type() + "'; must be one of: " + VALID_TYPES));
         }
 
+        if ("map".equals(node.type())) {
+            if (node.itemsKey() == null || node.itemsKey().isBlank()) {
+                errors.add(new ValidationError(prefix + ".itemsKey", "itemsKey is required for map nodes"));
+            }
+            if (node.subAgentIds() == null || node.subAgentIds().size() != 1) {
+                errors.add(new ValidationError(prefix + ".subAgentIds", "map nodes need exactly one sub-agent"));
+            }
+        }
+        if ("chunk".equals(node.type())) {
+            if (node.inputKey() == null || node.inputKey().isBlank()) {
+                errors.add(new ValidationError(prefix + ".inputKey", "inputKey is required for chunk nodes"));
+            }
+            if (node.chunkTokens() != null && node.chunkTokens() <= 0) {
+                errors.add(new ValidationError(prefix + ".chunkTokens", "chunkTokens must be positive"));
+            }
+            int chunkTokens = node.chunkTokens() != null ? node.chunkTokens() : ChunkStep.DEFAULT_CHUNK_TOKENS;
+            if (node.chunkOverlap() != null && (node.chunkOverlap() < 0 || node.chunkOverlap() >= chunkTokens)) {
+                errors.add(new ValidationError(prefix + ".chunkOverlap", "chunkOverlap must be between 0 and chunkTokens - 1"));
+            }
+        }
+        if (node.candidateModels() != null) {
+            for (ModelCandidateDto candidate : node.candidateModels()) {
+                if (candidate.modelName() == null || candidate.modelName().isBlank()) {
+                    errors.add(new ValidationError(prefix + ".candidateModels", "candidate modelName is required"));
+                }
+                if ((candidate.timeoutMs() != null && candidate.timeoutMs() <= 0)
+                        || (candidate.latencySloMs() != null && candidate.latencySloMs() <= 0)) {
+                    errors.add(new ValidationError(prefix + ".candidateModels", "candidate timeoutMs and latencySloMs must be positive"));
+                }
+                if (candidate.maxErrorRate() != null && (candidate.maxErrorRate() < 0 || candidate.maxErrorRate() > 1)) {
+                    errors.add(new ValidationError(prefix + ".candidateModels", "candidate maxErrorRate must be between 0 and 1"));
+                }
+            }
+        }
+        if (node.tools() != null && node.tools().stream().anyMatch(t -> t.timeoutMs() != null && t.timeoutMs() <= 0)) {
+            errors.add(new ValidationError(prefix + ".tools", "tool timeoutMs must be positive"));
+        }
+        if (node.maxInputTokens() != null && node.maxInputTokens() <= 0) {
+            errors.add(new ValidationError(prefix + ".maxInputTokens", "maxInputTokens must be positive"));
+        }
         if (node.llmId() != null && !node.llmId().isBlank() && !nodeIds.contains(node.llmId())) {
             errors.add(new ValidationError(prefix + ".llmId", "llmId must reference an existing node id: " + node.llmId()));
         }
@@ -90,7 +135,34 @@ public final class WorkflowGraphValidator {
                 if (branch.agentId() != null && !branch.agentId().isBlank() && !nodeIds.contains(branch.agentId())) {
                     errors.add(new ValidationError(prefix + ".branches", "branch agentId must reference an existing node id: " + branch.agentId()));
                 }
+                if (branch.probability() != null && (branch.probability() < 0 || branch.probability() > 1)) {
+                    errors.add(new ValidationError(prefix + ".branches", "branch probability must be between 0 and 1: " + branch.probability()));
+                }
             }
         }
+        if (node.defaultAgentId() != null && !node.defaultAgentId().isBlank() && !nodeIds.contains(node.defaultAgentId())) {
+            errors.add(new ValidationError(prefix + ".defaultAgentId", "defaultAgentId must reference an existing node id: " + node.defaultAgentId()));
+        }
+        if (node.speculativeBranches() != null && node.speculativeBranches() < 1) {
+            errors.add(new ValidationError(prefix + ".speculativeBranches", "speculativeBranches must be at least 1"));
+        }
+        if (node.completionPolicy() != null && !node.completionPolicy().isBlank()) {
+            String policy = node.completionPolicy().trim().toUpperCase(Locale.ROOT);
+            if (!VALID_COMPLETION_POLICIES.contains(policy)) {
+                errors.add(new ValidationError(prefix + ".completionPolicy", "completionPolicy must be one of: " + VALID_COMPLETION_POLICIES));
+            } else if ("DEADLINE".equals(policy) && node.deadlineMs() == null) {
+                errors.add(new ValidationError(prefix + ".deadlineMs", "deadlineMs is required for completionPolicy DEADLINE"));
+            }
+        }
+        if (node.requiredCount() != null && node.requiredCount() < 1) {
+            errors.add(new ValidationError(prefix + ".requiredCount", "requiredCount must be at least 1"));
+        }
+        if (node.deadlineMs() != null && node.deadlineMs() <= 0) {
+            errors.add(new ValidationError(prefix + ".deadlineMs", "deadlineMs must be positive"));
+        }
+        if (node.branchNormalization() != null && !node.branchNormalization().isBlank()
+                && !VALID_BRANCH_NORMALIZATIONS.contains(node.branchNormalization().trim().toUpperCase(Locale.ROOT))) {
+            errors.add(new ValidationError(prefix + ".branchNormalization", "branchNormalization must be one of: " + VALID_BRANCH_NORMALIZATIONS));
+        }
     }
 }
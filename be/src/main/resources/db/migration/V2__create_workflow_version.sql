@@ -0,0 +1,15 @@
+-- Immutable workflow versions, content-addressed by graph hash (identical saves share one row)
+CREATE TABLE workflow_version (
+    id            UUID PRIMARY KEY,
+    workflow_id   UUID NOT NULL,
+    graph_hash    VARCHAR(64) NOT NULL,
+    entry_node_id VARCHAR(255) NOT NULL,
+    graph_json    CLOB NOT NULL,
+    created_at    TIMESTAMP NOT NULL,
+    CONSTRAINT uq_workflow_version_hash UNIQUE (workflow_id, graph_hash)
+);
+
+CREATE INDEX idx_workflow_version_workflow_id ON workflow_version (workflow_id);
+
+-- Current version pointer; null for rows saved before versioning (snapshotted lazily on first run)
+ALTER TABLE workflow_definition ADD COLUMN current_version_id UUID;
@@ -0,0 +1,2 @@
+-- Execution engine per workflow (INTERPRETER or DAG); null runs on the default interpreter
+ALTER TABLE workflow_definition ADD COLUMN execution_engine VARCHAR(32);
@@ -0,0 +1,14 @@
+-- Append-only log of completed run steps: scope state after each step, read back to resume a failed run
+CREATE TABLE run_checkpoint (
+    id          UUID PRIMARY KEY,
+    run_id      UUID NOT NULL,
+    workflow_id UUID NOT NULL,
+    version_id  UUID NOT NULL,
+    seq         INT NOT NULL,
+    node_ids    VARCHAR(4000) NOT NULL,
+    state_json  CLOB NOT NULL,
+    created_at  TIMESTAMP NOT NULL,
+    CONSTRAINT uq_run_checkpoint_seq UNIQUE (run_id, seq)
+);
+
+CREATE INDEX idx_run_checkpoint_workflow_id ON run_checkpoint (workflow_id);
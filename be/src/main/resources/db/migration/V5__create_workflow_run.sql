@@ -0,0 +1,37 @@
+-- Run history: one row per run (or resume of a run), one row per node that ran or was reused in it
+CREATE TABLE workflow_run (
+    id            UUID PRIMARY KEY,
+    run_id        UUID NOT NULL,
+    workflow_id   UUID NOT NULL,
+    version_id    UUID NOT NULL,
+    engine        VARCHAR(32) NOT NULL,
+    status        VARCHAR(16) NOT NULL,
+    input_json    CLOB,
+    result        CLOB,
+    error         VARCHAR(1000),
+    started_at    TIMESTAMP NOT NULL,
+    duration_ms   BIGINT NOT NULL,
+    llm_calls     INT NOT NULL,
+    input_tokens  BIGINT NOT NULL,
+    output_tokens BIGINT NOT NULL
+);
+
+CREATE INDEX idx_workflow_run_workflow_id ON workflow_run (workflow_id, started_at);
+CREATE INDEX idx_workflow_run_run_id ON workflow_run (run_id);
+
+CREATE TABLE workflow_node_run (
+    id              UUID PRIMARY KEY,
+    workflow_run_id UUID NOT NULL,
+    node_id         VARCHAR(255) NOT NULL,
+    status          VARCHAR(16) NOT NULL,
+    started_at      TIMESTAMP,
+    duration_ms     BIGINT NOT NULL,
+    llm_ms          BIGINT NOT NULL,
+    llm_calls       INT NOT NULL,
+    llm_errors      INT NOT NULL,
+    input_tokens    BIGINT NOT NULL,
+    output_tokens   BIGINT NOT NULL,
+    output          CLOB
+);
+
+CREATE INDEX idx_workflow_node_run_run ON workflow_node_run (workflow_run_id);
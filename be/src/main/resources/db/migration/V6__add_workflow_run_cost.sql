@@ -0,0 +1,2 @@
+-- Run history: estimated LLM cost of each run (USD, from agent.pricing)
+ALTER TABLE workflow_run ADD COLUMN estimated_cost DOUBLE PRECISION DEFAULT 0 NOT NULL;
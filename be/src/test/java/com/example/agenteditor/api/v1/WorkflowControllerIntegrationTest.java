@@ -20,9 +20,13 @@ import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -138,6 +142,130 @@ class WorkflowControllerIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("versions")
+    class Versions {
+
+        @Test
+        @DisplayName("identical saves reuse the current version; a changed graph creates a new one")
+        void identicalSavesAreDeduplicated() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            ResponseEntity<Map<String, Object>> createResp = restTemplate.exchange(
+                    baseUrl(),
+                    HttpMethod.POST,
+                    new HttpEntity<>(STORY_JSON, headers),
+                    new ParameterizedTypeReference<>() {}
+            );
+            assertThat(createResp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            String id = (String) createResp.getBody().get("id");
+
+            ResponseEntity<Map> first = restTemplate.getForEntity(baseUrl() + "/" + id, Map.class);
+            Object versionId = first.getBody().get("versionId");
+            assertThat(versionId).isNotNull();
+            assertThat(first.getBody().get("graphHash")).isNotNull();
+
+            String renamed = STORY_JSON.replace("\"name\": \"Story workflow\"", "\"name\": \"Story workflow renamed\"");
+            ResponseEntity<Map> sameGraph = restTemplate.exchange(
+                    baseUrl() + "/" + id, HttpMethod.PUT, new HttpEntity<>(renamed, headers), Map.class);
+            assertThat(sameGraph.getBody().get("versionId")).isEqualTo(versionId);
+            assertThat(sameGraph.getBody().get("graphHash")).isEqualTo(first.getBody().get("graphHash"));
+
+            String changed = STORY_JSON.replace("Refine the draft.", "Refine the draft twice.");
+            ResponseEntity<Map> changedGraph = restTemplate.exchange(
+                    baseUrl() + "/" + id, HttpMethod.PUT, new HttpEntity<>(changed, headers), Map.class);
+            assertThat(changedGraph.getBody().get("versionId")).isNotEqualTo(versionId);
+
+            ResponseEntity<Map<String, Object>> versionsResp = restTemplate.exchange(
+                    baseUrl() + "/" + id + "/versions", HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+            assertThat(versionsResp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> versions = (List<Map<String, Object>>) versionsResp.getBody().get("versions");
+            assertThat(versions).hasSize(2);
+            assertThat(versions).filteredOn(v -> Boolean.TRUE.equals(v.get("current")))
+                    .singleElement()
+                    .satisfies(v -> assertThat(v.get("id")).isEqualTo(changedGraph.getBody().get("versionId")));
+        }
+
+        @Test
+        @DisplayName("concurrent saves of the same new graph all succeed with one version")
+        void concurrentIdenticalSaves() throws Exception {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            ResponseEntity<Map<String, Object>> createResp = restTemplate.exchange(
+                    baseUrl(), HttpMethod.POST, new HttpEntity<>(STORY_JSON, headers), new ParameterizedTypeReference<>() {});
+            String id = (String) createResp.getBody().get("id");
+            String changed = STORY_JSON.replace("Refine the draft.", "Refine the draft again.");
+
+            List<ResponseEntity<Map>> responses;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<ResponseEntity<Map>>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> restTemplate.exchange(
+                            baseUrl() + "/" + id, HttpMethod.PUT, new HttpEntity<>(changed, headers), Map.class)));
+                }
+                responses = new ArrayList<>();
+                for (Future<ResponseEntity<Map>> future : futures) {
+                    responses.add(future.get());
+                }
+            }
+
+            assertThat(responses).allSatisfy(r -> assertThat(r.getStatusCode()).isEqualTo(HttpStatus.OK));
+            assertThat(responses.stream().map(r -> r.getBody().get("versionId")).distinct()).hasSize(1);
+            ResponseEntity<Map<String, Object>> versionsResp = restTemplate.exchange(
+                    baseUrl() + "/" + id + "/versions", HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+            assertThat((List<?>) versionsResp.getBody().get("versions")).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("an unknown or foreign version id returns 404")
+        void unknownVersionReturns404() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            String first = (String) restTemplate.exchange(
+                    baseUrl(), HttpMethod.POST, new HttpEntity<>(STORY_JSON, headers), new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .getBody().get("id");
+            String second = (String) restTemplate.exchange(
+                    baseUrl(), HttpMethod.POST, new HttpEntity<>(STORY_JSON, headers), new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .getBody().get("id");
+            Object foreignVersion = restTemplate.getForEntity(baseUrl() + "/" + second, Map.class).getBody().get("versionId");
+
+            ResponseEntity<Map> unknown = restTemplate.getForEntity(
+                    baseUrl() + "/" + first + "/explain?versionId=" + UUID.randomUUID(), Map.class);
+            ResponseEntity<Map> foreign = restTemplate.getForEntity(
+                    baseUrl() + "/" + first + "/explain?versionId=" + foreignVersion, Map.class);
+
+            assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat(foreign.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat((String) foreign.getBody().get("message")).startsWith("Version " + foreignVersion);
+        }
+    }
+
+    @Nested
+    @DisplayName("execution engine")
+    class ExecutionEngineSetting {
+
+        @Test
+        @DisplayName("executionEngine is stored per workflow; unknown engines return 400")
+        void executionEngineRoundTrips() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            String dagJson = STORY_JSON.replace("\"entryNodeId\": \"seq-story\",", "\"entryNodeId\": \"seq-story\", \"executionEngine\": \"dag\",");
+            ResponseEntity<Map<String, Object>> createResp = restTemplate.exchange(
+                    baseUrl(), HttpMethod.POST, new HttpEntity<>(dagJson, headers), new ParameterizedTypeReference<>() {});
+            assertThat(createResp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            String id = (String) createResp.getBody().get("id");
+
+            ResponseEntity<Map> getResp = restTemplate.getForEntity(baseUrl() + "/" + id, Map.class);
+            assertThat(getResp.getBody().get("executionEngine")).isEqualTo("DAG");
+
+            String unknown = STORY_JSON.replace("\"entryNodeId\": \"seq-story\",", "\"entryNodeId\": \"seq-story\", \"executionEngine\": \"turbo\",");
+            ResponseEntity<Map> badResp = restTemplate.exchange(
+                    baseUrl() + "/" + id, HttpMethod.PUT, new HttpEntity<>(unknown, headers), Map.class);
+            assertThat(badResp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Nested
     @DisplayName("error handling")
     class ErrorHandling {
@@ -204,6 +332,36 @@ class WorkflowControllerIntegrationTest {
             assertThat(resp.getBody().get("message")).isNotNull();
         }
 
+        @Test
+        @DisplayName("POST resume of a run without checkpoints returns 404")
+        void resumeUnknownRunReturns404() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            ResponseEntity<Map<String, Object>> createResp = restTemplate.exchange(
+                    baseUrl(),
+                    HttpMethod.POST,
+                    new HttpEntity<>(STORY_JSON, headers),
+                    new ParameterizedTypeReference<>() {}
+            );
+            String id = (String) createResp.getBody().get("id");
+
+            ResponseEntity<Map> resp = restTemplate.exchange(
+                    baseUrl() + "/" + id + "/runs/" + UUID.randomUUID() + "/resume",
+                    HttpMethod.POST,
+                    new HttpEntity<>(headers),
+                    new ParameterizedTypeReference<>() {}
+            );
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat((String) resp.getBody().get("message")).startsWith("Run not found");
+        }
+
+        @Test
+        @DisplayName("GET run history of a non-existent workflow returns 404")
+        void runHistoryNotFoundReturns404() {
+            ResponseEntity<Map> resp = restTemplate.getForEntity(baseUrl() + "/" + UUID.randomUUID() + "/runs", Map.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
         @Test
         @DisplayName("POST run with valid workflow returns 200 with result or 500 on execution failure")
         void runWithValidWorkflowReturns200Or500() {
@@ -230,6 +388,7 @@ class WorkflowControllerIntegrationTest {
                 assertThat(runResp.getBody()).containsKey("result");
                 assertThat(runResp.getBody()).containsKey("executedNodeIds");
                 assertThat(runResp.getBody()).containsKey("executedNodeNames");
+                assertThat(runResp.getBody().get("runId")).isNotNull();
             }
         }
     }
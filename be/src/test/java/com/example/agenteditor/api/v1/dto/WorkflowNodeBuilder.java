@@ -0,0 +1,225 @@
+package com.example.agenteditor.api.v1.dto;
+
+import java.util.List;
+
+/**
+ * Test builder for {@link WorkflowNodeDto}: set only the fields a test cares about, so adding a node field does
+ * not touch every test that builds nodes.
+ */
+public final class WorkflowNodeBuilder {
+    private final String id;
+    private final String type;
+    private String baseUrl;
+    private String modelName;
+    private Double temperature;
+    private Integer maxTokens;
+    private Integer maxInputTokens;
+    private String llmId;
+    private String name;
+    private String role;
+    private String systemMessage;
+    private String promptTemplate;
+    private String outputKey;
+    private List<ToolInfoDto> tools;
+    private List<String> toolIds;
+    private List<String> subAgentIds;
+    private String responseStrategy;
+    private String routerAgentId;
+    private List<ConditionalBranchDto> branches;
+    private String branchNormalization;
+    private String defaultAgentId;
+    private Boolean speculative;
+    private Integer speculativeBranches;
+    private Integer threadPoolSize;
+    private String completionPolicy;
+    private Integer requiredCount;
+    private Long deadlineMs;
+    private String itemsKey;
+    private String itemKey;
+    private Boolean streamResults;
+    private String inputKey;
+    private Integer chunkTokens;
+    private Integer chunkOverlap;
+    private List<ModelCandidateDto> candidateModels;
+
+    private WorkflowNodeBuilder(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public static WorkflowNodeBuilder node(String id, String type) {
+        return new WorkflowNodeBuilder(id, type);
+    }
+
+    public WorkflowNodeBuilder baseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+        return this;
+    }
+
+    public WorkflowNodeBuilder modelName(String modelName) {
+        this.modelName = modelName;
+        return this;
+    }
+
+    public WorkflowNodeBuilder temperature(Double temperature) {
+        this.temperature = temperature;
+        return this;
+    }
+
+    public WorkflowNodeBuilder maxTokens(Integer maxTokens) {
+        this.maxTokens = maxTokens;
+        return this;
+    }
+
+    public WorkflowNodeBuilder maxInputTokens(Integer maxInputTokens) {
+        this.maxInputTokens = maxInputTokens;
+        return this;
+    }
+
+    public WorkflowNodeBuilder llmId(String llmId) {
+        this.llmId = llmId;
+        return this;
+    }
+
+    public WorkflowNodeBuilder name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public WorkflowNodeBuilder role(String role) {
+        this.role = role;
+        return this;
+    }
+
+    public WorkflowNodeBuilder systemMessage(String systemMessage) {
+        this.systemMessage = systemMessage;
+        return this;
+    }
+
+    public WorkflowNodeBuilder promptTemplate(String promptTemplate) {
+        this.promptTemplate = promptTemplate;
+        return this;
+    }
+
+    public WorkflowNodeBuilder outputKey(String outputKey) {
+        this.outputKey = outputKey;
+        return this;
+    }
+
+    public WorkflowNodeBuilder tools(List<ToolInfoDto> tools) {
+        this.tools = tools;
+        return this;
+    }
+
+    public WorkflowNodeBuilder toolIds(List<String> toolIds) {
+        this.toolIds = toolIds;
+        return this;
+    }
+
+    public WorkflowNodeBuilder subAgentIds(List<String> subAgentIds) {
+        this.subAgentIds = subAgentIds;
+        return this;
+    }
+
+    public WorkflowNodeBuilder responseStrategy(String responseStrategy) {
+        this.responseStrategy = responseStrategy;
+        return this;
+    }
+
+    public WorkflowNodeBuilder routerAgentId(String routerAgentId) {
+        this.routerAgentId = routerAgentId;
+        return this;
+    }
+
+    public WorkflowNodeBuilder branches(List<ConditionalBranchDto> branches) {
+        this.branches = branches;
+        return this;
+    }
+
+    public WorkflowNodeBuilder branchNormalization(String branchNormalization) {
+        this.branchNormalization = branchNormalization;
+        return this;
+    }
+
+    public WorkflowNodeBuilder defaultAgentId(String defaultAgentId) {
+        this.defaultAgentId = defaultAgentId;
+        return this;
+    }
+
+    public WorkflowNodeBuilder speculative(Boolean speculative) {
+        this.speculative = speculative;
+        return this;
+    }
+
+    public WorkflowNodeBuilder speculativeBranches(Integer speculativeBranches) {
+        this.speculativeBranches = speculativeBranches;
+        return this;
+    }
+
+    public WorkflowNodeBuilder threadPoolSize(Integer threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+        return this;
+    }
+
+    public WorkflowNodeBuilder completionPolicy(String completionPolicy) {
+        this.completionPolicy = completionPolicy;
+        return this;
+    }
+
+    public WorkflowNodeBuilder requiredCount(Integer requiredCount) {
+        this.requiredCount = requiredCount;
+        return this;
+    }
+
+    public WorkflowNodeBuilder deadlineMs(Long deadlineMs) {
+        this.deadlineMs = deadlineMs;
+        return this;
+    }
+
+    public WorkflowNodeBuilder itemsKey(String itemsKey) {
+        this.itemsKey = itemsKey;
+        return this;
+    }
+
+    public WorkflowNodeBuilder itemKey(String itemKey) {
+        this.itemKey = itemKey;
+        return this;
+    }
+
+    public WorkflowNodeBuilder streamResults(Boolean streamResults) {
+        this.streamResults = streamResults;
+        return this;
+    }
+
+    public WorkflowNodeBuilder inputKey(String inputKey) {
+        this.inputKey = inputKey;
+        return this;
+    }
+
+    public WorkflowNodeBuilder chunkTokens(Integer chunkTokens) {
+        this.chunkTokens = chunkTokens;
+        return this;
+    }
+
+    public WorkflowNodeBuilder chunkOverlap(Integer chunkOverlap) {
+        this.chunkOverlap = chunkOverlap;
+        return this;
+    }
+
+    public WorkflowNodeBuilder candidateModels(List<ModelCandidateDto> candidateModels) {
+        this.candidateModels = candidateModels;
+        return this;
+    }
+
+    public WorkflowNodeBuilder subAgentIds(String... subAgentIds) {
+        return subAgentIds(List.of(subAgentIds));
+    }
+
+    public WorkflowNodeDto build() {
+        return new WorkflowNodeDto(id, type, baseUrl, modelName, temperature, maxTokens, maxInputTokens, llmId, name,
+                role, systemMessage, promptTemplate, outputKey, tools, toolIds, subAgentIds, responseStrategy,
+                routerAgentId, branches, branchNormalization, defaultAgentId, speculative, speculativeBranches,
+                threadPoolSize, completionPolicy, requiredCount, deadlineMs, itemsKey, itemKey, streamResults,
+                inputKey, chunkTokens, chunkOverlap, candidateModels);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.agenteditor.eventlog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Appends and reads back a few million node events. Run with {@code ./gradlew :be:benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("RunEventLog benchmark")
+class RunEventLogBenchmarkTest {
+
+    private static final int EVENTS = 2_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("append and read throughput")
+    void throughput() {
+        UUID runId = UUID.randomUUID();
+        UUID workflowId = UUID.randomUUID();
+        Instant now = Instant.now();
+        try (RunEventLog log = new RunEventLog(directory, 64 * 1024 * 1024, 16, Duration.ZERO)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++) {
+                log.append(RunEvent.Type.NODE_EXECUTED, now, runId, workflowId, "writer", i, i, 1, 0, 300, 150);
+            }
+            long appendNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long read = 0;
+            long from = 0;
+            RunEventLog.Batch batch;
+            do {
+                batch = log.read(from, 10_000);
+                read += batch.events().size();
+                from = batch.next();
+            } while (!batch.events().isEmpty());
+            long readNanos = System.nanoTime() - start;
+
+            System.out.printf("append: %.0f events/s (%.0f ns/event), read: %.0f events/s%n",
+                    EVENTS / (appendNanos / 1e9), (double) appendNanos / EVENTS, read / (readNanos / 1e9));
+            assertEquals(EVENTS, read);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.agenteditor.eventlog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("RunEventLog")
+class RunEventLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    private static final UUID RUN_ID = UUID.randomUUID();
+    private static final UUID WORKFLOW_ID = UUID.randomUUID();
+    private static final Instant NOW = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("reads back appended events with every field, and continues from the returned position")
+    void roundTrip() {
+        try (RunEventLog log = new RunEventLog(directory, SEGMENT_BYTES, 4, Duration.ZERO)) {
+            log.append(RunEvent.Type.NODE_EXECUTED, NOW, RUN_ID, WORKFLOW_ID, "writer", 1200, 1100, 2, 1, 300, 150);
+            log.append(RunEvent.Type.RUN_SUCCEEDED, NOW, RUN_ID, WORKFLOW_ID, "", 1500, 0, 2, 1, 300, 150);
+
+            RunEventLog.Batch first = log.read(0, 1);
+            RunEvent event = first.events().get(0);
+            assertEquals(RunEvent.Type.NODE_EXECUTED, event.type());
+            assertEquals(NOW, event.timestamp());
+            assertEquals(RUN_ID, event.runId());
+            assertEquals(WORKFLOW_ID, event.workflowId());
+            assertEquals("writer", event.nodeId());
+            assertEquals(List.of(1200L, 1100L, 300L, 150L),
+                    List.of(event.durationMs(), event.llmMs(), event.inputTokens(), event.outputTokens()));
+            assertEquals(2, event.llmCalls());
+            assertEquals(1, event.llmErrors());
+
+            RunEventLog.Batch rest = log.read(first.next(), 10);
+            assertEquals(List.of(RunEvent.Type.RUN_SUCCEEDED), rest.events().stream().map(RunEvent::type).toList());
+            assertEquals(List.of(), log.read(rest.next(), 10).events());
+        }
+    }
+
+    @Test
+    @DisplayName("rotates full segments, keeps at most maxSegments and reads across segment boundaries")
+    void rotatesAndRetains() {
+        try (RunEventLog log = new RunEventLog(directory, SEGMENT_BYTES, 3, Duration.ZERO)) {
+            int perSegment = (SEGMENT_BYTES - RunEventLog.SEGMENT_HEADER) / (RunEventLog.RECORD_HEADER + 6);
+            int total = perSegment * 5;
+            for (int i = 0; i < total; i++) {
+                log.append(RunEvent.Type.NODE_EXECUTED, NOW, RUN_ID, WORKFLOW_ID, "node-%d".formatted(i % 10), i, 0, 1, 0, 0, 0);
+            }
+
+            List<RunEvent> events = log.read(0, Integer.MAX_VALUE).events();
+            assertTrue(events.size() <= perSegment * 3);
+            assertEquals(total - 1, events.get(events.size() - 1).durationMs());
+            for (int i = 1; i < events.size(); i++) {
+                assertEquals(events.get(i - 1).durationMs() + 1, events.get(i).durationMs());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("rereads sealed segments from their kept mappings, also after retention deleted older ones")
+    void rereadsSealedSegments() {
+        try (RunEventLog log = new RunEventLog(directory, SEGMENT_BYTES, 3, Duration.ZERO)) {
+            int perSegment = (SEGMENT_BYTES - RunEventLog.SEGMENT_HEADER) / (RunEventLog.RECORD_HEADER + 1);
+            int total = 0;
+            for (; total < perSegment * 2; total++) {
+                log.append(RunEvent.Type.NODE_EXECUTED, NOW, RUN_ID, WORKFLOW_ID, "n", total, 0, 0, 0, 0, 0);
+            }
+            List<RunEvent> first = log.read(0, Integer.MAX_VALUE).events();
+            assertEquals(first, log.read(0, Integer.MAX_VALUE).events());
+
+            for (; total < perSegment * 5; total++) {
+                log.append(RunEvent.Type.NODE_EXECUTED, NOW, RUN_ID, WORKFLOW_ID, "n", total, 0, 0, 0, 0, 0);
+            }
+            List<RunEvent> events = log.read(0, Integer.MAX_VALUE).events();
+            assertTrue(events.get(0).durationMs() > first.get(first.size() - 1).durationMs());
+            assertEquals(total - 1, events.get(events.size() - 1).durationMs());
+            assertEquals(events, log.read(0, Integer.MAX_VALUE).events());
+        }
+    }
+
+    @Test
+    @DisplayName("tail returns the last events, and a restarted log continues in a new segment")
+    void tailAndRestart() {
+        try (RunEventLog log = new RunEventLog(directory, SEGMENT_BYTES, 4, Duration.ZERO)) {
+            for (int i = 0; i < 5; i++) {
+                log.append(RunEvent.Type.NODE_EXECUTED, NOW, RUN_ID, WORKFLOW_ID, "n", i, 0, 0, 0, 0, 0);
+            }
+            assertEquals(List.of(3L, 4L), log.tail(2).events().stream().map(RunEvent::durationMs).toList());
+        }
+        try (RunEventLog log = new RunEventLog(directory, SEGMENT_BYTES, 4, Duration.ZERO)) {
+            log.append(RunEvent.Type.RUN_FAILED, NOW, RUN_ID, WORKFLOW_ID, "", 9, 0, 0, 0, 0, 0);
+
+            assertEquals(List.of(RunEvent.Type.RUN_FAILED), log.tail(10).events().stream().map(RunEvent::type).toList());
+            assertEquals(6, log.read(0, 100).events().size());
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ToolInfoDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import com.example.agenteditor.tools.ToolCachePolicy;
+import com.example.agenteditor.tools.ToolCaching;
+import com.example.agenteditor.tools.ToolRegistry;
+import com.example.agenteditor.tools.ToolResultCache;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("AgentTools")
+class AgentToolsTest {
+
+    /** Both calls wait for each other, so they only succeed when run at the same time. */
+    static class RendezvousTool {
+        private final CountDownLatch latch = new CountDownLatch(2);
+
+        @Tool("First lookup")
+        public String first() throws InterruptedException {
+            latch.countDown();
+            return "first:" + latch.await(2, TimeUnit.SECONDS);
+        }
+
+        @Tool("Second lookup")
+        public String second() throws InterruptedException {
+            latch.countDown();
+            return "second:" + latch.await(2, TimeUnit.SECONDS);
+        }
+    }
+
+    static class SlowTool {
+        @Tool("Slow lookup")
+        public String slow() throws InterruptedException {
+            Thread.sleep(5_000);
+            return "done";
+        }
+    }
+
+    static class CountingTool {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Tool("Square a number")
+        public String square(int n) {
+            calls.incrementAndGet();
+            return String.valueOf(n * n);
+        }
+    }
+
+    /** Counts its calls and holds each one until released. */
+    static class BlockingTool {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Tool("Square a number")
+        public String square(int n) throws InterruptedException {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return String.valueOf(n * n);
+        }
+    }
+
+    @ToolCaching(scope = ToolCachePolicy.Scope.RUN)
+    static class RunCachedTool {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Tool("Square a number")
+        public String square(int n) {
+            calls.incrementAndGet();
+            return String.valueOf(n * n);
+        }
+    }
+
+    /** Records how many of its calls run at once. */
+    static class ProbeTool {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Tool("Probe")
+        public String probe(int n) throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                running.decrementAndGet();
+            }
+            return "p" + n;
+        }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("answers repeated calls with the same arguments from the tool's cache and counts hits")
+    void cachedCalls() {
+        CountingTool tool = new CountingTool();
+        ToolResultCache cache = new ToolResultCache(
+                new ToolCachePolicy(ToolCachePolicy.Scope.GLOBAL, Duration.ofMinutes(1), 10));
+        ToolExecutor executor = new AgentTools(List.of(new AgentTools.Binding(tool, Duration.ofSeconds(5), cache)),
+                registry).provideTools(null).tools().values().iterator().next();
+
+        assertEquals("9", executor.execute(square("{\"n\": 3}"), null));
+        assertEquals("9", executor.execute(square("{\"n\":3}"), null));
+        assertEquals("16", executor.execute(square("{\"n\":4}"), null));
+
+        assertEquals(2, tool.calls.get());
+        assertEquals(1, registry.counter("agent.tool.cache", "tool", "square", "result", "hit").count());
+        assertEquals(2, registry.counter("agent.tool.cache", "tool", "square", "result", "miss").count());
+        assertEquals(1, registry.timer("agent.tool.cache.saved", "tool", "square").count());
+    }
+
+    @Test
+    @DisplayName("makes one call for concurrent misses of the same arguments and shares its result")
+    void concurrentMissesShareOneCall() throws InterruptedException {
+        BlockingTool tool = new BlockingTool();
+        ToolResultCache cache = new ToolResultCache(
+                new ToolCachePolicy(ToolCachePolicy.Scope.GLOBAL, Duration.ofMinutes(1), 10));
+        ToolExecutor executor = new AgentTools(List.of(new AgentTools.Binding(tool, Duration.ofSeconds(5), cache)),
+                registry).provideTools(null).tools().values().iterator().next();
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<String>> results = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> executor.execute(square("{\"n\": 3}"), null),
+                        callers))
+                .toList();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.counter("agent.tool.cache", "tool", "square", "result", "shared").count() < 3
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        tool.release.countDown();
+
+        assertEquals(List.of("9", "9", "9", "9"), results.stream().map(CompletableFuture::join).toList());
+        callers.shutdown();
+        assertEquals(1, tool.calls.get());
+        assertEquals(1, registry.counter("agent.tool.cache", "tool", "square", "result", "miss").count());
+        assertEquals(3, registry.counter("agent.tool.cache", "tool", "square", "result", "shared").count());
+    }
+
+    @Test
+    @DisplayName("keeps run-scoped results within their run")
+    void runScopeStaysInRun() {
+        RunCachedTool tool = new RunCachedTool();
+        WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new RepeatCallingModel("square", "{\"n\": 3}", 2)),
+                registryOf("square", tool));
+        List<WorkflowNodeDto> nodes = toolAgent("square");
+
+        assertEquals("9|9", interpreter.buildEntryRunnable("entry", nodes).run(Map.of()));
+        assertEquals("9|9", interpreter.buildEntryRunnable("entry", nodes).run(Map.of()));
+
+        assertEquals(2, tool.calls.get());
+    }
+
+    @Test
+    @DisplayName("never caches the time tool")
+    void timeToolNotCached() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new RepeatCallingModel("currentTimeUtc", "{}", 2)),
+                new DefaultToolRegistry(), meters, PromptLimits.DEFAULT, new TokenEstimator());
+
+        interpreter.buildEntryRunnable("entry", toolAgent("time")).run(Map.of());
+
+        assertTrue(meters.find("agent.tool.cache").counters().isEmpty());
+        assertEquals(2, meters.find("agent.tool.latency").tag("tool", "currentTimeUtc").timer().count());
+    }
+
+    /**
+     * An agent with one tool, run by the entry sequence.
+     */
+    private static List<WorkflowNodeDto> toolAgent(String toolId) {
+        return List.of(
+                node("llm-1", "llm").build(),
+                node("lookup", "agent")
+                        .llmId("llm-1")
+                        .name("Lookup")
+                        .promptTemplate("Look it up")
+                        .outputKey("answer")
+                        .tools(List.of(new ToolInfoDto(toolId, "", 3_000L)))
+                        .build(),
+                node("entry", "sequence").outputKey("answer").subAgentIds("lookup").build());
+    }
+
+    private static ToolExecutionRequest square(String arguments) {
+        return ToolExecutionRequest.builder().id("1").name("square").arguments(arguments).build();
+    }
+
+    @Test
+    @DisplayName("answers the model with an error when a call outlasts its tool's timeout")
+    void timeout() {
+        AgentTools tools = new AgentTools(List.of(new AgentTools.Binding(new SlowTool(), Duration.ofMillis(50), null)),
+                registry);
+        ToolExecutor executor = tools.provideTools(null).tools().values().iterator().next();
+
+        long start = System.nanoTime();
+        String result = executor.execute(ToolExecutionRequest.builder().id("1").name("slow").arguments("{}").build(), null);
+
+        assertEquals("Error: tool slow timed out after 50 ms", result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, registry.timer("agent.tool.latency", "tool", "slow", "outcome", "timeout").count());
+    }
+
+    @Test
+    @DisplayName("runs the tool calls of one response concurrently and returns results in call order")
+    void concurrentCalls() {
+        ToolCallingModel model = new ToolCallingModel();
+        WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(model), registryOf(new RendezvousTool()));
+        List<WorkflowNodeDto> nodes = List.of(
+                node("llm-1", "llm").build(),
+                node("lookup", "agent")
+                        .llmId("llm-1")
+                        .name("Lookup")
+                        .promptTemplate("Look it up")
+                        .outputKey("answer")
+                        .tools(List.of(new ToolInfoDto("rendezvous", "", 3_000L)))
+                        .build(),
+                node("entry", "sequence").outputKey("answer").subAgentIds("lookup").build());
+
+        Object result = interpreter.buildEntryRunnable("entry", nodes).run(Map.of());
+
+        assertEquals("second:true|first:true", result);
+    }
+
+    @Test
+    @DisplayName("runs the tool calls of one response one by one with threadPoolSize 1")
+    void threadPoolSizeOneSerializes() {
+        assertEquals(1, maxConcurrentCalls(1));
+    }
+
+    @Test
+    @DisplayName("runs at most threadPoolSize tool calls of one response at once")
+    void threadPoolSizeCapsCalls() {
+        assertTrue(maxConcurrentCalls(3) <= 3);
+    }
+
+    @Test
+    @DisplayName("caps concurrent tool calls without a threadPoolSize")
+    void defaultCap() {
+        assertTrue(maxConcurrentCalls(null) <= AgentTools.DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    /**
+     * Runs an agent whose model asks for more probes in one response than the default cap and returns how many
+     * ran at once.
+     */
+    private static int maxConcurrentCalls(Integer threadPoolSize) {
+        ProbeTool tool = new ProbeTool();
+        int calls = AgentTools.DEFAULT_MAX_CONCURRENT_CALLS + 2;
+        WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new ProbeCallingModel(calls)), registryOf("probe", tool));
+        List<WorkflowNodeDto> nodes = List.of(
+                node("llm-1", "llm").build(),
+                node("lookup", "agent")
+                        .llmId("llm-1")
+                        .name("Lookup")
+                        .promptTemplate("Probe it")
+                        .outputKey("answer")
+                        .threadPoolSize(threadPoolSize)
+                        .tools(List.of(new ToolInfoDto("probe", "", 3_000L)))
+                        .build(),
+                node("entry", "sequence").outputKey("answer").subAgentIds("lookup").build());
+
+        Object result = interpreter.buildEntryRunnable("entry", nodes).run(Map.of());
+
+        assertEquals(IntStream.range(0, calls).mapToObj(i -> "p" + i).collect(Collectors.joining("|")), result);
+        return tool.maxRunning.get();
+    }
+
+    private static ToolRegistry registryOf(Object tool) {
+        return registryOf("rendezvous", tool);
+    }
+
+    private static ToolRegistry registryOf(String id, Object tool) {
+        return new ToolRegistry() {
+            @Override
+            public Object[] getTools(List<String> toolIds) {
+                return toolIds.contains(id) ? new Object[]{tool} : new Object[0];
+            }
+
+            @Override
+            public List<String> getAvailableToolIds() {
+                return List.of(id);
+            }
+        };
+    }
+
+    /**
+     * Asks for {@code calls} probes in one response, then answers with their results in order.
+     */
+    static class ProbeCallingModel implements ChatModel {
+        private final int calls;
+
+        ProbeCallingModel(int calls) {
+            this.calls = calls;
+        }
+
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            List<String> results = chatRequest.messages().stream()
+                    .filter(ToolExecutionResultMessage.class::isInstance)
+                    .map(m -> ((ToolExecutionResultMessage) m).text())
+                    .toList();
+            if (results.isEmpty()) {
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from(IntStream.range(0, calls)
+                                .mapToObj(i -> ToolExecutionRequest.builder().id("call-" + i).name("probe")
+                                        .arguments("{\"n\": " + i + "}").build())
+                                .toList()))
+                        .build();
+            }
+            return ChatResponse.builder().aiMessage(AiMessage.from(String.join("|", results))).build();
+        }
+    }
+
+    /**
+     * Asks for the same tool call in {@code times} responses one after the other, then answers with the results in
+     * order.
+     */
+    static class RepeatCallingModel implements ChatModel {
+        private final String name;
+        private final String arguments;
+        private final int times;
+
+        RepeatCallingModel(String name, String arguments, int times) {
+            this.name = name;
+            this.arguments = arguments;
+            this.times = times;
+        }
+
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            List<String> results = chatRequest.messages().stream()
+                    .filter(ToolExecutionResultMessage.class::isInstance)
+                    .map(m -> ((ToolExecutionResultMessage) m).text())
+                    .toList();
+            if (results.size() < times) {
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from(List.of(ToolExecutionRequest.builder()
+                                .id("call-" + results.size()).name(name).arguments(arguments).build())))
+                        .build();
+            }
+            return ChatResponse.builder().aiMessage(AiMessage.from(String.join("|", results))).build();
+        }
+    }
+
+    /**
+     * Asks for {@code second} then {@code first} in one response, then answers with the tool results in the order
+     * they came back.
+     */
+    static class ToolCallingModel implements ChatModel {
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            List<String> results = chatRequest.messages().stream()
+                    .filter(ToolExecutionResultMessage.class::isInstance)
+                    .map(m -> ((ToolExecutionResultMessage) m).text())
+                    .toList();
+            if (results.isEmpty()) {
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from(Arrays.asList(
+                                ToolExecutionRequest.builder().id("call-1").name("second").arguments("{}").build(),
+                                ToolExecutionRequest.builder().id("call-2").name("first").arguments("{}").build())))
+                        .build();
+            }
+            return ChatResponse.builder().aiMessage(AiMessage.from(String.join("|", results))).build();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.agenteditor.interpreter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("BranchScope")
+class BranchScopeTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    @DisplayName("returns branches in completion order")
+    void completionOrder() throws InterruptedException {
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        try (BranchScope<String> scope = new BranchScope<>(executor, 0)) {
+            scope.fork(() -> {
+                releaseSlow.await();
+                return "slow";
+            });
+            scope.fork(() -> "fast");
+
+            assertEquals("fast", scope.next(Long.MAX_VALUE).resultNow());
+            releaseSlow.countDown();
+            assertEquals("slow", scope.next(Long.MAX_VALUE).resultNow());
+            assertNull(scope.next(Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("close cancels unfinished branches and returns only after they stopped")
+    void closeWaitsForCancelledBranches() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean stopped = new AtomicBoolean();
+        Future<String> branch;
+        try (BranchScope<String> scope = new BranchScope<>(executor, 0)) {
+            branch = scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    return "never";
+                } finally {
+                    Thread.sleep(50);
+                    stopped.set(true);
+                }
+            });
+            started.await();
+        }
+        assertTrue(branch.isCancelled());
+        assertTrue(stopped.get());
+    }
+
+    @Test
+    @DisplayName("runs at most limit branches at once")
+    void limit() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (BranchScope<Integer> scope = new BranchScope<>(executor, 2)) {
+            for (int i = 0; i < 8; i++) {
+                scope.fork(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    return running.decrementAndGet();
+                });
+            }
+            while (scope.next(Long.MAX_VALUE) != null) {
+                // drain
+            }
+        }
+        assertEquals(2, peak.get());
+    }
+}
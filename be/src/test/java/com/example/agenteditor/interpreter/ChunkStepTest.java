@@ -0,0 +1,79 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ChunkStep")
+class ChunkStepTest {
+
+    private static final String DOCUMENT = "The cat sat on the mat while the dog ran in the park and the bird sang";
+
+    @Test
+    @DisplayName("runs chunk, map and reduce over every chunk and checkpoints the chunks as a descriptor")
+    void chunkMapReduce() {
+        List<String> expected = new ArrayList<>();
+        new TokenEstimator().chunks(DOCUMENT, 4, 1, null).forEach(expected::add);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new WorkflowGraphInterpreterTest.EchoChatModel()),
+                new DefaultToolRegistry(), meters, PromptLimits.DEFAULT, new TokenEstimator());
+        List<Map<String, Object>> checkpoints = new CopyOnWriteArrayList<>();
+        RunContext runContext = new RunContext(partial -> { },
+                (nodeIds, state) -> checkpoints.add(new HashMap<>(state)), Set.of());
+
+        Object result = interpreter.buildEntryRunnable("entry", mapReduce(), runContext).run(Map.of("document", DOCUMENT));
+
+        String answer = String.valueOf(result);
+        int from = 0;
+        for (String chunk : expected) {
+            int at = answer.indexOf("Summarize " + chunk.trim(), from);
+            assertTrue(at >= from, "summary of '" + chunk + "' in order: " + answer);
+            from = at;
+        }
+        assertTrue(expected.size() > 1);
+        assertEquals(expected.size(), meters.counter("agent.chunk.chunks").count());
+
+        Object chunks = checkpoints.stream().filter(state -> state.containsKey("chunks")).findFirst()
+                .orElseThrow().get("chunks");
+        assertInstanceOf(ChunkStep.Chunks.class, chunks);
+        JsonMapper json = JsonMapper.builder().build();
+        Map<String, Object> restored = json.readValue(json.writeValueAsString(Map.of("chunks", chunks)),
+                new TypeReference<Map<String, Object>>() { });
+        assertEquals(chunks, ChunkStep.Chunks.from(restored.get("chunks")));
+    }
+
+    /**
+     * Chunk the document, summarize each chunk, then combine the summaries.
+     */
+    private static List<WorkflowNodeDto> mapReduce() {
+        return List.of(
+                node("llm-1", "llm").build(),
+                node("split", "chunk").inputKey("document").chunkTokens(4).chunkOverlap(1).build(),
+                node("summarize", "agent").llmId("llm-1").name("Summarizer")
+                        .promptTemplate("Summarize {{chunk}}").outputKey("summary").build(),
+                node("summaries", "map").itemsKey("chunks").itemKey("chunk").threadPoolSize(2)
+                        .outputKey("summaries").subAgentIds("summarize").build(),
+                node("combine", "agent").llmId("llm-1").name("Combiner")
+                        .promptTemplate("Combine {{summaries}}").outputKey("answer").build(),
+                node("entry", "sequence").outputKey("answer").subAgentIds("split", "summaries", "combine").build());
+    }
+}
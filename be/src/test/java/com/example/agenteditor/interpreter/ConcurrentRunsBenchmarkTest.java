@@ -0,0 +1,133 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.agenteditor.interpreter.WorkflowFixtures.agent;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.composite;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.llm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent-run capacity with a simulated 100 ms LLM: {@value #RUNS} runs of a sequence with a two-branch
+ * parallel step, served by a 200-thread platform pool (the servlet container's default) and by virtual
+ * threads ({@code spring.threads.virtual.enabled}). Also records JFR {@code jdk.VirtualThreadPinned} events
+ * to catch virtual threads pinned to their carrier. Run with {@code ./gradlew :be:benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Concurrent runs benchmark")
+class ConcurrentRunsBenchmarkTest {
+
+    private static final int RUNS = 2_000;
+    private static final int PLATFORM_POOL = 200;
+    private static final long LLM_MILLIS = 100;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    private final WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+            new StubOpenRouterChatModelFactory(new SlowChatModel()), new DefaultToolRegistry());
+
+    private final List<WorkflowNodeDto> nodes = List.of(
+            llm(),
+            agent("draft", "Draft {{metadata.topic}}", "draft"),
+            agent("facts", "Facts for {{draft}}", "facts"),
+            agent("tone", "Tone of {{draft}}", "tone"),
+            composite("review", "parallel", "review", List.of("facts", "tone")),
+            composite("entry", "sequence", "review", List.of("draft", "review"))
+    );
+
+    @Test
+    @DisplayName("platform pool vs virtual threads")
+    void capacity() throws Exception {
+        runAll(Executors.newVirtualThreadPerTaskExecutor(), 100);
+        peak.set(0);
+
+        double platform = runAll(Executors.newFixedThreadPool(PLATFORM_POOL), RUNS);
+        int platformPeak = peak.getAndSet(0);
+
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        double virtual;
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(String.valueOf(event.getStackTrace())));
+            recording.startAsync();
+            virtual = runAll(Executors.newVirtualThreadPerTaskExecutor(), RUNS);
+        }
+        int virtualPeak = peak.get();
+
+        System.out.printf("platform(%d): %.0f runs/s, peak concurrent runs %d; virtual: %.0f runs/s, peak %d; pinned events %d%n",
+                PLATFORM_POOL, platform, platformPeak, virtual, virtualPeak, pinned.size());
+        pinned.stream().limit(3).forEach(System.out::println);
+        assertTrue(platformPeak <= PLATFORM_POOL);
+        assertTrue(virtualPeak > PLATFORM_POOL);
+        assertEquals(List.of(), pinned);
+    }
+
+    /**
+     * Runs {@code runs} workflows on the executor and returns runs per second.
+     */
+    private double runAll(ExecutorService executor, int runs) throws Exception {
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                futures.add(executor.submit(this::runOnce));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return runs / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private void runOnce() {
+        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            interpreter.buildEntryRunnable("entry", nodes, new RunContext())
+                    .run(Map.of("metadata", Map.of("topic", "a robot")));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Answers every request after {@link #LLM_MILLIS}, blocking like an HTTP call to the provider.
+     */
+    private static final class SlowChatModel implements ChatModel {
+
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            try {
+                Thread.sleep(LLM_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ChatResponse.builder()
+                    .aiMessage(AiMessage.from("ok"))
+                    .finishReason(FinishReason.STOP)
+                    .build();
+        }
+    }
+}
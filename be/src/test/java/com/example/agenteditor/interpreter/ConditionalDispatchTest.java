@@ -0,0 +1,91 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ConditionalDispatch")
+class ConditionalDispatchTest {
+
+    private static final List<ConditionalBranchDto> BRANCHES = List.of(
+            new ConditionalBranchDto("category", "creative", "writer"),
+            new ConditionalBranchDto("category", "technical", "engineer")
+    );
+
+    @Test
+    @DisplayName("routes exact values without normalization")
+    void routesExactValues() {
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(conditional(null, "fallback"), new SimpleMeterRegistry());
+        assertEquals("engineer", dispatch.route(scope(Map.of("category", "technical"))));
+        assertEquals("fallback", dispatch.route(scope(Map.of("category", "CREATIVE\n"))));
+    }
+
+    @Test
+    @DisplayName("IGNORE_CASE trims and case-folds routed values")
+    void ignoreCaseNormalizes() {
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(conditional("ignore_case", null), new SimpleMeterRegistry());
+        assertEquals("writer", dispatch.route(scope(Map.of("category", "CREATIVE\n"))));
+    }
+
+    @Test
+    @DisplayName("fails when nothing matches and no default is declared")
+    void unmatchedWithoutDefaultFails() {
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(conditional("TRIM", null), new SimpleMeterRegistry());
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> dispatch.route(scope(Map.of("category", "poetry"))));
+        assertTrue(ex.getMessage().contains("category='poetry'"));
+    }
+
+    @Test
+    @DisplayName("only the routed agent's predicate selects it")
+    void predicatesSelectOneAgent() {
+        ConditionalDispatch dispatch = ConditionalDispatch.compile(conditional("TRIM", "fallback"), new SimpleMeterRegistry());
+        assertEquals(Set.of("writer", "engineer", "fallback"), dispatch.agentIds());
+        AgenticScope scope = scope(Map.of("category", " technical "));
+        assertFalse(dispatch.selects(scope, "writer", true));
+        assertTrue(dispatch.selects(scope, "engineer", false));
+        assertFalse(dispatch.selects(scope, "fallback", false));
+    }
+
+    @Test
+    @DisplayName("rejects one value mapped to two agents")
+    void rejectsConflictingBranches() {
+        WorkflowNodeDto node = node("cond", "conditional")
+                .routerAgentId("router")
+                .branches(List.of(new ConditionalBranchDto("category", "a", "writer"), new ConditionalBranchDto("category", "A ", "engineer")))
+                .branchNormalization("IGNORE_CASE")
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> ConditionalDispatch.compile(node, new SimpleMeterRegistry()));
+    }
+
+    private static WorkflowNodeDto conditional(String normalization, String defaultAgentId) {
+        return node("cond", "conditional")
+                .routerAgentId("router")
+                .branches(BRANCHES)
+                .branchNormalization(normalization)
+                .defaultAgentId(defaultAgentId)
+                .build();
+    }
+
+    private static AgenticScope scope(Map<String, Object> state) {
+        return (AgenticScope) Proxy.newProxyInstance(
+                AgenticScope.class.getClassLoader(),
+                new Class<?>[]{AgenticScope.class},
+                (proxy, method, args) -> "readState".equals(method.getName()) ? state.get(args[0]) : null
+        );
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.StubChatModel;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import dev.langchain4j.agentic.UntypedAgent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static com.example.agenteditor.interpreter.WorkflowFixtures.agent;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.composite;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.llm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@DisplayName("DagScheduler")
+class DagSchedulerTest {
+
+    @Test
+    @DisplayName("orders units only on shared scope keys and never across parallel branches")
+    void plansDependenciesFromKeys() {
+        List<WorkflowNodeDto> nodes = List.of(
+                agent("topic", "Topic: {{metadata.topic}}", "x"),
+                agent("style", "Style: {{metadata.style}}", "y"),
+                agent("combine", "{{x}} in {{y}}", "z"),
+                agent("left", null, "l"),
+                agent("right", null, "r"),
+                composite("fan", "parallel", "plan", List.of("left", "right")),
+                agent("review", null, "review"),
+                composite("entry", "sequence", "review", List.of("topic", "style", "combine", "fan", "review"))
+        );
+        DagScheduler scheduler = scheduler(nodes);
+
+        List<DagScheduler.Unit> units = scheduler.units();
+        assertEquals(List.of("topic", "style", "combine", "left", "right", "fan", "review"),
+                units.stream().map(u -> u.node().id()).toList());
+        assertEquals(List.of(), units.get(0).dependencies());
+        assertEquals(List.of(), units.get(1).dependencies());
+        assertEquals(List.of(0, 1), units.get(2).dependencies());
+        assertEquals(List.of(0, 1, 2), units.get(3).dependencies());
+        assertEquals(List.of(0, 1, 2), units.get(4).dependencies());
+        assertEquals(true, units.get(5).join());
+        assertEquals(List.of(0, 1, 2, 3, 4), units.get(5).dependencies());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), units.get(6).dependencies());
+    }
+
+    @Test
+    @DisplayName("runs a sequence on the DAG engine and returns the entry output with the final state")
+    void runsSequence() {
+        var interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new StubChatModel("stub reply")), new DefaultToolRegistry());
+        List<WorkflowNodeDto> nodes = List.of(
+                llm(),
+                agent("topic", "Topic: {{metadata.topic}}", "x"),
+                agent("style", "Style: {{metadata.style}}", "y"),
+                agent("combine", "{{x}} in {{y}}", "z"),
+                composite("entry", "sequence", "z", List.of("topic", "style", "combine"))
+        );
+
+        Object result = interpreter.buildDagRunnable("entry", nodes, new RunContext())
+                .run(Map.of("metadata", Map.of("topic", "a robot", "style", "noir")));
+
+        WorkflowExecution execution = assertInstanceOf(WorkflowExecution.class, result);
+        assertEquals("stub reply", execution.result());
+        assertEquals("stub reply", execution.state().get("x"));
+        assertEquals("stub reply", execution.state().get("y"));
+        assertEquals("stub reply", execution.state().get("z"));
+        assertEquals(3, execution.scopes().size());
+    }
+
+    @Test
+    @DisplayName("skips units covered by resume checkpoints and checkpoints the others")
+    void resumesFromCheckpoint() {
+        var interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new StubChatModel("stub reply")), new DefaultToolRegistry());
+        List<WorkflowNodeDto> nodes = List.of(
+                llm(),
+                agent("topic", "Topic: {{metadata.topic}}", "x"),
+                agent("style", "Style: {{metadata.style}}", "y"),
+                agent("combine", "{{x}} in {{y}}", "z"),
+                composite("entry", "sequence", "z", List.of("topic", "style", "combine"))
+        );
+        List<List<String>> checkpoints = new CopyOnWriteArrayList<>();
+        RunContext runContext = new RunContext(partial -> { },
+                (nodeIds, state) -> checkpoints.add(nodeIds), Set.of("topic"));
+
+        Object result = interpreter.buildDagRunnable("entry", nodes, runContext)
+                .run(Map.of("x", "checkpointed", "metadata", Map.of("topic", "a robot", "style", "noir")));
+
+        WorkflowExecution execution = assertInstanceOf(WorkflowExecution.class, result);
+        assertEquals("checkpointed", execution.state().get("x"));
+        assertEquals(List.of(List.of("style"), List.of("combine")), checkpoints);
+        assertEquals(2, execution.scopes().size());
+    }
+
+    private static DagScheduler scheduler(List<WorkflowNodeDto> nodes) {
+        Map<String, WorkflowNodeDto> byId = new HashMap<>();
+        Map<String, UntypedAgent> agents = new HashMap<>();
+        for (WorkflowNodeDto node : nodes) {
+            byId.put(node.id(), node);
+            agents.put(node.id(), (UntypedAgent) Proxy.newProxyInstance(UntypedAgent.class.getClassLoader(),
+                    new Class<?>[]{UntypedAgent.class}, (proxy, method, args) -> null));
+        }
+        return new DagScheduler(byId.get("entry"), byId, Map.of("metadata", Map.of("topic", "a robot", "style", "noir")),
+                agents, Executors.newVirtualThreadPerTaskExecutor(), new SimpleMeterRegistry(), (node, state) -> "");
+    }
+}
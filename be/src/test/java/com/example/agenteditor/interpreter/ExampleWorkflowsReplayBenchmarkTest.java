@@ -0,0 +1,87 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowCreateRequest;
+import com.example.agenteditor.llm.CassetteStore;
+import com.example.agenteditor.llm.CircuitBreaker;
+import com.example.agenteditor.llm.CircuitBreakerRegistry;
+import com.example.agenteditor.llm.OpenRouterChatModelFactory;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The example workflows replayed from LLM cassettes with their recorded latencies, so runs see realistic payloads,
+ * tool calls and timing without calling a provider. Reports mean and p95 run latency per workflow.
+ * <p>
+ * Record the cassettes once (needs {@code OPENROUTER_API_KEY}):
+ * {@code ./gradlew :be:benchmark -Pcassettes=data/cassettes -PcassetteMode=RECORD}; then replay offline with
+ * {@code ./gradlew :be:benchmark -Pcassettes=data/cassettes}. Skipped when the cassette directory does not exist.
+ * Replay is not strict because the story workflow's time tool makes its follow-up prompts differ between runs.
+ * </p>
+ */
+@Tag("benchmark")
+@DisplayName("Example workflows replay benchmark")
+class ExampleWorkflowsReplayBenchmarkTest {
+
+    private static final List<String> EXAMPLES = List.of(
+            "story-workflow.json",
+            "evening-plan-workflow.json",
+            "expert-router-workflow.json",
+            "supervisor-workflow.json");
+    private static final Map<String, Object> INPUT = Map.of("metadata", Map.of(
+            "prompt", "Plan a relaxed evening at home",
+            "topic", "a lighthouse keeper",
+            "style", "whimsical",
+            "mood", "cozy"));
+
+    @Test
+    @DisplayName("run latency per example workflow")
+    void replay() throws Exception {
+        Path directory = Path.of(System.getProperty("cassettes", "data/cassettes"));
+        CassetteStore.Mode mode = CassetteStore.Mode.valueOf(System.getProperty("cassette.mode", "REPLAY"));
+        int runs = mode == CassetteStore.Mode.RECORD ? 1 : Integer.getInteger("cassette.runs", 20);
+        assumeTrue(mode == CassetteStore.Mode.RECORD || Files.isDirectory(directory),
+                "no cassettes in " + directory.toAbsolutePath());
+
+        JsonMapper json = JsonMapper.builder().build();
+        try (CassetteStore cassettes = new CassetteStore(mode, directory, true, false)) {
+            OpenRouterChatModelFactory factory = new OpenRouterChatModelFactory(System.getenv("OPENROUTER_API_KEY"),
+                    "https://openrouter.ai/api/v1", "openai/gpt-4o-mini",
+                    new CircuitBreakerRegistry(false, CircuitBreaker.Settings.DEFAULT, new SimpleMeterRegistry()),
+                    cassettes);
+            WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(factory, new DefaultToolRegistry());
+            for (String example : EXAMPLES) {
+                WorkflowCreateRequest workflow;
+                try (InputStream in = getClass().getClassLoader().getResourceAsStream("examples/" + example)) {
+                    workflow = json.readValue(in, WorkflowCreateRequest.class);
+                }
+                List<Long> latencies = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    Object result = interpreter.buildEntryRunnable(workflow.entryNodeId(), workflow.nodes()).run(INPUT);
+                    latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    assertNotNull(result, example);
+                }
+                Collections.sort(latencies);
+                System.out.printf("%s (%s, %d runs): mean %.0f ms, p95 %d ms%n", workflow.name(), mode, runs,
+                        latencies.stream().mapToLong(Long::longValue).average().orElse(0),
+                        latencies.get((int) Math.ceil(latencies.size() * 0.95) - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.agenteditor.interpreter.WorkflowFixtures.agent;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.composite;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.llm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("IncrementalPlanner")
+class IncrementalPlannerTest {
+
+    private static final Map<String, Object> INPUT = Map.of("metadata", Map.of("topic", "a robot", "style", "noir"));
+
+    private final List<WorkflowNodeDto> previous = List.of(
+            llm(),
+            agent("a", "Topic: {{metadata.topic}}", "x"),
+            agent("b", "Expand {{x}}", "y"),
+            agent("e", "Style: {{metadata.style}}", "w"),
+            agent("c", "Combine {{y}} and {{w}}", "z"),
+            composite("entry", "sequence", "z", List.of("a", "b", "e", "c"))
+    );
+
+    private final List<CheckpointedStep> history = List.of(
+            new CheckpointedStep(List.of(), INPUT),
+            new CheckpointedStep(List.of("a"), Map.of("metadata", INPUT.get("metadata"), "x", "X1")),
+            new CheckpointedStep(List.of("b"), Map.of("metadata", INPUT.get("metadata"), "x", "X1", "y", "Y1")),
+            new CheckpointedStep(List.of("e"), Map.of("metadata", INPUT.get("metadata"), "x", "X1", "y", "Y1", "w", "W1")),
+            new CheckpointedStep(List.of("c"), Map.of("metadata", INPUT.get("metadata"), "x", "X1", "y", "Y1", "w", "W1", "z", "Z1"))
+    );
+
+    @Test
+    @DisplayName("reruns only the edited last step and reuses everything upstream")
+    void editedLastStep() {
+        List<WorkflowNodeDto> edited = replace(agent("c", "Summarize {{y}} with {{w}}", "z"));
+
+        IncrementalPlanner.Plan plan = IncrementalPlanner.plan(previous, edited, history, INPUT);
+
+        assertEquals(Set.of("a", "b", "e"), plan.reusedNodeIds());
+        assertEquals(Set.of("c"), plan.dirtyNodeIds());
+        assertEquals("Y1", plan.state().get("y"));
+        assertEquals("W1", plan.state().get("w"));
+    }
+
+    @Test
+    @DisplayName("reruns dependents of an edited step but keeps the recorded writes of independent later steps")
+    void editedMiddleStep() {
+        List<WorkflowNodeDto> edited = replace(agent("b", "Rewrite {{x}}", "y"));
+
+        IncrementalPlanner.Plan plan = IncrementalPlanner.plan(previous, edited, history, INPUT);
+
+        assertEquals(Set.of("a", "e"), plan.reusedNodeIds());
+        assertEquals(Set.of("b", "c"), plan.dirtyNodeIds());
+        assertEquals("X1", plan.state().get("x"));
+        assertEquals("W1", plan.state().get("w"));
+        assertFalse(plan.state().containsKey("y"));
+    }
+
+    @Test
+    @DisplayName("reruns only the steps reading a changed metadata entry")
+    void changedInput() {
+        Map<String, Object> input = Map.of("metadata", Map.of("topic", "a cat", "style", "noir"));
+
+        IncrementalPlanner.Plan plan = IncrementalPlanner.plan(previous, previous, history, input);
+
+        assertEquals(Set.of("e"), plan.reusedNodeIds());
+        assertEquals(Set.of("a", "b", "c"), plan.dirtyNodeIds());
+        assertEquals(input.get("metadata"), plan.state().get("metadata"));
+    }
+
+    @Test
+    @DisplayName("reruns an agent that prompted from the metadata because its template rendered empty")
+    void metadataFallback() {
+        List<WorkflowNodeDto> nodes = List.of(
+                llm(),
+                agent("a", "Topic: {{metadata.topic}}", "x"),
+                agent("f", "Notes: {{notes}}", "n"),
+                composite("entry", "sequence", "n", List.of("a", "f")));
+        List<CheckpointedStep> steps = List.of(
+                history.get(0),
+                history.get(1),
+                new CheckpointedStep(List.of("f"), Map.of("metadata", INPUT.get("metadata"), "x", "X1", "n", "N1")));
+        Map<String, Object> input = Map.of("metadata", Map.of("topic", "a robot", "style", "pulp"));
+
+        IncrementalPlanner.Plan plan = IncrementalPlanner.plan(nodes, nodes, steps, input);
+
+        assertEquals(Set.of("a"), plan.reusedNodeIds());
+        assertEquals(Set.of("f"), plan.dirtyNodeIds());
+    }
+
+    @Test
+    @DisplayName("rejects a run without a recorded input")
+    void requiresRecordedInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IncrementalPlanner.plan(previous, previous, history.subList(1, history.size()), INPUT));
+    }
+
+    private List<WorkflowNodeDto> replace(WorkflowNodeDto node) {
+        return previous.stream().map(n -> n.id().equals(node.id()) ? node : n).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.agenteditor.interpreter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("LlmCallScheduler")
+class LlmCallSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    @DisplayName("shares permits between backlogged tenants in proportion to their weights")
+    void weightedFairShare() throws Exception {
+        LlmCallScheduler scheduler = scheduler(1, Map.of("a", new TenantQuota(2, 0, 0)));
+        LlmCallScheduler.Permit held = scheduler.acquire(caller("x"));
+        List<String> served = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(call(scheduler, "a", served));
+            calls.add(call(scheduler, "b", served));
+        }
+        awaitQueue(12);
+
+        held.close();
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, served.subList(0, 6).stream().filter("a"::equals).count());
+        assertEquals(7.0, registry.get("agent.tenant.llm.calls").tag("tenant", RunCaller.DEFAULT_TENANT).counter().count());
+    }
+
+    @Test
+    @DisplayName("holds a tenant to its concurrency limit without blocking other tenants")
+    void tenantConcurrencyLimit() throws Exception {
+        LlmCallScheduler scheduler = scheduler(0, Map.of("a", new TenantQuota(1, 1, 0)));
+        LlmCallScheduler.Permit first = scheduler.acquire(caller("a"));
+
+        CompletableFuture<LlmCallScheduler.Permit> second = CompletableFuture.supplyAsync(() -> scheduler.acquire(caller("a")), executor);
+        awaitQueue(1);
+        scheduler.acquire(caller("b")).close();
+        assertFalse(second.isDone());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1.0, registry.get("agent.tenant.llm.throttled").tag("tenant", "a").tag("reason", "concurrency")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("makes a tenant that used up its tokens wait for the bucket to refill")
+    void tokenQuota() {
+        // 100,000 tokens per second
+        LlmCallScheduler scheduler = scheduler(0, Map.of("a", new TenantQuota(1, 0, 6_000_000)));
+        try (LlmCallScheduler.Permit permit = scheduler.acquire(caller("a"))) {
+            permit.tokens(6_010_000);
+        }
+
+        long start = System.nanoTime();
+        scheduler.acquire(caller("a")).close();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(80));
+        assertEquals(1.0, registry.get("agent.tenant.llm.throttled").tag("tenant", "a").tag("reason", "tokens")
+                .counter().count());
+        assertEquals(6_010_000.0, registry.get("agent.tenant.llm.tokens").tag("tenant", "a").counter().count());
+    }
+
+    @Test
+    @DisplayName("puts unknown tenant ids on the default tenant and its quota")
+    void unknownTenantsShareDefault() throws Exception {
+        LlmCallScheduler scheduler = new LlmCallScheduler(0, Duration.ofSeconds(2),
+                Map.of("a", TenantQuota.UNLIMITED), new TenantQuota(1, 1, 0), registry);
+        LlmCallScheduler.Permit first = scheduler.acquire(caller("made-up-1"));
+
+        CompletableFuture<LlmCallScheduler.Permit> second = CompletableFuture.supplyAsync(
+                () -> scheduler.acquire(caller("made-up-2")), executor);
+        awaitQueue(1);
+        scheduler.acquire(caller("a")).close();
+        assertFalse(second.isDone());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(2.0, registry.get("agent.tenant.llm.calls").tag("tenant", RunCaller.DEFAULT_TENANT).counter().count());
+        assertTrue(registry.find("agent.tenant.llm.calls").tag("tenant", "made-up-1").counters().isEmpty());
+        assertTrue(registry.find("agent.tenant.llm.calls").tag("tenant", "made-up-2").counters().isEmpty());
+    }
+
+    private LlmCallScheduler scheduler(int maxConcurrentCalls, Map<String, TenantQuota> quotas) {
+        return new LlmCallScheduler(maxConcurrentCalls, Duration.ofSeconds(2), quotas, TenantQuota.UNLIMITED, registry);
+    }
+
+    private CompletableFuture<Void> call(LlmCallScheduler scheduler, String tenant, List<String> served) {
+        return CompletableFuture.runAsync(() -> {
+            try (LlmCallScheduler.Permit permit = scheduler.acquire(caller(tenant))) {
+                served.add(tenant);
+            }
+        }, executor);
+    }
+
+    private static RunCaller caller(String tenant) {
+        return new RunCaller(tenant, RunPriority.STANDARD);
+    }
+
+    private void awaitQueue(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("agent.llm.permits.queue").gauge().value() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
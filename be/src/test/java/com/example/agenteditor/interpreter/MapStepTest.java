@@ -0,0 +1,113 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.PartialResultDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.TokenEstimator;
+import dev.langchain4j.agentic.UntypedAgent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("MapStep")
+class MapStepTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("keeps input order and never exceeds the concurrency limit")
+    void preservesOrderWithBoundedConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        UntypedAgent agent = agent(input -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return "r" + input.get("doc");
+        });
+        List<PartialResultDto> partials = new CopyOnWriteArrayList<>();
+        MapStep step = new MapStep(mapNode(3, true), agent, "summarizer", executor, new SimpleMeterRegistry(),
+                new TokenEstimator(), new RunContext(partials::add));
+
+        List<Object> results = step.map(IntStream.range(0, 200).boxed().iterator(), Map.of("metadata", Map.of()));
+
+        assertEquals(IntStream.range(0, 200).mapToObj(i -> "r" + i).toList(), results);
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(200, partials.size());
+    }
+
+    @Test
+    @DisplayName("fails the node when an element fails")
+    void failsOnElementFailure() {
+        UntypedAgent agent = agent(input -> {
+            if (Integer.valueOf(7).equals(input.get("doc"))) {
+                throw new IllegalArgumentException("bad element");
+            }
+            return "ok";
+        });
+        MapStep step = new MapStep(mapNode(4, false), agent, "summarizer", executor, new SimpleMeterRegistry(),
+                new TokenEstimator(), new RunContext());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> step.map(IntStream.range(0, 50).boxed().iterator(), Map.of()));
+        assertTrue(ex.getMessage().contains("bad element"));
+    }
+
+    @Test
+    @DisplayName("passes each element's position under the item key's index key, leaving input keys alone")
+    void positionDoesNotShadowInput() {
+        UntypedAgent agent = agent(input -> input.get("index") + ":" + input.get("docIndex") + ":" + input.get("doc"));
+        MapStep step = new MapStep(mapNode(2, false), agent, "summarizer", executor, new SimpleMeterRegistry(),
+                new TokenEstimator(), new RunContext());
+
+        List<Object> results = step.map(List.of("a", "b").iterator(), Map.of("index", "catalog"));
+
+        assertEquals(List.of("catalog:0:a", "catalog:1:b"), results);
+    }
+
+    private static WorkflowNodeDto mapNode(int concurrency, boolean stream) {
+        return node("map-docs", "map")
+                .outputKey("summaries")
+                .subAgentIds("summarizer")
+                .threadPoolSize(concurrency)
+                .itemsKey("docs")
+                .itemKey("doc")
+                .streamResults(stream)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UntypedAgent agent(Function<Map<String, Object>, Object> body) {
+        return (UntypedAgent) Proxy.newProxyInstance(
+                UntypedAgent.class.getClassLoader(),
+                new Class<?>[]{UntypedAgent.class},
+                (proxy, method, args) -> "invoke".equals(method.getName()) && args != null && args.length == 1
+                        ? body.apply((Map<String, Object>) args[0])
+                        : null
+        );
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ParallelCompletion")
+class ParallelCompletionTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch blocking = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("FIRST_N proceeds with the first successes and cancels the losing branches")
+    void firstN() throws InterruptedException {
+        Map<String, Object> state = run("FIRST_N", 1, null, Map.of(
+                "fast", afterBlockingStarted("fast result"),
+                "slow", this::blockUntilCancelled));
+
+        assertEquals(Map.of("fast", "fast result"), state.get("plan"));
+        assertEquals("fast result", state.get("fastOut"));
+        assertFalse(state.containsKey("slowOut"));
+        assertTrue(interrupted.await(0, TimeUnit.SECONDS), "losing branch has stopped before the step returns");
+        assertEquals(1, registry.counter("agent.parallel.branches", "outcome", "cancelled").count());
+        assertEquals(1, registry.counter("agent.parallel.completions", "policy", "FIRST_N", "outcome", "partial").count());
+    }
+
+    @Test
+    @DisplayName("QUORUM proceeds with a majority despite a failed branch")
+    void quorum() {
+        Map<String, Object> state = run("QUORUM", null, null, Map.of(
+                "a", () -> "A",
+                "b", () -> {
+                    throw new IllegalStateException("b failed");
+                },
+                "c", () -> "C"));
+
+        assertEquals(Map.of("a", "A", "c", "C"), state.get("plan"));
+        assertFalse(state.containsKey("bOut"));
+    }
+
+    @Test
+    @DisplayName("QUORUM fails as soon as the majority can no longer be reached")
+    void quorumUnreachable() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> run("QUORUM", null, null, Map.of(
+                "a", () -> {
+                    throw new IllegalStateException("a failed");
+                },
+                "b", () -> {
+                    throw new IllegalStateException("b failed");
+                },
+                "c", this::blockUntilCancelled)));
+
+        assertTrue(ex.getMessage().contains("needed 2 branches"));
+        assertTrue(ex.getCause().getMessage().endsWith("failed"));
+    }
+
+    @Test
+    @DisplayName("DEADLINE proceeds with what succeeded in time and cancels the rest")
+    void deadline() throws InterruptedException {
+        Map<String, Object> state = run("DEADLINE", null, 200L, Map.of(
+                "fast", afterBlockingStarted("fast result"),
+                "slow", this::blockUntilCancelled));
+
+        assertEquals(Map.of("fast", "fast result"), state.get("plan"));
+        assertTrue(interrupted.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("DEADLINE fails when every branch failed")
+    void deadlineAllFailed() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> run("DEADLINE", null, 1_000L, Map.of(
+                "a", () -> {
+                    throw new IllegalStateException("a failed");
+                },
+                "b", () -> {
+                    throw new IllegalStateException("b failed");
+                })));
+
+        assertTrue(ex.getMessage().contains("no successful branch"));
+    }
+
+    private Map<String, Object> run(String policy, Integer requiredCount, Long deadlineMs,
+                                    Map<String, Supplier<Object>> bodies) {
+        List<String> branchIds = bodies.keySet().stream().sorted().toList();
+        WorkflowNodeDto node = node("parallel", "parallel")
+                .outputKey("plan")
+                .subAgentIds(branchIds)
+                .completionPolicy(policy)
+                .requiredCount(requiredCount)
+                .deadlineMs(deadlineMs)
+                .build();
+        Map<String, UntypedAgent> agents = new LinkedHashMap<>();
+        Map<String, WorkflowNodeDto> branchNodes = new LinkedHashMap<>();
+        for (String branchId : branchIds) {
+            agents.put(branchId, agent(bodies.get(branchId)));
+            branchNodes.put(branchId, node(branchId, "agent").outputKey(branchId + "Out").build());
+        }
+        Map<String, Object> state = new ConcurrentHashMap<>();
+        new ParallelCompletion(node, ParallelCompletion.Policy.parse(policy), agents, branchNodes, executor, registry,
+                new RunContext()).run(scope(state));
+        return state;
+    }
+
+    private Supplier<Object> afterBlockingStarted(Object result) {
+        return () -> {
+            try {
+                assertTrue(blocking.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+    }
+
+    private Object blockUntilCancelled() {
+        blocking.countDown();
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            Thread.currentThread().interrupt();
+        }
+        return "too late";
+    }
+
+    private static UntypedAgent agent(Supplier<Object> body) {
+        return (UntypedAgent) Proxy.newProxyInstance(
+                UntypedAgent.class.getClassLoader(),
+                new Class<?>[]{UntypedAgent.class},
+                (proxy, method, args) -> "invoke".equals(method.getName()) ? body.get() : null
+        );
+    }
+
+    private static AgenticScope scope(Map<String, Object> state) {
+        return (AgenticScope) Proxy.newProxyInstance(
+                AgenticScope.class.getClassLoader(),
+                new Class<?>[]{AgenticScope.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "state" -> state;
+                    case "readState" -> state.get(args[0]);
+                    case "writeState" -> {
+                        state.put((String) args[0], args[1]);
+                        yield null;
+                    }
+                    default -> null;
+                }
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.agenteditor.interpreter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Interactive call latency under batch load: {@value #BATCH_CALLS} batch calls and a trickle of
+ * {@value #INTERACTIVE_CALLS} interactive calls share {@value #PERMITS} LLM call permits of a simulated
+ * {@value #LLM_MILLIS} ms model. Reports p95 end-to-end call latency per class. Run with
+ * {@code ./gradlew :be:benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Priority latency benchmark")
+class PriorityLatencyBenchmarkTest {
+
+    private static final int PERMITS = 8;
+    private static final int BATCH_CALLS = 800;
+    private static final int INTERACTIVE_CALLS = 40;
+    private static final long LLM_MILLIS = 20;
+
+    @Test
+    @DisplayName("interactive p95 stays near one call under a batch backlog")
+    void interactiveLatency() throws Exception {
+        LlmCallScheduler scheduler = new LlmCallScheduler(PERMITS, Duration.ofSeconds(2), new SimpleMeterRegistry());
+        List<Long> batch = new CopyOnWriteArrayList<>();
+        List<Long> interactive = new CopyOnWriteArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BATCH_CALLS; i++) {
+                futures.add(executor.submit(() -> call(scheduler, RunPriority.BATCH, batch)));
+            }
+            for (int i = 0; i < INTERACTIVE_CALLS; i++) {
+                Thread.sleep(LLM_MILLIS);
+                futures.add(executor.submit(() -> call(scheduler, RunPriority.INTERACTIVE, interactive)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long interactiveP95 = p95(interactive);
+        long batchP95 = p95(batch);
+        System.out.printf("p95 latency: interactive %d ms, batch %d ms (%d permits, %d ms calls)%n",
+                interactiveP95, batchP95, PERMITS, LLM_MILLIS);
+        assertTrue(interactiveP95 < 10 * LLM_MILLIS, "interactive p95 " + interactiveP95 + " ms");
+    }
+
+    private static void call(LlmCallScheduler scheduler, RunPriority priority, List<Long> latencies) {
+        long start = System.nanoTime();
+        try (LlmCallScheduler.Permit permit = scheduler.acquire(new RunCaller(RunCaller.DEFAULT_TENANT, priority))) {
+            Thread.sleep(LLM_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static long p95(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.agenteditor.interpreter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("PriorityWaitQueue")
+class PriorityWaitQueueTest {
+
+    @Test
+    @DisplayName("serves higher classes first and arrival order within a class")
+    void strictPriority() {
+        PriorityWaitQueue<String> queue = new PriorityWaitQueue<>(0);
+        queue.add(RunPriority.BATCH, "batch-1");
+        queue.add(RunPriority.STANDARD, "standard-1");
+        queue.add(RunPriority.INTERACTIVE, "interactive-1");
+        queue.add(RunPriority.INTERACTIVE, "interactive-2");
+
+        assertEquals("interactive-1", queue.poll());
+        assertEquals("interactive-2", queue.poll());
+        assertEquals("standard-1", queue.poll());
+        assertEquals("batch-1", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    @DisplayName("promotes a long-waiting batch waiter ahead of newer interactive waiters")
+    void agesBatchWaiters() throws InterruptedException {
+        PriorityWaitQueue<String> queue = new PriorityWaitQueue<>(TimeUnit.MILLISECONDS.toNanos(10));
+        queue.add(RunPriority.BATCH, "batch");
+        Thread.sleep(30);
+        queue.add(RunPriority.INTERACTIVE, "interactive");
+
+        assertEquals("batch", queue.poll());
+        assertEquals("interactive", queue.poll());
+    }
+
+    @Test
+    @DisplayName("removes a waiter that gave up")
+    void removesWaiter() {
+        PriorityWaitQueue<String> queue = new PriorityWaitQueue<>(0);
+        queue.add(RunPriority.STANDARD, "a");
+        queue.add(RunPriority.BATCH, "b");
+
+        assertTrue(queue.remove("a"));
+        assertFalse(queue.remove("a"));
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.size(RunPriority.BATCH));
+        assertEquals("b", queue.poll());
+    }
+}
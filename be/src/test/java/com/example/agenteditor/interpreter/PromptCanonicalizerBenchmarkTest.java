@@ -0,0 +1,56 @@
+package com.example.agenteditor.interpreter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Formats multi-megabyte scope states (large parallel-branch outputs) with the bounded serializer and with
+ * the previous {@code reduce((a, b) -> a + "\n" + b)} concatenation. Run with {@code ./gradlew :be:benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("PromptCanonicalizer benchmark")
+class PromptCanonicalizerBenchmarkTest {
+
+    private static final int ITERATIONS = 50;
+
+    @Test
+    @DisplayName("bounded formatting of a 16 MB scope state")
+    void boundedFormattingOfLargeScope() {
+        Map<String, Object> state = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            state.put("branch_" + i, ("output " + i + " ").repeat(110_000));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            state.put("small_" + i, "value " + i);
+        }
+
+        AtomicInteger truncations = new AtomicInteger();
+        PromptLimits limits = PromptLimits.DEFAULT;
+        long boundedNanos = time(() -> PromptCanonicalizer.formatEntries(state, limits, (k, o, kept) -> truncations.incrementAndGet()));
+        long naiveNanos = time(() -> state.entrySet().stream()
+                .map(e -> e.getKey() + ": " + e.getValue())
+                .reduce((a, b) -> a + "\n" + b)
+                .orElse(null));
+
+        String formatted = PromptCanonicalizer.formatEntries(state, limits, TruncationListener.NONE);
+        System.out.printf("bounded: %.2f ms/op, naive reduce: %.2f ms/op, truncations/op: %d, output chars: %d%n",
+                boundedNanos / 1e6 / ITERATIONS, naiveNanos / 1e6 / ITERATIONS, truncations.get() / (ITERATIONS + 1), formatted.length());
+        assertTrue(formatted.length() <= limits.maxPromptChars());
+    }
+
+    private static long time(Runnable work) {
+        work.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            work.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
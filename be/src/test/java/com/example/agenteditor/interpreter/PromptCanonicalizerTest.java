@@ -0,0 +1,90 @@
+package com.example.agenteditor.interpreter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("PromptCanonicalizer")
+class PromptCanonicalizerTest {
+
+    @Test
+    @DisplayName("formats entries in key order regardless of map iteration order")
+    void formatsEntriesInKeyOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("topic", "robots");
+        first.put("mood", "cozy");
+        first.put("metadata", Map.of("style", "noir", "prompt", "Write."));
+        Map<String, Object> second = new HashMap<>();
+        second.put("metadata", new LinkedHashMap<>(Map.of("prompt", "Write.", "style", "noir")));
+        second.put("mood", "cozy");
+        second.put("topic", "robots");
+
+        String expected = "metadata: {prompt=Write., style=noir}\nmood: cozy\ntopic: robots";
+        assertEquals(expected, PromptCanonicalizer.formatEntries(first));
+        assertEquals(expected, PromptCanonicalizer.formatEntries(second));
+    }
+
+    @Test
+    @DisplayName("skips null keys and values and returns null for empty input")
+    void skipsNullsAndHandlesEmpty() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", null);
+        assertNull(PromptCanonicalizer.formatEntries(map));
+        assertNull(PromptCanonicalizer.formatEntries(Map.of()));
+    }
+
+    @Test
+    @DisplayName("normalizes line endings, trailing spaces and blank line runs")
+    void normalizesWhitespace() {
+        assertEquals("Task: write  \tnow\n\nDone", PromptCanonicalizer.normalizeWhitespace("  Task: write  \tnow   \r\n\r\n\r\n\r\nDone \n"));
+    }
+
+    @Test
+    @DisplayName("canonical tool ids are sorted and distinct")
+    void canonicalToolIds() {
+        assertEquals(List.of("calculator", "time"), PromptCanonicalizer.canonicalToolIds(List.of("time", "calculator", "time")));
+        assertEquals(List.of(), PromptCanonicalizer.canonicalToolIds(null));
+    }
+
+    @Test
+    @DisplayName("caps each value and reports the cut with original and kept length")
+    void capsValuesAndReportsTruncation() {
+        List<long[]> cuts = new ArrayList<>();
+        String formatted = PromptCanonicalizer.formatEntries(
+                Map.of("big", "x".repeat(1_000), "small", "ok"),
+                new PromptLimits(10, 0),
+                (key, originalChars, keptChars) -> cuts.add(new long[]{originalChars, keptChars})
+        );
+        assertEquals("big: xxxxxxxxxx" + PromptCanonicalizer.TRUNCATION_MARKER + "\nsmall: ok", formatted);
+        assertEquals(1, cuts.size());
+        assertEquals(1_000, cuts.get(0)[0]);
+        assertEquals(10, cuts.get(0)[1]);
+    }
+
+    @Test
+    @DisplayName("drops entries once the prompt cap is reached")
+    void dropsEntriesBeyondPromptCap() {
+        List<String> dropped = new ArrayList<>();
+        String formatted = PromptCanonicalizer.formatEntries(
+                Map.of("a", "y".repeat(100), "b", "z".repeat(100)),
+                new PromptLimits(0, 60),
+                (key, originalChars, keptChars) -> {
+                    if (keptChars == 0) {
+                        dropped.add(key);
+                    }
+                }
+        );
+        assertTrue(formatted.length() <= 60, "formatted length " + formatted.length());
+        assertTrue(formatted.startsWith("a: yyy"));
+        assertEquals(List.of("b"), dropped);
+    }
+}
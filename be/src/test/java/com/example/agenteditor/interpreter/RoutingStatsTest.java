@@ -0,0 +1,39 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("RoutingStats")
+class RoutingStatsTest {
+
+    @Test
+    @DisplayName("ranks by declared probability and drops zero-probability branches")
+    void ranksByProbability() {
+        List<ConditionalBranchDto> branches = List.of(
+                new ConditionalBranchDto("category", "creative", "writer", 0.2),
+                new ConditionalBranchDto("category", "technical", "engineer", 0.7),
+                new ConditionalBranchDto("category", "other", "fallback", 0.0)
+        );
+        assertEquals(List.of("engineer", "writer"), new RoutingStats().rank("cond", branches));
+    }
+
+    @Test
+    @DisplayName("ranks by observed routing frequency when no probability is declared")
+    void ranksByHistory() {
+        List<ConditionalBranchDto> branches = List.of(
+                new ConditionalBranchDto("category", "creative", "writer"),
+                new ConditionalBranchDto("category", "technical", "engineer")
+        );
+        RoutingStats stats = new RoutingStats();
+        assertEquals(List.of("writer", "engineer"), stats.rank("cond", branches));
+        stats.record("cond", "engineer");
+        stats.record("cond", "engineer");
+        stats.record("cond", "writer");
+        assertEquals(List.of("engineer", "writer"), stats.rank("cond", branches));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ExecutionPlanDto;
+import com.example.agenteditor.api.v1.dto.SequencePlanDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.StubChatModel;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.tools.DefaultToolRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.agenteditor.interpreter.WorkflowFixtures.agent;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.composite;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.llm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("SequencePlanner")
+class SequencePlannerTest {
+
+    private static final Map<String, Object> INPUT = Map.of("metadata", Map.of("topic", "a robot", "style", "noir"));
+
+    private final List<WorkflowNodeDto> nodes = List.of(
+            llm(),
+            agent("topic", "Topic: {{metadata.topic}}", "x"),
+            agent("style", "Style: {{metadata.style}}", "y"),
+            agent("combine", "{{x}} in {{y}}", "z"),
+            agent("review", null, "review"),
+            agent("title", "Title for {{z}}", "t"),
+            composite("entry", "sequence", "result", List.of("topic", "style", "combine", "review", "title"))
+    );
+
+    @Test
+    @DisplayName("groups independent steps and starts a new stage at each dependency")
+    void groupsIndependentSteps() {
+        assertEquals(List.of(List.of(0, 1), List.of(2), List.of(3), List.of(4)), stages(true, INPUT));
+    }
+
+    @Test
+    @DisplayName("keeps steps whose prompt may fall back to the whole scope apart when the run has no metadata")
+    void separatesFallbacksWithoutMetadata() {
+        List<List<Integer>> serial = List.of(List.of(0), List.of(1), List.of(2), List.of(3), List.of(4));
+        assertEquals(serial, stages(true, Map.of("document", "text")));
+        assertEquals(serial, stages(true, null));
+    }
+
+    @Test
+    @DisplayName("keeps every step in its own stage when grouping is off")
+    void keepsSerialOrderWhenNotGroupable() {
+        assertEquals(List.of(List.of(0), List.of(1), List.of(2), List.of(3), List.of(4)), stages(false, INPUT));
+    }
+
+    @Test
+    @DisplayName("explains stages and the latency saved with the default call estimate")
+    void explainsPlan() {
+        var interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new StubChatModel("stub reply")), new DefaultToolRegistry());
+
+        ExecutionPlanDto plan = interpreter.explain("entry", nodes, INPUT);
+
+        assertEquals(1, plan.sequences().size());
+        assertEquals(List.of(List.of("topic", "style"), List.of("combine"), List.of("review"), List.of("title")),
+                plan.sequences().get(0).stages());
+        assertEquals(5 * WorkflowGraphInterpreter.DEFAULT_CALL_LATENCY_MS, plan.sequences().get(0).estimatedSerialMs());
+        assertEquals(4 * WorkflowGraphInterpreter.DEFAULT_CALL_LATENCY_MS, plan.sequences().get(0).estimatedPlannedMs());
+        assertEquals(WorkflowGraphInterpreter.DEFAULT_CALL_LATENCY_MS, plan.estimatedSavedMs());
+    }
+
+    @Test
+    @DisplayName("explains only the sequences the entry runs")
+    void explainsReachableSequencesOnly() {
+        var interpreter = new WorkflowGraphInterpreter(
+                new StubOpenRouterChatModelFactory(new StubChatModel("stub reply")), new DefaultToolRegistry());
+        List<WorkflowNodeDto> withOrphan = new ArrayList<>(nodes);
+        withOrphan.add(composite("orphan", "sequence", "result", List.of("topic", "style")));
+
+        ExecutionPlanDto plan = interpreter.explain("entry", withOrphan, INPUT);
+
+        assertEquals(List.of("entry"), plan.sequences().stream().map(SequencePlanDto::nodeId).toList());
+        assertEquals(WorkflowGraphInterpreter.DEFAULT_CALL_LATENCY_MS, plan.estimatedSavedMs());
+    }
+
+    private List<List<Integer>> stages(boolean groupable, Map<String, Object> input) {
+        Map<String, WorkflowNodeDto> byId = new HashMap<>();
+        nodes.forEach(n -> byId.put(n.id(), n));
+        DataflowAnalysis analysis = new DataflowAnalysis(byId, input);
+        List<SequencePlanner.Step> steps = byId.get("entry").subAgentIds().stream()
+                .map(id -> new SequencePlanner.Step(List.of(id), analysis.access(byId.get(id)), groupable))
+                .toList();
+        return SequencePlanner.stages(steps);
+    }
+}
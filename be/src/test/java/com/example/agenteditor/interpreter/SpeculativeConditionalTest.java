@@ -0,0 +1,282 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.ConditionalBranchDto;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.llm.ModelPricing;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.scope.AgenticScope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("SpeculativeConditional")
+class SpeculativeConditionalTest {
+
+    private static final List<ConditionalBranchDto> BRANCHES = List.of(
+            new ConditionalBranchDto("category", "creative", "writer", 0.6),
+            new ConditionalBranchDto("category", "technical", "engineer", 0.3),
+            new ConditionalBranchDto("category", "legal", "lawyer", 0.1)
+    );
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("uses the speculated result when the router confirms its branch")
+    void confirmedSpeculation() {
+        CountDownLatch writerStarted = new CountDownLatch(1);
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> {
+                    writerStarted.countDown();
+                    return "story" + (SpeculativeConditional.speculating() ? " (speculated)" : "");
+                }),
+                "engineer", branch("engineer", input -> "design"),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>(Map.of("metadata", Map.of("prompt", "Write")));
+
+        step(1, branches, awaitThen(writerStarted, "creative"), RunBudget.unlimited()).run(scope(state));
+
+        assertEquals(List.of("writer"), started);
+        assertEquals("story (speculated)", state.get("writerOut"));
+        assertEquals("story (speculated)", state.get("answer"));
+        assertEquals(1, registry.counter("agent.conditional.speculation", "outcome", "hit").count());
+    }
+
+    @Test
+    @DisplayName("cancels mispredicted branches and discards what they wrote")
+    void mispredictedBranchesAreCancelled() throws InterruptedException {
+        CountDownLatch speculating = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        Function<Map<String, Object>, Object> blocking = input -> {
+            input.put("leak", "speculative write");
+            speculating.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return "too late";
+        };
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", blocking),
+                "engineer", branch("engineer", blocking),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>(Map.of("metadata", Map.of("prompt", "Review")));
+
+        step(2, branches, awaitThen(speculating, "legal"), RunBudget.unlimited()).run(scope(state));
+
+        assertTrue(interrupted.await(0, TimeUnit.SECONDS), "cancelled branches have stopped before the step returns");
+        assertEquals(Set.of("writer", "engineer"), Set.copyOf(started.subList(0, 2)));
+        assertEquals(List.of("lawyer"), started.subList(2, started.size()));
+        assertEquals("contract", state.get("answer"));
+        assertFalse(state.containsKey("writerOut"));
+        assertFalse(state.containsKey("engineerOut"));
+        assertFalse(state.containsKey("leak"));
+        assertEquals(2, registry.counter("agent.conditional.speculation.cancelled").count());
+        assertEquals(1, registry.counter("agent.conditional.speculation", "outcome", "miss").count());
+    }
+
+    @Test
+    @DisplayName("speculates at most speculativeBranches branches, most likely first")
+    void branchCap() {
+        CountDownLatch speculating = new CountDownLatch(2);
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> {
+                    speculating.countDown();
+                    return "story";
+                }),
+                "engineer", branch("engineer", input -> {
+                    speculating.countDown();
+                    return "design";
+                }),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>();
+
+        step(2, branches, awaitThen(speculating, "technical"), RunBudget.unlimited()).run(scope(state));
+
+        assertEquals(Set.of("writer", "engineer"), Set.copyOf(started));
+        assertEquals("design", state.get("answer"));
+    }
+
+    @Test
+    @DisplayName("stops speculating once the run's speculation budget is used up")
+    void speculationBudgetUsedUp() {
+        RunBudget budget = new RunBudget(ModelPricing.NONE, List.of(), new RunBudget.Limit("speculation", 100, 0));
+        budget.speculation().charge("model", 80, 20);
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> "story"),
+                "engineer", branch("engineer", input -> "design"),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>();
+
+        step(3, branches, input -> "creative", budget).run(scope(state));
+
+        assertEquals(List.of("writer"), started);
+        assertEquals("story", state.get("answer"));
+        assertEquals(1, registry.counter("agent.conditional.speculation", "outcome", "over-budget").count());
+    }
+
+    @Test
+    @DisplayName("runs the chosen branch again when its speculation ran out of budget")
+    void chosenBranchOverBudgetRunsAgain() {
+        RunBudget budget = new RunBudget(ModelPricing.NONE, List.of(), new RunBudget.Limit("speculation", 100, 0));
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> {
+                    if (SpeculativeConditional.speculating()) {
+                        budget.speculation().charge("model", 100, 0);
+                        budget.speculation().check();
+                    }
+                    return "story";
+                }),
+                "engineer", branch("engineer", input -> "design"),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>();
+
+        step(1, branches, input -> "creative", budget).run(scope(state));
+
+        assertEquals(List.of("writer", "writer"), started);
+        assertEquals("story", state.get("answer"));
+        assertEquals(1, registry.counter("agent.conditional.speculation", "outcome", "over-budget").count());
+    }
+
+    @Test
+    @DisplayName("does not speculate composite branches")
+    void compositeBranchesAreNotSpeculated() {
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> "story"),
+                "engineer", branch("engineer", input -> "design"),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>();
+
+        step(1, branches, input -> {
+            assertTrue(started.isEmpty(), "no branch starts before routing");
+            return "creative";
+        }, RunBudget.unlimited(), Set.of("writer", "engineer", "lawyer")).run(scope(state));
+
+        assertEquals(List.of("writer"), started);
+        assertEquals("story", state.get("answer"));
+        assertEquals(1, registry.counter("agent.conditional.speculation", "outcome", "none").count());
+    }
+
+    @Test
+    @DisplayName("carries speculation into the tasks a speculated branch forks")
+    void forkedTasksAreSpeculated() {
+        Map<String, UntypedAgent> branches = Map.of(
+                "writer", branch("writer", input -> {
+                    try (BranchScope<Boolean> forked = new BranchScope<>(executor, 0)) {
+                        forked.fork(SpeculativeConditional::speculating);
+                        return forked.next(Long.MAX_VALUE).get() ? "speculated" : "charged to the run";
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }),
+                "engineer", branch("engineer", input -> "design"),
+                "lawyer", branch("lawyer", input -> "contract"));
+        Map<String, Object> state = new ConcurrentHashMap<>();
+
+        step(1, branches, input -> "creative", RunBudget.unlimited()).run(scope(state));
+
+        assertEquals("speculated", state.get("answer"));
+    }
+
+    private SpeculativeConditional step(int speculativeBranches, Map<String, UntypedAgent> branches,
+                                        Function<Map<String, Object>, Object> router, RunBudget budget) {
+        return step(speculativeBranches, branches, router, budget, Set.of());
+    }
+
+    /**
+     * @param composites branches that are composite nodes rather than single agents
+     */
+    private SpeculativeConditional step(int speculativeBranches, Map<String, UntypedAgent> branches,
+                                        Function<Map<String, Object>, Object> router, RunBudget budget,
+                                        Set<String> composites) {
+        WorkflowNodeDto conditional = node("cond", "conditional")
+                .routerAgentId("router")
+                .branches(BRANCHES)
+                .speculative(true)
+                .speculativeBranches(speculativeBranches)
+                .outputKey("answer")
+                .build();
+        Map<String, WorkflowNodeDto> branchNodes = new LinkedHashMap<>();
+        for (String agentId : List.of("writer", "engineer", "lawyer")) {
+            branchNodes.put(agentId, composites.contains(agentId)
+                    ? node(agentId, "sequence").outputKey(agentId + "Out").build()
+                    : node(agentId, "agent").llmId("llm-1").outputKey(agentId + "Out").build());
+        }
+        RunContext runContext = new RunContext(partial -> { }, Checkpointer.NONE, Set.of(), RunCaller.DEFAULT, budget);
+        return new SpeculativeConditional(conditional, node("router", "agent").outputKey("category").build(),
+                agent(router), branches, branchNodes, ConditionalDispatch.compile(conditional, registry),
+                new RoutingStats(), executor, registry, runContext);
+    }
+
+    private UntypedAgent branch(String agentId, Function<Map<String, Object>, Object> body) {
+        return agent(input -> {
+            started.add(agentId);
+            return body.apply(input);
+        });
+    }
+
+    private static Function<Map<String, Object>, Object> awaitThen(CountDownLatch latch, String category) {
+        return input -> {
+            try {
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return category;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UntypedAgent agent(Function<Map<String, Object>, Object> body) {
+        return (UntypedAgent) Proxy.newProxyInstance(
+                UntypedAgent.class.getClassLoader(),
+                new Class<?>[]{UntypedAgent.class},
+                (proxy, method, args) -> "invoke".equals(method.getName()) && args != null && args.length == 1
+                        ? body.apply((Map<String, Object>) args[0])
+                        : null
+        );
+    }
+
+    private static AgenticScope scope(Map<String, Object> state) {
+        return (AgenticScope) Proxy.newProxyInstance(
+                AgenticScope.class.getClassLoader(),
+                new Class<?>[]{AgenticScope.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "state" -> state;
+                    case "readState" -> state.getOrDefault(args[0], args.length > 1 ? args[1] : null);
+                    case "writeState" -> {
+                        state.put((String) args[0], args[1]);
+                        yield null;
+                    }
+                    default -> null;
+                }
+        );
+    }
+}
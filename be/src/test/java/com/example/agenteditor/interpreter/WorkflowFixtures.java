@@ -0,0 +1,39 @@
+package com.example.agenteditor.interpreter;
+
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+
+import java.util.List;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+
+/**
+ * Nodes of small test graphs: one LLM ({@code llm-1}), agents on it and sequence/parallel nodes over them.
+ */
+public final class WorkflowFixtures {
+
+    private WorkflowFixtures() {
+    }
+
+    /** The {@code llm-1} node every fixture agent runs on. */
+    public static WorkflowNodeDto llm() {
+        return node("llm-1", "llm").build();
+    }
+
+    /** Agent named after its id on {@code llm-1}; a null template sends the whole scope. */
+    public static WorkflowNodeDto agent(String id, String promptTemplate, String outputKey) {
+        return node(id, "agent")
+                .llmId("llm-1")
+                .name(id)
+                .promptTemplate(promptTemplate)
+                .outputKey(outputKey)
+                .build();
+    }
+
+    /** Sequence or parallel node over the given sub-agents. */
+    public static WorkflowNodeDto composite(String id, String type, String outputKey, List<String> subAgentIds) {
+        return node(id, type)
+                .outputKey(outputKey)
+                .subAgentIds(subAgentIds)
+                .build();
+    }
+}
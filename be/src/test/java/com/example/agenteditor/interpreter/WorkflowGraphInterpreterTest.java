@@ -1,11 +1,21 @@
 package com.example.agenteditor.interpreter;
 
+import com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder;
 import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
 import com.example.agenteditor.llm.StubChatModel;
 import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
 import com.example.agenteditor.tools.DefaultToolRegistry;
 import dev.langchain4j.agentic.scope.AgenticScope;
+import dev.langchain4j.agentic.scope.ResultWithAgenticScope;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.invocation.LangChain4jManaged;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,8 +25,14 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import static com.example.agenteditor.interpreter.WorkflowFixtures.agent;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.composite;
+import static com.example.agenteditor.interpreter.WorkflowFixtures.llm;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -84,6 +100,51 @@ class WorkflowGraphInterpreterTest {
             assertNotNull(result);
         }
 
+        @Test
+        @DisplayName("parallel FIRST_N entry proceeds with the first finished branch")
+        void parallelFirstNRecordsContributors() {
+            WorkflowNodeDto parallel = WorkflowNodeBuilder.node("parallel-plan", "parallel")
+                    .outputKey("plan")
+                    .subAgentIds("movies", "meals")
+                    .completionPolicy("FIRST_N")
+                    .requiredCount(1)
+                    .build();
+            List<WorkflowNodeDto> nodes = List.of(
+                    node("llm-1", "llm", null, null, null, null, null, null, null, null, null, null, null),
+                    node("movies", "agent", null, null, "llm-1", "MovieExpert", "movies",
+                            null, null, null, null, null, null),
+                    node("meals", "agent", null, null, "llm-1", "MealExpert", "meals",
+                            null, null, null, null, null, null),
+                    parallel
+            );
+            WorkflowRunnable runnable = interpreter.buildEntryRunnable("parallel-plan", nodes);
+            Object result = runnable.run(Map.of("metadata", Map.of("prompt", "Suggest an evening plan")));
+            Object output = result instanceof ResultWithAgenticScope<?> withScope ? withScope.result() : result;
+            assertTrue(output instanceof Map<?, ?> contributed && contributed.size() == 1);
+        }
+
+        @Test
+        @DisplayName("skips steps completed before resume and checkpoints each remaining stage")
+        void resumeSkipsCompletedSteps() {
+            List<WorkflowNodeDto> nodes = List.of(
+                    node("llm-1", "llm", null, null, null, null, null, null, null, null, null, null, null),
+                    node("writer", "agent", null, null, "llm-1", "CreativeWriter", "story",
+                            null, null, null, null, null, null),
+                    node("editor", "agent", null, null, "llm-1", "StyleEditor", "story",
+                            null, null, null, null, null, null),
+                    node("seq-story", "sequence", null, null, null, null, "story",
+                            null, List.of("writer", "editor"), null, null, null, null)
+            );
+            List<List<String>> checkpoints = new CopyOnWriteArrayList<>();
+            RunContext runContext = new RunContext(partial -> { },
+                    (nodeIds, state) -> checkpoints.add(nodeIds), Set.of("writer"));
+
+            interpreter.buildEntryRunnable("seq-story", nodes, runContext)
+                    .run(Map.of("story", "draft", "metadata", Map.of("prompt", "Refine")));
+
+            assertEquals(List.of(List.of("editor")), checkpoints);
+        }
+
         @Test
         @DisplayName("throws when entry node type is not allowed")
         void throwsWhenEntryIsLlm() {
@@ -111,12 +172,13 @@ class WorkflowGraphInterpreterTest {
         @Test
         @DisplayName("resolves prompt from metadata in current managed scope when provider arg is default")
         void resolvesPromptFromMetadataInManagedScopeWhenProviderArgIsDefault() throws Exception {
-            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod("userMessageFromScope", Object.class);
+            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod(
+                    "userMessageFromScope", Object.class, String.class, TruncationListener.class);
             method.setAccessible(true);
             AgenticScope scope = agenticScope(Map.of("metadata", Map.of("prompt", "Write a short story about oceans.")));
             LangChain4jManaged.setCurrent(Map.of(AgenticScope.class, scope));
             try {
-                String resolved = (String) method.invoke(interpreter, "default");
+                String resolved = (String) method.invoke(interpreter, "default", null, TruncationListener.NONE);
                 assertEquals("Write a short story about oceans.", resolved);
             } finally {
                 LangChain4jManaged.removeCurrent();
@@ -126,13 +188,15 @@ class WorkflowGraphInterpreterTest {
         @Test
         @DisplayName("resolves prompt from promptTemplate placeholders")
         void resolvesPromptFromTemplatePlaceholders() throws Exception {
-            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod("userMessageFromScope", Object.class, String.class);
+            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod(
+                    "userMessageFromScope", Object.class, String.class, TruncationListener.class);
             method.setAccessible(true);
             String template = "Task: {{metadata.prompt}}\nTopic: {{metadata.topic}}\nStyle: {{metadata.style}}";
             String resolved = (String) method.invoke(
                     interpreter,
                     Map.of("metadata", Map.of("prompt", "Write a short story.", "topic", "robot in Paris", "style", "noir")),
-                    template
+                    template,
+                    TruncationListener.NONE
             );
             assertEquals("Task: Write a short story.\nTopic: robot in Paris\nStyle: noir", resolved);
         }
@@ -140,17 +204,77 @@ class WorkflowGraphInterpreterTest {
         @Test
         @DisplayName("falls back to metadata prompt when template variables are missing")
         void fallsBackToMetadataPromptWhenTemplateVariablesMissing() throws Exception {
-            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod("userMessageFromScope", Object.class, String.class);
+            Method method = WorkflowGraphInterpreter.class.getDeclaredMethod(
+                    "userMessageFromScope", Object.class, String.class, TruncationListener.class);
             method.setAccessible(true);
             String resolved = (String) method.invoke(
                     interpreter,
                     Map.of("metadata", Map.of("prompt", "Use this fallback prompt.")),
-                    "{{metadata.missing}}"
+                    "{{metadata.missing}}",
+                    TruncationListener.NONE
             );
             assertEquals("Use this fallback prompt.", resolved);
         }
     }
 
+    @Nested
+    @DisplayName("autoParallelize")
+    class AutoParallelize {
+
+        private final List<WorkflowNodeDto> nodes = List.of(
+                llm(),
+                agent("topic", "Topic: {{metadata.topic}}", "x"),
+                agent("style", "Style: {{metadata.style}}", "x"),
+                agent("tone", "Tone: {{metadata.style}}", "y"),
+                agent("combine", "Combine {{x}} and {{y}}", "z"),
+                agent("title", "Title: {{metadata.topic}}", "t"),
+                composite("entry", "sequence", "z", List.of("topic", "style", "tone", "combine", "title"))
+        );
+
+        @Test
+        @DisplayName("ends with the same state and output as running the sequence step by step")
+        void sameStateAndOutputAsSerial() {
+            Map<String, Object> input = Map.of("metadata", Map.of("topic", "a robot", "style", "noir"));
+
+            ResultWithAgenticScope<?> serial = run(false, input);
+            ResultWithAgenticScope<?> planned = run(true, input);
+
+            assertEquals(serial.result(), planned.result());
+            assertEquals(serial.agenticScope().state(), planned.agenticScope().state());
+            String x = String.valueOf(planned.agenticScope().state().get("x"));
+            assertTrue(x.contains("Style: noir"), "the later writer of x wins: " + x);
+            assertTrue(String.valueOf(planned.result()).contains(x), "combine ran after both writers of x");
+        }
+
+        private ResultWithAgenticScope<?> run(boolean autoParallelize, Map<String, Object> input) {
+            WorkflowGraphInterpreter interpreter = new WorkflowGraphInterpreter(
+                    new StubOpenRouterChatModelFactory(new EchoChatModel()), new DefaultToolRegistry(),
+                    new SimpleMeterRegistry(), PromptLimits.DEFAULT, new TokenEstimator(), autoParallelize);
+            RunContext runContext = new RunContext(partial -> { }, Checkpointer.NONE, Set.of(), RunCaller.DEFAULT,
+                    RunBudget.unlimited(), input);
+            return assertInstanceOf(ResultWithAgenticScope.class,
+                    interpreter.buildEntryRunnable("entry", nodes, runContext).run(input));
+        }
+    }
+
+    /**
+     * Answers with the last user message, so every output depends on the scope values its prompt read.
+     */
+    static class EchoChatModel implements ChatModel {
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            String prompt = chatRequest.messages().stream()
+                    .filter(UserMessage.class::isInstance)
+                    .map(m -> ((UserMessage) m).singleText())
+                    .reduce((first, second) -> second)
+                    .orElse("");
+            return ChatResponse.builder()
+                    .aiMessage(AiMessage.from("echo: " + prompt))
+                    .finishReason(FinishReason.STOP)
+                    .build();
+        }
+    }
+
     private static AgenticScope agenticScope(Map<String, Object> state) {
         return (AgenticScope) Proxy.newProxyInstance(
                 AgenticScope.class.getClassLoader(),
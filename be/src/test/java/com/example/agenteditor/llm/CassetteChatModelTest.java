@@ -0,0 +1,118 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("CassetteChatModel")
+class CassetteChatModelTest {
+
+    private static final String MODEL = "openai/gpt-4o-mini";
+    private static final ChatModel UNREACHABLE = new ChatModel() {
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            throw new AssertionError("replay must not call the provider");
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("replays recorded tool calls, token usage and served model without calling the provider")
+    void recordAndReplay() {
+        AtomicInteger calls = new AtomicInteger();
+        ChatModel provider = new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                calls.incrementAndGet();
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from(List.of(ToolExecutionRequest.builder()
+                                .id("call-1").name("calculator").arguments("{\"expression\":\"2+2\"}").build())))
+                        .finishReason(FinishReason.TOOL_EXECUTION)
+                        .tokenUsage(OpenAiTokenUsage.builder().inputTokenCount(120).outputTokenCount(15)
+                                .totalTokenCount(135)
+                                .inputTokensDetails(OpenAiTokenUsage.InputTokensDetails.builder().cachedTokens(64).build())
+                                .build())
+                        .modelName("openai/gpt-4o-mini-2024-07-18")
+                        .build();
+            }
+        };
+        try (CassetteStore recorder = new CassetteStore(CassetteStore.Mode.RECORD, dir, false, true)) {
+            recorder.decorate(MODEL, provider).chat(request("What is 2+2?"));
+        }
+        assertTrue(Files.exists(dir.resolve("openai_gpt-4o-mini.jsonl")));
+
+        ChatResponse replayed = new CassetteStore(CassetteStore.Mode.REPLAY, dir, false, true)
+                .decorate(MODEL, UNREACHABLE).chat(request("What is 2+2?"));
+
+        assertEquals(1, calls.get());
+        ToolExecutionRequest tool = replayed.aiMessage().toolExecutionRequests().getFirst();
+        assertEquals("calculator", tool.name());
+        assertEquals("{\"expression\":\"2+2\"}", tool.arguments());
+        assertEquals(FinishReason.TOOL_EXECUTION, replayed.finishReason());
+        TokenUsage usage = replayed.tokenUsage();
+        assertEquals(120, usage.inputTokenCount());
+        assertEquals(135, usage.totalTokenCount());
+        assertEquals(64, ((OpenAiTokenUsage) usage).inputTokensDetails().cachedTokens());
+        assertEquals("openai/gpt-4o-mini-2024-07-18", replayed.metadata().modelName());
+    }
+
+    @Test
+    @DisplayName("replays repeated requests in recorded order, then repeats the last recording")
+    void repeatedRequests() {
+        AtomicInteger calls = new AtomicInteger();
+        try (CassetteStore recorder = new CassetteStore(CassetteStore.Mode.RECORD, dir, false, true)) {
+            ChatModel model = recorder.decorate(MODEL, new StubChatModel() {
+                @Override
+                public ChatResponse doChat(ChatRequest chatRequest) {
+                    return ChatResponse.builder().aiMessage(AiMessage.from("reply-" + calls.incrementAndGet())).build();
+                }
+            });
+            model.chat(request("hi"));
+            model.chat(request("hi"));
+        }
+
+        ChatModel replay = new CassetteStore(CassetteStore.Mode.REPLAY, dir, false, true).decorate(MODEL, UNREACHABLE);
+
+        assertEquals("reply-1", replay.chat(request("hi")).aiMessage().text());
+        assertEquals("reply-2", replay.chat(request("hi")).aiMessage().text());
+        assertEquals("reply-2", replay.chat(request("hi")).aiMessage().text());
+    }
+
+    @Test
+    @DisplayName("fails an unrecorded request when strict, and serves the next recording otherwise")
+    void unrecordedRequest() {
+        try (CassetteStore recorder = new CassetteStore(CassetteStore.Mode.RECORD, dir, false, true)) {
+            recorder.decorate(MODEL, new StubChatModel("recorded")).chat(request("It is 10:00"));
+        }
+
+        ChatModel strict = new CassetteStore(CassetteStore.Mode.REPLAY, dir, false, true).decorate(MODEL, UNREACHABLE);
+        ChatModel lenient = new CassetteStore(CassetteStore.Mode.REPLAY, dir, false, false).decorate(MODEL, UNREACHABLE);
+
+        assertThrows(IllegalStateException.class, () -> strict.chat(request("It is 10:01")));
+        assertEquals("recorded", lenient.chat(request("It is 10:01")).aiMessage().text());
+    }
+
+    private static ChatRequest request(String text) {
+        return ChatRequest.builder().messages(UserMessage.from(text)).build();
+    }
+}
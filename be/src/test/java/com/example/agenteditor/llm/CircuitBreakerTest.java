@@ -0,0 +1,109 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("CircuitBreaker")
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    @DisplayName("opens once the failure rate over the window reaches the threshold, not before the minimum calls")
+    void opensOnFailureRate() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        breaker.record(FAST, false);
+        breaker.record(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        breaker.record(FAST, true);
+        breaker.record(FAST, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.retryAfter().toSeconds() > 0);
+    }
+
+    @Test
+    @DisplayName("opens on slow calls even when they succeed")
+    void opensOnSlowCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            breaker.record(SLOW, true);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    @DisplayName("probes after the open duration and closes when the probes succeed")
+    void halfOpenProbes() throws InterruptedException {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+        for (int i = 0; i < 4; i++) {
+            breaker.record(FAST, false);
+        }
+        Thread.sleep(40);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.record(FAST, true);
+        breaker.record(FAST, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.snapshot().calls());
+    }
+
+    @Test
+    @DisplayName("opens again when a probe fails")
+    void failedProbe() throws InterruptedException {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+        for (int i = 0; i < 4; i++) {
+            breaker.record(FAST, false);
+        }
+        Thread.sleep(40);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.record(FAST, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    @DisplayName("fails fast without calling the model while open")
+    void failsFast() {
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(true,
+                new CircuitBreaker.Settings(4, 4, 0.5, Duration.ofSeconds(1), 0.8, Duration.ofMinutes(1), 2),
+                new SimpleMeterRegistry());
+        CircuitBreaker breaker = registry.breaker("https://test", "m");
+        for (int i = 0; i < 4; i++) {
+            breaker.record(FAST, false);
+        }
+        CircuitBreakerChatModel model = new CircuitBreakerChatModel(new StubChatModel("never"), breaker, registry);
+
+        ChatRequest request = ChatRequest.builder().messages(UserMessage.from("hi")).build();
+
+        CircuitOpenException e = assertThrows(CircuitOpenException.class, () -> model.chat(request));
+        assertEquals("m", e.getModel());
+        assertEquals(CircuitBreaker.State.OPEN, registry.snapshots().getFirst().state());
+    }
+
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return new CircuitBreaker("https://test", "m",
+                new CircuitBreaker.Settings(4, 4, 0.5, Duration.ofSeconds(1), 0.8, openDuration, 2));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("RoutingChatModel")
+class RoutingChatModelTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("hi")).build();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("prefers candidates in declared order while they meet their objectives")
+    void declaredOrder() {
+        RoutingChatModel model = routing(route("primary", new StubChatModel("a")), route("backup", new StubChatModel("b")));
+
+        assertEquals("a", model.chat(REQUEST).aiMessage().text());
+    }
+
+    @Test
+    @DisplayName("routes around a candidate whose recent p95 latency is over its objective")
+    void latencyObjective() {
+        RoutingChatModel.Route primary = route("primary", new StubChatModel("a"));
+        for (int i = 0; i < RoutingChatModel.MIN_CALLS; i++) {
+            primary.window().record(TimeUnit.SECONDS.toNanos(5), true);
+        }
+        RoutingChatModel model = routing(primary, route("backup", new StubChatModel("b")));
+
+        assertEquals("b", model.chat(REQUEST).aiMessage().text());
+        assertEquals(List.of("backup", "primary"),
+                model.order().stream().map(r -> r.candidate().modelName()).toList());
+    }
+
+    @Test
+    @DisplayName("fails over to the next candidate on a timeout and records it")
+    void failoverOnTimeout() {
+        RoutingChatModel.Route primary = route("primary", failing(new RuntimeException(new HttpTimeoutException("timed out"))));
+        RoutingChatModel model = routing(primary, route("backup", new StubChatModel("b")));
+
+        assertEquals("b", model.chat(REQUEST).aiMessage().text());
+        assertEquals(1, registry.counter("agent.llm.failover", "model", "primary", "reason", "timeout").count());
+        assertEquals(1.0, primary.window().snapshot().errorRate());
+    }
+
+    @Test
+    @DisplayName("tries a candidate with an open circuit last")
+    void openCircuitLast() {
+        CircuitBreaker breaker = new CircuitBreaker("https://test", "primary",
+                new CircuitBreaker.Settings(2, 2, 0.5, Duration.ofSeconds(30), 1.1, Duration.ofMinutes(1), 1));
+        breaker.record(1, false);
+        breaker.record(1, false);
+        RoutingChatModel model = routing(route("primary", new StubChatModel("a"), breaker),
+                route("backup", new StubChatModel("b")));
+
+        assertEquals("b", model.chat(REQUEST).aiMessage().text());
+    }
+
+    @Test
+    @DisplayName("throws the last failure when every candidate fails")
+    void allFail() {
+        RoutingChatModel model = routing(route("primary", failing(new IllegalStateException("down"))),
+                route("backup", failing(new IllegalStateException("also down"))));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> model.chat(REQUEST));
+        assertEquals("also down", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    private RoutingChatModel routing(RoutingChatModel.Route... routes) {
+        return new RoutingChatModel(List.of(routes), registry);
+    }
+
+    private static RoutingChatModel.Route route(String modelName, ChatModel model) {
+        return route(modelName, model, null);
+    }
+
+    private static RoutingChatModel.Route route(String modelName, ChatModel model, CircuitBreaker breaker) {
+        return new RoutingChatModel.Route(
+                new ModelCandidate(modelName, Duration.ofSeconds(10), Duration.ofSeconds(1), 0.5),
+                model, new ModelCallWindow(), breaker);
+    }
+
+    private static ChatModel failing(RuntimeException failure) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                throw failure;
+            }
+        };
+    }
+}
@@ -2,8 +2,10 @@ package com.example.agenteditor.llm;
 
 import dev.langchain4j.model.chat.ChatModel;
 
+import java.time.Duration;
+
 /**
- * Test double: always returns the same {@link ChatModel} regardless of baseUrl/modelName.
+ * Test double: always returns the same {@link ChatModel} regardless of baseUrl/modelName (also for routed candidates).
  */
 public class StubOpenRouterChatModelFactory extends OpenRouterChatModelFactory {
 
@@ -27,4 +29,10 @@ public class StubOpenRouterChatModelFactory extends OpenRouterChatModelFactory {
     public ChatModel build(String baseUrl, String modelName, Double temperature, Integer maxTokens) {
         return stub;
     }
+
+    @Override
+    public ChatModel buildCandidate(String baseUrl, String modelName, Double temperature, Integer maxTokens,
+                                    Duration timeout) {
+        return stub;
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.agenteditor.llm;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("TokenEstimator")
+class TokenEstimatorTest {
+
+    private final TokenEstimator estimator = new TokenEstimator();
+
+    @Test
+    @DisplayName("counts tokens for provider-prefixed and unknown models")
+    void countsTokens() {
+        assertEquals(0, estimator.countTokens((String) null, "openai/gpt-4o-mini"));
+        int known = estimator.countTokens("Hello, world!", "openai/gpt-4o-mini");
+        int unknown = estimator.countTokens("Hello, world!", "some-vendor/unknown-model");
+        assertTrue(known > 0);
+        assertEquals(known, unknown);
+    }
+
+    @Test
+    @DisplayName("adds per-message overhead when counting chat messages")
+    void countsMessages() {
+        List<ChatMessage> messages = List.of(SystemMessage.from("Be brief."), UserMessage.from("Say hi."));
+        int expected = estimator.countTokens("Be brief.", null) + estimator.countTokens("Say hi.", null)
+                + 2 * TokenEstimator.MESSAGE_OVERHEAD_TOKENS;
+        assertEquals(expected, estimator.countTokens(messages, null));
+    }
+
+    @Test
+    @DisplayName("truncates text to at most the given number of tokens")
+    void truncatesToTokens() {
+        String text = "word ".repeat(500);
+        String cut = estimator.truncateToTokens(text, 50, null);
+        assertTrue(text.startsWith(cut));
+        assertTrue(estimator.countTokens(cut, null) <= 50);
+        assertEquals("short", estimator.truncateToTokens("short", 50, null));
+        assertEquals("", estimator.truncateToTokens(text, 0, null));
+    }
+
+    @Test
+    @DisplayName("chunks text into token-bounded overlapping pieces that cover the input")
+    void chunksText() {
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(200);
+        List<String> chunks = new ArrayList<>();
+        estimator.chunks(text, 64, 8, null).forEach(chunks::add);
+
+        assertTrue(chunks.size() > 1);
+        chunks.forEach(chunk -> assertTrue(estimator.countTokens(chunk, null) <= 64));
+        assertTrue(text.startsWith(chunks.get(0)));
+        assertTrue(text.endsWith(chunks.get(chunks.size() - 1)));
+        String first = chunks.get(0);
+        assertTrue(chunks.get(1).startsWith(first.substring(first.length() - 10)));
+    }
+}
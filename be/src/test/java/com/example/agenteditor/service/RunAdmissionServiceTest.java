@@ -0,0 +1,121 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.RunRejectedException;
+import com.example.agenteditor.config.AdmissionProperties;
+import com.example.agenteditor.interpreter.RunPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("RunAdmissionService")
+class RunAdmissionServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UUID workflowId = UUID.randomUUID();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    @DisplayName("admits a queued run when a slot is released")
+    void admitsQueuedRun() throws Exception {
+        RunAdmissionService admission = admission(1, 1, Duration.ofSeconds(5), 0, Map.of());
+        RunAdmissionService.Permit first = admission.acquire(workflowId);
+
+        CompletableFuture<RunAdmissionService.Permit> second =
+                CompletableFuture.supplyAsync(() -> admission.acquire(UUID.randomUUID()), executor);
+        awaitGauge("agent.admission.queue", 1);
+        assertFalse(second.isDone());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0.0, registry.get("agent.admission.active").gauge().value());
+    }
+
+    @Test
+    @DisplayName("admits a queued interactive run before an earlier batch run")
+    void admitsByPriority() throws Exception {
+        RunAdmissionService admission = admission(1, 4, Duration.ofSeconds(5), 0, Map.of());
+        RunAdmissionService.Permit first = admission.acquire(workflowId);
+
+        CompletableFuture<RunAdmissionService.Permit> batch =
+                CompletableFuture.supplyAsync(() -> admission.acquire(UUID.randomUUID(), RunPriority.BATCH), executor);
+        awaitGauge("agent.admission.queue", 1);
+        CompletableFuture<RunAdmissionService.Permit> interactive =
+                CompletableFuture.supplyAsync(() -> admission.acquire(UUID.randomUUID(), RunPriority.INTERACTIVE), executor);
+        awaitGauge("agent.admission.queue", 2);
+
+        first.close();
+        RunAdmissionService.Permit admitted = interactive.get(5, TimeUnit.SECONDS);
+        assertFalse(batch.isDone());
+        admitted.close();
+        batch.get(5, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    @DisplayName("rejects with QUEUE_FULL while the queue is full")
+    void rejectsWhenQueueFull() {
+        RunAdmissionService admission = admission(1, 0, Duration.ofSeconds(5), 0, Map.of());
+        try (RunAdmissionService.Permit permit = admission.acquire(workflowId)) {
+            RunRejectedException ex = assertThrows(RunRejectedException.class,
+                    () -> admission.acquire(UUID.randomUUID()));
+            assertEquals(RunRejectedException.Reason.QUEUE_FULL, ex.getReason());
+            assertTrue(ex.getRetryAfter().compareTo(RunAdmissionService.MIN_RETRY_AFTER) >= 0);
+        }
+        assertEquals(1.0, registry.get("agent.admission.rejected").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    @DisplayName("rejects with QUEUE_TIMEOUT once the queue-time limit expires")
+    void rejectsAfterQueueTime() {
+        RunAdmissionService admission = admission(1, 4, Duration.ofMillis(50), 0, Map.of());
+        try (RunAdmissionService.Permit permit = admission.acquire(workflowId)) {
+            RunRejectedException ex = assertThrows(RunRejectedException.class,
+                    () -> admission.acquire(UUID.randomUUID()));
+            assertEquals(RunRejectedException.Reason.QUEUE_TIMEOUT, ex.getReason());
+        }
+        assertEquals(0.0, registry.get("agent.admission.queue").gauge().value());
+    }
+
+    @Test
+    @DisplayName("applies the per-workflow override before the global limit")
+    void appliesWorkflowLimit() {
+        UUID limited = UUID.randomUUID();
+        RunAdmissionService admission = admission(8, 8, Duration.ofSeconds(5), 2, Map.of(limited, 1));
+        RunAdmissionService.Permit permit = admission.acquire(limited);
+
+        RunRejectedException ex = assertThrows(RunRejectedException.class, () -> admission.acquire(limited));
+        assertEquals(RunRejectedException.Reason.WORKFLOW_LIMIT, ex.getReason());
+        admission.acquire(workflowId);
+        admission.acquire(workflowId);
+        assertThrows(RunRejectedException.class, () -> admission.acquire(workflowId));
+
+        permit.close();
+        permit.close();
+        admission.acquire(limited).close();
+    }
+
+    private RunAdmissionService admission(int maxConcurrent, int maxQueued, Duration maxQueueTime, int workflowLimit,
+                                          Map<UUID, Integer> workflows) {
+        return new RunAdmissionService(new AdmissionProperties(true, maxConcurrent, maxQueued, maxQueueTime,
+                workflowLimit, workflows, Duration.ofSeconds(2)), registry);
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get(name).gauge().value() != value && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
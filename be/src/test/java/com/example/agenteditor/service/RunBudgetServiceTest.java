@@ -0,0 +1,81 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.v1.dto.RunUsageDto;
+import com.example.agenteditor.config.BudgetProperties;
+import com.example.agenteditor.interpreter.BudgetExceededException;
+import com.example.agenteditor.interpreter.RunBudget;
+import com.example.agenteditor.llm.ModelPricing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("RunBudgetService")
+class RunBudgetServiceTest {
+
+    private static final UUID WORKFLOW = UUID.randomUUID();
+    private static final ModelPricing PRICING = new ModelPricing(
+            Map.of("openai/gpt-4o-mini", new ModelPricing.Price(1.0, 2.0)), ModelPricing.Price.FREE);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("charges calls at the model's price and stops the run at the next call once over its limit")
+    void runLimit() {
+        RunBudgetService service = service(new BudgetProperties.Limits(1_000L, null), null);
+        RunBudget budget = service.open(WORKFLOW);
+
+        budget.check();
+        budget.charge("openai/gpt-4o-mini", 600, 200);
+        budget.check();
+        budget.charge("openai/gpt-4o-mini", 400, 100);
+
+        RunUsageDto usage = budget.usage();
+        assertEquals(2, usage.llmCalls());
+        assertEquals(1_300, usage.totalTokens());
+        assertEquals((1_000 * 1.0 + 300 * 2.0) / 1_000_000, usage.estimatedCost(), 1e-12);
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, budget::check);
+        assertEquals("run", e.getScope());
+    }
+
+    @Test
+    @DisplayName("prices models without an entry at the fallback price")
+    void unknownModelIsFree() {
+        RunBudget budget = service(null, null).open(WORKFLOW);
+
+        budget.charge("anthropic/unknown", 1_000, 1_000);
+
+        assertEquals(0, budget.usage().estimatedCost());
+    }
+
+    @Test
+    @DisplayName("limits a run to what is left of the workflow window and rejects runs once it is used up")
+    void workflowWindow() {
+        RunBudgetService service = service(null, new BudgetProperties.Limits(null, 0.01));
+        RunBudget first = service.open(WORKFLOW);
+        first.charge("openai/gpt-4o-mini", 4_000, 1_000);
+        service.settle(WORKFLOW, first.usage(), null);
+
+        RunBudget second = service.open(WORKFLOW);
+        second.charge("openai/gpt-4o-mini", 3_000, 1_000);
+        BudgetExceededException stopped = assertThrows(BudgetExceededException.class, second::check);
+        service.settle(WORKFLOW, second.usage(), stopped);
+
+        BudgetExceededException rejected = assertThrows(BudgetExceededException.class, () -> service.open(WORKFLOW));
+        assertEquals("workflow", rejected.getScope());
+        assertEquals(0.011, service.spent(WORKFLOW).estimatedCost(), 1e-12);
+        assertEquals(2, registry.counter("agent.budget.exceeded", "scope", "workflow").count());
+        assertDoesNotThrow(() -> service.open(UUID.randomUUID()));
+    }
+
+    private RunBudgetService service(BudgetProperties.Limits run, BudgetProperties.Limits workflow) {
+        return new RunBudgetService(PRICING, new BudgetProperties(run, workflow, Duration.ofHours(1), null, null), registry);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.api.RunFailedException;
+import com.example.agenteditor.api.v1.dto.RunWorkflowResponse;
+import com.example.agenteditor.api.v1.dto.WorkflowCreateRequest;
+import com.example.agenteditor.api.v1.dto.WorkflowNodeDto;
+import com.example.agenteditor.api.v1.dto.WorkflowUpdateRequest;
+import com.example.agenteditor.domain.WorkflowNodeRun;
+import com.example.agenteditor.domain.WorkflowRun;
+import com.example.agenteditor.llm.OpenRouterChatModelFactory;
+import com.example.agenteditor.llm.StubOpenRouterChatModelFactory;
+import com.example.agenteditor.llm.TokenEstimator;
+import com.example.agenteditor.repository.WorkflowNodeRunRepository;
+import com.example.agenteditor.repository.WorkflowRunRepository;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static com.example.agenteditor.api.v1.dto.WorkflowNodeBuilder.node;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(WorkflowRunServiceIntegrationTest.ScriptedModelConfig.class)
+@DisplayName("WorkflowRunService with checkpoints, incremental runs and run history")
+class WorkflowRunServiceIntegrationTest {
+
+    private static final String DOCUMENT = "The cat sat on the mat while the dog ran in the park and the bird sang";
+    private static final int CHUNK_TOKENS = 3;
+    private static final Map<String, Object> INPUT = Map.of("document", DOCUMENT);
+    private static final Map<String, Object> BRIEF_INPUT = Map.of("metadata", Map.of("topic", "a robot", "style", "noir"));
+    private static final ScriptedChatModel MODEL = new ScriptedChatModel();
+
+    @TestConfiguration
+    static class ScriptedModelConfig {
+        @Bean
+        @Primary
+        OpenRouterChatModelFactory scriptedChatModelFactory() {
+            return new StubOpenRouterChatModelFactory(MODEL);
+        }
+    }
+
+    @Autowired
+    private WorkflowDefinitionService definitions;
+
+    @Autowired
+    private WorkflowRunService runs;
+
+    @Autowired
+    private WorkflowRunRepository workflowRuns;
+
+    @Autowired
+    private WorkflowNodeRunRepository nodeRuns;
+
+    @BeforeEach
+    void resetModel() {
+        MODEL.failOn = null;
+        MODEL.calls.set(0);
+    }
+
+    @Test
+    @DisplayName("resumes a run that failed inside a map node from the chunk node's checkpoint")
+    void resumesChunkThenMap() {
+        UUID workflowId = definitions.create(mapReduce());
+        String expected = runs.run(workflowId, INPUT).result();
+        MODEL.calls.set(0);
+        MODEL.failOn = "dog";
+
+        RunFailedException failed = assertThrows(RunFailedException.class, () -> runs.run(workflowId, INPUT));
+        MODEL.failOn = null;
+        MODEL.calls.set(0);
+        RunWorkflowResponse resumed = runs.resume(workflowId, failed.getRunId(), null, partial -> { });
+
+        assertThat(resumed.result()).isEqualTo(expected);
+        assertThat(resumed.reusedNodeIds()).containsExactly("split");
+        assertThat(MODEL.calls.get()).isEqualTo(chunkCount() + 1);
+    }
+
+    @Test
+    @DisplayName("resumes after a completed map node without rerunning its elements")
+    void resumesAfterMap() {
+        UUID workflowId = definitions.create(mapReduce());
+        String expected = runs.run(workflowId, INPUT).result();
+        MODEL.calls.set(0);
+        MODEL.failOn = "Combine";
+
+        RunFailedException failed = assertThrows(RunFailedException.class, () -> runs.run(workflowId, INPUT));
+        MODEL.failOn = null;
+        MODEL.calls.set(0);
+        RunWorkflowResponse resumed = runs.resume(workflowId, failed.getRunId(), null, partial -> { });
+
+        assertThat(resumed.result()).isEqualTo(expected);
+        assertThat(resumed.reusedNodeIds()).containsExactlyInAnyOrder("split", "summaries");
+        assertThat(MODEL.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("reruns only the edited node of an incremental run and matches a full run")
+    void incrementalRunAfterEdit() {
+        UUID workflowId = definitions.create(brief("Combine {{y}} and {{w}}"));
+        UUID previousRunId = runs.run(workflowId, BRIEF_INPUT).runId();
+        WorkflowCreateRequest edited = brief("Summarize {{y}} with {{w}}");
+        definitions.update(workflowId, new WorkflowUpdateRequest(edited.name(), edited.entryNodeId(), edited.nodes()));
+        MODEL.calls.set(0);
+
+        RunWorkflowResponse incremental = runs.run(workflowId, null, null, BRIEF_INPUT, partial -> { }, previousRunId);
+
+        assertThat(MODEL.calls.get()).isEqualTo(1);
+        assertThat(incremental.reusedNodeIds()).containsExactlyInAnyOrder("a", "b", "e");
+        assertThat(incremental.result()).isEqualTo(runs.run(workflowId, BRIEF_INPUT).result());
+    }
+
+    @Test
+    @DisplayName("reruns only the agents reading a changed metadata entry")
+    void incrementalRunAfterMetadataChange() {
+        UUID workflowId = definitions.create(brief("Combine {{y}} and {{w}}"));
+        UUID previousRunId = runs.run(workflowId, BRIEF_INPUT).runId();
+        Map<String, Object> input = Map.of("metadata", Map.of("topic", "a robot", "style", "pulp"));
+        MODEL.calls.set(0);
+
+        RunWorkflowResponse incremental = runs.run(workflowId, null, null, input, partial -> { }, previousRunId);
+
+        // b and e run as one stage, so b runs again with e; a does not.
+        assertThat(MODEL.calls.get()).isEqualTo(3);
+        assertThat(incremental.reusedNodeIds()).containsExactly("a");
+        assertThat(incremental.result()).isEqualTo(runs.run(workflowId, input).result());
+    }
+
+    @Test
+    @DisplayName("writes a finished run and a row per node to the run history")
+    void recordsRunHistory() throws InterruptedException {
+        UUID workflowId = definitions.create(mapReduce());
+        RunWorkflowResponse response = runs.run(workflowId, INPUT);
+
+        WorkflowRun run = awaitRun(workflowId);
+        Map<String, WorkflowNodeRun> nodes = nodeRuns.findByWorkflowRunId(run.getId()).stream()
+                .collect(Collectors.toMap(WorkflowNodeRun::getNodeId, Function.identity()));
+
+        assertThat(run.getRunId()).isEqualTo(response.runId());
+        assertThat(run.getStatus()).isEqualTo("SUCCEEDED");
+        assertThat(run.getResult()).isEqualTo(response.result());
+        assertThat(run.getLlmCalls()).isEqualTo(chunkCount() + 1);
+        assertThat(nodes).containsKeys("entry", "split", "summaries", "per-chunk", "summarize", "combine");
+        assertThat(nodes.get("summarize").getLlmCalls()).isEqualTo(chunkCount());
+        // Nodes without LLM calls are timed by their own step or by the nodes they run.
+        assertThat(nodes.get("split").getStartedAt()).isNotNull();
+        assertThat(nodes.get("summaries").getStartedAt()).isNotNull();
+        assertThat(nodes.get("entry").getDurationMs()).isGreaterThanOrEqualTo(nodes.get("summaries").getDurationMs());
+        assertThat(nodes.get("summaries").getDurationMs()).isGreaterThanOrEqualTo(nodes.get("summarize").getLlmMs());
+    }
+
+    /**
+     * Chunk the document, summarize each chunk through a nested sequence, then combine the summaries.
+     */
+    private static WorkflowCreateRequest mapReduce() {
+        List<WorkflowNodeDto> nodes = List.of(
+                node("llm-1", "llm").build(),
+                node("split", "chunk").inputKey("document").chunkTokens(CHUNK_TOKENS).build(),
+                node("summarize", "agent").llmId("llm-1").name("Summarizer")
+                        .promptTemplate("Summarize {{chunk}}").outputKey("summary").build(),
+                node("per-chunk", "sequence").outputKey("summary").subAgentIds("summarize").build(),
+                node("summaries", "map").itemsKey("chunks").itemKey("chunk").threadPoolSize(2)
+                        .outputKey("summaries").subAgentIds("per-chunk").build(),
+                node("combine", "agent").llmId("llm-1").name("Combiner")
+                        .promptTemplate("Combine {{summaries}}").outputKey("answer").build(),
+                node("entry", "sequence").outputKey("answer").subAgentIds("split", "summaries", "combine").build());
+        return new WorkflowCreateRequest("Map reduce " + UUID.randomUUID(), "entry", nodes);
+    }
+
+    /**
+     * Two independent branches over the metadata (a then b, and e) combined by c.
+     */
+    private static WorkflowCreateRequest brief(String combineTemplate) {
+        List<WorkflowNodeDto> nodes = List.of(
+                node("llm-1", "llm").build(),
+                node("a", "agent").llmId("llm-1").name("a").promptTemplate("Topic: {{metadata.topic}}").outputKey("x").build(),
+                node("b", "agent").llmId("llm-1").name("b").promptTemplate("Expand {{x}}").outputKey("y").build(),
+                node("e", "agent").llmId("llm-1").name("e").promptTemplate("Style: {{metadata.style}}").outputKey("w").build(),
+                node("c", "agent").llmId("llm-1").name("c").promptTemplate(combineTemplate).outputKey("z").build(),
+                node("entry", "sequence").outputKey("z").subAgentIds("a", "b", "e", "c").build());
+        return new WorkflowCreateRequest("Brief " + UUID.randomUUID(), "entry", nodes);
+    }
+
+    private WorkflowRun awaitRun(UUID workflowId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<WorkflowRun> recorded = workflowRuns.findByWorkflowId(workflowId);
+        while (recorded.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            recorded = workflowRuns.findByWorkflowId(workflowId);
+        }
+        assertThat(recorded).hasSize(1);
+        return recorded.get(0);
+    }
+
+    private static int chunkCount() {
+        return (int) StreamSupport.stream(new TokenEstimator().chunks(DOCUMENT, CHUNK_TOKENS, 0, null).spliterator(), false)
+                .count();
+    }
+
+    /**
+     * Answers with the last user message and counts calls; fails calls whose prompt contains {@code failOn}.
+     */
+    static class ScriptedChatModel implements ChatModel {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile String failOn;
+
+        @Override
+        public ChatResponse doChat(ChatRequest chatRequest) {
+            String prompt = chatRequest.messages().stream()
+                    .filter(UserMessage.class::isInstance)
+                    .map(m -> ((UserMessage) m).singleText())
+                    .reduce((first, second) -> second)
+                    .orElse("");
+            calls.incrementAndGet();
+            if (failOn != null && prompt.contains(failOn)) {
+                throw new IllegalStateException("model unavailable");
+            }
+            return ChatResponse.builder()
+                    .aiMessage(AiMessage.from("echo: " + prompt))
+                    .finishReason(FinishReason.STOP)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.agenteditor.service;
+
+import com.example.agenteditor.config.RunHistoryProperties.Overflow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("WriteBehindQueue")
+class WriteBehindQueueTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("writes queued items in batches of at most batchSize and flushes the rest on close")
+    void writesInBatches() throws InterruptedException {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<Integer> queue = queue(10, 3, Overflow.BLOCK, batch -> {
+            await(release);
+            batches.add(List.copyOf(batch));
+        });
+        for (int i = 0; i < 7; i++) {
+            assertTrue(queue.offer(i));
+        }
+        release.countDown();
+        queue.close(Duration.ofSeconds(5));
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), batches.stream().flatMap(List::stream).toList());
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 3));
+        assertEquals(7.0, registry.counter("test.written").count());
+    }
+
+    @Test
+    @DisplayName("DROP_NEWEST rejects items while the queue is full")
+    void dropNewest() throws InterruptedException {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<Integer> queue = queue(2, 1, Overflow.DROP_NEWEST, batch -> {
+            await(release);
+            written.addAll(batch);
+        });
+        queue.offer(0);
+        awaitPending(queue, 0);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        release.countDown();
+        queue.close(Duration.ofSeconds(5));
+
+        assertEquals(List.of(0, 1, 2), written);
+        assertEquals(1.0, registry.counter("test.dropped", "reason", "overflow").count());
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST evicts the oldest queued item to make room")
+    void dropOldest() throws InterruptedException {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<Integer> queue = queue(2, 1, Overflow.DROP_OLDEST, batch -> {
+            await(release);
+            written.addAll(batch);
+        });
+        queue.offer(0);
+        awaitPending(queue, 0);
+        queue.offer(1);
+        queue.offer(2);
+        assertFalse(queue.offer(3));
+        release.countDown();
+        queue.close(Duration.ofSeconds(5));
+
+        assertEquals(List.of(0, 2, 3), written);
+        assertEquals(1.0, registry.counter("test.dropped", "reason", "overflow").count());
+    }
+
+    @Test
+    @DisplayName("counts a failed batch as dropped and keeps writing")
+    void survivesSinkFailure() throws InterruptedException {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = queue(10, 1, Overflow.BLOCK, batch -> {
+            if (batch.contains(0)) {
+                throw new IllegalStateException("store down");
+            }
+            written.addAll(batch);
+        });
+        queue.offer(0);
+        queue.offer(1);
+        queue.close(Duration.ofSeconds(5));
+
+        assertEquals(List.of(1), written);
+        assertEquals(1.0, registry.counter("test.dropped", "reason", "error").count());
+    }
+
+    @Test
+    @DisplayName("flush waits until every accepted item has been written")
+    void flushWaitsForWrites() throws InterruptedException {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = queue(10, 2, Overflow.BLOCK, batch -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAll(batch);
+        });
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+
+        assertTrue(queue.flush(Duration.ofSeconds(5)));
+        assertEquals(List.of(0, 1, 2, 3, 4), written);
+        queue.close(Duration.ofSeconds(5));
+    }
+
+    private WriteBehindQueue<Integer> queue(int capacity, int batchSize, Overflow overflow, Consumer<List<Integer>> sink) {
+        return new WriteBehindQueue<>("test", capacity, batchSize, Duration.ofMillis(20), overflow, sink, registry, "test");
+    }
+
+    private static void awaitPending(WriteBehindQueue<?> queue, int pending) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.pending() != pending && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
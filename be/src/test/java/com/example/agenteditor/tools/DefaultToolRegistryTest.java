@@ -40,6 +40,14 @@ class DefaultToolRegistryTest {
         assertEquals(1, tools.length);
     }
 
+    @Test
+    @DisplayName("never caches the time tool and caches calculator results across runs")
+    void cachePolicies() {
+        assertEquals(ToolCachePolicy.NONE, registry.cachePolicy("time"));
+        assertEquals(ToolCachePolicy.Scope.GLOBAL, registry.cachePolicy("calculator").scope());
+        assertEquals(ToolCachePolicy.NONE, registry.cachePolicy("unknown"));
+    }
+
     @Test
     @DisplayName("returns available tool ids sorted")
     void returnsAvailableToolIds() {
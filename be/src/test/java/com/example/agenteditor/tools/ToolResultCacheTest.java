@@ -0,0 +1,57 @@
+package com.example.agenteditor.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("ToolResultCache")
+class ToolResultCacheTest {
+
+    @Test
+    @DisplayName("evicts the least recently used entry beyond its size bound")
+    void sizeBound() {
+        ToolResultCache cache = new ToolResultCache(new ToolCachePolicy(ToolCachePolicy.Scope.RUN, Duration.ZERO, 2));
+        cache.put("a", "1", 10);
+        cache.put("b", "2", 10);
+        cache.get("a");
+        cache.put("c", "3", 10);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    @DisplayName("treats global entries older than the TTL as misses")
+    void ttl() throws InterruptedException {
+        ToolResultCache cache = new ToolResultCache(
+                new ToolCachePolicy(ToolCachePolicy.Scope.GLOBAL, Duration.ofMillis(20), 10));
+        cache.put("a", "1", 10);
+        assertEquals("1", cache.get("a").result());
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("lets one caller claim a missing key and hands its entry to the others")
+    void claim() {
+        ToolResultCache cache = new ToolResultCache(new ToolCachePolicy(ToolCachePolicy.Scope.RUN, Duration.ZERO, 10));
+        assertNull(cache.claim("a"));
+        CompletableFuture<ToolResultCache.Entry> pending = cache.claim("a");
+        assertNotNull(pending);
+
+        cache.complete("a", cache.put("a", "1", 10));
+
+        assertEquals("1", pending.join().result());
+        assertNull(cache.claim("a"));
+    }
+}
@@ -5,6 +5,7 @@ import type {
   WorkflowUpdateRequest,
   WorkflowIdResponse,
   RunWorkflowResponse,
+  ExecutionPlanDto,
   AvailableTool,
 } from './types'
 
@@ -17,10 +18,26 @@ function getHeaders(): HeadersInit {
   }
 }
 
+/** API error; `runId` is set when a run failed and can be resumed from its checkpoints. */
+export class ApiError extends Error {
+  runId?: string
+
+  constructor(message: string, runId?: string) {
+    super(message)
+    this.runId = runId
+  }
+}
+
 async function handleResponse<T>(res: Response): Promise<T> {
   if (!res.ok) {
     const text = await res.text()
-    throw new Error(`API error ${res.status}: ${text || res.statusText}`)
+    let runId: string | undefined
+    try {
+      runId = (JSON.parse(text) as { runId?: string }).runId ?? undefined
+    } catch {
+      runId = undefined
+    }
+    throw new ApiError(`API error ${res.status}: ${text || res.statusText}`, runId)
   }
   if (res.status === 204) return undefined as T
   return res.json() as Promise<T>
@@ -64,8 +81,18 @@ export async function deleteWorkflow(id: string): Promise<void> {
   return handleResponse<void>(res)
 }
 
-export async function runWorkflow(id: string, input: Record<string, unknown> = {}): Promise<RunWorkflowResponse> {
-  const res = await fetch(`${API_BASE}/api/v1/workflows/${id}/run`, {
+/** Runs started from the editor have a user waiting, so they are queued ahead of API and batch runs. */
+const EDITOR_RUN_PRIORITY = 'INTERACTIVE'
+
+export async function runWorkflow(
+  id: string,
+  input: Record<string, unknown> = {},
+  previousRunId?: string
+): Promise<RunWorkflowResponse> {
+  const params = new URLSearchParams({ priority: EDITOR_RUN_PRIORITY })
+  if (previousRunId) params.set('previousRunId', previousRunId)
+  const query = `?${params.toString()}`
+  const res = await fetch(`${API_BASE}/api/v1/workflows/${id}/run${query}`, {
     method: 'POST',
     headers: getHeaders(),
     body: JSON.stringify(input),
@@ -73,6 +100,19 @@ export async function runWorkflow(id: string, input: Record<string, unknown> = {
   return handleResponse<RunWorkflowResponse>(res)
 }
 
+export async function resumeRun(id: string, runId: string): Promise<RunWorkflowResponse> {
+  const res = await fetch(`${API_BASE}/api/v1/workflows/${id}/runs/${runId}/resume?priority=${EDITOR_RUN_PRIORITY}`, {
+    method: 'POST',
+    headers: getHeaders(),
+  })
+  return handleResponse<RunWorkflowResponse>(res)
+}
+
+export async function explainWorkflow(id: string): Promise<ExecutionPlanDto> {
+  const res = await fetch(`${API_BASE}/api/v1/workflows/${id}/explain`, { headers: getHeaders() })
+  return handleResponse<ExecutionPlanDto>(res)
+}
+
 export async function getAvailableTools(): Promise<AvailableTool[]> {
   const res = await fetch(`${API_BASE}/api/v1/tools`, { headers: getHeaders() })
   return handleResponse<AvailableTool[]>(res)
@@ -3,12 +3,27 @@ export interface ConditionalBranchDto {
   conditionKey: string
   value: string
   agentId: string
+  /** 0..1; ranks the branch for speculative execution. */
+  probability?: number | null
+}
+
+/** Model an llm node may route to, in order of preference, with its objectives. */
+export interface ModelCandidateDto {
+  modelName: string
+  /** Per-call timeout (default 120000). */
+  timeoutMs?: number | null
+  /** Recent p95 latency above which later candidates go first. */
+  latencySloMs?: number | null
+  /** Recent error rate (0..1) above which later candidates go first. */
+  maxErrorRate?: number | null
 }
 
 /** Tool reference on a node (id + optional description for layout/UI). */
 export interface NodeToolDto {
   id: string
   description?: string
+  /** Bound of each call of this tool on an agent node (default 30000). */
+  timeoutMs?: number
 }
 
 /** One node in a workflow graph. */
@@ -19,6 +34,7 @@ export interface WorkflowNodeDto {
   modelName?: string | null
   temperature?: number | null
   maxTokens?: number | null
+  maxInputTokens?: number | null
   llmId?: string | null
   name?: string | null
   role?: string | null
@@ -31,19 +47,44 @@ export interface WorkflowNodeDto {
   responseStrategy?: string | null
   routerAgentId?: string | null
   branches?: ConditionalBranchDto[] | null
+  /** NONE (default), TRIM or IGNORE_CASE; applied to branch values and routed state. */
+  branchNormalization?: string | null
+  defaultAgentId?: string | null
+  /** Start likely branches while the router runs (router must directly precede the node in a sequence). */
+  speculative?: boolean | null
+  speculativeBranches?: number | null
   threadPoolSize?: number | null
+  /** Parallel nodes: ALL (default), FIRST_N, QUORUM or DEADLINE. */
+  completionPolicy?: string | null
+  requiredCount?: number | null
+  deadlineMs?: number | null
+  /** Map nodes: scope key holding the collection, key exposing each element, and partial-result streaming. */
+  itemsKey?: string | null
+  itemKey?: string | null
+  streamResults?: boolean | null
+  /** Chunk nodes: scope key of the text, chunk size and overlap in tokens. */
+  inputKey?: string | null
+  chunkTokens?: number | null
+  chunkOverlap?: number | null
+  /** LLM nodes: candidate models routed by latency and errors, with failover; replaces modelName. */
+  candidateModels?: ModelCandidateDto[] | null
 }
 
+/** Engine a workflow runs on; null/absent means the default interpreter. */
+export type ExecutionEngine = 'INTERPRETER' | 'DAG'
+
 export interface WorkflowCreateRequest {
   name: string
   entryNodeId: string
   nodes: WorkflowNodeDto[]
+  executionEngine?: ExecutionEngine | null
 }
 
 export interface WorkflowUpdateRequest {
   name: string
   entryNodeId: string
   nodes: WorkflowNodeDto[]
+  executionEngine?: ExecutionEngine | null
 }
 
 export interface WorkflowListItem {
@@ -63,6 +104,22 @@ export interface WorkflowResponse {
   nodes: WorkflowNodeDto[]
   createdAt: string
   updatedAt: string
+  /** Immutable version the graph was read from. */
+  versionId?: string | null
+  /** Content hash of the graph; equal hashes mean identical graphs. */
+  graphHash?: string | null
+  executionEngine?: ExecutionEngine | null
+}
+
+export interface WorkflowVersionItem {
+  id: string
+  graphHash: string
+  createdAt: string
+  current: boolean
+}
+
+export interface WorkflowVersionListResponse {
+  versions: WorkflowVersionItem[]
 }
 
 export interface WorkflowIdResponse {
@@ -73,6 +130,48 @@ export interface RunWorkflowResponse {
   result: string
   executedNodeIds?: string[]
   executedNodeNames?: string[]
+  /** Workflow version the run was pinned to. */
+  versionId?: string | null
+  /** Scope values cut to fit prompt limits. */
+  truncations?: TruncationDto[]
+  /** Engine that executed the run. */
+  engine?: ExecutionEngine | null
+  /** Run id of the checkpoints; a failed run is resumed with it. */
+  runId?: string | null
+  /** Nodes whose results were reused from an earlier run instead of run again. */
+  reusedNodeIds?: string[]
+  /** LLM calls, tokens and estimated cost (USD) of the run. */
+  usage?: RunUsageDto | null
+}
+
+export interface RunUsageDto {
+  llmCalls: number
+  inputTokens: number
+  outputTokens: number
+  estimatedCost: number
+}
+
+/** Stages one sequence node runs in; steps in the same stage run concurrently. */
+export interface SequencePlanDto {
+  nodeId: string
+  stages: string[][]
+  estimatedSerialMs: number
+  estimatedPlannedMs: number
+}
+
+export interface ExecutionPlanDto {
+  entryNodeId: string
+  autoParallelize: boolean
+  sequences: SequencePlanDto[]
+  estimatedSavedMs: number
+}
+
+/** Run trace entry for a scope value cut to fit prompt limits. */
+export interface TruncationDto {
+  nodeId: string
+  key: string
+  originalChars: number
+  keptChars: number
 }
 
 /** One available tool from GET /api/v1/tools */
@@ -1,6 +1,6 @@
 import { useCallback, useEffect, useMemo, useState } from 'react'
 import type { Node, Edge } from 'reactflow'
-import { Input, Button, Space, Typography, Tag, Tooltip } from 'antd'
+import { Input, Button, Space, Typography, Tag, Tooltip, Checkbox } from 'antd'
 import { FlagOutlined, DeleteOutlined, PlusOutlined } from '@ant-design/icons'
 import type { NodeData } from '../editor/nodeData'
 import { getDependencies } from '../editor/dependencies'
@@ -137,6 +137,18 @@ export default function NodeConfigPanel({ node, allNodes, allEdges, onUpdate, on
                 size="small"
               />
             </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Max input tokens</label>
+              <Input
+                type="number"
+                value={data.maxInputTokens ?? ''}
+                onChange={(e) =>
+                  update('maxInputTokens', e.target.value === '' ? undefined : parseInt(e.target.value, 10))
+                }
+                placeholder="Prompt budget for agents using this LLM"
+                size="small"
+              />
+            </div>
           </>
         )}
 
@@ -212,6 +224,31 @@ export default function NodeConfigPanel({ node, allNodes, allEdges, onUpdate, on
                 className="font-mono text-xs"
               />
             </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Max input tokens</label>
+              <Input
+                type="number"
+                value={data.maxInputTokens ?? ''}
+                onChange={(e) =>
+                  update('maxInputTokens', e.target.value === '' ? undefined : parseInt(e.target.value, 10))
+                }
+                placeholder="Overrides the LLM node's budget"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Parallel tool calls</label>
+              <Input
+                type="number"
+                min={1}
+                value={data.threadPoolSize ?? ''}
+                onChange={(e) =>
+                  update('threadPoolSize', e.target.value ? parseInt(e.target.value, 10) : undefined)
+                }
+                placeholder="All at once; 1 runs them one by one"
+                size="small"
+              />
+            </div>
             {availableTools.length > 0 && (
               <div>
                 <label className="block text-slate-600 text-xs mb-1">Tools (id + description for layout)</label>
@@ -266,18 +303,196 @@ export default function NodeConfigPanel({ node, allNodes, allEdges, onUpdate, on
                 />
               </div>
             )}
+            {type === 'parallel' && (
+              <>
+                <div>
+                  <label className="block text-slate-600 text-xs mb-1">Completion policy</label>
+                  <Input
+                    value={data.completionPolicy ?? ''}
+                    onChange={(e) => update('completionPolicy', e.target.value === '' ? undefined : e.target.value)}
+                    placeholder="ALL, FIRST_N, QUORUM or DEADLINE"
+                    size="small"
+                  />
+                </div>
+                <div>
+                  <label className="block text-slate-600 text-xs mb-1">Required count</label>
+                  <Input
+                    type="number"
+                    min={1}
+                    value={data.requiredCount ?? ''}
+                    onChange={(e) =>
+                      update('requiredCount', e.target.value ? parseInt(e.target.value, 10) : undefined)
+                    }
+                    placeholder="FIRST_N: 1, QUORUM: majority"
+                    size="small"
+                  />
+                </div>
+                <div>
+                  <label className="block text-slate-600 text-xs mb-1">Deadline (ms)</label>
+                  <Input
+                    type="number"
+                    min={1}
+                    value={data.deadlineMs ?? ''}
+                    onChange={(e) =>
+                      update('deadlineMs', e.target.value ? parseInt(e.target.value, 10) : undefined)
+                    }
+                    size="small"
+                  />
+                </div>
+              </>
+            )}
+          </>
+        )}
+
+        {type === 'chunk' && (
+          <>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Input key</label>
+              <Input
+                value={data.inputKey ?? ''}
+                onChange={(e) => update('inputKey', e.target.value)}
+                placeholder="Scope key holding the document"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Output key</label>
+              <Input
+                value={data.outputKey ?? ''}
+                onChange={(e) => update('outputKey', e.target.value)}
+                placeholder="chunks"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Chunk tokens</label>
+              <Input
+                type="number"
+                min={1}
+                value={data.chunkTokens ?? ''}
+                onChange={(e) => update('chunkTokens', e.target.value ? parseInt(e.target.value, 10) : undefined)}
+                placeholder="1000"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Overlap tokens</label>
+              <Input
+                type="number"
+                min={0}
+                value={data.chunkOverlap ?? ''}
+                onChange={(e) => update('chunkOverlap', e.target.value ? parseInt(e.target.value, 10) : undefined)}
+                placeholder="0"
+                size="small"
+              />
+            </div>
+          </>
+        )}
+
+        {type === 'map' && (
+          <>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Output key</label>
+              <Input
+                value={data.outputKey ?? ''}
+                onChange={(e) => update('outputKey', e.target.value)}
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Items key</label>
+              <Input
+                value={data.itemsKey ?? ''}
+                onChange={(e) => update('itemsKey', e.target.value)}
+                placeholder="Scope key holding the list"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Item key</label>
+              <Input
+                value={data.itemKey ?? ''}
+                onChange={(e) => update('itemKey', e.target.value === '' ? undefined : e.target.value)}
+                placeholder="item"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Concurrency</label>
+              <Input
+                type="number"
+                min={1}
+                value={data.threadPoolSize ?? ''}
+                onChange={(e) =>
+                  update('threadPoolSize', e.target.value ? parseInt(e.target.value, 10) : undefined)
+                }
+                placeholder="8"
+                size="small"
+              />
+            </div>
+            <div>
+              <Checkbox
+                checked={data.streamResults ?? false}
+                onChange={(e) => update('streamResults', e.target.checked ? true : undefined)}
+              >
+                <span className="text-slate-600 text-xs">Stream element results</span>
+              </Checkbox>
+            </div>
           </>
         )}
 
         {type === 'conditional' && (
-          <div>
-            <label className="block text-slate-600 text-xs mb-1">Router agent ID</label>
-            <Input
-              value={data.routerAgentId ?? ''}
-              onChange={(e) => update('routerAgentId', e.target.value)}
-              size="small"
-            />
-          </div>
+          <>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Router agent ID</label>
+              <Input
+                value={data.routerAgentId ?? ''}
+                onChange={(e) => update('routerAgentId', e.target.value)}
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Branch normalization</label>
+              <Input
+                value={data.branchNormalization ?? ''}
+                onChange={(e) => update('branchNormalization', e.target.value === '' ? undefined : e.target.value)}
+                placeholder="NONE, TRIM or IGNORE_CASE"
+                size="small"
+              />
+            </div>
+            <div>
+              <label className="block text-slate-600 text-xs mb-1">Default agent ID</label>
+              <Input
+                value={data.defaultAgentId ?? ''}
+                onChange={(e) => update('defaultAgentId', e.target.value === '' ? undefined : e.target.value)}
+                placeholder="Taken when no branch matches"
+                size="small"
+              />
+            </div>
+            <div>
+              <Checkbox
+                checked={data.speculative ?? false}
+                onChange={(e) => update('speculative', e.target.checked ? true : undefined)}
+              >
+                <span className="text-slate-600 text-xs">Speculate likely branches while routing</span>
+              </Checkbox>
+            </div>
+            {data.speculative && (
+              <div>
+                <label className="block text-slate-600 text-xs mb-1">Max speculative branches</label>
+                <Input
+                  type="number"
+                  min={1}
+                  value={data.speculativeBranches ?? ''}
+                  onChange={(e) =>
+                    update('speculativeBranches', e.target.value === '' ? undefined : parseInt(e.target.value, 10))
+                  }
+                  placeholder="1"
+                  size="small"
+                />
+              </div>
+            )}
+          </>
         )}
 
         {/* Dependencies (DSL-like: uses / used by) */}
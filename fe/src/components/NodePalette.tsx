@@ -8,9 +8,11 @@ import {
   ApartmentOutlined,
   BranchesOutlined,
   ClusterOutlined,
+  ScissorOutlined,
   OrderedListOutlined,
   RobotOutlined,
   TeamOutlined,
+  UnorderedListOutlined,
 } from '@ant-design/icons'
 
 const LABELS: Record<NodeKind, string> = {
@@ -20,6 +22,8 @@ const LABELS: Record<NodeKind, string> = {
   sequence: 'Sequence',
   parallel: 'Parallel',
   conditional: 'Conditional',
+  map: 'Map',
+  chunk: 'Chunk',
 }
 
 const ICONS: Record<NodeKind, ReactNode> = {
@@ -29,9 +33,11 @@ const ICONS: Record<NodeKind, ReactNode> = {
   sequence: <OrderedListOutlined />,
   parallel: <ApartmentOutlined />,
   conditional: <BranchesOutlined />,
+  map: <UnorderedListOutlined />,
+  chunk: <ScissorOutlined />,
 }
 
-const KINDS: NodeKind[] = ['llm', 'agent', 'supervisor', 'sequence', 'parallel', 'conditional']
+const KINDS: NodeKind[] = ['llm', 'agent', 'supervisor', 'sequence', 'parallel', 'conditional', 'map', 'chunk']
 
 interface NodePaletteProps {
   onAddNode: (kind: NodeKind) => void
@@ -1,7 +1,8 @@
 import { useState, useEffect } from 'react'
-import { Modal, Input, Button, Space, Alert, Tag } from 'antd'
+import { Modal, Input, Button, Space, Alert, Tag, Checkbox } from 'antd'
 import { getDefaultRunInput } from '../runSamples'
-import type { RunWorkflowResponse } from '../api/types'
+import { ApiError } from '../api/client'
+import type { RunWorkflowResponse, RunUsageDto } from '../api/types'
 
 const { TextArea } = Input
 
@@ -9,11 +10,15 @@ interface RunDialogProps {
   workflowId: string
   workflowName: string
   onClose: () => void
-  onRun: (workflowId: string, input: Record<string, unknown>) => Promise<RunWorkflowResponse>
-  onTrace?: (executedNodeIds: string[]) => void
+  onRun: (workflowId: string, input: Record<string, unknown>, previousRunId?: string) => Promise<RunWorkflowResponse>
+  onTrace?: (executedNodeIds: string[], runId?: string) => void
+  /** Last successful run; when set, the dialog offers an incremental run reusing its results. */
+  previousRunId?: string | null
+  /** Resumes a failed run after its last checkpointed step. */
+  onResume?: (workflowId: string, runId: string) => Promise<RunWorkflowResponse>
 }
 
-export default function RunDialog({ workflowId, workflowName, onClose, onRun, onTrace }: RunDialogProps) {
+export default function RunDialog({ workflowId, workflowName, onClose, onRun, onTrace, onResume, previousRunId }: RunDialogProps) {
   const [inputJson, setInputJson] = useState(() => getDefaultRunInput(workflowName ?? ''))
 
   useEffect(() => {
@@ -23,33 +28,52 @@ export default function RunDialog({ workflowId, workflowName, onClose, onRun, on
   const [executedNodes, setExecutedNodes] = useState<string[]>([])
   const [error, setError] = useState<string | null>(null)
   const [running, setRunning] = useState(false)
+  const [failedRunId, setFailedRunId] = useState<string | null>(null)
+  const [incremental, setIncremental] = useState(true)
+  const [reusedCount, setReusedCount] = useState(0)
+  const [usage, setUsage] = useState<RunUsageDto | null>(null)
 
-  const handleRun = async () => {
+  const execute = async (call: () => Promise<RunWorkflowResponse>) => {
     setError(null)
     setResult(null)
     setExecutedNodes([])
-    let input: Record<string, unknown>
-    try {
-      input = JSON.parse(inputJson) as Record<string, unknown>
-    } catch {
-      setError('Invalid JSON')
-      return
-    }
+    setUsage(null)
     setRunning(true)
     try {
-      const res = await onRun(workflowId, input)
+      const res = await call()
+      setFailedRunId(null)
+      setReusedCount(res.reusedNodeIds?.length ?? 0)
+      setUsage(res.usage ?? null)
       setResult(res.result)
       const names = Array.isArray(res.executedNodeNames) ? res.executedNodeNames.filter(Boolean) : []
       const ids = Array.isArray(res.executedNodeIds) ? res.executedNodeIds.filter(Boolean) : []
       setExecutedNodes(names.length > 0 ? names : ids)
-      if (onTrace) onTrace(ids)
+      if (onTrace) onTrace(ids, res.runId ?? undefined)
     } catch (e) {
       setError(e instanceof Error ? e.message : String(e))
+      setFailedRunId(e instanceof ApiError && e.runId ? e.runId : null)
     } finally {
       setRunning(false)
     }
   }
 
+  const handleRun = async () => {
+    let input: Record<string, unknown>
+    try {
+      input = JSON.parse(inputJson) as Record<string, unknown>
+    } catch {
+      setError('Invalid JSON')
+      return
+    }
+    const base = incremental && previousRunId ? previousRunId : undefined
+    await execute(() => onRun(workflowId, input, base))
+  }
+
+  const handleResume = async () => {
+    if (!failedRunId || !onResume) return
+    await execute(() => onResume(workflowId, failedRunId))
+  }
+
   return (
     <Modal
       title={`Run: ${workflowName}`}
@@ -62,6 +86,7 @@ export default function RunDialog({ workflowId, workflowName, onClose, onRun, on
         setResult(null)
         setExecutedNodes([])
         setError(null)
+        setFailedRunId(null)
       }}
     >
       <Space direction="vertical" className="w-full" size="middle">
@@ -74,10 +99,21 @@ export default function RunDialog({ workflowId, workflowName, onClose, onRun, on
             className="font-mono text-sm"
           />
         </div>
+        {previousRunId && (
+          <Checkbox checked={incremental} onChange={(e) => setIncremental(e.target.checked)}>
+            Reuse results of the last run for unchanged nodes
+          </Checkbox>
+        )}
         {error && <Alert type="error" showIcon message={error} />}
         {result != null && (
           <div>
             <span className="text-sm font-medium text-slate-700">Result</span>
+            {usage && usage.llmCalls > 0 && (
+              <span className="ml-2 text-xs text-slate-500">
+                ({usage.llmCalls} LLM calls, {usage.inputTokens + usage.outputTokens} tokens, ~$
+                {usage.estimatedCost.toFixed(4)})
+              </span>
+            )}
             <pre className="mt-1 p-3 bg-slate-100 rounded text-sm overflow-auto max-h-48">
               {result}
             </pre>
@@ -86,6 +122,7 @@ export default function RunDialog({ workflowId, workflowName, onClose, onRun, on
         {executedNodes.length > 0 && (
           <div>
             <span className="text-sm font-medium text-slate-700">Executed nodes</span>
+            {reusedCount > 0 && <span className="ml-2 text-xs text-slate-500">({reusedCount} reused)</span>}
             <div className="mt-1 flex flex-wrap gap-1">
               {executedNodes.map((name) => (
                 <Tag key={name} color="green">
@@ -99,6 +136,11 @@ export default function RunDialog({ workflowId, workflowName, onClose, onRun, on
           <Button type="primary" loading={running} onClick={handleRun}>
             {running ? 'Running…' : 'Run'}
           </Button>
+          {failedRunId && onResume && (
+            <Button loading={running} onClick={handleResume} title="Continue after the last completed step">
+              Resume
+            </Button>
+          )}
           <Button onClick={onClose}>Close</Button>
         </Space>
       </Space>
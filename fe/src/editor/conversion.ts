@@ -100,7 +100,7 @@ export function reactFlowToGraph(
       const llmSource = fromLlm.find((sid) => nodeMap.get(sid)?.data?.type === 'llm')
       if (llmSource) dto.llmId = llmSource
     }
-    if (dto.type === 'sequence' || dto.type === 'parallel' || dto.type === 'supervisor') {
+    if (dto.type === 'sequence' || dto.type === 'parallel' || dto.type === 'supervisor' || dto.type === 'map') {
       if (targets?.length) dto.subAgentIds = [...targets]
     }
     if (dto.type === 'conditional') {
@@ -6,6 +6,9 @@ const LABELS: Record<string, string> = {
   'llm→supervisor': 'model',
   'agent→sequence': 'delegates',
   'agent→parallel': 'delegates',
+  'agent→map': 'for each',
+  'chunk→sequence': 'delegates',
+  'llm→chunk': 'tokenizer',
   'agent→supervisor': 'delegates',
   'agent→conditional': 'router',
   'agent→tool': 'tool',
@@ -70,7 +73,7 @@ export function toVisualEdge(
   }
 
   // Sub-agent dependency: render sequence/parallel/supervisor -> sub-agent.
-  const isParentType = (t?: string) => t === 'sequence' || t === 'parallel' || t === 'supervisor'
+  const isParentType = (t?: string) => t === 'sequence' || t === 'parallel' || t === 'supervisor' || t === 'map'
   if (isParentType(targetType) && target.data?.subAgentIds?.includes(source.id)) {
     return {
       edge: { ...edge, id: `viz-${edge.id}`, source: target.id, target: source.id },
@@ -146,6 +149,11 @@ export function getDependencies(
         }
       }
     }
+    if (d.defaultAgentId && nodeMap.has(d.defaultAgentId) && !usedIds.has(d.defaultAgentId)) {
+      usedIds.add(d.defaultAgentId)
+      const n = nodeMap.get(d.defaultAgentId)!
+      uses.push({ id: d.defaultAgentId, label: `Default: ${n.data?.name ?? n.data?.id ?? d.defaultAgentId}` })
+    }
   }
   for (const e of edges) {
     if (e.source === nodeId && !usedIds.has(e.target)) {
@@ -251,6 +259,8 @@ export function layoutFromEntry(
     supervisor: 0,
     sequence: 1,
     parallel: 1,
+    map: 1,
+    chunk: 2,
     conditional: 1,
     agent: 2,
     llm: 3,
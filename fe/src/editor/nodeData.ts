@@ -1,4 +1,4 @@
-import type { WorkflowNodeDto, NodeToolDto } from '../api/types'
+import type { WorkflowNodeDto, NodeToolDto, ModelCandidateDto } from '../api/types'
 
 const TOOLS_DEBUG = true // set to false to disable (must match WorkflowEditor if desired)
 
@@ -18,6 +18,7 @@ function normalizeTools(dto: WorkflowNodeDto): NodeToolDto[] | undefined {
           list.push({
             id: idStr,
             description: ref.description != null ? String(ref.description) : undefined,
+            timeoutMs: typeof ref.timeoutMs === 'number' ? ref.timeoutMs : undefined,
           })
         }
       }
@@ -50,6 +51,7 @@ export interface NodeData extends Record<string, unknown> {
   modelName?: string
   temperature?: number
   maxTokens?: number
+  maxInputTokens?: number
   llmId?: string
   name?: string
   role?: string
@@ -63,8 +65,22 @@ export interface NodeData extends Record<string, unknown> {
   subAgentIds?: string[]
   responseStrategy?: string
   routerAgentId?: string
-  branches?: { conditionKey: string; value: string; agentId: string }[]
+  branches?: { conditionKey: string; value: string; agentId: string; probability?: number | null }[]
+  branchNormalization?: string
+  defaultAgentId?: string
+  speculative?: boolean
+  speculativeBranches?: number
   threadPoolSize?: number
+  completionPolicy?: string
+  requiredCount?: number
+  deadlineMs?: number
+  itemsKey?: string
+  itemKey?: string
+  streamResults?: boolean
+  inputKey?: string
+  chunkTokens?: number
+  chunkOverlap?: number
+  candidateModels?: ModelCandidateDto[]
   toolId?: string
   description?: string
   parentAgentId?: string
@@ -80,6 +96,7 @@ export function nodeDataToDto(data: NodeData): WorkflowNodeDto {
   if (data.modelName != null) dto.modelName = data.modelName
   if (data.temperature != null) dto.temperature = data.temperature
   if (data.maxTokens != null) dto.maxTokens = data.maxTokens
+  if (data.maxInputTokens != null) dto.maxInputTokens = data.maxInputTokens
   if (data.llmId != null) dto.llmId = data.llmId
   if (data.name != null) dto.name = data.name
   if (data.role != null) dto.role = data.role
@@ -87,14 +104,32 @@ export function nodeDataToDto(data: NodeData): WorkflowNodeDto {
   if (data.promptTemplate != null) dto.promptTemplate = data.promptTemplate
   if (data.outputKey != null) dto.outputKey = data.outputKey
   if (data.tools != null && data.tools.length > 0) {
-    dto.tools = data.tools.map((t) => ({ id: t.id, description: t.description ?? '' }))
+    dto.tools = data.tools.map((t) => ({
+      id: t.id,
+      description: t.description ?? '',
+      ...(t.timeoutMs != null ? { timeoutMs: t.timeoutMs } : {}),
+    }))
   }
   if (data.toolIds != null) dto.toolIds = data.toolIds
   if (data.subAgentIds != null) dto.subAgentIds = data.subAgentIds
   if (data.responseStrategy != null) dto.responseStrategy = data.responseStrategy
   if (data.routerAgentId != null) dto.routerAgentId = data.routerAgentId
   if (data.branches != null) dto.branches = data.branches
+  if (data.branchNormalization != null) dto.branchNormalization = data.branchNormalization
+  if (data.defaultAgentId != null) dto.defaultAgentId = data.defaultAgentId
+  if (data.speculative != null) dto.speculative = data.speculative
+  if (data.speculativeBranches != null) dto.speculativeBranches = data.speculativeBranches
   if (data.threadPoolSize != null) dto.threadPoolSize = data.threadPoolSize
+  if (data.completionPolicy != null) dto.completionPolicy = data.completionPolicy
+  if (data.requiredCount != null) dto.requiredCount = data.requiredCount
+  if (data.deadlineMs != null) dto.deadlineMs = data.deadlineMs
+  if (data.itemsKey != null) dto.itemsKey = data.itemsKey
+  if (data.itemKey != null) dto.itemKey = data.itemKey
+  if (data.streamResults != null) dto.streamResults = data.streamResults
+  if (data.inputKey != null) dto.inputKey = data.inputKey
+  if (data.chunkTokens != null) dto.chunkTokens = data.chunkTokens
+  if (data.chunkOverlap != null) dto.chunkOverlap = data.chunkOverlap
+  if (data.candidateModels != null && data.candidateModels.length > 0) dto.candidateModels = data.candidateModels
   return dto
 }
 
@@ -108,6 +143,7 @@ export function dtoToNodeData(dto: WorkflowNodeDto, isEntry: boolean): NodeData
     modelName: dto.modelName ?? undefined,
     temperature: dto.temperature ?? undefined,
     maxTokens: dto.maxTokens ?? undefined,
+    maxInputTokens: dto.maxInputTokens ?? undefined,
     llmId: dto.llmId ?? undefined,
     name: dto.name ?? undefined,
     role: dto.role ?? undefined,
@@ -119,6 +155,20 @@ export function dtoToNodeData(dto: WorkflowNodeDto, isEntry: boolean): NodeData
     responseStrategy: dto.responseStrategy ?? undefined,
     routerAgentId: dto.routerAgentId ?? undefined,
     branches: dto.branches ?? undefined,
+    branchNormalization: dto.branchNormalization ?? undefined,
+    defaultAgentId: dto.defaultAgentId ?? undefined,
+    speculative: dto.speculative ?? undefined,
+    speculativeBranches: dto.speculativeBranches ?? undefined,
     threadPoolSize: dto.threadPoolSize ?? undefined,
+    completionPolicy: dto.completionPolicy ?? undefined,
+    requiredCount: dto.requiredCount ?? undefined,
+    deadlineMs: dto.deadlineMs ?? undefined,
+    itemsKey: dto.itemsKey ?? undefined,
+    itemKey: dto.itemKey ?? undefined,
+    streamResults: dto.streamResults ?? undefined,
+    inputKey: dto.inputKey ?? undefined,
+    chunkTokens: dto.chunkTokens ?? undefined,
+    chunkOverlap: dto.chunkOverlap ?? undefined,
+    candidateModels: dto.candidateModels ?? undefined,
   }
 }
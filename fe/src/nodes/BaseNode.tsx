@@ -5,8 +5,10 @@ import {
   ClusterOutlined,
   OrderedListOutlined,
   RobotOutlined,
+  ScissorOutlined,
   TeamOutlined,
   ToolOutlined,
+  UnorderedListOutlined,
 } from '@ant-design/icons'
 import type { ReactNode } from 'react'
 
@@ -59,6 +61,22 @@ const visuals: Record<string, { bg: string; border: string; chipBg: string; chip
     icon: <BranchesOutlined />,
     label: 'Conditional',
   },
+  map: {
+    bg: '#f0fdf4',
+    border: '#15803d',
+    chipBg: '#dcfce7',
+    chipFg: '#14532d',
+    icon: <UnorderedListOutlined />,
+    label: 'Map',
+  },
+  chunk: {
+    bg: '#fefce8',
+    border: '#a16207',
+    chipBg: '#fef9c3',
+    chipFg: '#713f12',
+    icon: <ScissorOutlined />,
+    label: 'Chunk',
+  },
   tool: {
     bg: '#fff7ed',
     border: '#c2410c',
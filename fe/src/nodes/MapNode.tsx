@@ -0,0 +1,9 @@
+import { memo } from 'react'
+import type { NodeProps } from 'reactflow'
+import BaseNode from './BaseNode'
+
+function MapNode(props: NodeProps) {
+  return <BaseNode {...props} />
+}
+
+export default memo(MapNode)
@@ -5,6 +5,8 @@ import SupervisorNode from './SupervisorNode'
 import SequenceNode from './SequenceNode'
 import ParallelNode from './ParallelNode'
 import ConditionalNode from './ConditionalNode'
+import MapNode from './MapNode'
+import ChunkNode from './ChunkNode'
 import ToolNode from './ToolNode'
 
 export const nodeTypes: NodeTypes = {
@@ -14,8 +16,10 @@ export const nodeTypes: NodeTypes = {
   sequence: SequenceNode,
   parallel: ParallelNode,
   conditional: ConditionalNode,
+  map: MapNode,
+  chunk: ChunkNode,
   tool: ToolNode,
 }
 
-export const NODE_KINDS = ['llm', 'agent', 'supervisor', 'sequence', 'parallel', 'conditional'] as const
+export const NODE_KINDS = ['llm', 'agent', 'supervisor', 'sequence', 'parallel', 'conditional', 'map', 'chunk'] as const
 export type NodeKind = (typeof NODE_KINDS)[number]
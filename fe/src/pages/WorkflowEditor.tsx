@@ -13,9 +13,9 @@ import ReactFlow, {
   type ReactFlowInstance,
 } from 'reactflow'
 import 'reactflow/dist/style.css'
-import { Button, Input, Alert, Space, Spin } from 'antd'
-import { ArrowLeftOutlined, SaveOutlined, PlayCircleOutlined, DeleteOutlined, ApartmentOutlined } from '@ant-design/icons'
-import { getWorkflow, createWorkflow, updateWorkflow, runWorkflow, deleteWorkflow } from '../api/client'
+import { Button, Input, Alert, Modal, Select, Space, Spin } from 'antd'
+import { ArrowLeftOutlined, SaveOutlined, PlayCircleOutlined, DeleteOutlined, ApartmentOutlined, NodeIndexOutlined } from '@ant-design/icons'
+import { getWorkflow, createWorkflow, updateWorkflow, runWorkflow, deleteWorkflow, explainWorkflow, resumeRun } from '../api/client'
 import { nodeTypes, type NodeKind } from '../nodes'
 import NodePalette from '../components/NodePalette'
 import NodeConfigPanel from '../components/NodeConfigPanel'
@@ -34,8 +34,9 @@ function applyLayout(
   return layoutByDependency(nodes, edges, { columnWidth: 300, rowHeight: 130 })
 }
 import type { NodeData } from '../editor/nodeData'
+import type { ExecutionEngine, ExecutionPlanDto } from '../api/types'
 
-const ENTRY_NODE_TYPES = new Set(['sequence', 'parallel', 'supervisor'])
+const ENTRY_NODE_TYPES = new Set(['sequence', 'parallel', 'supervisor', 'map'])
 
 let nodeIdCounter = 0
 function nextId(prefix: string): string {
@@ -139,6 +140,8 @@ function createNodeData(kind: NodeKind): NodeData {
   if (kind === 'agent' || kind === 'supervisor') return { ...base, name: id }
   if (kind === 'sequence' || kind === 'parallel') return { ...base, outputKey: 'output' }
   if (kind === 'conditional') return { ...base, routerAgentId: '', branches: [] }
+  if (kind === 'map') return { ...base, outputKey: 'output', itemsKey: 'items' }
+  if (kind === 'chunk') return { ...base, outputKey: 'chunks', inputKey: 'document', chunkTokens: 1000 }
   return base
 }
 
@@ -147,6 +150,7 @@ export default function WorkflowEditor() {
   const navigate = useNavigate()
   const [workflowName, setWorkflowName] = useState('New workflow')
   const [entryNodeId, setEntryNodeId] = useState<string>('')
+  const [executionEngine, setExecutionEngine] = useState<ExecutionEngine>('INTERPRETER')
   const [nodes, setNodes, onNodesChange] = useNodesState<NodeData>([])
   const [edges, setEdges, onEdgesChange] = useEdgesState([])
   const [selectedNode, setSelectedNode] = useState<Node<NodeData> | null>(null)
@@ -155,7 +159,9 @@ export default function WorkflowEditor() {
   const [saving, setSaving] = useState(false)
   const [runDialogOpen, setRunDialogOpen] = useState(false)
   const [lastRunExecutedCount, setLastRunExecutedCount] = useState(0)
+  const [lastRunId, setLastRunId] = useState<string | null>(null)
   const [deleting, setDeleting] = useState(false)
+  const [plan, setPlan] = useState<ExecutionPlanDto | null>(null)
   const [flow, setFlow] = useState<ReactFlowInstance<NodeData, Edge> | null>(null)
 
   useEffect(() => {
@@ -163,6 +169,7 @@ export default function WorkflowEditor() {
       setNodes([])
       setEdges([])
       setEntryNodeId('')
+      setExecutionEngine('INTERPRETER')
       setLastRunExecutedCount(0)
       setLoading(false)
       return
@@ -181,6 +188,7 @@ export default function WorkflowEditor() {
         }
         setWorkflowName(w.name)
         setEntryNodeId(w.entryNodeId)
+        setExecutionEngine(w.executionEngine ?? 'INTERPRETER')
         const { nodes: n, edges: e } = graphToReactFlow(w.nodes, w.entryNodeId)
         if (TOOLS_DEBUG) {
           const withToolsData = n.filter((nd) => {
@@ -258,7 +266,7 @@ export default function WorkflowEditor() {
     (nodeId: string) => {
       const node = nodes.find((n) => n.id === nodeId)
       if (!node || !ENTRY_NODE_TYPES.has(node.data?.type ?? '')) {
-        setError('Entry node must be sequence, parallel, or supervisor.')
+        setError('Entry node must be sequence, parallel, supervisor, or map.')
         return
       }
       setEntryNodeId(nodeId)
@@ -422,10 +430,10 @@ export default function WorkflowEditor() {
     }
     const entryNode = persistNodes.find((n) => n.id === entry)
     if (!entryNode || !ENTRY_NODE_TYPES.has(entryNode.data?.type ?? '')) {
-      setError('Entry node must be sequence, parallel, or supervisor.')
+      setError('Entry node must be sequence, parallel, supervisor, or map.')
       return
     }
-    const payload = reactFlowToGraph(workflowName, persistNodes, persistEdges, entry)
+    const payload = { ...reactFlowToGraph(workflowName, persistNodes, persistEdges, entry), executionEngine }
     setSaving(true)
     setError(null)
     try {
@@ -440,7 +448,7 @@ export default function WorkflowEditor() {
     } finally {
       setSaving(false)
     }
-  }, [workflowName, entryNodeId, persistNodes, persistEdges, id, navigate])
+  }, [workflowName, entryNodeId, executionEngine, persistNodes, persistEdges, id, navigate])
 
   const handleDeleteWorkflow = useCallback(async () => {
     if (!id) return
@@ -457,6 +465,21 @@ export default function WorkflowEditor() {
     }
   }, [id, navigate])
 
+  const handleExplain = useCallback(async () => {
+    if (!id) return
+    setError(null)
+    try {
+      setPlan(await explainWorkflow(id))
+    } catch (e) {
+      setError(e instanceof Error ? e.message : String(e))
+    }
+  }, [id])
+
+  const nodeLabel = useCallback(
+    (nodeId: string) => nodes.find((n) => n.id === nodeId)?.data?.label ?? nodeId,
+    [nodes]
+  )
+
   const handleDeleteNode = useCallback(
     (nodeId: string) => {
       setNodes((prev) => prev.filter((n) => n.id !== nodeId))
@@ -512,6 +535,17 @@ export default function WorkflowEditor() {
           </span>
         )}
         <Space className="ml-auto">
+          <Select
+            value={executionEngine}
+            onChange={setExecutionEngine}
+            size="small"
+            style={{ width: 130 }}
+            options={[
+              { value: 'INTERPRETER', label: 'Interpreter' },
+              { value: 'DAG', label: 'DAG engine' },
+            ]}
+            title="Engine used for runs: nested workflows (interpreter) or dataflow scheduling (DAG)"
+          />
           <Button
             icon={<ApartmentOutlined />}
             onClick={handleLayout}
@@ -527,6 +561,9 @@ export default function WorkflowEditor() {
               <Button icon={<PlayCircleOutlined />} onClick={() => setRunDialogOpen(true)}>
                 Run
               </Button>
+              <Button icon={<NodeIndexOutlined />} onClick={handleExplain} title="Show which sequence steps run concurrently (saved version)">
+                Explain
+              </Button>
               <Button danger icon={<DeleteOutlined />} loading={deleting} onClick={handleDeleteWorkflow}>
                 Delete
               </Button>
@@ -608,13 +645,43 @@ export default function WorkflowEditor() {
         </aside>
       </div>
 
+      {plan && (
+        <Modal open title="Execution plan" footer={null} onCancel={() => setPlan(null)}>
+          <p className="text-slate-600 text-sm">
+            {plan.autoParallelize ? 'Auto-parallel sequences on' : 'Auto-parallel sequences off'} · estimated saving{' '}
+            {(plan.estimatedSavedMs / 1000).toFixed(1)}s per run
+          </p>
+          {plan.sequences.length === 0 && <p className="text-slate-500 text-sm">No sequence nodes.</p>}
+          {plan.sequences.map((sequence) => (
+            <div key={sequence.nodeId} className="mb-3">
+              <div className="font-medium text-sm">
+                {nodeLabel(sequence.nodeId)}{' '}
+                <span className="text-slate-500 font-normal">
+                  {(sequence.estimatedSerialMs / 1000).toFixed(1)}s → {(sequence.estimatedPlannedMs / 1000).toFixed(1)}s
+                </span>
+              </div>
+              <ol className="list-decimal ml-5 text-sm">
+                {sequence.stages.map((stage, i) => (
+                  <li key={i} className={stage.length > 1 ? 'text-emerald-700' : undefined}>
+                    {stage.map(nodeLabel).join(stage.length > 1 ? ' ∥ ' : ' → ')}
+                  </li>
+                ))}
+              </ol>
+            </div>
+          ))}
+        </Modal>
+      )}
+
       {runDialogOpen && id && (
         <RunDialog
           workflowId={id}
           workflowName={workflowName}
           onClose={() => setRunDialogOpen(false)}
-          onRun={async (wid, input) => runWorkflow(wid, input)}
-          onTrace={(executedNodeIds) => {
+          onRun={async (wid, input, previousRunId) => runWorkflow(wid, input, previousRunId)}
+          onResume={async (wid, runId) => resumeRun(wid, runId)}
+          previousRunId={lastRunId}
+          onTrace={(executedNodeIds, runId) => {
+            if (runId) setLastRunId(runId)
             const executedSet = new Set(executedNodeIds)
             setNodes((prev) =>
               prev.map((n) => ({
@@ -2,7 +2,7 @@ import { useCallback, useEffect, useState } from 'react'
 import { Link, useNavigate } from 'react-router-dom'
 import { Card, Button, Select, List, Space, Alert, Spin, Typography } from 'antd'
 import { PlusOutlined, PlayCircleOutlined, DeleteOutlined } from '@ant-design/icons'
-import { getWorkflows, getSampleWorkflows, runWorkflow, deleteWorkflow } from '../api/client'
+import { getWorkflows, getSampleWorkflows, runWorkflow, deleteWorkflow, resumeRun } from '../api/client'
 import RunDialog from '../components/RunDialog'
 import type { WorkflowListItem } from '../api/types'
 
@@ -140,6 +140,7 @@ export default function WorkflowList() {
           workflowName={runTarget.name}
           onClose={() => setRunTarget(null)}
           onRun={async (wid, input) => runWorkflow(wid, input)}
+          onResume={async (wid, runId) => resumeRun(wid, runId)}
         />
       )}
     </div>